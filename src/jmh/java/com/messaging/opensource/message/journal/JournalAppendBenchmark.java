@@ -0,0 +1,72 @@
+package com.messaging.opensource.message.journal;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.entity.MessageDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// 여러 WebSocket 스레드가 동시에 저널에 기록할 때의 기록 지연 분포 (GROUP_COMMIT: fsync 대기 포함, INTERVAL: 매핑 메모리 복사만)
+// 저장 스레드는 돌리지 않으므로 디스크 사용량이 반복 횟수만큼 늘어남 (trial 마다 삭제)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class JournalAppendBenchmark {
+
+    @Param({"GROUP_COMMIT", "INTERVAL"})
+    JournalSyncMode sync;
+
+    private Path directory;
+    private MessageJournal journal;
+    private MessageDocument message;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        JournalProperties properties = new JournalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSync(sync);
+        properties.setMaxSegments(0);
+        journal = new MessageJournal(properties, new BlockingExecutors(new MockEnvironment()), new SimpleMeterRegistry());
+        journal.open();
+
+        message = MessageDocument.builder()
+                .id(new ObjectId().toHexString())
+                .chatroomId(678L)
+                .senderId(12345L)
+                .content("안녕하세요, 오늘 회의는 세 시에 시작합니다.")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        journal.append(message);
+    }
+}
@@ -0,0 +1,115 @@
+package com.messaging.opensource.message.lean;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.entity.MessageDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 조회 응답 만들기: 엔티티 -> DTO 목록 변환, DTO 목록 JSON 직렬화, lean 경로의 BSON -> JSON 변환
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    int messageCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    // 직렬화 비용만 재도록 버리는 출력. ObjectMapper 가 close 해도 계속 쓸 수 있어야 함
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private List<MessageDocument> documents;
+    private List<MessageDocumentDto> dtos;
+    private List<RawBsonDocument> rawDocuments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        documents = new ArrayList<>(messageCount);
+        rawDocuments = new ArrayList<>(messageCount);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+        for (int i = 0; i < messageCount; i++) {
+            MessageDocument document = MessageDocument.builder()
+                    .id(new ObjectId().toHexString())
+                    .chatroomId(42L)
+                    .senderId((long) (i % 20))
+                    .content("메시지 " + i + " - 오늘 회의 자료는 공유 폴더에 올려두었습니다.")
+                    .timestamp(base.plusSeconds(i))
+                    .build();
+            documents.add(document);
+
+            Document stored = new Document("_id", new ObjectId(document.getId()))
+                    .append("chatroomId", document.getChatroomId())
+                    .append("senderId", document.getSenderId())
+                    .append("content", document.getContent())
+                    .append("timestamp", Date.from(document.getTimestamp().atZone(ZoneId.systemDefault()).toInstant()));
+            rawDocuments.add(new RawBsonDocument(stored, new DocumentCodec()));
+        }
+        dtos = documents.stream().map(MessageDocument::toDto).toList();
+    }
+
+    @Benchmark
+    public List<MessageDocumentDto> toDtoList() {
+        return documents.stream()
+                .map(MessageDocument::toDto)
+                .toList();
+    }
+
+    @Benchmark
+    public void serializeDtoList() throws IOException {
+        objectMapper.writeValue(sink, dtos);
+    }
+
+    @Benchmark
+    public void entityToJson() throws IOException {
+        objectMapper.writeValue(sink, toDtoList());
+    }
+
+    @Benchmark
+    public void leanBsonToJson() throws IOException {
+        BsonMessageJsonEncoder encoder = new BsonMessageJsonEncoder();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(sink, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (RawBsonDocument document : rawDocuments) {
+                encoder.write(document, generator);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.messaging.opensource.websocket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.websocket.wire.ChatFrame;
+import com.messaging.opensource.websocket.wire.OutboundFrame;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProperties;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// 채팅방 브로드캐스트 한 번의 비용 (프레임 인코딩 + 전체 접속자 전송)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChatFanOutBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int roomSize;
+
+    private WebSocketChatHandler handler;
+    private ChatRoom room;
+    private ChatFrame chatFrame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new WebSocketChatHandler(null, null, new BroadcastStats(), null, null, null,
+                new WireCodec(new WireProperties()), null, null, new ChatRoomProperties(), null,
+                new BlockingExecutors(new StandardEnvironment()));
+        room = new ChatRoom(1L, new ChatRoomProperties());
+        for (int i = 0; i < roomSize; i++) {
+            StubWebSocketSession session = new StubWebSocketSession("session-" + i, new HttpHeaders());
+            room.add(new UserInfo("user" + i, (long) i, 1L, session));
+        }
+        chatFrame = ChatFrame.chat(0L, "user0", 1L, 1L, System.currentTimeMillis(),
+                "안녕하세요, 오늘 회의는 세 시에 시작합니다.");
+    }
+
+    @Benchmark
+    public void broadcastExceptSender() throws IOException {
+        OutboundFrame frame = handler.encodeFrame(chatFrame);
+        handler.sendFrameToChatRoom(room, frame, "session-0");
+    }
+}
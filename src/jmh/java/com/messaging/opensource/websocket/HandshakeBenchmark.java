@@ -0,0 +1,63 @@
+package com.messaging.opensource.websocket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProperties;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpHeaders;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 핸드셰이크 때 한 번 하는 헤더 파싱, 메시지마다 하는 접속자 조회와 메시지 포맷 비용
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HandshakeBenchmark {
+
+    private WebSocketChatHandler handler;
+    private UserInfoHandshakeInterceptor interceptor;
+    private HttpHeaders headers;
+    private StubWebSocketSession session;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new WebSocketChatHandler(null, null, new BroadcastStats(), null, null, null,
+                new WireCodec(new WireProperties()), null, null, new ChatRoomProperties(), null,
+                new BlockingExecutors(new StandardEnvironment()));
+        interceptor = new UserInfoHandshakeInterceptor();
+
+        headers = new HttpHeaders();
+        headers.add("name", "홍길동");
+        headers.add("userId", "12345");
+        headers.add("chatRoomId", "678");
+        session = new StubWebSocketSession("session-1", headers);
+        interceptor.resolve(headers, session.getAttributes());
+    }
+
+    @Benchmark
+    public Map<String, Object> resolveHandshake() {
+        Map<String, Object> attributes = new HashMap<>();
+        interceptor.resolve(headers, attributes);
+        return attributes;
+    }
+
+    @Benchmark
+    public UserInfo extractUserInfo() {
+        return handler.extractUserInfo(session);
+    }
+
+    @Benchmark
+    public String formatMessage() {
+        return handler.formatMessage("홍길동", "안녕하세요, 오늘 회의는 세 시에 시작합니다.");
+    }
+}
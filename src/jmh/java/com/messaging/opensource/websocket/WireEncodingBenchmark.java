@@ -0,0 +1,58 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.websocket.wire.ChatFrame;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+
+// 브로드캐스트 한 번의 프레임 인코딩 비용 (텍스트 / 바이너리 / 바이너리 + 프레임 내 압축). 메시지당 바이트 수는 setup 에서 출력
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireEncodingBenchmark {
+
+    private static final String SENTENCE = "안녕하세요, 오늘 회의는 세 시에 시작합니다. ";
+
+    @Param({"32", "256", "2048"})
+    int contentLength;
+
+    private WireCodec codec;
+    private ChatFrame frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = new WireCodec(new WireProperties());
+        String content = SENTENCE.repeat(contentLength / SENTENCE.length() + 1).substring(0, contentLength);
+        frame = ChatFrame.chat(12345L, "홍길동", 678L, 1_000_000L, System.currentTimeMillis(), content);
+
+        System.out.printf("%ncontentLength=%d text=%dB binary=%dB binary+deflate=%dB%n", contentLength,
+                text().getPayloadLength(), binary().getPayloadLength(), binaryCompressed().getPayloadLength());
+    }
+
+    @Benchmark
+    public TextMessage text() {
+        return codec.outbound(frame).text();
+    }
+
+    @Benchmark
+    public BinaryMessage binary() {
+        return codec.outbound(frame).binary(false);
+    }
+
+    @Benchmark
+    public BinaryMessage binaryCompressed() {
+        return codec.outbound(frame).binary(true);
+    }
+}
@@ -0,0 +1,83 @@
+package com.messaging.opensource.loadtest;
+
+import com.messaging.opensource.OpensourceApplication;
+import com.messaging.opensource.message.writebehind.MessageWriteBehindQueue;
+import com.messaging.opensource.message.writebehind.WriteBehindStats;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 인메모리 Mongo(mongo-java-server)와 앱을 하네스와 같은 JVM 에 띄운다.
+ * mongod 나 컨테이너 없이 로컬에서 바로 돌릴 수 있게 하기 위한 것으로, 인메모리 Mongo 는 보조 인덱스를 무시하고 쓰기 처리량이
+ * 실제 Mongo 보다 낮으므로 저장 지연과 write-behind 역압은 비관적으로 나온다.
+ * load.app.xxx=값 으로 준 시스템 프로퍼티는 앱 설정 xxx 로 넘긴다 (예: -Pload.app.messaging.write-behind.backpressure=SPILL).
+ */
+class EmbeddedNode implements AutoCloseable {
+
+    private static final String APP_PROPERTY_PREFIX = "load.app.";
+
+    private final MongoServer mongoServer;
+    private final ConfigurableApplicationContext context;
+    private final int port;
+
+    private EmbeddedNode(MongoServer mongoServer, ConfigurableApplicationContext context, int port) {
+        this.mongoServer = mongoServer;
+        this.context = context;
+        this.port = port;
+    }
+
+    static EmbeddedNode start() {
+        MongoServer mongoServer = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongoServer.bind();
+        try {
+            // application.yml 보다 우선하도록 기본 프로퍼티가 아닌 명령행 인자로 넘김
+            List<String> args = new ArrayList<>(List.of(
+                    "--spring.data.mongodb.uri=mongodb://localhost:" + mongoAddress.getPort() + "/message_db",
+                    "--server.port=0",
+                    "--messaging.write-behind.spill-directory=build/load-test/spill"));
+            args.addAll(appArguments());
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(OpensourceApplication.class)
+                    .run(args.toArray(String[]::new));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return new EmbeddedNode(mongoServer, context, port);
+        } catch (RuntimeException e) {
+            mongoServer.shutdownNow();
+            throw e;
+        }
+    }
+
+    private static List<String> appArguments() {
+        return System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(APP_PROPERTY_PREFIX))
+                .map(name -> "--" + name.substring(APP_PROPERTY_PREFIX.length()) + "=" + System.getProperty(name))
+                .toList();
+    }
+
+    URI webSocketUri() {
+        return URI.create("ws://localhost:" + port + "/ws-booking-messaging");
+    }
+
+    URI httpBaseUri() {
+        return URI.create("http://localhost:" + port);
+    }
+
+    // 아직 Mongo 에 쓰이지 않은 메시지 수 (write-behind 큐 + spill / 저널 대기분)
+    long persistenceBacklog() {
+        WriteBehindStats stats = context.getBean(MessageWriteBehindQueue.class).getStats();
+        return stats.getQueueDepth() + stats.getSpilledPending() + stats.getJournalPending();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        mongoServer.shutdownNow();
+    }
+}
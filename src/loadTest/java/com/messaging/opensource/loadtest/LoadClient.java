@@ -0,0 +1,172 @@
+package com.messaging.opensource.loadtest;
+
+import com.messaging.opensource.websocket.wire.ChatFrame;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProperties;
+import com.messaging.opensource.websocket.wire.WireProtocol;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 부하 테스트용 WebSocket 클라이언트 하나.
+ * 보내는 본문에 전송 시각(System.nanoTime)을 넣고, 같은 방의 다른 클라이언트가 받은 시각과의 차이를 전달 지연으로 기록한다.
+ * 보내는 쪽과 받는 쪽이 모두 하네스 안에 있으므로 외부 노드를 대상으로 해도 같은 시계로 잰다.
+ * binary 이면 chat.binary.v1 서브프로토콜로 접속해서 바이너리 프레임으로 주고받는다.
+ */
+class LoadClient implements WebSocket.Listener {
+
+    static final String MARKER = "lt|";
+
+    // 서버가 붙이는 "이름 : " 접두어 뒤에 오는 본문 시작 위치를 찾기 위한 구분자
+    private static final String PAYLOAD_SEPARATOR = " : " + MARKER;
+
+    // 바이너리 프레임 해석용 (통계는 쓰지 않음)
+    private static final WireCodec WIRE_CODEC = new WireCodec(new WireProperties());
+
+    private final long chatRoomId;
+    private final String padding;
+    private final LoadMetrics metrics;
+    private final boolean binary;
+
+    private final StringBuilder partial = new StringBuilder();
+    private final ByteArrayOutputStream partialBinary = new ByteArrayOutputStream();
+    private volatile WebSocket webSocket;
+    private volatile CompletableFuture<WebSocket> lastSend = CompletableFuture.completedFuture(null);
+    private long sequence;
+
+    LoadClient(long chatRoomId, int messageSize, boolean binary, LoadMetrics metrics) {
+        this.chatRoomId = chatRoomId;
+        this.padding = "x".repeat(Math.max(0, messageSize));
+        this.binary = binary;
+        this.metrics = metrics;
+    }
+
+    CompletableFuture<WebSocket> connect(HttpClient httpClient, URI target, long userId) {
+        WebSocket.Builder builder = httpClient.newWebSocketBuilder();
+        if (binary) {
+            builder.subprotocols(WireProtocol.BINARY_SUBPROTOCOL);
+        }
+        return builder
+                .connectTimeout(Duration.ofSeconds(10))
+                .header("name", "load-" + userId)
+                .header("userId", String.valueOf(userId))
+                .header("chatRoomId", String.valueOf(chatRoomId))
+                .buildAsync(target, this)
+                .thenApply(connected -> this.webSocket = connected);
+    }
+
+    // 이전 전송이 아직 끝나지 않았으면 보내지 않고 건너뜀 (java.net.http.WebSocket 은 동시 전송을 허용하지 않음)
+    boolean send(boolean measured) {
+        WebSocket current = webSocket;
+        if (current == null || current.isOutputClosed() || !lastSend.isDone()) {
+            metrics.recordSendSkipped();
+            return false;
+        }
+        String content = MARKER + System.nanoTime() + "|" + (measured ? 'm' : 'w') + "|" + (sequence++) + "|" + padding;
+        lastSend = binary ? current.sendBinary(encodeInbound(content), true) : current.sendText(content, true);
+        metrics.recordSent(measured);
+        return true;
+    }
+
+    // 클라이언트 → 서버 바이너리 프레임: type(CHAT), flags(0), UTF-8 본문
+    private static ByteBuffer encodeInbound(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(2 + bytes.length).put((byte) 1).put((byte) 0).put(bytes).flip();
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        long receivedAt = System.nanoTime();
+        if (!last) {
+            partial.append(data);
+            webSocket.request(1);
+            return null;
+        }
+
+        CharSequence message = data;
+        if (!partial.isEmpty()) {
+            message = partial.append(data).toString();
+            partial.setLength(0);
+        }
+        String text = message.toString();
+        metrics.recordFrame(text.getBytes(StandardCharsets.UTF_8).length);
+        // 배치/합쳐진 프레임은 메시지가 줄바꿈으로 이어져 있음
+        int start = text.indexOf(PAYLOAD_SEPARATOR);
+        while (start >= 0) {
+            onMessage(text, start + PAYLOAD_SEPARATOR.length() - MARKER.length(), receivedAt);
+            start = text.indexOf(PAYLOAD_SEPARATOR, start + PAYLOAD_SEPARATOR.length());
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        long receivedAt = System.nanoTime();
+        if (!last || partialBinary.size() > 0) {
+            byte[] chunk = new byte[data.remaining()];
+            data.get(chunk);
+            partialBinary.writeBytes(chunk);
+            if (!last) {
+                webSocket.request(1);
+                return null;
+            }
+            data = ByteBuffer.wrap(partialBinary.toByteArray());
+            partialBinary.reset();
+        }
+        metrics.recordFrame(data.remaining());
+        for (ChatFrame frame : WIRE_CODEC.decodeAll(data)) {
+            if (frame.type() == ChatFrame.Type.CHAT && frame.content().startsWith(MARKER)) {
+                onMessage(frame.content(), 0, receivedAt);
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    // 입장/퇴장 같은 시스템 메시지는 측정 대상이 아니므로 호출하지 않음. start 는 본문(lt|...)의 시작 위치
+    private void onMessage(String message, int start, long receivedAt) {
+        int sentAtStart = start + MARKER.length();
+        int sentAtEnd = message.indexOf('|', sentAtStart);
+        if (sentAtEnd < 0 || sentAtEnd + 1 >= message.length()) {
+            return;
+        }
+        long sentAt = Long.parseLong(message, sentAtStart, sentAtEnd, 10);
+        boolean measured = message.charAt(sentAtEnd + 1) == 'm';
+        metrics.recordReceived(measured, (receivedAt - sentAt) / 1_000);
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        metrics.recordClientError();
+    }
+
+    void close() {
+        WebSocket current = webSocket;
+        if (current != null && !current.isOutputClosed()) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+        }
+    }
+
+    boolean isOpen() {
+        WebSocket current = webSocket;
+        return current != null && !current.isInputClosed();
+    }
+
+    long getChatRoomId() {
+        return chatRoomId;
+    }
+}
@@ -0,0 +1,76 @@
+package com.messaging.opensource.loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 모든 클라이언트가 함께 쓰는 측정값.
+ * 워밍업 중에 보낸 메시지는 지연/유실 계산에서 빼고, 측정 구간(measured)에 보낸 메시지만 센다.
+ */
+class LoadMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder warmupSent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder receivedFrames = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder sendSkipped = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+
+    void recordSent(boolean measured) {
+        (measured ? sent : warmupSent).increment();
+    }
+
+    void recordReceived(boolean measured, long latencyMicros) {
+        if (measured) {
+            received.increment();
+            latency.record(latencyMicros);
+        }
+    }
+
+    // 프로토콜별 전송량 비교용. 시스템 메시지와 워밍업을 포함한 모든 수신 프레임
+    void recordFrame(int payloadBytes) {
+        receivedFrames.increment();
+        receivedBytes.add(payloadBytes);
+    }
+
+    void recordSendSkipped() {
+        sendSkipped.increment();
+    }
+
+    void recordClientError() {
+        clientErrors.increment();
+    }
+
+    LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    long getSent() {
+        return sent.sum();
+    }
+
+    long getWarmupSent() {
+        return warmupSent.sum();
+    }
+
+    long getReceived() {
+        return received.sum();
+    }
+
+    long getReceivedFrames() {
+        return receivedFrames.sum();
+    }
+
+    long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    long getSendSkipped() {
+        return sendSkipped.sum();
+    }
+
+    long getClientErrors() {
+        return clientErrors.sum();
+    }
+}
@@ -0,0 +1,70 @@
+package com.messaging.opensource.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * 부하 테스트 설정. gradle loadTest -Pload.xxx=값 으로 지정한다.
+ * max-* 기준은 지정한 것만 검사하며, 하나라도 넘으면 실패로 종료한다.
+ *
+ * @param target        외부 노드의 WebSocket 주소 (없으면 인메모리 Mongo 와 앱을 직접 띄움)
+ * @param rooms         채팅방 수
+ * @param roomSize      채팅방당 접속자 수
+ * @param rate          전체 초당 전송 메시지 수
+ * @param warmup        측정 전 전송 시간
+ * @param duration      측정 시간
+ * @param messageSize   메시지 본문 크기 (bytes)
+ * @param binary        chat.binary.v1 서브프로토콜 사용 여부 (load.protocol=binary)
+ * @param drainTimeout  전송이 끝난 뒤 수신/저장을 기다리는 최대 시간
+ */
+record LoadProfile(String target,
+                   int rooms,
+                   int roomSize,
+                   int rate,
+                   Duration warmup,
+                   Duration duration,
+                   int messageSize,
+                   boolean binary,
+                   Duration drainTimeout,
+                   Duration maxP99,
+                   Duration maxP999,
+                   Double maxDropRate,
+                   Duration maxPersistLag) {
+
+    static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                System.getProperty("load.target"),
+                intProperty("load.rooms", 50),
+                intProperty("load.room-size", 20),
+                intProperty("load.rate", 2000),
+                durationProperty("load.warmup", Duration.ofSeconds(5)),
+                durationProperty("load.duration", Duration.ofSeconds(30)),
+                intProperty("load.message-size", 64),
+                "binary".equalsIgnoreCase(System.getProperty("load.protocol", "text")),
+                durationProperty("load.drain-timeout", Duration.ofSeconds(15)),
+                durationProperty("load.max-p99", null),
+                durationProperty("load.max-p999", null),
+                doubleProperty("load.max-drop-rate"),
+                durationProperty("load.max-persist-lag", null));
+    }
+
+    int clients() {
+        return rooms * roomSize;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static Double doubleProperty(String name) {
+        String value = System.getProperty(name);
+        return value == null ? null : Double.valueOf(value);
+    }
+
+    private static Duration durationProperty(String name, Duration defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : DurationStyle.detectAndParse(value);
+    }
+}
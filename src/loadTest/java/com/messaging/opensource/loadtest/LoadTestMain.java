@@ -0,0 +1,325 @@
+package com.messaging.opensource.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * WebSocket 부하 테스트 진입점 (gradle loadTest).
+ * 채팅방마다 room-size 명의 클라이언트를 붙이고 전체 rate 로 메시지를 보낸 뒤,
+ * 전달 지연 p50/p99/p999, 유실 메시지 수, 저장 지연을 출력하고 build/load-test/results.json 에 남긴다.
+ * load.max-* 기준을 넘으면 종료 코드 1 로 끝나므로 회귀 검증에 사용할 수 있다.
+ */
+public class LoadTestMain {
+
+    // 실제 채팅방과 겹치지 않도록 떨어진 ID 대역 사용
+    private static final long ROOM_ID_BASE = 1_000_000_000L;
+    private static final long USER_ID_BASE = 1_000_000_000L;
+
+    private static final int CONNECT_BATCH_SIZE = 200;
+    private static final int COUNT_BATCH_SIZE = 500;
+    private static final long TICK_MILLIS = 10;
+    private static final Path RESULT_FILE = Path.of("build", "load-test", "results.json");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Object> result = execute(LoadProfile.fromSystemProperties());
+        writeResult(RESULT_FILE, result);
+        System.exit(Boolean.TRUE.equals(result.get("passed")) ? 0 : 1);
+    }
+
+    // 프로필 한 번 실행 (load.target 이 없으면 노드를 띄우고 끝나면 내림)
+    static Map<String, Object> execute(LoadProfile profile) throws Exception {
+        if (profile.roomSize() < 2) {
+            throw new IllegalArgumentException("load.room-size must be at least 2");
+        }
+
+        EmbeddedNode node = profile.target() == null ? EmbeddedNode.start() : null;
+        try {
+            URI webSocketUri = node != null ? node.webSocketUri() : URI.create(profile.target());
+            URI httpBaseUri = node != null ? node.httpBaseUri() : httpBaseOf(webSocketUri);
+            LongSupplier backlog = node != null ? node::persistenceBacklog : null;
+            return run(profile, webSocketUri, httpBaseUri, backlog);
+        } finally {
+            if (node != null) {
+                node.close();
+            }
+        }
+    }
+
+    static void writeResult(Path file, Object result) throws IOException {
+        Files.createDirectories(file.getParent());
+        objectMapper.writeValue(file.toFile(), result);
+        System.out.println("Results written to " + file.toAbsolutePath());
+    }
+
+    private static Map<String, Object> run(LoadProfile profile, URI webSocketUri, URI httpBaseUri,
+                                           LongSupplier backlog) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        HttpClient httpClient = newHttpClient();
+        LoadMetrics metrics = new LoadMetrics();
+        List<Long> roomIds = new ArrayList<>();
+        for (int room = 0; room < profile.rooms(); room++) {
+            roomIds.add(ROOM_ID_BASE + room);
+        }
+
+        System.out.printf("Connecting %d clients (%d rooms x %d) to %s%n",
+                profile.clients(), profile.rooms(), profile.roomSize(), webSocketUri);
+        List<LoadClient> clients = new ArrayList<>(profile.clients());
+        long connectStartedAt = System.nanoTime();
+        int connectFailures = connect(webSocketUri, profile, roomIds, metrics, clients);
+        long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStartedAt);
+
+        // 입장 메시지가 모두 퍼진 뒤에 기준 개수를 잰다
+        Thread.sleep(1_000);
+        long baselineCount = countMessages(httpClient, httpBaseUri, roomIds);
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "load-test-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicLong maxBacklog = new AtomicLong();
+        if (backlog != null) {
+            scheduler.scheduleAtFixedRate(() -> maxBacklog.accumulateAndGet(backlog.getAsLong(), Math::max),
+                    0, 500, TimeUnit.MILLISECONDS);
+        }
+
+        System.out.printf("Sending %d msg/s: warmup %s, measure %s%n", profile.rate(), profile.warmup(), profile.duration());
+        long sendFinishedAt = send(scheduler, profile, clients);
+
+        long expectedDeliveries = metrics.getSent() * (profile.roomSize() - 1);
+        long expectedPersisted = metrics.getWarmupSent() + metrics.getSent();
+        Duration persistLag = drain(httpClient, httpBaseUri, roomIds, profile, metrics,
+                expectedDeliveries, baselineCount + expectedPersisted, sendFinishedAt);
+        long persisted = countMessages(httpClient, httpBaseUri, roomIds) - baselineCount;
+
+        scheduler.shutdownNow();
+        closeClients(clients);
+
+        LatencyHistogram latency = metrics.getLatency();
+        long dropped = Math.max(0, expectedDeliveries - metrics.getReceived());
+        double dropRate = expectedDeliveries == 0 ? 0 : (double) dropped / expectedDeliveries;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("target", webSocketUri.toString());
+        result.put("rooms", profile.rooms());
+        result.put("roomSize", profile.roomSize());
+        result.put("clients", profile.clients());
+        result.put("connectFailures", connectFailures);
+        result.put("connectMillis", connectMillis);
+        result.put("rate", profile.rate());
+        result.put("durationMillis", profile.duration().toMillis());
+        result.put("sent", metrics.getSent());
+        result.put("sendSkipped", metrics.getSendSkipped());
+        result.put("clientErrors", metrics.getClientErrors());
+        result.put("expectedDeliveries", expectedDeliveries);
+        result.put("delivered", metrics.getReceived());
+        result.put("protocol", profile.binary() ? "binary" : "text");
+        result.put("bytesPerFrame", metrics.getReceivedFrames() == 0 ? null
+                : (double) metrics.getReceivedBytes() / metrics.getReceivedFrames());
+        result.put("dropped", dropped);
+        result.put("dropRate", dropRate);
+        result.put("latencyP50Micros", latency.percentile(50));
+        result.put("latencyP99Micros", latency.percentile(99));
+        result.put("latencyP999Micros", latency.percentile(99.9));
+        result.put("expectedPersisted", expectedPersisted);
+        result.put("persisted", persisted);
+        result.put("persistLagMillis", persistLag == null ? null : persistLag.toMillis());
+        result.put("maxPersistenceBacklog", backlog == null ? null : maxBacklog.get());
+        // 가상 스레드는 포함되지 않음. 노드를 같은 JVM 에 띄운 경우에만 의미가 있음
+        result.put("peakPlatformThreads", threads.getPeakThreadCount());
+
+        List<String> violations = checkThresholds(profile, connectFailures, latency, dropRate, persistLag);
+        result.put("violations", violations);
+        result.put("passed", violations.isEmpty());
+
+        printSummary(result);
+        return result;
+    }
+
+    // 핸드셰이크가 한꺼번에 몰리지 않게 나눠서 연결.
+    // HttpClient 하나는 selector 스레드 하나로 모든 연결을 읽으므로, 수신 쪽이 병목이 되지 않게 여러 개로 나눔
+    private static int connect(URI webSocketUri, LoadProfile profile, List<Long> roomIds,
+                               LoadMetrics metrics, List<LoadClient> clients) {
+        HttpClient[] httpClients = new HttpClient[Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < httpClients.length; i++) {
+            httpClients[i] = newHttpClient();
+        }
+        int failures = 0;
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        long userId = USER_ID_BASE;
+        for (int member = 0; member < profile.roomSize(); member++) {
+            for (Long roomId : roomIds) {
+                LoadClient client = new LoadClient(roomId, profile.messageSize(), profile.binary(), metrics);
+                clients.add(client);
+                pending.add(client.connect(httpClients[clients.size() % httpClients.length], webSocketUri, userId++));
+                if (pending.size() == CONNECT_BATCH_SIZE) {
+                    failures += awaitConnections(pending);
+                }
+            }
+        }
+        failures += awaitConnections(pending);
+        return failures;
+    }
+
+    private static int awaitConnections(List<CompletableFuture<?>> pending) {
+        int failures = 0;
+        for (CompletableFuture<?> future : pending) {
+            try {
+                future.join();
+            } catch (RuntimeException e) {
+                failures++;
+            }
+        }
+        pending.clear();
+        return failures;
+    }
+
+    // 경과 시간 기준으로 보낼 개수를 정해서 tick 이 밀려도 전체 전송률이 유지되게 함
+    private static long send(ScheduledExecutorService scheduler, LoadProfile profile, List<LoadClient> clients)
+            throws InterruptedException {
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + profile.warmup().toNanos();
+        long finishAt = measureFrom + profile.duration().toNanos();
+        long[] issued = {0};
+        int[] next = {0};
+
+        var task = scheduler.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            if (now >= finishAt) {
+                return;
+            }
+            long due = (now - startedAt) * profile.rate() / 1_000_000_000L;
+            boolean measured = now >= measureFrom;
+            for (; issued[0] < due; issued[0]++) {
+                clients.get(next[0]).send(measured);
+                next[0] = (next[0] + 1) % clients.size();
+            }
+        }, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        TimeUnit.NANOSECONDS.sleep(finishAt - System.nanoTime());
+        task.cancel(false);
+        return System.nanoTime();
+    }
+
+    // 모든 메시지가 전달되고 저장될 때까지 drain-timeout 만큼 기다림. 저장 지연은 전송 종료 시점부터 잰다
+    private static Duration drain(HttpClient httpClient, URI httpBaseUri, List<Long> roomIds, LoadProfile profile,
+                                  LoadMetrics metrics, long expectedDeliveries, long expectedCount,
+                                  long sendFinishedAt) throws InterruptedException {
+        long deadline = sendFinishedAt + profile.drainTimeout().toNanos();
+        Duration persistLag = null;
+        while (System.nanoTime() < deadline) {
+            if (persistLag == null && countMessages(httpClient, httpBaseUri, roomIds) >= expectedCount) {
+                persistLag = Duration.ofNanos(System.nanoTime() - sendFinishedAt);
+            }
+            if (persistLag != null && metrics.getReceived() >= expectedDeliveries) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        return persistLag;
+    }
+
+    // 노드를 내리기 전에 연결이 정상 종료되도록 잠시 기다림
+    private static void closeClients(List<LoadClient> clients) throws InterruptedException {
+        clients.forEach(LoadClient::close);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline && clients.stream().anyMatch(LoadClient::isOpen)) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static long countMessages(HttpClient httpClient, URI httpBaseUri, List<Long> roomIds) {
+        long total = 0;
+        for (int from = 0; from < roomIds.size(); from += COUNT_BATCH_SIZE) {
+            String ids = roomIds.subList(from, Math.min(from + COUNT_BATCH_SIZE, roomIds.size())).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(","));
+            HttpRequest request = HttpRequest.newBuilder(
+                            httpBaseUri.resolve("/v1/api/messages/chatroom/count?chatroomIds=" + ids))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Count request failed: " + response.statusCode());
+                }
+                for (JsonNode room : objectMapper.readTree(response.body())) {
+                    total += room.path("count").asLong();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Count request failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while counting messages", e);
+            }
+        }
+        return total;
+    }
+
+    private static List<String> checkThresholds(LoadProfile profile, int connectFailures, LatencyHistogram latency,
+                                                double dropRate, Duration persistLag) {
+        List<String> violations = new ArrayList<>();
+        if (connectFailures > 0) {
+            violations.add(connectFailures + " clients failed to connect");
+        }
+        if (latency.count() == 0) {
+            violations.add("no messages were delivered");
+        }
+        if (profile.maxP99() != null && latency.percentile(99) > profile.maxP99().toNanos() / 1_000) {
+            violations.add("p99 " + latency.percentile(99) + "us > " + profile.maxP99().toMillis() + "ms");
+        }
+        if (profile.maxP999() != null && latency.percentile(99.9) > profile.maxP999().toNanos() / 1_000) {
+            violations.add("p999 " + latency.percentile(99.9) + "us > " + profile.maxP999().toMillis() + "ms");
+        }
+        if (profile.maxDropRate() != null && dropRate > profile.maxDropRate()) {
+            violations.add("drop rate " + dropRate + " > " + profile.maxDropRate());
+        }
+        if (profile.maxPersistLag() != null
+                && (persistLag == null || persistLag.compareTo(profile.maxPersistLag()) > 0)) {
+            violations.add("persist lag " + (persistLag == null ? "exceeded drain timeout" : persistLag.toMillis() + "ms")
+                    + " > " + profile.maxPersistLag().toMillis() + "ms");
+        }
+        return violations;
+    }
+
+    private static void printSummary(Map<String, Object> result) {
+        System.out.println("---- load test result ----");
+        result.forEach((key, value) -> System.out.printf("%-22s %s%n", key, value));
+    }
+
+    private static HttpClient newHttpClient() {
+        return HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    private static URI httpBaseOf(URI webSocketUri) {
+        String scheme = "wss".equals(webSocketUri.getScheme()) ? "https" : "http";
+        return URI.create(scheme + "://" + webSocketUri.getRawAuthority());
+    }
+}
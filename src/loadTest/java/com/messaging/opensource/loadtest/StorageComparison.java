@@ -0,0 +1,170 @@
+package com.messaging.opensource.loadtest;
+
+import com.messaging.opensource.message.MessageIndexInitializer;
+import com.messaging.opensource.message.MessageRepositoryCustomImpl;
+import com.messaging.opensource.message.archive.ArchiveProperties;
+import com.messaging.opensource.message.archive.MessageArchive;
+import com.messaging.opensource.message.bucket.MessageBucketStore;
+import com.messaging.opensource.message.bucket.StorageMode;
+import com.messaging.opensource.message.bucket.StorageProperties;
+import com.messaging.opensource.message.entity.MessageBucket;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 같은 메시지를 메시지별 문서(messages)와 시간 구간 버킷(message_buckets)에 각각 저장해서
+ * 쓰기 처리량, 컬렉션/인덱스 크기, 히스토리 페이지(최신 50개, 특정 시각 이전 50개) 조회 지연을 비교한다 (gradle storageBenchmark).
+ * storage.mongo-uri 를 주면 해당 Mongo 에, 없으면 인메모리 Mongo 에 storage_benchmark 데이터베이스를 새로 만들어 측정한다.
+ * 인메모리 Mongo 는 크기 통계를 제공하지 않고 인덱스 구현도 달라서 크기 비교와 절대 지연은 실제 Mongo 에서 봐야 한다.
+ */
+public class StorageComparison {
+
+    private static final Path RESULT_FILE = Path.of("build", "storage-benchmark", "results.json");
+    private static final String DATABASE = "storage_benchmark";
+    private static final int PAGE_SIZE = 50;
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    public static void main(String[] args) throws Exception {
+        String mongoUri = System.getProperty("storage.mongo-uri");
+        int rooms = Integer.getInteger("storage.rooms", 20);
+        int messagesPerRoom = Integer.getInteger("storage.messages-per-room", 5000);
+        Duration interval = Duration.parse(System.getProperty("storage.interval", "PT5S"));
+        int samples = Integer.getInteger("storage.samples", 2000);
+
+        MongoServer server = mongoUri == null ? new MongoServer(new MemoryBackend()) : null;
+        try (MongoClient client = MongoClients.create(server != null ? server.bindAndGetConnectionString() : mongoUri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, DATABASE);
+            mongoTemplate.getDb().drop();
+            new MessageIndexInitializer(mongoTemplate).ensureIndexes();
+
+            LocalDateTime start = LocalDateTime.now().minus(interval.multipliedBy(messagesPerRoom));
+            List<MessageDocument> messages = generate(rooms, messagesPerRoom, start, interval);
+            System.out.printf("%d rooms x %d messages, one message per room every %s%n", rooms, messagesPerRoom, interval);
+
+            Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+            for (StorageMode mode : List.of(StorageMode.DOCUMENT, StorageMode.BUCKETED)) {
+                MessageRepositoryCustomImpl repository = repository(mongoTemplate, mode);
+                Map<String, Object> result = new LinkedHashMap<>();
+
+                long writeStart = System.nanoTime();
+                for (int from = 0; from < messages.size(); from += WRITE_BATCH_SIZE) {
+                    repository.insertIgnoringDuplicates(messages.subList(from, Math.min(from + WRITE_BATCH_SIZE, messages.size())));
+                }
+                long writeNanos = System.nanoTime() - writeStart;
+                result.put("writeMillis", writeNanos / 1_000_000);
+                result.put("writesPerSecond", messages.size() * 1_000_000_000L / Math.max(1, writeNanos));
+
+                String collection = mongoTemplate.getCollectionName(mode == StorageMode.DOCUMENT ? MessageDocument.class : MessageBucket.class);
+                result.put("documents", mongoTemplate.getCollection(collection).countDocuments());
+                result.putAll(collectionStats(mongoTemplate, collection));
+
+                SplittableRandom random = new SplittableRandom(42);
+                LatencyHistogram latest = measure(samples, () -> repository.findPage(new MessagePageQuery(
+                        room(random, rooms), null, Sort.Direction.DESC, null, PAGE_SIZE)));
+                LatencyHistogram before = measure(samples, () -> repository.findPage(new MessagePageQuery(
+                        room(random, rooms), null, Sort.Direction.DESC,
+                        MessageCursor.startingAt(start.plus(interval.multipliedBy(random.nextInt(messagesPerRoom)))), PAGE_SIZE)));
+                putLatency(result, "latestPage", latest);
+                putLatency(result, "beforePage", before);
+
+                results.put(mode.name().toLowerCase(), result);
+            }
+
+            System.out.println("---- storage comparison ----");
+            System.out.printf("%-24s %15s %15s%n", "", "document", "bucketed");
+            for (String column : results.get("document").keySet()) {
+                System.out.printf("%-24s %15s %15s%n", column,
+                        results.get("document").get(column), results.get("bucketed").get(column));
+            }
+            LoadTestMain.writeResult(RESULT_FILE, results);
+        } finally {
+            if (server != null) {
+                server.shutdown();
+            }
+        }
+    }
+
+    private static MessageRepositoryCustomImpl repository(MongoTemplate mongoTemplate, StorageMode mode) {
+        StorageProperties properties = new StorageProperties();
+        properties.setMode(mode);
+        // 아카이브는 비교 대상이 아니므로 세그먼트를 읽지 않은 빈 목록
+        return new MessageRepositoryCustomImpl(mongoTemplate, properties, new MessageBucketStore(mongoTemplate, properties),
+                new MessageArchive(new ArchiveProperties()));
+    }
+
+    // 채팅방들이 같은 시각에 번갈아 보내는 순서로 생성 (실제 write-behind 배치처럼 여러 채팅방이 섞임)
+    private static List<MessageDocument> generate(int rooms, int messagesPerRoom, LocalDateTime start, Duration interval) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<MessageDocument> messages = new ArrayList<>(rooms * messagesPerRoom);
+        for (int i = 0; i < messagesPerRoom; i++) {
+            LocalDateTime timestamp = start.plus(interval.multipliedBy(i));
+            for (long room = 1; room <= rooms; room++) {
+                messages.add(MessageDocument.builder()
+                        .id(new ObjectId().toHexString())
+                        .chatroomId(room)
+                        .senderId((long) random.nextInt(25))
+                        .content("message " + i + " in room " + room)
+                        .timestamp(timestamp)
+                        .build());
+            }
+        }
+        return messages;
+    }
+
+    private static Long room(SplittableRandom random, int rooms) {
+        return (long) random.nextInt(rooms) + 1;
+    }
+
+    // 처음 1/10 은 워밍업으로 버림
+    private static LatencyHistogram measure(int samples, Runnable query) {
+        for (int i = 0; i < samples / 10; i++) {
+            query.run();
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            query.run();
+            histogram.record((System.nanoTime() - start) / 1_000);
+        }
+        return histogram;
+    }
+
+    private static void putLatency(Map<String, Object> result, String name, LatencyHistogram histogram) {
+        result.put(name + "P50Micros", histogram.percentile(50));
+        result.put(name + "P99Micros", histogram.percentile(99));
+    }
+
+    // collStats 를 지원하지 않으면 null
+    private static Map<String, Object> collectionStats(MongoTemplate mongoTemplate, String collection) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Document collStats = null;
+        try {
+            collStats = mongoTemplate.getDb().runCommand(new Document("collStats", collection));
+        } catch (Exception e) {
+            System.out.println("collStats unavailable for " + collection + ": " + e.getMessage());
+        }
+        for (String field : List.of("size", "storageSize", "totalIndexSize")) {
+            Object value = collStats != null ? collStats.get(field) : null;
+            stats.put(field + "Bytes", value instanceof Number number ? number.longValue() : null);
+        }
+        return stats;
+    }
+}
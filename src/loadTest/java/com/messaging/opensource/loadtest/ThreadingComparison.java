@@ -0,0 +1,43 @@
+package com.messaging.opensource.loadtest;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 같은 부하 프로필을 플랫폼 스레드 모드와 가상 스레드 모드(spring.threads.virtual.enabled)로 한 번씩 돌려서 비교한다 (gradle loadTestThreading).
+ * 노드는 매번 같은 JVM 에 새로 띄우며, 연결 시간, 전달 지연, 유실, 저장 지연, 최대 플랫폼 스레드 수를 나란히 출력한다.
+ */
+public class ThreadingComparison {
+
+    private static final String VIRTUAL_PROPERTY = "load.app.spring.threads.virtual.enabled";
+    private static final Path RESULT_FILE = Path.of("build", "load-test", "threading-comparison.json");
+
+    private static final List<String> COLUMNS = List.of(
+            "connectFailures", "connectMillis", "delivered", "dropped", "latencyP50Micros", "latencyP99Micros",
+            "latencyP999Micros", "persistLagMillis", "peakPlatformThreads");
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        if (profile.target() != null) {
+            throw new IllegalArgumentException("Threading comparison starts its own nodes; remove load.target");
+        }
+
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        for (String mode : List.of("platform", "virtual")) {
+            System.setProperty(VIRTUAL_PROPERTY, String.valueOf(mode.equals("virtual")));
+            System.out.println("==== " + mode + " threads ====");
+            results.put(mode, LoadTestMain.execute(profile));
+        }
+
+        System.out.println("---- threading comparison ----");
+        System.out.printf("%-22s %15s %15s%n", "", "platform", "virtual");
+        for (String column : COLUMNS) {
+            System.out.printf("%-22s %15s %15s%n", column,
+                    results.get("platform").get(column), results.get("virtual").get(column));
+        }
+        LoadTestMain.writeResult(RESULT_FILE, results);
+        System.exit(0);
+    }
+}
@@ -2,11 +2,15 @@ package com.messaging.opensource;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 
 @SpringBootApplication
 @EnableMongoRepositories
+@EnableScheduling
+@ConfigurationPropertiesScan
 public class OpensourceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,51 @@
+package com.messaging.opensource.concurrent;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Mongo 저장, 세션 전송처럼 블로킹 I/O 를 하는 작업용 스레드와 실행기를 만든다.
+ * spring.threads.virtual.enabled=true 이면 가상 스레드를, 아니면 기존처럼 이름 붙은 daemon 플랫폼 스레드를 사용한다.
+ * 채팅방 이벤트 루프처럼 순서 보장이 목적인 CPU 작업용 스레드는 대상이 아니다.
+ */
+@Component
+public class BlockingExecutors {
+
+    private final boolean virtual;
+
+    @Autowired
+    public BlockingExecutors(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // 작업이 이미 키 단위로 직렬화되어 있을 때 사용. 가상 스레드 모드에서는 작업마다 가상 스레드, 아니면 고정 크기 풀
+    public ExecutorService newPool(String namePrefix, int platformThreads) {
+        if (virtual) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+        }
+        return Executors.newFixedThreadPool(platformThreads, Thread.ofPlatform().name(namePrefix, 0).daemon().factory());
+    }
+
+    // 작업을 제출 순서대로 하나씩 실행
+    public ExecutorService newSerialExecutor(String name) {
+        return Executors.newSingleThreadExecutor(threadBuilder(name).factory());
+    }
+
+    // 시작하지 않은 스레드
+    public Thread newThread(String name, Runnable task) {
+        return threadBuilder(name).unstarted(task);
+    }
+
+    private Thread.Builder threadBuilder(String name) {
+        return virtual ? Thread.ofVirtual().name(name) : Thread.ofPlatform().name(name).daemon();
+    }
+}
@@ -0,0 +1,22 @@
+package com.messaging.opensource.concurrent;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.virtual-threads")
+public class VirtualThreadProperties {
+
+    // 이 시간 이상 캐리어 스레드에 고정(pinned)된 경우만 기록
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+
+    // 로그로 남길 서로 다른 pinning 스택의 최대 개수 (같은 위치는 한 번만 기록)
+    private int maxLoggedStacks = 50;
+
+    // 로그에 남길 스택 프레임 수
+    private int stackDepth = 12;
+}
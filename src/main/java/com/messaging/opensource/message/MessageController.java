@@ -2,10 +2,24 @@ package com.messaging.opensource.message;
 
 import com.messaging.opensource.message.dto.CountMessagesByChatroomDto;
 import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.dto.MessagePageDto;
+import com.messaging.opensource.message.dto.PurgeJobDto;
+import com.messaging.opensource.message.dto.UnreadCountDto;
+import com.messaging.opensource.message.export.MessageExporter;
+import com.messaging.opensource.message.search.SearchResult;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -14,8 +28,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MessageController implements MessageControllerInterface {
 
+    private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // 채팅방 메시지가 색인 최대 개수보다 많아서 최근 메시지만 검색했는지
+    private static final String SEARCH_TRUNCATED_HEADER = "X-Search-Truncated";
+
     private final MessageService messageService;
 
+    private final MessageExporter messageExporter;
+
     // 특정 채팅방의 모든 메시지 조회 (시간순)
     @GetMapping("/chatroom/{chatroomId}")
     public ResponseEntity<List<MessageDocumentDto>> getMessagesByChatroom(
@@ -25,13 +48,47 @@ public class MessageController implements MessageControllerInterface {
                 messageService.getMessagesByChatroomInOrder(chatroomId));
     }
 
+    // 특정 채팅방의 모든 메시지 조회 (시간순, lean)
+    @GetMapping(value = "/chatroom/{chatroomId}", params = "lean=true")
+    public ResponseEntity<StreamingResponseBody> getMessagesByChatroomLean(
+            @PathVariable Long chatroomId) {
+
+        return leanJson(outputStream -> messageService.writeMessagesByChatroomLean(chatroomId, outputStream));
+    }
+
+    // 특정 채팅방의 전체 메시지를 NDJSON 으로 스트리밍 내보내기
+    @GetMapping("/chatroom/{chatroomId}/export")
+    public ResponseEntity<ResponseBodyEmitter> exportMessagesByChatroom(
+            @PathVariable Long chatroomId,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(messageExporter.export(chatroomId, gzip));
+    }
+
+    // 특정 채팅방의 메시지 페이지 조회 (커서 기반)
+    @GetMapping("/chatroom/{chatroomId}/page")
+    public ResponseEntity<MessagePageDto> getMessagePageByChatroom(
+            @PathVariable Long chatroomId,
+            @RequestParam(defaultValue = "ASC") Sort.Direction order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+
+        return ResponseEntity.ok().body(
+                messageService.getMessagePageByChatroom(chatroomId, order, cursor, size));
+    }
+
     // 특정 채팅방의 최신순으로 메시지 조회
     @GetMapping("/chatroom/{chatroomId}/recent")
     public ResponseEntity<List<MessageDocumentDto>> getRecentMessagesByChatroom(
-            @PathVariable Long chatroomId) {
+            @PathVariable Long chatroomId,
+            @RequestParam(required = false) Integer limit) {
 
         return ResponseEntity.ok().body(
-                messageService.getRecentMessagesByChatroom(chatroomId));
+                messageService.getRecentMessagesByChatroom(chatroomId, limit));
     }
 
     // 특정 시간 이후의 메시지 조회
@@ -44,6 +101,15 @@ public class MessageController implements MessageControllerInterface {
                 messageService.getMessagesAfterTimestamp(chatroomId, timestamp));
     }
 
+    // 특정 시간 이후의 메시지 조회 (lean)
+    @GetMapping(value = "/chatroom/{chatroomId}/after", params = "lean=true")
+    public ResponseEntity<StreamingResponseBody> getMessagesAfterTimestampLean(
+            @PathVariable Long chatroomId,
+            @RequestParam LocalDateTime timestamp) {
+
+        return leanJson(outputStream -> messageService.writeMessagesAfterTimestampLean(chatroomId, timestamp, outputStream));
+    }
+
     // 특정 시간 이전의 메시지 조회
     @GetMapping("/chatroom/{chatroomId}/before")
     public ResponseEntity<List<MessageDocumentDto>> getMessagesBeforeTimestamp(
@@ -54,6 +120,27 @@ public class MessageController implements MessageControllerInterface {
                 messageService.getMessagesBeforeTimestamp(chatroomId, timestamp));
     }
 
+    // 특정 시간 이전의 메시지 조회 (lean)
+    @GetMapping(value = "/chatroom/{chatroomId}/before", params = "lean=true")
+    public ResponseEntity<StreamingResponseBody> getMessagesBeforeTimestampLean(
+            @PathVariable Long chatroomId,
+            @RequestParam LocalDateTime timestamp) {
+
+        return leanJson(outputStream -> messageService.writeMessagesBeforeTimestampLean(chatroomId, timestamp, outputStream));
+    }
+
+    // 특정 시간 이전의 메시지 페이지 조회 (커서 기반, 최신순)
+    @GetMapping("/chatroom/{chatroomId}/before/page")
+    public ResponseEntity<MessagePageDto> getMessagePageBeforeTimestamp(
+            @PathVariable Long chatroomId,
+            @RequestParam(required = false) LocalDateTime timestamp,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+
+        return ResponseEntity.ok().body(
+                messageService.getMessagePageBeforeTimestamp(chatroomId, timestamp, cursor, size));
+    }
+
     // 채팅방 메시지 개수 확인
     @GetMapping("/chatroom/{chatroomId}/count")
     public ResponseEntity<CountMessagesByChatroomDto> countMessagesByChatroom(
@@ -63,6 +150,24 @@ public class MessageController implements MessageControllerInterface {
                 messageService.countMessagesByChatroom(chatroomId));
     }
 
+    // 여러 채팅방의 메시지 개수 조회
+    @GetMapping("/chatroom/count")
+    public ResponseEntity<List<CountMessagesByChatroomDto>> countMessagesByChatrooms(
+            @RequestParam List<Long> chatroomIds) {
+
+        return ResponseEntity.ok().body(
+                messageService.countMessagesByChatrooms(chatroomIds));
+    }
+
+    // 사용자의 채팅방별 안 읽은 메시지 수 조회
+    @GetMapping("/user/{userId}/unread")
+    public ResponseEntity<List<UnreadCountDto>> getUnreadCounts(
+            @PathVariable Long userId) {
+
+        return ResponseEntity.ok().body(
+                messageService.getUnreadCounts(userId));
+    }
+
     // 특정 사용자가 보낸 모든 메시지 조회
     @GetMapping("/sender/{senderId}")
     public ResponseEntity<List<MessageDocumentDto>> getMessagesBySender(
@@ -72,6 +177,25 @@ public class MessageController implements MessageControllerInterface {
                 messageService.getMessagesBySender(senderId));
     }
 
+    // 특정 사용자가 보낸 모든 메시지 조회 (lean)
+    @GetMapping(value = "/sender/{senderId}", params = "lean=true")
+    public ResponseEntity<StreamingResponseBody> getMessagesBySenderLean(
+            @PathVariable Long senderId) {
+
+        return leanJson(outputStream -> messageService.writeMessagesBySenderLean(senderId, outputStream));
+    }
+
+    // 특정 사용자가 보낸 메시지 페이지 조회 (커서 기반)
+    @GetMapping("/sender/{senderId}/page")
+    public ResponseEntity<MessagePageDto> getMessagePageBySender(
+            @PathVariable Long senderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+
+        return ResponseEntity.ok().body(
+                messageService.getMessagePageBySender(senderId, cursor, size));
+    }
+
     // 특정 사용자가 특정 채팅방에 보낸 모든 메시지 조회
     @GetMapping("/chatroom/{chatroomId}/sender/{senderId}")
     public ResponseEntity<List<MessageDocumentDto>> getMessagesBySenderInChatroom(
@@ -82,14 +206,39 @@ public class MessageController implements MessageControllerInterface {
                 messageService.getMessagesBySenderIdAndChatroomId(senderId, chatroomId));
     }
 
+    // 특정 사용자가 특정 채팅방에 보낸 메시지 조회 (lean)
+    @GetMapping(value = "/chatroom/{chatroomId}/sender/{senderId}", params = "lean=true")
+    public ResponseEntity<StreamingResponseBody> getMessagesBySenderInChatroomLean(
+            @PathVariable Long senderId,
+            @PathVariable Long chatroomId) {
+
+        return leanJson(outputStream -> messageService.writeMessagesBySenderIdAndChatroomIdLean(senderId, chatroomId, outputStream));
+    }
+
+    // 특정 사용자가 특정 채팅방에 보낸 메시지 페이지 조회 (커서 기반)
+    @GetMapping("/chatroom/{chatroomId}/sender/{senderId}/page")
+    public ResponseEntity<MessagePageDto> getMessagePageBySenderInChatroom(
+            @PathVariable Long senderId,
+            @PathVariable Long chatroomId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+
+        return ResponseEntity.ok().body(
+                messageService.getMessagePageBySenderIdAndChatroomId(senderId, chatroomId, cursor, size));
+    }
+
     // 채팅방 내 메시지 검색
     @GetMapping("/chatroom/{chatroomId}/search")
     public ResponseEntity<List<MessageDocumentDto>> searchMessages(
             @PathVariable Long chatroomId,
-            @RequestParam String keyword) {
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
 
-        return ResponseEntity.ok().body(
-                messageService.searchMessagesByChatroomAndKeyword(chatroomId, keyword));
+        SearchResult result = messageService.searchMessagesByChatroomAndKeyword(chatroomId, keyword, offset, limit);
+        return ResponseEntity.ok()
+                .header(SEARCH_TRUNCATED_HEADER, String.valueOf(result.truncated()))
+                .body(result.messages());
     }
 
     // 채팅방의 가장 최근 메시지 조회
@@ -111,12 +260,35 @@ public class MessageController implements MessageControllerInterface {
         return ResponseEntity.noContent().build();
     }
 
-    // 특정 채팅방의 모든 메시지 삭제
+    // 특정 채팅방의 모든 메시지 삭제 (백그라운드 작업)
     @DeleteMapping("/chatroom/{chatroomId}")
-    public ResponseEntity<?> deleteAllMessagesByChatroom(
+    public ResponseEntity<PurgeJobDto> deleteAllMessagesByChatroom(
             @PathVariable Long chatroomId) {
 
-        messageService.deleteAllMessagesByChatroom(chatroomId);
-        return ResponseEntity.noContent().build();
+        PurgeJobDto job = messageService.deleteAllMessagesByChatroom(chatroomId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/v1/api/messages/purge-jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    // 메시지 삭제 작업 상태 조회
+    @GetMapping("/purge-jobs/{jobId}")
+    public ResponseEntity<PurgeJobDto> getPurgeJob(
+            @PathVariable String jobId) {
+
+        return ResponseEntity.ok().body(
+                messageService.getPurgeJob(jobId));
+    }
+
+    // lean 조회 응답. 클라이언트가 중간에 연결을 끊으면 커서는 이미 닫혔으므로 기록만 남김
+    private ResponseEntity<StreamingResponseBody> leanJson(StreamingResponseBody writer) {
+        StreamingResponseBody body = outputStream -> {
+            try {
+                writer.writeTo(outputStream);
+            } catch (IOException e) {
+                logger.info("Lean read cancelled: {}", e.getMessage());
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
-}
\ No newline at end of file
+}
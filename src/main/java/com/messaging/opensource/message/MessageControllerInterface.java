@@ -2,9 +2,15 @@ package com.messaging.opensource.message;
 
 import com.messaging.opensource.message.dto.CountMessagesByChatroomDto;
 import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.dto.MessagePageDto;
+import com.messaging.opensource.message.dto.PurgeJobDto;
+import com.messaging.opensource.message.dto.UnreadCountDto;
 import com.messaging.opensource.message.entity.MessageDocument;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,13 +28,52 @@ public interface MessageControllerInterface {
     @GetMapping("/chatroom/{chatroomId}")
     ResponseEntity<List<MessageDocumentDto>> getMessagesByChatroom(@PathVariable Long chatroomId);
 
+    /**
+     * 특정 채팅방의 모든 메시지 조회 (시간순, lean=true)
+     * 응답 형식은 같고, 엔티티/DTO 목록 없이 Mongo 결과를 바로 JSON 으로 스트리밍
+     * @param chatroomId 채팅방 ID
+     * @return 채팅방의 메시지 목록 (JSON 배열)
+     */
+    @GetMapping(value = "/chatroom/{chatroomId}", params = "lean=true")
+    ResponseEntity<StreamingResponseBody> getMessagesByChatroomLean(@PathVariable Long chatroomId);
+
+    /**
+     * 특정 채팅방의 전체 메시지를 NDJSON 으로 스트리밍 내보내기 (시간순)
+     * @param chatroomId 채팅방 ID
+     * @param gzip true 이면 gzip 으로 압축해서 전송
+     * @return 한 줄에 메시지 하나씩 쓰는 스트리밍 응답
+     */
+    @GetMapping("/chatroom/{chatroomId}/export")
+    ResponseEntity<ResponseBodyEmitter> exportMessagesByChatroom(
+            @PathVariable Long chatroomId,
+            @RequestParam(defaultValue = "false") boolean gzip);
+
+    /**
+     * 특정 채팅방의 메시지 페이지 조회 (커서 기반)
+     * @param chatroomId 채팅방 ID
+     * @param order 정렬 방향 (ASC: 시간순, DESC: 최신순)
+     * @param cursor 이전 응답의 nextCursor 또는 prevCursor (없으면 처음부터)
+     * @param size 페이지 크기
+     * @return 메시지 페이지와 다음/이전 커서
+     */
+    @GetMapping("/chatroom/{chatroomId}/page")
+    ResponseEntity<MessagePageDto> getMessagePageByChatroom(
+            @PathVariable Long chatroomId,
+            @RequestParam(defaultValue = "ASC") Sort.Direction order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size);
+
     /**
      * 특정 채팅방의 최신순으로 메시지 조회
+     * 최근 메시지는 메모리 캐시에서 반환하며, 더 이전 메시지는 페이지 조회 API 를 사용
      * @param chatroomId 채팅방 ID
+     * @param limit 최대 메시지 수 (생략 시 기본값)
      * @return 채팅방의 최신순 메시지 목록
      */
     @GetMapping("/chatroom/{chatroomId}/recent")
-    ResponseEntity<List<MessageDocumentDto>> getRecentMessagesByChatroom(@PathVariable Long chatroomId);
+    ResponseEntity<List<MessageDocumentDto>> getRecentMessagesByChatroom(
+            @PathVariable Long chatroomId,
+            @RequestParam(required = false) Integer limit);
 
     /**
      * 특정 시간 이후의 메시지 조회
@@ -41,6 +86,17 @@ public interface MessageControllerInterface {
             @PathVariable Long chatroomId,
             @RequestParam LocalDateTime timestamp);
 
+    /**
+     * 특정 시간 이후의 메시지 조회 (시간순, lean=true)
+     * @param chatroomId 채팅방 ID
+     * @param timestamp 기준 시간
+     * @return 해당 시간 이후의 메시지 목록 (JSON 배열)
+     */
+    @GetMapping(value = "/chatroom/{chatroomId}/after", params = "lean=true")
+    ResponseEntity<StreamingResponseBody> getMessagesAfterTimestampLean(
+            @PathVariable Long chatroomId,
+            @RequestParam LocalDateTime timestamp);
+
     /**
      * 특정 시간 이전의 메시지 조회
      * @param chatroomId 채팅방 ID
@@ -52,6 +108,32 @@ public interface MessageControllerInterface {
             @PathVariable Long chatroomId,
             @RequestParam LocalDateTime timestamp);
 
+    /**
+     * 특정 시간 이전의 메시지 조회 (최신순, lean=true)
+     * @param chatroomId 채팅방 ID
+     * @param timestamp 기준 시간
+     * @return 해당 시간 이전의 메시지 목록 (JSON 배열)
+     */
+    @GetMapping(value = "/chatroom/{chatroomId}/before", params = "lean=true")
+    ResponseEntity<StreamingResponseBody> getMessagesBeforeTimestampLean(
+            @PathVariable Long chatroomId,
+            @RequestParam LocalDateTime timestamp);
+
+    /**
+     * 특정 시간 이전의 메시지 페이지 조회 (커서 기반, 최신순)
+     * @param chatroomId 채팅방 ID
+     * @param timestamp 기준 시간 (cursor 가 없을 때 사용)
+     * @param cursor 이전 응답의 nextCursor 또는 prevCursor
+     * @param size 페이지 크기
+     * @return 메시지 페이지와 다음/이전 커서
+     */
+    @GetMapping("/chatroom/{chatroomId}/before/page")
+    ResponseEntity<MessagePageDto> getMessagePageBeforeTimestamp(
+            @PathVariable Long chatroomId,
+            @RequestParam(required = false) LocalDateTime timestamp,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size);
+
     /**
      * 채팅방 메시지 개수 확인
      * @param chatroomId 채팅방 ID
@@ -60,14 +142,56 @@ public interface MessageControllerInterface {
     @GetMapping("/chatroom/{chatroomId}/count")
     ResponseEntity<CountMessagesByChatroomDto> countMessagesByChatroom(@PathVariable Long chatroomId);
 
+    /**
+     * 여러 채팅방의 메시지 개수를 한 번에 조회
+     * @param chatroomIds 채팅방 ID 목록 (예: chatroomIds=1,2,3)
+     * @return 채팅방별 메시지 개수 목록 (요청 순서)
+     */
+    @GetMapping("/chatroom/count")
+    ResponseEntity<List<CountMessagesByChatroomDto>> countMessagesByChatrooms(@RequestParam List<Long> chatroomIds);
+
+    /**
+     * 사용자의 채팅방별 안 읽은 메시지 수 조회
+     * 채팅방 순번과 읽음 위치의 차이이므로, 삭제된 메시지와 저장 큐가 가득 차서 거절된 메시지의 순번도 포함됨
+     * 읽음 위치는 WebSocket 읽음 확인(ack)과 메시지 전송으로 갱신되며, 읽음 위치가 있는 채팅방만 포함
+     * @param userId 사용자 ID
+     * @return 채팅방별 마지막으로 읽은 순번과 안 읽은 메시지 수 (채팅방 ID 순)
+     */
+    @GetMapping("/user/{userId}/unread")
+    ResponseEntity<List<UnreadCountDto>> getUnreadCounts(@PathVariable Long userId);
+
     /**
      * 특정 사용자가 보낸 모든 메시지 조회
+     * 아카이브로 옮긴 메시지는 포함하지 않음 (채팅방을 지정한 조회에는 포함)
      * @param senderId 사용자 ID
      * @return 해당 사용자가 보낸 메시지 목록
      */
     @GetMapping("/sender/{senderId}")
     ResponseEntity<List<MessageDocumentDto>> getMessagesBySender(@PathVariable Long senderId);
 
+    /**
+     * 특정 사용자가 보낸 모든 메시지 조회 (시간순, lean=true)
+     * 아카이브로 옮긴 메시지는 포함하지 않음 (채팅방을 지정한 조회에는 포함)
+     * @param senderId 사용자 ID
+     * @return 해당 사용자가 보낸 메시지 목록 (JSON 배열)
+     */
+    @GetMapping(value = "/sender/{senderId}", params = "lean=true")
+    ResponseEntity<StreamingResponseBody> getMessagesBySenderLean(@PathVariable Long senderId);
+
+    /**
+     * 특정 사용자가 보낸 메시지 페이지 조회 (커서 기반)
+     * 아카이브로 옮긴 메시지는 포함하지 않음
+     * @param senderId 사용자 ID
+     * @param cursor 이전 응답의 nextCursor 또는 prevCursor (없으면 처음부터)
+     * @param size 페이지 크기
+     * @return 메시지 페이지와 다음/이전 커서
+     */
+    @GetMapping("/sender/{senderId}/page")
+    ResponseEntity<MessagePageDto> getMessagePageBySender(
+            @PathVariable Long senderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size);
+
     /**
      * 특정 사용자가 특정 채팅방에 보낸 모든 메시지 조회
      * @param senderId 사용자 ID
@@ -80,15 +204,47 @@ public interface MessageControllerInterface {
             @PathVariable Long chatroomId);
 
     /**
-     * 채팅방 내 메시지 검색
+     * 특정 사용자가 특정 채팅방에 보낸 모든 메시지 조회 (시간순, lean=true)
+     * @param senderId 사용자 ID
      * @param chatroomId 채팅방 ID
-     * @param keyword 검색 키워드
+     * @return 해당 사용자가 특정 채팅방에 보낸 메시지 목록 (JSON 배열)
+     */
+    @GetMapping(value = "/chatroom/{chatroomId}/sender/{senderId}", params = "lean=true")
+    ResponseEntity<StreamingResponseBody> getMessagesBySenderInChatroomLean(
+            @PathVariable Long senderId,
+            @PathVariable Long chatroomId);
+
+    /**
+     * 특정 사용자가 특정 채팅방에 보낸 메시지 페이지 조회 (커서 기반)
+     * @param senderId 사용자 ID
+     * @param chatroomId 채팅방 ID
+     * @param cursor 이전 응답의 nextCursor 또는 prevCursor (없으면 처음부터)
+     * @param size 페이지 크기
+     * @return 메시지 페이지와 다음/이전 커서
+     */
+    @GetMapping("/chatroom/{chatroomId}/sender/{senderId}/page")
+    ResponseEntity<MessagePageDto> getMessagePageBySenderInChatroom(
+            @PathVariable Long senderId,
+            @PathVariable Long chatroomId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size);
+
+    /**
+     * 채팅방 내 메시지 검색 (관련도순)
+     * 채팅방마다 최근 messaging.search.max-messages-per-room 개만 검색하며,
+     * 그보다 오래된 메시지가 있으면 X-Search-Truncated 응답 헤더가 true
+     * @param chatroomId 채팅방 ID
+     * @param keyword 검색 키워드 (대소문자 구분 없이, 공백으로 나눈 단어 중 하나라도 포함하면 결과에 포함)
+     * @param offset 건너뛸 결과 수
+     * @param limit 최대 결과 수
      * @return 검색 결과 메시지 목록
      */
     @GetMapping("/chatroom/{chatroomId}/search")
     ResponseEntity<List<MessageDocumentDto>> searchMessages(
             @PathVariable Long chatroomId,
-            @RequestParam String keyword);
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit);
 
     /**
      * 채팅방의 가장 최근 메시지 조회
@@ -111,9 +267,18 @@ public interface MessageControllerInterface {
 
     /**
      * 특정 채팅방의 모든 메시지 삭제
+     * 삭제는 백그라운드 작업으로 실행되며, 바로 202 와 작업 정보를 반환
      * @param chatroomId 채팅방 ID
-     * @return 응답 엔티티
+     * @return 삭제 작업 정보 (Location 헤더에 상태 조회 경로)
      */
     @DeleteMapping("/chatroom/{chatroomId}")
-    ResponseEntity<?> deleteAllMessagesByChatroom(@PathVariable Long chatroomId);
+    ResponseEntity<PurgeJobDto> deleteAllMessagesByChatroom(@PathVariable Long chatroomId);
+
+    /**
+     * 메시지 삭제 작업 상태 조회
+     * @param jobId 작업 ID
+     * @return 삭제 작업 정보
+     */
+    @GetMapping("/purge-jobs/{jobId}")
+    ResponseEntity<PurgeJobDto> getPurgeJob(@PathVariable String jobId);
 }
\ No newline at end of file
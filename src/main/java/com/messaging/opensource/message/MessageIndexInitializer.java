@@ -0,0 +1,64 @@
+package com.messaging.opensource.message;
+
+import com.messaging.opensource.message.entity.MessageBucket;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.entity.PurgeJob;
+import com.messaging.opensource.message.entity.ReadCursor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link MessageDocument}, {@link MessageBucket}, {@link ReadCursor}, {@link PurgeJob} 에 선언된 인덱스를 애플리케이션 시작 시 생성한다.
+ * 인덱스 정의는 엔티티의 {@code @CompoundIndex}, {@code @Indexed} 선언만 기준으로 하며, 이미 있는 인덱스는 그대로 둔다.
+ * Mongo 에 연결할 수 없어도 애플리케이션 기동을 막지 않도록 별도 스레드에서 실행한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexesOnStartup() {
+        Thread thread = new Thread(() -> {
+            try {
+                ensureIndexes();
+            } catch (Exception e) {
+                logger.error("Failed to create message indexes: {}", e.getMessage(), e);
+            }
+        }, "mongo-index-initializer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 선언된 인덱스를 모두 생성 (이미 있으면 무시됨)
+    public void ensureIndexes() {
+        ensureIndexes(MessageDocument.class);
+        ensureIndexes(MessageBucket.class);
+        ensureIndexes(ReadCursor.class);
+        ensureIndexes(PurgeJob.class);
+    }
+
+    // 한 엔티티에 선언된 인덱스만 생성 (기동 시 비동기 생성을 기다리지 않고 인덱스가 필요한 곳에서 호출)
+    public void ensureIndexes(Class<?> entityClass) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(entityClass);
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        String collectionName = mongoTemplate.getCollectionName(entityClass);
+
+        for (IndexDefinition indexDefinition : indexResolver.resolveIndexFor(entityClass)) {
+            String name = indexOperations.ensureIndex(indexDefinition);
+            logger.info("Ensured index {} on {}", name, collectionName);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.messaging.opensource.message;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface MessageRepositoryCustom {
+
+    // 특정 채팅방의 모든 메시지 조회 (시간순)
+    List<MessageDocument> findByChatroomIdOrderByTimestampAsc(Long chatroomId);
+
+    // 특정 채팅방의 모든 메시지를 커서로 스트리밍 조회 (시간순, 반드시 close 필요)
+    Stream<MessageDocument> streamByChatroomIdOrderByTimestampAsc(Long chatroomId);
+
+    // 최신순으로 정렬하여 조회
+    List<MessageDocument> findByChatroomIdOrderByTimestampDesc(Long chatroomId);
+
+    // 최신순으로 정렬하여 조회 (개수 제한)
+    List<MessageDocument> findByChatroomIdOrderByTimestampDesc(Long chatroomId, Pageable pageable);
+
+    // 특정 시간 이후의 메시지 조회 (시간순)
+    List<MessageDocument> findByChatroomIdAndTimestampAfter(Long chatroomId, LocalDateTime timestamp);
+
+    // 특정 시간 이전의 메시지 조회 (페이징에 유용)
+    List<MessageDocument> findByChatroomIdAndTimestampBeforeOrderByTimestampDesc(Long chatroomId, LocalDateTime timestamp);
+
+    // 특정 사용자가 특정 채팅방에 작성한 메시지 조회
+    List<MessageDocument> findBySenderIdAndChatroomId(Long senderId, Long chatroomId);
+
+    // 특정 채팅방의 메시지 개수 조회
+    long countByChatroomId(Long chatroomId);
+
+    // 특정 사용자가 보낸 메시지 조회 (messages 만 대상, 아카이브로 옮긴 메시지는 제외)
+    List<MessageDocument> findBySenderId(Long senderId);
+
+    // 특정 내용을 포함하는 메시지 검색
+    List<MessageDocument> findByChatroomIdAndContentContaining(Long chatroomId, String keyword);
+
+    // 특정 내용을 포함하는 메시지 검색 (개수 제한, 시간 정렬만 지원)
+    List<MessageDocument> findByChatroomIdAndContentContaining(Long chatroomId, String keyword, Pageable pageable);
+
+    // 특정 채팅방의 가장 최근 메시지 조회 (없으면 null)
+    MessageDocument findTopByChatroomIdOrderByTimestampDesc(Long chatroomId);
+
+    // 특정 사용자의 특정 채팅방 메시지 삭제
+    long deleteByChatroomIdAndSenderId(Long chatroomId, Long senderId);
+
+    // 특정 채팅방에서 특정 시각까지의 메시지 삭제 (서버 측 deleteMany)
+    long deleteByChatroomIdAndTimestampLessThanEqual(Long chatroomId, LocalDateTime timestamp);
+
+    // 특정 채팅방에서 시각이 없는 메시지 삭제 (서버 측 deleteMany)
+    long deleteByChatroomIdAndTimestampIsNull(Long chatroomId);
+
+    // (timestamp, id) keyset 페이지 조회. 커서에서 멀어지는 순서(scan order)로 limit + 1 개까지 반환해서
+    // 호출 측이 다음 페이지 유무를 판단할 수 있게 함
+    List<MessageDocument> findPage(MessagePageQuery query);
+
+    // 순서 없는 bulk insert. 이미 있는 ID(중복 키)는 건너뛰고, 실제로 새로 저장된 메시지만 반환 (재시도해도 안전)
+    // 버킷 저장 방식에서는 중복을 구분할 수 없으므로 전달한 메시지를 모두 반환 (버킷 안에는 중복 없이 저장됨)
+    List<MessageDocument> insertIgnoringDuplicates(List<MessageDocument> messages);
+
+    // 여러 채팅방의 메시지 수를 한 번의 집계로 조회. 메시지가 없는 채팅방은 결과에 없음
+    Map<Long, Long> countByChatroomIds(Collection<Long> chatroomIds);
+
+    // cutoff 이전 메시지 중 시간순으로 batchSize 번째 메시지의 시각. 남은 메시지가 batchSize 보다 적으면 null
+    LocalDateTime findPurgeBatchBoundary(Long chatroomId, LocalDateTime cutoff, int batchSize);
+
+    // 채팅방에 저장된 가장 큰 순번 (순번 있는 메시지가 없으면 0)
+    long findMaxSeq(Long chatroomId);
+
+    // 여러 채팅방의 가장 큰 순번을 한 번의 집계로 조회. 순번 있는 메시지가 없는 채팅방은 결과에 없음
+    Map<Long, Long> findMaxSeqs(Collection<Long> chatroomIds);
+
+    // 순번이 afterSeq 보다 크고 beforeSeq 보다 작은 메시지 중 최신 limit 개를 순번순으로 조회 (재접속 시 놓친 메시지)
+    List<MessageDocument> findByChatroomIdAndSeqBetween(Long chatroomId, long afterSeq, long beforeSeq, int limit);
+}
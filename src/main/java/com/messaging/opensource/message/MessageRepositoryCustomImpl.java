@@ -0,0 +1,481 @@
+package com.messaging.opensource.message;
+
+import com.messaging.opensource.message.archive.MessageArchive;
+import com.messaging.opensource.message.archive.MessageMerge;
+import com.messaging.opensource.message.bucket.MessageBucketStore;
+import com.messaging.opensource.message.bucket.StorageProperties;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 메시지 조회/저장/삭제 구현.
+ * messaging.storage.mode 가 BUCKETED 이면 message_buckets 의 구간 버킷을 범위로 읽고, 그 외에는 messages 컬렉션을 읽는다.
+ * MIGRATING 이면 쓰기와 삭제를 두 컬렉션에 모두 반영한다.
+ * 채팅방 단위 조회, 개수, 삭제는 아카이브로 옮긴 메시지(cold)도 포함한다. 사용자 전체 조회와 내용 검색은 hot 메시지만 대상으로 한다.
+ */
+@RequiredArgsConstructor
+public class MessageRepositoryCustomImpl implements MessageRepositoryCustom {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private static final Sort TIMESTAMP_ASC = Sort.by(Sort.Direction.ASC, "timestamp");
+
+    private static final Sort TIMESTAMP_DESC = Sort.by(Sort.Direction.DESC, "timestamp");
+
+    private final MongoTemplate mongoTemplate;
+
+    private final StorageProperties storageProperties;
+
+    private final MessageBucketStore messageBucketStore;
+
+    private final MessageArchive messageArchive;
+
+    @Override
+    public List<MessageDocument> findByChatroomIdOrderByTimestampAsc(Long chatroomId) {
+        List<MessageDocument> hot = readsBuckets()
+                ? messageBucketStore.findByChatroom(chatroomId, Sort.Direction.ASC, 0, 0)
+                : mongoTemplate.find(chatroomQuery(chatroomId).with(TIMESTAMP_ASC), MessageDocument.class);
+        return MessageMerge.merge(Sort.Direction.ASC, hot, messageArchive.find(chatroomId, Sort.Direction.ASC, 0), 0, 0);
+    }
+
+    @Override
+    public Stream<MessageDocument> streamByChatroomIdOrderByTimestampAsc(Long chatroomId) {
+        Stream<MessageDocument> hot = readsBuckets()
+                ? messageBucketStore.streamByChatroom(chatroomId)
+                : mongoTemplate.stream(chatroomQuery(chatroomId).with(TIMESTAMP_ASC).cursorBatchSize(STREAM_BATCH_SIZE),
+                        MessageDocument.class);
+        if (!messageArchive.hasMessages(chatroomId)) {
+            return hot;
+        }
+        return MessageMerge.merge(Sort.Direction.ASC, messageArchive.stream(chatroomId, Sort.Direction.ASC), hot);
+    }
+
+    @Override
+    public List<MessageDocument> findByChatroomIdOrderByTimestampDesc(Long chatroomId) {
+        return findByChatroomIdOrderByTimestampDesc(chatroomId, Pageable.unpaged());
+    }
+
+    @Override
+    public List<MessageDocument> findByChatroomIdOrderByTimestampDesc(Long chatroomId, Pageable pageable) {
+        if (!messageArchive.hasMessages(chatroomId)) {
+            return findHotByChatroomIdDesc(chatroomId, pageable);
+        }
+        if (pageable.isUnpaged()) {
+            return MessageMerge.merge(Sort.Direction.DESC, findHotByChatroomIdDesc(chatroomId, pageable),
+                    messageArchive.find(chatroomId, Sort.Direction.DESC, 0), 0, 0);
+        }
+
+        // 합친 결과에서 offset 만큼 건너뛰므로 양쪽에서 앞쪽 offset + size 개씩 읽음
+        int head = Math.toIntExact(pageable.getOffset() + pageable.getPageSize());
+        return MessageMerge.merge(Sort.Direction.DESC,
+                findHotByChatroomIdDesc(chatroomId, PageRequest.of(0, head, pageable.getSort())),
+                messageArchive.find(chatroomId, Sort.Direction.DESC, head),
+                pageable.getOffset(), pageable.getPageSize());
+    }
+
+    private List<MessageDocument> findHotByChatroomIdDesc(Long chatroomId, Pageable pageable) {
+        if (readsBuckets()) {
+            return messageBucketStore.findByChatroom(chatroomId, Sort.Direction.DESC,
+                    pageable.isPaged() ? pageable.getOffset() : 0, pageable.isPaged() ? pageable.getPageSize() : 0);
+        }
+        return mongoTemplate.find(chatroomQuery(chatroomId).with(TIMESTAMP_DESC).with(pageable), MessageDocument.class);
+    }
+
+    @Override
+    public List<MessageDocument> findByChatroomIdAndTimestampAfter(Long chatroomId, LocalDateTime timestamp) {
+        List<MessageDocument> hot;
+        if (readsBuckets()) {
+            hot = messageBucketStore.findAfter(chatroomId, timestamp);
+        } else {
+            Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").gt(timestamp));
+            hot = mongoTemplate.find(query.with(TIMESTAMP_ASC), MessageDocument.class);
+        }
+        return MessageMerge.merge(Sort.Direction.ASC, hot, messageArchive.findAfter(chatroomId, timestamp), 0, 0);
+    }
+
+    @Override
+    public List<MessageDocument> findByChatroomIdAndTimestampBeforeOrderByTimestampDesc(Long chatroomId, LocalDateTime timestamp) {
+        List<MessageDocument> hot;
+        if (readsBuckets()) {
+            hot = messageBucketStore.findBefore(chatroomId, timestamp);
+        } else {
+            Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").lt(timestamp));
+            hot = mongoTemplate.find(query.with(TIMESTAMP_DESC), MessageDocument.class);
+        }
+        return MessageMerge.merge(Sort.Direction.DESC, hot, messageArchive.findBefore(chatroomId, timestamp), 0, 0);
+    }
+
+    // 정렬 없는 조회이므로 아카이브의 (더 오래된) 메시지를 앞에 붙임
+    @Override
+    public List<MessageDocument> findBySenderIdAndChatroomId(Long senderId, Long chatroomId) {
+        List<MessageDocument> hot;
+        if (readsBuckets()) {
+            hot = messageBucketStore.findBySenderAndChatroom(senderId, chatroomId);
+        } else {
+            Query query = new Query(Criteria.where("senderId").is(senderId).and("chatroomId").is(chatroomId));
+            hot = mongoTemplate.find(query, MessageDocument.class);
+        }
+        List<MessageDocument> archived = messageArchive.findBySender(chatroomId, senderId);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<MessageDocument> messages = new ArrayList<>(archived.size() + hot.size());
+        messages.addAll(archived);
+        messages.addAll(hot);
+        return messages;
+    }
+
+    @Override
+    public long countByChatroomId(Long chatroomId) {
+        long hot = readsBuckets()
+                ? messageBucketStore.countByChatroomIds(List.of(chatroomId)).getOrDefault(chatroomId, 0L)
+                : mongoTemplate.count(chatroomQuery(chatroomId), MessageDocument.class);
+        return hot + messageArchive.count(chatroomId);
+    }
+
+    @Override
+    public List<MessageDocument> findBySenderId(Long senderId) {
+        if (readsBuckets()) {
+            return messageBucketStore.findBySender(senderId);
+        }
+        return mongoTemplate.find(new Query(Criteria.where("senderId").is(senderId)), MessageDocument.class);
+    }
+
+    @Override
+    public List<MessageDocument> findByChatroomIdAndContentContaining(Long chatroomId, String keyword) {
+        return findByChatroomIdAndContentContaining(chatroomId, keyword, Pageable.unpaged());
+    }
+
+    @Override
+    public List<MessageDocument> findByChatroomIdAndContentContaining(Long chatroomId, String keyword, Pageable pageable) {
+        if (readsBuckets()) {
+            Sort.Order timestampOrder = pageable.getSort().getOrderFor("timestamp");
+            Sort.Direction order = timestampOrder == null ? Sort.Direction.ASC : timestampOrder.getDirection();
+            return messageBucketStore.findContaining(chatroomId, keyword, order,
+                    pageable.isPaged() ? pageable.getOffset() : 0, pageable.isPaged() ? pageable.getPageSize() : 0);
+        }
+        Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("content").regex(Pattern.quote(keyword)));
+        return mongoTemplate.find(query.with(pageable), MessageDocument.class);
+    }
+
+    @Override
+    public MessageDocument findTopByChatroomIdOrderByTimestampDesc(Long chatroomId) {
+        List<MessageDocument> hot;
+        if (readsBuckets()) {
+            hot = messageBucketStore.findByChatroom(chatroomId, Sort.Direction.DESC, 0, 1);
+        } else {
+            MessageDocument latest = mongoTemplate.findOne(chatroomQuery(chatroomId).with(TIMESTAMP_DESC).limit(1),
+                    MessageDocument.class);
+            hot = latest == null ? List.of() : List.of(latest);
+        }
+        List<MessageDocument> latest = MessageMerge.merge(Sort.Direction.DESC, hot,
+                messageArchive.find(chatroomId, Sort.Direction.DESC, 1), 0, 1);
+        return latest.isEmpty() ? null : latest.get(0);
+    }
+
+    @Override
+    public long deleteByChatroomIdAndSenderId(Long chatroomId, Long senderId) {
+        ReentrantLock lock = messageArchive.lockFor(chatroomId);
+        lock.lock();
+        try {
+            long deleted = 0;
+            if (storageProperties.getMode().writesBuckets()) {
+                deleted = messageBucketStore.deleteBySender(chatroomId, senderId);
+            }
+            if (storageProperties.getMode().writesDocuments()) {
+                Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("senderId").is(senderId));
+                deleted = mongoTemplate.remove(query, MessageDocument.class).getDeletedCount();
+            }
+            return deleted + messageArchive.deleteBySender(chatroomId, senderId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete archived messages of chatroom " + chatroomId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long deleteByChatroomIdAndTimestampLessThanEqual(Long chatroomId, LocalDateTime timestamp) {
+        ReentrantLock lock = messageArchive.lockFor(chatroomId);
+        lock.lock();
+        try {
+            long deleted = 0;
+            if (storageProperties.getMode().writesBuckets()) {
+                deleted = messageBucketStore.deleteUpTo(chatroomId, timestamp);
+            }
+            if (storageProperties.getMode().writesDocuments()) {
+                Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").lte(timestamp));
+                deleted = mongoTemplate.remove(query, MessageDocument.class).getDeletedCount();
+            }
+            return deleted + messageArchive.deleteUpTo(chatroomId, timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete archived messages of chatroom " + chatroomId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 버킷에 저장되는 메시지는 항상 시각이 있으므로 messages 컬렉션만 대상
+    @Override
+    public long deleteByChatroomIdAndTimestampIsNull(Long chatroomId) {
+        if (!storageProperties.getMode().writesDocuments()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").is(null));
+        return mongoTemplate.remove(query, MessageDocument.class).getDeletedCount();
+    }
+
+    @Override
+    public List<MessageDocument> findPage(MessagePageQuery pageQuery) {
+        List<MessageDocument> hot = readsBuckets() ? messageBucketStore.findPage(pageQuery) : findHotPage(pageQuery);
+        if (pageQuery.chatroomId() == null || !messageArchive.hasMessages(pageQuery.chatroomId())) {
+            return hot;
+        }
+        return MessageMerge.merge(scanOrder(pageQuery), hot, messageArchive.findPage(pageQuery), 0, pageQuery.limit() + 1);
+    }
+
+    private List<MessageDocument> findHotPage(MessagePageQuery pageQuery) {
+        MessageCursor cursor = pageQuery.cursor();
+        Sort.Direction scanOrder = scanOrder(pageQuery);
+
+        Criteria criteria = new Criteria();
+        List<Criteria> conditions = new ArrayList<>();
+        if (pageQuery.chatroomId() != null) {
+            conditions.add(Criteria.where("chatroomId").is(pageQuery.chatroomId()));
+        }
+        if (pageQuery.senderId() != null) {
+            conditions.add(Criteria.where("senderId").is(pageQuery.senderId()));
+        }
+        if (cursor != null) {
+            conditions.add(keysetCondition(cursor, scanOrder));
+        }
+        if (!conditions.isEmpty()) {
+            criteria.andOperator(conditions);
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(scanOrder, "timestamp").and(Sort.by(scanOrder, "id")))
+                .limit(pageQuery.limit() + 1);
+
+        return mongoTemplate.find(query, MessageDocument.class);
+    }
+
+    @Override
+    public List<MessageDocument> insertIgnoringDuplicates(List<MessageDocument> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        if (!storageProperties.getMode().writesDocuments()) {
+            messageBucketStore.append(messages);
+            return messages;
+        }
+
+        List<MessageDocument> inserted = insertDocuments(messages);
+        if (storageProperties.getMode().writesBuckets()) {
+            messageBucketStore.append(inserted);
+        }
+        return inserted;
+    }
+
+    private List<MessageDocument> insertDocuments(List<MessageDocument> messages) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MessageDocument.class)
+                    .insert(messages)
+                    .execute();
+            return messages;
+        } catch (BulkOperationException e) {
+            BitSet duplicates = new BitSet(messages.size());
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_ERROR) {
+                    throw e;
+                }
+                duplicates.set(error.getIndex());
+            }
+
+            List<MessageDocument> inserted = new ArrayList<>(messages.size() - duplicates.cardinality());
+            for (int i = 0; i < messages.size(); i++) {
+                if (!duplicates.get(i)) {
+                    inserted.add(messages.get(i));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    @Override
+    public Map<Long, Long> countByChatroomIds(Collection<Long> chatroomIds) {
+        Map<Long, Long> counts = readsBuckets()
+                ? new HashMap<>(messageBucketStore.countByChatroomIds(chatroomIds))
+                : countHotByChatroomIds(chatroomIds);
+        for (Long chatroomId : chatroomIds) {
+            long archived = messageArchive.count(chatroomId);
+            if (archived > 0) {
+                counts.merge(chatroomId, archived, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private Map<Long, Long> countHotByChatroomIds(Collection<Long> chatroomIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (chatroomIds.isEmpty()) {
+            return counts;
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("chatroomId").in(chatroomIds)),
+                Aggregation.group("chatroomId").count().as("count"));
+
+        for (Document result : mongoTemplate.aggregate(aggregation, MessageDocument.class, Document.class)) {
+            counts.put(((Number) result.get("_id")).longValue(), ((Number) result.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    // 아카이브 메시지는 마지막 배치(cutoff 까지 삭제)에서 세그먼트 단위로 지워지므로 hot 메시지만 기준으로 나눔
+    @Override
+    public LocalDateTime findPurgeBatchBoundary(Long chatroomId, LocalDateTime cutoff, int batchSize) {
+        if (readsBuckets()) {
+            return messageBucketStore.findPurgeBatchBoundary(chatroomId, cutoff, batchSize);
+        }
+
+        Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").lte(cutoff))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                .skip(batchSize - 1L);
+        query.fields().include("timestamp");
+
+        MessageDocument boundary = mongoTemplate.findOne(query, MessageDocument.class);
+        return boundary == null ? null : boundary.getTimestamp();
+    }
+
+    // 오래 쓰지 않은 채팅방은 메시지가 모두 아카이브에 있을 수 있으므로 hot 에 없으면 아카이브의 마지막 메시지를 봄
+    @Override
+    public long findMaxSeq(Long chatroomId) {
+        Long seq;
+        if (readsBuckets()) {
+            seq = messageBucketStore.findMaxSeq(chatroomId);
+        } else {
+            Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("seq").ne(null))
+                    .with(Sort.by(Sort.Direction.DESC, "seq"))
+                    .limit(1);
+            query.fields().include("seq");
+            MessageDocument latest = mongoTemplate.findOne(query, MessageDocument.class);
+            seq = latest == null ? null : latest.getSeq();
+        }
+        if (seq == null) {
+            List<MessageDocument> archived = messageArchive.find(chatroomId, Sort.Direction.DESC, 1);
+            seq = archived.isEmpty() ? null : archived.get(0).getSeq();
+        }
+        return seq == null ? 0 : seq;
+    }
+
+    @Override
+    public Map<Long, Long> findMaxSeqs(Collection<Long> chatroomIds) {
+        Map<Long, Long> seqs = readsBuckets()
+                ? new HashMap<>(messageBucketStore.findMaxSeqs(chatroomIds))
+                : findHotMaxSeqs(chatroomIds);
+        for (Long chatroomId : chatroomIds) {
+            if (!seqs.containsKey(chatroomId) && messageArchive.hasMessages(chatroomId)) {
+                Long archived = messageArchive.find(chatroomId, Sort.Direction.DESC, 1).get(0).getSeq();
+                if (archived != null) {
+                    seqs.put(chatroomId, archived);
+                }
+            }
+        }
+        return seqs;
+    }
+
+    private Map<Long, Long> findHotMaxSeqs(Collection<Long> chatroomIds) {
+        Map<Long, Long> seqs = new HashMap<>();
+        if (chatroomIds.isEmpty()) {
+            return seqs;
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("chatroomId").in(chatroomIds).and("seq").ne(null)),
+                Aggregation.group("chatroomId").max("seq").as("seq"));
+
+        for (Document result : mongoTemplate.aggregate(aggregation, MessageDocument.class, Document.class)) {
+            seqs.put(((Number) result.get("_id")).longValue(), ((Number) result.get("seq")).longValue());
+        }
+        return seqs;
+    }
+
+    // 재접속 replay 는 최근 메시지만 대상으로 하므로 아카이브는 읽지 않음
+    @Override
+    public List<MessageDocument> findByChatroomIdAndSeqBetween(Long chatroomId, long afterSeq, long beforeSeq, int limit) {
+        if (readsBuckets()) {
+            return messageBucketStore.findBySeqBetween(chatroomId, afterSeq, beforeSeq, limit);
+        }
+        Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("seq").gt(afterSeq).lt(beforeSeq))
+                .with(Sort.by(Sort.Direction.DESC, "seq"))
+                .limit(limit);
+        return mongoTemplate.find(query, MessageDocument.class).reversed();
+    }
+
+    // 이전 페이지는 커서에서 반대 방향으로 조회 (페이지 정렬로 되돌리는 것은 호출 측에서 처리)
+    private Sort.Direction scanOrder(MessagePageQuery pageQuery) {
+        MessageCursor cursor = pageQuery.cursor();
+        boolean backward = cursor != null && cursor.direction() == MessageCursor.Direction.PREVIOUS;
+        return backward ? reverse(pageQuery.order()) : pageQuery.order();
+    }
+
+    // 정렬 방향 기준으로 커서 "다음" 위치의 메시지만 선택
+    private Criteria keysetCondition(MessageCursor cursor, Sort.Direction scanOrder) {
+        boolean ascending = scanOrder.isAscending();
+
+        Criteria strictlyAfter = ascending
+                ? Criteria.where("timestamp").gt(cursor.timestamp())
+                : Criteria.where("timestamp").lt(cursor.timestamp());
+
+        if (cursor.id() == null) {
+            return strictlyAfter;
+        }
+
+        Criteria sameTimestamp = new Criteria().andOperator(
+                Criteria.where("timestamp").is(cursor.timestamp()),
+                ascending ? Criteria.where("id").gt(cursor.id()) : Criteria.where("id").lt(cursor.id()));
+
+        return new Criteria().orOperator(strictlyAfter, sameTimestamp);
+    }
+
+    private boolean readsBuckets() {
+        return storageProperties.getMode().readsBuckets();
+    }
+
+    private Query chatroomQuery(Long chatroomId) {
+        return new Query(Criteria.where("chatroomId").is(chatroomId));
+    }
+
+    private Sort.Direction reverse(Sort.Direction direction) {
+        return direction.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+}
@@ -1,44 +1,203 @@
 package com.messaging.opensource.message;
 
+import com.messaging.opensource.message.archive.MessageArchive;
+import com.messaging.opensource.message.bucket.StorageProperties;
+import com.messaging.opensource.message.cache.RecentCacheProperties;
+import com.messaging.opensource.message.cache.RecentMessageCache;
+import com.messaging.opensource.message.count.MessageCountProperties;
+import com.messaging.opensource.message.count.MessageCounters;
 import com.messaging.opensource.message.dto.CountMessagesByChatroomDto;
 import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.dto.MessagePageDto;
+import com.messaging.opensource.message.dto.PurgeJobDto;
+import com.messaging.opensource.message.dto.UnreadCountDto;
 import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.entity.PurgeJob;
+import com.messaging.opensource.message.event.MessagesDeletedEvent;
+import com.messaging.opensource.message.event.MessagesSavedEvent;
+import com.messaging.opensource.message.lean.LeanMessageWriter;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import com.messaging.opensource.message.pagination.PaginationProperties;
+import com.messaging.opensource.message.purge.MessagePurgeJobs;
+import com.messaging.opensource.message.read.ReadCursors;
+import com.messaging.opensource.message.search.MessageSearchIndex;
+import com.messaging.opensource.message.search.SearchResult;
+import com.messaging.opensource.message.search.SearchProperties;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class MessageService {
 
+    private static final Sort TIMESTAMP_ASC = Sort.by(Sort.Direction.ASC, "timestamp");
+
+    private static final Sort TIMESTAMP_DESC = Sort.by(Sort.Direction.DESC, "timestamp");
+
     private final MessageRepository messageRepository;
 
+    private final PaginationProperties paginationProperties;
+
+    private final MessageSearchIndex messageSearchIndex;
+
+    private final SearchProperties searchProperties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final RecentMessageCache recentMessageCache;
+
+    private final RecentCacheProperties recentCacheProperties;
+
+    private final MessageCounters messageCounters;
+
+    private final MessageCountProperties messageCountProperties;
+
+    private final MessagePurgeJobs messagePurgeJobs;
+
+    private final LeanMessageWriter leanMessageWriter;
+
+    private final StorageProperties storageProperties;
+
+    private final MessageArchive messageArchive;
+
+    private final ReadCursors readCursors;
+
     // 특정 채팅방의 모든 메시지를 시간순으로 조회
     public List<MessageDocumentDto> getMessagesByChatroomInOrder(Long chatroomId) {
         List<MessageDocument> messageDocuments = messageRepository.findByChatroomIdOrderByTimestampAsc(chatroomId);
         return messageDocumentListToDtoList(messageDocuments);
     }
 
-    // 특정 채팅방의 최신 메시지 조회 (최신순)
-    public List<MessageDocumentDto> getRecentMessagesByChatroom(Long chatroomId) {
-        List<MessageDocument> messageDocuments = messageRepository.findByChatroomIdOrderByTimestampDesc(chatroomId);
-        return messageDocumentListToDtoList(messageDocuments);
+    // 특정 채팅방의 모든 메시지를 NDJSON 으로 스트리밍 (한 줄에 메시지 하나, 시간순)
+    // Mongo 커서에서 읽는 대로 바로 쓰므로 메모리 사용량이 방 크기와 무관하고, 클라이언트 연결이 끊기면 쓰기 실패로 커서도 닫힘
+    public long exportMessagesByChatroom(Long chatroomId, OutputStream out) throws IOException {
+        if (readsRepository(chatroomId)) {
+            return leanMessageWriter.write(messageRepository.streamByChatroomIdOrderByTimestampAsc(chatroomId),
+                    out, LeanMessageWriter.Framing.NDJSON);
+        }
+        return leanMessageWriter.write(chatroomQuery(chatroomId).with(TIMESTAMP_ASC), out, LeanMessageWriter.Framing.NDJSON);
+    }
+
+    // 아래 lean 조회는 엔티티/DTO 목록을 만들지 않고 BSON 에서 바로 JSON 배열로 씀 (응답 형식은 일반 조회와 같음)
+    // 버킷 저장 방식이나 아카이브로 옮긴 메시지가 있는 채팅방은 messages 컬렉션만 읽을 수 없으므로 저장소 조회 결과를 같은 형식으로 씀
+
+    // 특정 채팅방의 모든 메시지 조회 (시간순, lean)
+    public void writeMessagesByChatroomLean(Long chatroomId, OutputStream out) throws IOException {
+        if (readsRepository(chatroomId)) {
+            writeLean(messageRepository.streamByChatroomIdOrderByTimestampAsc(chatroomId), out);
+            return;
+        }
+        writeLean(chatroomQuery(chatroomId).with(TIMESTAMP_ASC), out);
+    }
+
+    // 특정 시간 이후의 메시지 조회 (시간순, lean)
+    public void writeMessagesAfterTimestampLean(Long chatroomId, LocalDateTime timestamp, OutputStream out) throws IOException {
+        if (readsRepository(chatroomId)) {
+            writeLean(messageRepository.findByChatroomIdAndTimestampAfter(chatroomId, timestamp).stream(), out);
+            return;
+        }
+        Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").gt(timestamp));
+        writeLean(query.with(TIMESTAMP_ASC), out);
+    }
+
+    // 특정 시간 이전의 메시지 조회 (최신순, lean)
+    public void writeMessagesBeforeTimestampLean(Long chatroomId, LocalDateTime timestamp, OutputStream out) throws IOException {
+        if (readsRepository(chatroomId)) {
+            writeLean(messageRepository.findByChatroomIdAndTimestampBeforeOrderByTimestampDesc(chatroomId, timestamp).stream(), out);
+            return;
+        }
+        Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").lt(timestamp));
+        writeLean(query.with(TIMESTAMP_DESC), out);
+    }
+
+    // 특정 사용자가 보낸 모든 메시지 조회 (시간순, lean)
+    // 아카이브는 채팅방별로만 읽을 수 있어 모든 채팅방 세그먼트를 풀지 않도록 messages 만 대상
+    public void writeMessagesBySenderLean(Long senderId, OutputStream out) throws IOException {
+        if (storageProperties.getMode().readsBuckets()) {
+            writeLean(messageRepository.findBySenderId(senderId).stream(), out);
+            return;
+        }
+        writeLean(new Query(Criteria.where("senderId").is(senderId)).with(TIMESTAMP_ASC), out);
+    }
+
+    // 특정 사용자가 특정 채팅방에 작성한 메시지 조회 (시간순, lean)
+    public void writeMessagesBySenderIdAndChatroomIdLean(Long senderId, Long chatroomId, OutputStream out) throws IOException {
+        if (readsRepository(chatroomId)) {
+            writeLean(messageRepository.findBySenderIdAndChatroomId(senderId, chatroomId).stream(), out);
+            return;
+        }
+        Query query = new Query(Criteria.where("senderId").is(senderId).and("chatroomId").is(chatroomId));
+        writeLean(query.with(TIMESTAMP_ASC), out);
+    }
+
+    private void writeLean(Query query, OutputStream out) throws IOException {
+        leanMessageWriter.write(query, out, LeanMessageWriter.Framing.ARRAY);
+    }
+
+    private void writeLean(Stream<MessageDocument> messages, OutputStream out) throws IOException {
+        leanMessageWriter.write(messages, out, LeanMessageWriter.Framing.ARRAY);
+    }
+
+    private Query chatroomQuery(Long chatroomId) {
+        return new Query(Criteria.where("chatroomId").is(chatroomId));
+    }
+
+    private boolean readsRepository(Long chatroomId) {
+        return storageProperties.getMode().readsBuckets() || messageArchive.hasMessages(chatroomId);
+    }
+
+    // 특정 채팅방의 최신 메시지 최대 limit 개 조회 (최신순)
+    // 최근 메시지 캐시 범위 안이면 메모리에서, 더 깊은 조회는 Mongo 에서 읽음
+    public List<MessageDocumentDto> getRecentMessagesByChatroom(Long chatroomId, Integer limit) {
+        int resolvedLimit = limit == null || limit <= 0 ? recentCacheProperties.getDefaultLimit() : limit;
+        return recentMessageCache.getRecentMessages(chatroomId, resolvedLimit)
+                .orElseGet(() -> messageDocumentListToDtoList(messageRepository.findByChatroomIdOrderByTimestampDesc(
+                        chatroomId, PageRequest.of(0, resolvedLimit))));
     }
 
     // 메시지 저장
+    // 버킷에 쓰는 모드에서는 save 가 버킷을 거치지 않으므로 bulk insert 경로로 저장
     @Transactional
     public String saveMessage(MessageDocument message) {
-        return messageRepository.save(message).getId();
+        if (!storageProperties.getMode().writesBuckets()) {
+            MessageDocument saved = messageRepository.save(message);
+            eventPublisher.publishEvent(new MessagesSavedEvent(List.of(saved)));
+            return saved.getId();
+        }
+
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString());
+        }
+        List<MessageDocument> saved = messageRepository.insertIgnoringDuplicates(List.of(message));
+        eventPublisher.publishEvent(new MessagesSavedEvent(saved));
+        return message.getId();
     }
 
     // 특정 시간 이후의 메시지 조회
+    // 재접속 시 주로 호출되므로, 최근 메시지 캐시가 해당 구간을 모두 담고 있으면 메모리에서 반환
     public List<MessageDocumentDto> getMessagesAfterTimestamp(Long chatroomId, LocalDateTime timestamp) {
-        List<MessageDocument> messageDocuments = messageRepository.findByChatroomIdAndTimestampAfter(chatroomId, timestamp);
-        return messageDocumentListToDtoList(messageDocuments);
+        return recentMessageCache.getMessagesAfter(chatroomId, timestamp)
+                .orElseGet(() -> messageDocumentListToDtoList(
+                        messageRepository.findByChatroomIdAndTimestampAfter(chatroomId, timestamp)));
     }
 
     // 특정 시간 이전의 메시지 조회 (페이징용)
@@ -53,49 +212,164 @@ public class MessageService {
         return messageDocumentListToDtoList(messageDocuments);
     }
 
-    // 특정 채팅방의 메시지 개수 확인
+    // 특정 채팅방의 메시지 개수 확인 (메모리 카운터)
     public CountMessagesByChatroomDto countMessagesByChatroom(Long chatroomId) {
-        Long count = messageRepository.countByChatroomId(chatroomId);
         return CountMessagesByChatroomDto.builder()
-                .count(count)
+                .chatroomId(chatroomId)
+                .count(messageCounters.getCount(chatroomId))
                 .build();
     }
 
-    // 특정 사용자가 보낸 모든 메시지 조회
+    // 여러 채팅방의 메시지 개수를 한 번에 확인 (요청 순서 유지, 중복 제거)
+    public List<CountMessagesByChatroomDto> countMessagesByChatrooms(List<Long> chatroomIds) {
+        if (chatroomIds.size() > messageCountProperties.getBatchSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "at most " + messageCountProperties.getBatchSize() + " chatroomIds are allowed");
+        }
+        return messageCounters.getCounts(chatroomIds).entrySet().stream()
+                .map(entry -> CountMessagesByChatroomDto.builder()
+                        .chatroomId(entry.getKey())
+                        .count(entry.getValue())
+                        .build())
+                .toList();
+    }
+
+    // 사용자의 채팅방별 안 읽은 메시지 수 (읽음 위치가 있는 채팅방만, 채팅방 ID 순)
+    public List<UnreadCountDto> getUnreadCounts(Long userId) {
+        return readCursors.getUnreadCounts(userId).entrySet().stream()
+                .map(entry -> UnreadCountDto.builder()
+                        .chatroomId(entry.getKey())
+                        .lastReadSeq(entry.getValue().lastReadSeq())
+                        .unreadCount(entry.getValue().count())
+                        .build())
+                .toList();
+    }
+
+    // 특정 사용자가 보낸 모든 메시지 조회 (아카이브로 옮긴 메시지는 제외)
     public List<MessageDocumentDto> getMessagesBySender(Long senderId) {
         List<MessageDocument> messageDocuments = messageRepository.findBySenderId(senderId);
         return messageDocumentListToDtoList(messageDocuments);
     }
 
-    // 채팅방 내 메시지 검색
-    public List<MessageDocumentDto> searchMessagesByChatroomAndKeyword(Long chatroomId, String keyword) {
-        List<MessageDocument> messageDocuments = messageRepository.findByChatroomIdAndContentContaining(chatroomId, keyword);
-        return messageDocumentListToDtoList(messageDocuments);
+    // 채팅방 내 메시지 검색 (n-gram 색인, 관련도순)
+    public SearchResult searchMessagesByChatroomAndKeyword(Long chatroomId, String keyword,
+                                                           Integer offset, Integer limit) {
+        int resolvedOffset = offset == null || offset < 0 ? 0 : offset;
+        int resolvedLimit = limit == null || limit <= 0
+                ? searchProperties.getDefaultLimit()
+                : Math.min(limit, searchProperties.getMaxLimit());
+
+        return messageSearchIndex.search(chatroomId, keyword, resolvedOffset, resolvedLimit);
     }
 
     // 채팅방의 가장 최근 메시지 조회
     public MessageDocumentDto getLatestMessageByChatroom(Long chatroomId) {
-        return messageRepository.findTopByChatroomIdOrderByTimestampDesc(chatroomId).toDto();
+        return recentMessageCache.getLatestMessage(chatroomId)
+                .orElseGet(() -> messageRepository.findTopByChatroomIdOrderByTimestampDesc(chatroomId).toDto());
     }
 
     // 특정 사용자의 특정 채팅방 메시지 삭제
     @Transactional
     public void deleteMessagesBySenderInChatroom(Long chatroomId, Long senderId) {
-        messageRepository.deleteByChatroomIdAndSenderId(chatroomId, senderId);
+        long deleted = messageRepository.deleteByChatroomIdAndSenderId(chatroomId, senderId);
+        eventPublisher.publishEvent(new MessagesDeletedEvent(chatroomId, senderId, deleted));
     }
 
-    // 대량 메시지 저장
+    // 대량 메시지 저장 (한 번의 bulk insert, 이미 저장된 ID 는 건너뜀)
     @Transactional
     public List<MessageDocumentDto> saveAllMessages(List<MessageDocument> messages) {
-        List<MessageDocument> messageDocuments = messageRepository.saveAll(messages);
+        for (MessageDocument message : messages) {
+            if (message.getId() == null) {
+                message.setId(new ObjectId().toHexString());
+            }
+        }
+        List<MessageDocument> messageDocuments = messageRepository.insertIgnoringDuplicates(messages);
+        eventPublisher.publishEvent(new MessagesSavedEvent(messageDocuments));
         return messageDocumentListToDtoList(messageDocuments);
     }
 
-    // 특정 채팅방의 모든 메시지 삭제
+    // 특정 채팅방의 모든 메시지 삭제 작업 등록 (백그라운드에서 배치 단위로 삭제)
     @Transactional
-    public void deleteAllMessagesByChatroom(Long chatroomId) {
-        List<MessageDocument> messages = messageRepository.findByChatroomIdOrderByTimestampAsc(chatroomId);
-        messageRepository.deleteAll(messages);
+    public PurgeJobDto deleteAllMessagesByChatroom(Long chatroomId) {
+        return messagePurgeJobs.submit(chatroomId).toDto();
+    }
+
+    // 메시지 삭제 작업 상태 조회
+    public PurgeJobDto getPurgeJob(String jobId) {
+        return messagePurgeJobs.findJob(jobId)
+                .map(PurgeJob::toDto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "purge job not found"));
+    }
+
+    // 특정 채팅방의 메시지 페이지 조회 (ASC: 시간순, DESC: 최신순)
+    public MessagePageDto getMessagePageByChatroom(Long chatroomId, Sort.Direction order, String cursor, Integer size) {
+        return getMessagePage(chatroomId, null, order, decodeCursor(cursor), size);
+    }
+
+    // 특정 시간 이전의 메시지 페이지 조회 (최신순). cursor 가 있으면 timestamp 대신 cursor 기준
+    public MessagePageDto getMessagePageBeforeTimestamp(Long chatroomId, LocalDateTime timestamp, String cursor, Integer size) {
+        if (cursor == null && timestamp == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "timestamp or cursor is required");
+        }
+        MessageCursor start = cursor != null ? decodeCursor(cursor) : MessageCursor.startingAt(timestamp);
+        return getMessagePage(chatroomId, null, Sort.Direction.DESC, start, size);
+    }
+
+    // 특정 사용자가 보낸 메시지 페이지 조회 (시간순)
+    public MessagePageDto getMessagePageBySender(Long senderId, String cursor, Integer size) {
+        return getMessagePage(null, senderId, Sort.Direction.ASC, decodeCursor(cursor), size);
+    }
+
+    // 특정 사용자가 특정 채팅방에 작성한 메시지 페이지 조회 (시간순)
+    public MessagePageDto getMessagePageBySenderIdAndChatroomId(Long senderId, Long chatroomId, String cursor, Integer size) {
+        return getMessagePage(chatroomId, senderId, Sort.Direction.ASC, decodeCursor(cursor), size);
+    }
+
+    private MessagePageDto getMessagePage(Long chatroomId, Long senderId, Sort.Direction order,
+                                          MessageCursor cursor, Integer size) {
+        int limit = resolvePageSize(size);
+        List<MessageDocument> scanned = messageRepository.findPage(
+                new MessagePageQuery(chatroomId, senderId, order, cursor, limit));
+
+        boolean hasMore = scanned.size() > limit;
+        List<MessageDocument> page = new ArrayList<>(hasMore ? scanned.subList(0, limit) : scanned);
+
+        // 이전 페이지 조회는 커서에서 거꾸로 읽었으므로 페이지 정렬 순서로 되돌림
+        boolean backward = cursor != null && cursor.direction() == MessageCursor.Direction.PREVIOUS;
+        if (backward) {
+            Collections.reverse(page);
+        }
+
+        boolean hasNext = backward || hasMore;
+        boolean hasPrevious = backward ? hasMore : cursor != null;
+
+        MessagePageDto.MessagePageDtoBuilder builder = MessagePageDto.builder()
+                .messages(messageDocumentListToDtoList(page))
+                .hasNext(hasNext && !page.isEmpty())
+                .hasPrevious(hasPrevious && !page.isEmpty());
+
+        if (!page.isEmpty()) {
+            MessageDocument first = page.get(0);
+            MessageDocument last = page.get(page.size() - 1);
+            if (hasNext) {
+                builder.nextCursor(new MessageCursor(last.getTimestamp(), last.getId(), MessageCursor.Direction.NEXT).encode());
+            }
+            if (hasPrevious) {
+                builder.prevCursor(new MessageCursor(first.getTimestamp(), first.getId(), MessageCursor.Direction.PREVIOUS).encode());
+            }
+        }
+        return builder.build();
+    }
+
+    private MessageCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : MessageCursor.decode(cursor);
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return paginationProperties.getDefaultSize();
+        }
+        return Math.min(size, paginationProperties.getMaxSize());
     }
 
     private List<MessageDocumentDto> messageDocumentListToDtoList(List<MessageDocument> messages) {
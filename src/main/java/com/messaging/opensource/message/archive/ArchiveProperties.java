@@ -0,0 +1,35 @@
+package com.messaging.opensource.message.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.archive")
+public class ArchiveProperties {
+
+    // true 이면 주기적으로 오래된 메시지를 messages 컬렉션에서 아카이브 세그먼트로 옮김 (이미 옮긴 메시지 조회는 항상 동작)
+    private boolean enabled = false;
+
+    private String directory = "data/archive";
+
+    // 이 기간보다 오래된 메시지를 아카이브로 옮김
+    private Duration hotRetention = Duration.ofDays(30);
+
+    private Duration interval = Duration.ofHours(1);
+
+    // 채팅방마다 messages 에서 한 번에 읽어서 옮기는 메시지 수
+    private int batchSize = 10_000;
+
+    // 압축 블록 하나의 메시지 수. 블록마다 시간 범위를 색인하므로 조회 시 이 단위로 읽음
+    private int blockSize = 256;
+
+    // 세그먼트 파일 하나의 최대 메시지 수. 마지막 세그먼트가 절반 이하이면 다음 이동 때 합쳐서 다시 씀
+    private int maxMessagesPerSegment = 100_000;
+
+    // 초당 최대 이동 메시지 수. 0 이하이면 제한 없음
+    private int maxMessagesPerSecond = 5000;
+}
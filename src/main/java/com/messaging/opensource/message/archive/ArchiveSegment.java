@@ -0,0 +1,368 @@
+package com.messaging.opensource.message.archive;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 채팅방 하나의 메시지를 (timestamp, id) 순으로 담은 불변 아카이브 파일.
+ * 메시지를 block-size 개씩 묶어 deflate 로 압축하고, 파일 끝에 블록별 시간 범위와 위치를 담은 sparse 색인을 둔다.
+ * 조회는 색인으로 범위에 걸친 블록만 골라서 읽는다. 내용을 바꿀 때는 새 파일을 쓰고, 새 파일 헤더에 대체한 파일 이름을 남긴다.
+ *
+ * <pre>
+ * [MAGIC][VERSION][chatroomId][replaces 파일 이름]
+ * [블록 0 (deflate)] ... [블록 n-1]
+ * [블록마다: 첫 시각, 마지막 시각(ns), 위치, 압축 크기, 메시지 수]
+ * [블록 수][색인 위치][MAGIC]
+ * </pre>
+ * 버전 2 부터 메시지마다 채팅방 순번을, 버전 3 부터 보낸 사람 이름을 담는다. 이전 버전 파일은 없는 필드를 null 로 읽는다.
+ */
+final class ArchiveSegment {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x4D534741;
+    private static final byte VERSION = 3;
+    private static final byte VERSION_WITHOUT_SENDER_NAME = 2;
+    private static final byte VERSION_WITHOUT_SEQ = 1;
+    private static final int TRAILER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES * 3 + Integer.BYTES * 2;
+
+    private final Path path;
+    private final byte version;
+    private final Long chatroomId;
+    private final String replaces;
+    private final long[] firstNanos;
+    private final long[] lastNanos;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] counts;
+    private final long count;
+
+    private ArchiveSegment(Path path, byte version, Long chatroomId, String replaces,
+                           long[] firstNanos, long[] lastNanos, long[] offsets, int[] lengths, int[] counts) {
+        this.path = path;
+        this.version = version;
+        this.chatroomId = chatroomId;
+        this.replaces = replaces;
+        this.firstNanos = firstNanos;
+        this.lastNanos = lastNanos;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.counts = counts;
+        long total = 0;
+        for (int blockCount : counts) {
+            total += blockCount;
+        }
+        this.count = total;
+    }
+
+    // (timestamp, id) 순으로 정렬된 메시지를 path 에 쓰고 fsync. 시각이 없는 메시지는 받지 않음
+    static void write(Path path, Long chatroomId, String replaces, List<MessageDocument> messages, int blockSize)
+            throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("Archive segment needs at least one message");
+        }
+        int blocks = (messages.size() + blockSize - 1) / blockSize;
+        ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_SIZE + TRAILER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream headerOut = new DataOutputStream(header);
+            headerOut.writeInt(MAGIC);
+            headerOut.writeByte(VERSION);
+            headerOut.writeLong(chatroomId);
+            headerOut.writeUTF(replaces != null ? replaces : "");
+            long position = writeFully(channel, ByteBuffer.wrap(header.toByteArray()), 0);
+
+            for (int from = 0; from < messages.size(); from += blockSize) {
+                List<MessageDocument> block = messages.subList(from, Math.min(from + blockSize, messages.size()));
+                byte[] compressed = compress(block);
+                index.putLong(toNanos(block.get(0).getTimestamp()))
+                        .putLong(toNanos(block.get(block.size() - 1).getTimestamp()))
+                        .putLong(position)
+                        .putInt(compressed.length)
+                        .putInt(block.size());
+                position += writeFully(channel, ByteBuffer.wrap(compressed), position);
+            }
+
+            index.putInt(blocks).putLong(position).putInt(MAGIC);
+            writeFully(channel, index.flip(), position);
+            channel.force(true);
+        }
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            int blocks = trailer.getInt();
+            long indexOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Incomplete archive segment " + path);
+            }
+
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(
+                    readFully(channel, 0, (int) Math.min(indexOffset, 1024)).array()));
+            if (header.readInt() != MAGIC) {
+                throw new IOException("Unsupported archive segment " + path);
+            }
+            byte version = header.readByte();
+            if (version != VERSION && version != VERSION_WITHOUT_SENDER_NAME && version != VERSION_WITHOUT_SEQ) {
+                throw new IOException("Unsupported archive segment " + path);
+            }
+            Long chatroomId = header.readLong();
+            String replaces = header.readUTF();
+
+            ByteBuffer index = readFully(channel, indexOffset, blocks * INDEX_ENTRY_SIZE);
+            long[] firstNanos = new long[blocks];
+            long[] lastNanos = new long[blocks];
+            long[] offsets = new long[blocks];
+            int[] lengths = new int[blocks];
+            int[] counts = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                firstNanos[i] = index.getLong();
+                lastNanos[i] = index.getLong();
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                counts[i] = index.getInt();
+            }
+            return new ArchiveSegment(path, version, chatroomId, replaces.isEmpty() ? null : replaces,
+                    firstNanos, lastNanos, offsets, lengths, counts);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    String name() {
+        return path.getFileName().toString();
+    }
+
+    Long chatroomId() {
+        return chatroomId;
+    }
+
+    // 이 파일이 대체한 이전 세그먼트 파일 이름 (없으면 null)
+    String replaces() {
+        return replaces;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long firstNanos() {
+        return firstNanos[0];
+    }
+
+    long lastNanos() {
+        return lastNanos[lastNanos.length - 1];
+    }
+
+    // [fromNanos, toNanos] 범위에 걸친 블록의 메시지를 order 순으로 읽음. 블록 단위로 걸러내므로 범위 밖 메시지도 섞여 있을 수 있음
+    // 파일은 바로 열고(이후 파일이 교체되어도 계속 읽을 수 있음) 끝까지 읽거나 close 하면 닫힘. 블록은 읽을 때 압축을 풂
+    BlockIterator iterate(Sort.Direction order, long fromNanos, long toNanos) throws IOException {
+        // 블록은 시간순이므로 lastNanos >= from 인 첫 블록부터 firstNanos <= to 인 마지막 블록까지
+        int first = 0;
+        while (first < lastNanos.length && lastNanos[first] < fromNanos) {
+            first++;
+        }
+        int last = firstNanos.length - 1;
+        while (last >= first && firstNanos[last] > toNanos) {
+            last--;
+        }
+        return new BlockIterator(FileChannel.open(path, StandardOpenOption.READ), order, first, last);
+    }
+
+    List<MessageDocument> readAll() throws IOException {
+        List<MessageDocument> messages = new ArrayList<>((int) count);
+        try (BlockIterator iterator = iterate(Sort.Direction.ASC, Long.MIN_VALUE, Long.MAX_VALUE)) {
+            iterator.forEachRemaining(messages::add);
+        }
+        return messages;
+    }
+
+    private List<MessageDocument> readBlock(FileChannel channel, int block) throws IOException {
+        ByteBuffer compressed = readFully(channel, offsets[block], lengths[block]);
+        List<MessageDocument> messages = new ArrayList<>(counts[block]);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(compressed.array())))) {
+            for (int i = 0; i < counts[block]; i++) {
+                messages.add(readMessage(in));
+            }
+        }
+        return messages;
+    }
+
+    final class BlockIterator implements Iterator<MessageDocument>, AutoCloseable {
+
+        private final Sort.Direction order;
+        private final int lastBlock;
+        private final int firstBlock;
+        private int nextBlock;
+        private FileChannel channel;
+        private Iterator<MessageDocument> current = Collections.emptyIterator();
+
+        private BlockIterator(FileChannel channel, Sort.Direction order, int firstBlock, int lastBlock) {
+            this.channel = channel;
+            this.order = order;
+            this.firstBlock = firstBlock;
+            this.lastBlock = lastBlock;
+            this.nextBlock = order.isAscending() ? firstBlock : lastBlock;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (nextBlock < firstBlock || nextBlock > lastBlock) {
+                    close();
+                    return false;
+                }
+                if (channel == null) {
+                    return false;
+                }
+                try {
+                    List<MessageDocument> messages = readBlock(channel, nextBlock);
+                    if (!order.isAscending()) {
+                        Collections.reverse(messages);
+                    }
+                    current = messages.iterator();
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException("Failed to read archive segment " + path, e);
+                }
+                nextBlock += order.isAscending() ? 1 : -1;
+            }
+            return true;
+        }
+
+        @Override
+        public MessageDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // 읽기 전용 채널
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private static byte[] compress(List<MessageDocument> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            for (MessageDocument message : block) {
+                writeMessage(out, message);
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    // 채팅방 ID 는 세그먼트 헤더에 있으므로 메시지마다 쓰지 않음
+    private static void writeMessage(DataOutputStream out, MessageDocument message) throws IOException {
+        out.writeUTF(message.getId());
+        out.writeBoolean(message.getSenderId() != null);
+        if (message.getSenderId() != null) {
+            out.writeLong(message.getSenderId());
+        }
+        out.writeLong(message.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(message.getTimestamp().getNano());
+        if (message.getContent() == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(content.length);
+            out.write(content);
+        }
+        out.writeBoolean(message.getSeq() != null);
+        if (message.getSeq() != null) {
+            out.writeLong(message.getSeq());
+        }
+        out.writeBoolean(message.getSenderName() != null);
+        if (message.getSenderName() != null) {
+            out.writeUTF(message.getSenderName());
+        }
+    }
+
+    private MessageDocument readMessage(DataInputStream in) throws IOException {
+        MessageDocument.MessageDocumentBuilder builder = MessageDocument.builder()
+                .chatroomId(chatroomId)
+                .id(in.readUTF());
+        if (in.readBoolean()) {
+            builder.senderId(in.readLong());
+        }
+        builder.timestamp(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+        int length = in.readInt();
+        if (length >= 0) {
+            byte[] content = new byte[length];
+            in.readFully(content);
+            builder.content(new String(content, StandardCharsets.UTF_8));
+        }
+        if (version != VERSION_WITHOUT_SEQ && in.readBoolean()) {
+            builder.seq(in.readLong());
+        }
+        if (version == VERSION && in.readBoolean()) {
+            builder.senderName(in.readUTF());
+        }
+        return builder.build();
+    }
+
+    // 시간대와 무관하게 LocalDateTime 값 그대로 비교하기 위한 값
+    static long toNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+        return buffer.flip();
+    }
+}
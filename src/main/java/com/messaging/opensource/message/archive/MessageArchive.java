@@ -0,0 +1,496 @@
+package com.messaging.opensource.message.archive;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 로컬 디스크의 채팅방별 아카이브 세그먼트 목록.
+ * 세그먼트 파일은 {@code <directory>/<chatroomId>/} 아래에 있고, 기동할 때 모두 읽어서 채팅방마다 시간순 목록을 만든다.
+ * 조회는 잠금 없이 현재 목록으로 하고, 쓰기(아카이브 이동, 삭제로 인한 다시 쓰기)는 채팅방 단위로 직렬화한다.
+ *
+ * <p>파일 교체는 임시 파일에 쓰고 fsync 한 다음 rename 하고, 새 파일 헤더에 대체한 파일 이름을 남긴다.
+ * 이전 파일을 지우기 전에 중단되면 다음 기동 때 지운다. messages 컬렉션에서 아직 지우지 않은 메시지가 담긴 세그먼트에는
+ * {@code .pending} 표시 파일을 두고, 다음 기동 때 {@link MessageArchiveJob} 이 삭제를 마저 한다.
+ */
+@Component
+public class MessageArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchive.class);
+
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String PENDING_SUFFIX = ".pending";
+
+    // 읽는 사이 세그먼트가 교체되면 새 목록으로 다시 시도하는 횟수
+    private static final int OPEN_ATTEMPTS = 3;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Comparator<ArchiveSegment> SEGMENT_ORDER = Comparator
+            .comparingLong(ArchiveSegment::firstNanos)
+            .thenComparing(ArchiveSegment::name);
+
+    private final ArchiveProperties properties;
+    private final Path directory;
+    private final Map<Long, RoomArchive> rooms = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    // 기동 시 발견한, messages 에서 삭제가 끝나지 않은 세그먼트
+    private final List<ArchiveSegment> recovered = new ArrayList<>();
+
+    public MessageArchive(ArchiveProperties properties) {
+        this.properties = properties;
+        this.directory = Path.of(properties.getDirectory());
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // 채팅방의 아카이브 이동과 삭제를 직렬화하는 잠금. 이동 중인 메시지가 삭제된 뒤 아카이브에 다시 생기지 않도록
+    // 삭제는 messages 와 아카이브를 모두 이 잠금 안에서 지움
+    public ReentrantLock lockFor(Long chatroomId) {
+        return locks[Math.floorMod(chatroomId.hashCode(), locks.length)];
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> roomDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path roomDirectory : roomDirectories) {
+                Long chatroomId = parseChatroomId(roomDirectory);
+                if (chatroomId != null) {
+                    loadRoom(chatroomId, roomDirectory);
+                }
+            }
+        }
+        if (!rooms.isEmpty()) {
+            logger.info("Loaded message archive for {} chatrooms from {}", rooms.size(), directory.toAbsolutePath());
+        }
+    }
+
+    private void loadRoom(Long chatroomId, Path roomDirectory) throws IOException {
+        List<ArchiveSegment> segments = new ArrayList<>();
+        List<Path> markers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(roomDirectory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    // 쓰다가 중단된 파일
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(PENDING_SUFFIX)) {
+                    markers.add(file);
+                } else if (name.endsWith(ArchiveSegment.SUFFIX)) {
+                    try {
+                        segments.add(ArchiveSegment.open(file));
+                    } catch (IOException e) {
+                        logger.error("Skipping unreadable archive segment {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+        }
+
+        // 새 파일로 교체한 다음 지우지 못한 이전 파일
+        Set<String> replaced = new HashSet<>();
+        for (ArchiveSegment segment : segments) {
+            if (segment.replaces() != null) {
+                replaced.add(segment.replaces());
+            }
+        }
+        for (ArchiveSegment segment : List.copyOf(segments)) {
+            if (replaced.contains(segment.name())) {
+                segments.remove(segment);
+                Files.deleteIfExists(segment.path());
+            }
+        }
+
+        for (Path marker : markers) {
+            Path segmentPath = segmentPathOf(marker);
+            ArchiveSegment pending = segments.stream()
+                    .filter(segment -> segment.path().equals(segmentPath))
+                    .findFirst()
+                    .orElse(null);
+            if (pending == null) {
+                Files.deleteIfExists(marker);
+            } else {
+                recovered.add(pending);
+            }
+        }
+
+        if (!segments.isEmpty()) {
+            segments.sort(SEGMENT_ORDER);
+            rooms.put(chatroomId, new RoomArchive(segments));
+        }
+    }
+
+    public boolean hasMessages(Long chatroomId) {
+        RoomArchive room = rooms.get(chatroomId);
+        return room != null && !room.segments.isEmpty();
+    }
+
+    public long count(Long chatroomId) {
+        RoomArchive room = rooms.get(chatroomId);
+        if (room == null) {
+            return 0;
+        }
+        long count = 0;
+        for (ArchiveSegment segment : room.segments) {
+            count += segment.count();
+        }
+        return count;
+    }
+
+    // 채팅방 전체 메시지를 order 순으로 스트리밍 (반드시 close 필요)
+    public Stream<MessageDocument> stream(Long chatroomId, Sort.Direction order) {
+        return stream(chatroomId, order, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    // 최대 limit 개 (0 이하이면 전체)
+    public List<MessageDocument> find(Long chatroomId, Sort.Direction order, long limit) {
+        if (!hasMessages(chatroomId)) {
+            return List.of();
+        }
+        try (Stream<MessageDocument> messages = stream(chatroomId, order)) {
+            return (limit > 0 ? messages.limit(limit) : messages).toList();
+        }
+    }
+
+    // timestamp 이후 메시지 (시간순)
+    public List<MessageDocument> findAfter(Long chatroomId, LocalDateTime timestamp) {
+        if (!hasMessages(chatroomId)) {
+            return List.of();
+        }
+        long after = ArchiveSegment.toNanos(timestamp);
+        try (Stream<MessageDocument> messages = stream(chatroomId, Sort.Direction.ASC, after, Long.MAX_VALUE)) {
+            return messages.filter(message -> nanos(message) > after).toList();
+        }
+    }
+
+    // timestamp 이전 메시지 (최신순)
+    public List<MessageDocument> findBefore(Long chatroomId, LocalDateTime timestamp) {
+        if (!hasMessages(chatroomId)) {
+            return List.of();
+        }
+        long before = ArchiveSegment.toNanos(timestamp);
+        try (Stream<MessageDocument> messages = stream(chatroomId, Sort.Direction.DESC, Long.MIN_VALUE, before)) {
+            return messages.filter(message -> nanos(message) < before).toList();
+        }
+    }
+
+    // 특정 사용자가 보낸 메시지 (시간순)
+    public List<MessageDocument> findBySender(Long chatroomId, Long senderId) {
+        if (!hasMessages(chatroomId)) {
+            return List.of();
+        }
+        try (Stream<MessageDocument> messages = stream(chatroomId, Sort.Direction.ASC)) {
+            return messages.filter(message -> senderId.equals(message.getSenderId())).toList();
+        }
+    }
+
+    // (timestamp, id) keyset 페이지 조회. MessageRepositoryCustom#findPage 와 같이 scan order 로 limit + 1 개까지 반환
+    public List<MessageDocument> findPage(MessagePageQuery pageQuery) {
+        if (pageQuery.chatroomId() == null || !hasMessages(pageQuery.chatroomId())) {
+            return List.of();
+        }
+        MessageCursor cursor = pageQuery.cursor();
+        boolean backward = cursor != null && cursor.direction() == MessageCursor.Direction.PREVIOUS;
+        Sort.Direction scanOrder = backward ? reverse(pageQuery.order()) : pageQuery.order();
+
+        long fromNanos = Long.MIN_VALUE;
+        long toNanos = Long.MAX_VALUE;
+        Predicate<MessageDocument> filter = message -> pageQuery.senderId() == null
+                || pageQuery.senderId().equals(message.getSenderId());
+        if (cursor != null) {
+            if (scanOrder.isAscending()) {
+                fromNanos = ArchiveSegment.toNanos(cursor.timestamp());
+            } else {
+                toNanos = ArchiveSegment.toNanos(cursor.timestamp());
+            }
+            filter = filter.and(message -> isPastCursor(message, cursor, scanOrder));
+        }
+
+        try (Stream<MessageDocument> messages = stream(pageQuery.chatroomId(), scanOrder, fromNanos, toNanos)) {
+            return messages.filter(filter).limit(pageQuery.limit() + 1L).toList();
+        }
+    }
+
+    // [fromNanos, toNanos] 범위의 메시지를 order 순으로 스트리밍 (반드시 close 필요)
+    private Stream<MessageDocument> stream(Long chatroomId, Sort.Direction order, long fromNanos, long toNanos) {
+        RoomArchive room = rooms.get(chatroomId);
+        if (room == null) {
+            return Stream.empty();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            List<ArchiveSegment.BlockIterator> opened = new ArrayList<>();
+            List<MessageMerge.Source> sources = new ArrayList<>();
+            try {
+                for (ArchiveSegment segment : room.segments) {
+                    if (segment.lastNanos() < fromNanos || segment.firstNanos() > toNanos) {
+                        continue;
+                    }
+                    ArchiveSegment.BlockIterator blocks = segment.iterate(order, fromNanos, toNanos);
+                    opened.add(blocks);
+                    long bound = order.isAscending() ? segment.firstNanos() : segment.lastNanos();
+                    sources.add(new MessageMerge.Source(bound, () -> blocks));
+                }
+            } catch (NoSuchFileException e) {
+                opened.forEach(ArchiveSegment.BlockIterator::close);
+                if (attempt == OPEN_ATTEMPTS) {
+                    throw new UncheckedIOException(e);
+                }
+                continue;
+            } catch (IOException e) {
+                opened.forEach(ArchiveSegment.BlockIterator::close);
+                throw new UncheckedIOException("Failed to open archive of chatroom " + chatroomId, e);
+            }
+
+            MessageMerge.MergingIterator merged = new MessageMerge.MergingIterator(order, sources);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                    .filter(message -> nanos(message) >= fromNanos && nanos(message) <= toNanos)
+                    .onClose(() -> opened.forEach(ArchiveSegment.BlockIterator::close));
+        }
+    }
+
+    // timestamp 까지의 메시지 삭제. 범위에 다 들어가는 세그먼트는 파일을 지우고, 걸치는 세그먼트는 남은 메시지로 다시 씀
+    public long deleteUpTo(Long chatroomId, LocalDateTime timestamp) throws IOException {
+        RoomArchive room = rooms.get(chatroomId);
+        if (room == null) {
+            return 0;
+        }
+        long upTo = ArchiveSegment.toNanos(timestamp);
+        ReentrantLock lock = lockFor(chatroomId);
+        lock.lock();
+        try {
+            long deleted = 0;
+            for (ArchiveSegment segment : room.segments) {
+                if (segment.firstNanos() > upTo) {
+                    break;
+                }
+                if (segment.lastNanos() <= upTo) {
+                    replace(chatroomId, room, segment, List.of());
+                    deleted += segment.count();
+                } else {
+                    List<MessageDocument> remaining = segment.readAll().stream()
+                            .filter(message -> nanos(message) > upTo)
+                            .toList();
+                    replace(chatroomId, room, segment, remaining);
+                    deleted += segment.count() - remaining.size();
+                }
+            }
+            return deleted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 특정 사용자가 보낸 메시지 삭제. 해당 메시지가 있는 세그먼트를 다시 씀
+    public long deleteBySender(Long chatroomId, Long senderId) throws IOException {
+        RoomArchive room = rooms.get(chatroomId);
+        if (room == null) {
+            return 0;
+        }
+        ReentrantLock lock = lockFor(chatroomId);
+        lock.lock();
+        try {
+            long deleted = 0;
+            for (ArchiveSegment segment : room.segments) {
+                List<MessageDocument> remaining = segment.readAll().stream()
+                        .filter(message -> !senderId.equals(message.getSenderId()))
+                        .toList();
+                if (remaining.size() < segment.count()) {
+                    replace(chatroomId, room, segment, remaining);
+                    deleted += segment.count() - remaining.size();
+                }
+            }
+            return deleted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 다음 append 한 번에 옮길 수 있는 메시지 수. 마지막 세그먼트가 절반 이하로 차 있으면 그 세그먼트에 합쳐서 다시 씀
+    int appendCapacity(Long chatroomId) {
+        ArchiveSegment newest = newestSegment(chatroomId);
+        int max = properties.getMaxMessagesPerSegment();
+        return extendable(newest) ? (int) (max - newest.count()) : max;
+    }
+
+    // (timestamp, id) 순으로 정렬된 메시지를 세그먼트로 씀. 반환한 세그먼트는 messages 에서 지운 다음 completePending 으로 확정
+    ArchiveSegment append(Long chatroomId, List<MessageDocument> messages) throws IOException {
+        ReentrantLock lock = lockFor(chatroomId);
+        lock.lock();
+        try {
+            RoomArchive room = rooms.computeIfAbsent(chatroomId, id -> new RoomArchive(List.of()));
+            ArchiveSegment newest = newestSegment(chatroomId);
+            if (extendable(newest) && newest.count() + messages.size() <= properties.getMaxMessagesPerSegment()) {
+                List<MessageDocument> merged = MessageMerge.merge(Sort.Direction.ASC, newest.readAll(), messages, 0, 0);
+                return replace(chatroomId, room, newest, merged, true);
+            }
+            return write(chatroomId, room, null, messages, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void completePending(ArchiveSegment segment) throws IOException {
+        Files.deleteIfExists(markerOf(segment.path()));
+    }
+
+    // 기동 시 발견한, messages 에서 삭제가 끝나지 않은 세그먼트 (한 번만 반환)
+    synchronized List<ArchiveSegment> takeRecovered() {
+        List<ArchiveSegment> segments = List.copyOf(recovered);
+        recovered.clear();
+        return segments;
+    }
+
+    private boolean extendable(ArchiveSegment segment) {
+        return segment != null && segment.count() <= properties.getMaxMessagesPerSegment() / 2;
+    }
+
+    private ArchiveSegment newestSegment(Long chatroomId) {
+        RoomArchive room = rooms.get(chatroomId);
+        if (room == null || room.segments.isEmpty()) {
+            return null;
+        }
+        return room.segments.get(room.segments.size() - 1);
+    }
+
+    // 삭제로 인한 교체는 이전 세그먼트의 pending 상태를 이어받음
+    private void replace(Long chatroomId, RoomArchive room, ArchiveSegment previous, List<MessageDocument> messages)
+            throws IOException {
+        replace(chatroomId, room, previous, messages, Files.exists(markerOf(previous.path())));
+    }
+
+    private ArchiveSegment replace(Long chatroomId, RoomArchive room, ArchiveSegment previous,
+                                   List<MessageDocument> messages, boolean pending) throws IOException {
+        if (messages.isEmpty()) {
+            room.remove(previous);
+            deleteSegmentFiles(previous);
+            if (room.segments.isEmpty()) {
+                rooms.remove(chatroomId, room);
+            }
+            return null;
+        }
+        return write(chatroomId, room, previous, messages, pending);
+    }
+
+    private ArchiveSegment write(Long chatroomId, RoomArchive room, ArchiveSegment previous,
+                                 List<MessageDocument> messages, boolean pending) throws IOException {
+        Path roomDirectory = Files.createDirectories(directory.resolve(String.valueOf(chatroomId)));
+        String name = String.format("%020d-%s%s",
+                ArchiveSegment.toNanos(messages.get(0).getTimestamp()), new ObjectId().toHexString(), ArchiveSegment.SUFFIX);
+        Path target = roomDirectory.resolve(name);
+        Path tmp = roomDirectory.resolve(name + TMP_SUFFIX);
+
+        ArchiveSegment.write(tmp, chatroomId, previous != null ? previous.name() : null,
+                messages, properties.getBlockSize());
+        if (pending) {
+            Files.createFile(markerOf(target));
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        ArchiveSegment segment = ArchiveSegment.open(target);
+        room.replace(previous, segment);
+        if (previous != null) {
+            deleteSegmentFiles(previous);
+        }
+        rooms.putIfAbsent(chatroomId, room);
+        return segment;
+    }
+
+    private void deleteSegmentFiles(ArchiveSegment segment) throws IOException {
+        Files.deleteIfExists(segment.path());
+        Files.deleteIfExists(markerOf(segment.path()));
+    }
+
+    private boolean isPastCursor(MessageDocument message, MessageCursor cursor, Sort.Direction scanOrder) {
+        int compared = message.getTimestamp().compareTo(cursor.timestamp());
+        if (compared == 0 && cursor.id() != null) {
+            compared = message.getId().compareTo(cursor.id());
+        } else if (compared == 0) {
+            return false;
+        }
+        return scanOrder.isAscending() ? compared > 0 : compared < 0;
+    }
+
+    private static long nanos(MessageDocument message) {
+        return ArchiveSegment.toNanos(message.getTimestamp());
+    }
+
+    private static Path markerOf(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + PENDING_SUFFIX);
+    }
+
+    private static Path segmentPathOf(Path marker) {
+        String name = marker.getFileName().toString();
+        return marker.resolveSibling(name.substring(0, name.length() - PENDING_SUFFIX.length()));
+    }
+
+    private static Long parseChatroomId(Path roomDirectory) {
+        try {
+            return Long.valueOf(roomDirectory.getFileName().toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Sort.Direction reverse(Sort.Direction direction) {
+        return direction.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    // 채팅방 하나의 세그먼트 목록. 목록은 통째로 바꿔서 조회 중인 스레드는 이전 목록을 그대로 읽음
+    private static final class RoomArchive {
+
+        private volatile List<ArchiveSegment> segments;
+
+        private RoomArchive(List<ArchiveSegment> segments) {
+            this.segments = List.copyOf(segments);
+        }
+
+        private void replace(ArchiveSegment previous, ArchiveSegment segment) {
+            List<ArchiveSegment> updated = new ArrayList<>(segments);
+            if (previous != null) {
+                updated.remove(previous);
+            }
+            updated.add(segment);
+            updated.sort(SEGMENT_ORDER);
+            segments = List.copyOf(updated);
+        }
+
+        private void remove(ArchiveSegment segment) {
+            List<ArchiveSegment> updated = new ArrayList<>(segments);
+            updated.remove(segment);
+            segments = List.copyOf(updated);
+        }
+    }
+}
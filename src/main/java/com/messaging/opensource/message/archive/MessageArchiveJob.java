@@ -0,0 +1,189 @@
+package com.messaging.opensource.message.archive;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.bucket.StorageMode;
+import com.messaging.opensource.message.bucket.StorageProperties;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.websocket.cluster.ClusterProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * hot-retention 보다 오래된 메시지를 messages 컬렉션에서 아카이브 세그먼트로 옮긴다.
+ * 채팅방마다 오래된 메시지를 시간순 배치로 읽어 세그먼트를 쓰고 fsync 한 다음, 옮긴 메시지를 _id 로 messages 에서 지운다.
+ * 옮긴 메시지는 조회와 개수에 그대로 포함되므로 삭제 이벤트는 발행하지 않는다.
+ * 세그먼트를 쓴 다음 삭제 전에 중단되면 다음 기동 때 남은 삭제를 마저 하고, 그 사이에는 양쪽에 있는 메시지를 조회 시 한 번만 보여준다.
+ * 세그먼트는 노드 로컬 파일이므로 messaging.cluster.enabled 와 함께 켜면 기동하지 않는다.
+ */
+@Component
+public class MessageArchiveJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchiveJob.class);
+
+    // 옮긴 메시지를 지울 때 $in 조건 하나에 넣는 ID 수
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageArchive messageArchive;
+    private final ArchiveProperties properties;
+    private final StorageProperties storageProperties;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public MessageArchiveJob(MongoTemplate mongoTemplate,
+                             MessageArchive messageArchive,
+                             ArchiveProperties properties,
+                             StorageProperties storageProperties,
+                             ClusterProperties clusterProperties,
+                             BlockingExecutors blockingExecutors) {
+        // 노드마다 같은 메시지를 자기 디스크로 옮기고 지우면 다른 노드에서는 옮긴 메시지가 보이지 않음
+        if (properties.isEnabled() && clusterProperties.isEnabled()) {
+            throw new IllegalStateException("messaging.archive.enabled cannot be combined with messaging.cluster.enabled: "
+                    + "archive segments are stored on the local disk of each node");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.messageArchive = messageArchive;
+        this.properties = properties;
+        this.storageProperties = storageProperties;
+        this.executor = blockingExecutors.newSerialExecutor("message-archive");
+    }
+
+    // 이전 실행에서 세그먼트를 쓴 다음 messages 에서 지우지 못한 메시지 정리. Mongo 에 연결할 수 없어도 기동을 막지 않음
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        List<ArchiveSegment> pending = messageArchive.takeRecovered();
+        if (pending.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                for (ArchiveSegment segment : pending) {
+                    logger.info("Completing archive of segment {} for chatroom {}", segment.name(), segment.chatroomId());
+                    removeFromHot(segment.readAll());
+                    messageArchive.completePending(segment);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to complete pending archive segments: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${messaging.archive.interval:PT1H}")
+    public void schedule() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (storageProperties.getMode() != StorageMode.DOCUMENT) {
+            logger.warn("Message archive only supports messaging.storage.mode=DOCUMENT, skipping");
+            return;
+        }
+        // 이전 실행이 아직 끝나지 않았으면 건너뜀
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                run(LocalDateTime.now().minus(properties.getHotRetention()));
+            } catch (InterruptedException e) {
+                // 종료 중. 옮기는 중이던 배치는 다음 기동 때 정리
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Message archive failed: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    // cutoff 이전 메시지를 모든 채팅방에서 옮김
+    void run(LocalDateTime cutoff) throws IOException, InterruptedException {
+        List<Long> chatroomIds = mongoTemplate.findDistinct(new Query(), "chatroomId", MessageDocument.class, Long.class);
+        long moved = 0;
+        for (Long chatroomId : chatroomIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            moved += archiveRoom(chatroomId, cutoff);
+        }
+        if (moved > 0) {
+            logger.info("Archived {} messages older than {}", moved, cutoff);
+        }
+    }
+
+    private long archiveRoom(Long chatroomId, LocalDateTime cutoff) throws IOException, InterruptedException {
+        long moved = 0;
+        while (true) {
+            long start = System.nanoTime();
+            int limit = Math.min(properties.getBatchSize(), messageArchive.appendCapacity(chatroomId));
+
+            int archived;
+            ReentrantLock lock = messageArchive.lockFor(chatroomId);
+            lock.lock();
+            try {
+                Query query = new Query(Criteria.where("chatroomId").is(chatroomId).and("timestamp").lt(cutoff))
+                        .with(Sort.by(Sort.Direction.ASC, "timestamp").and(Sort.by(Sort.Direction.ASC, "id")))
+                        .limit(limit);
+                List<MessageDocument> batch = mongoTemplate.find(query, MessageDocument.class);
+                if (batch.isEmpty()) {
+                    return moved;
+                }
+                ArchiveSegment segment = messageArchive.append(chatroomId, batch);
+                removeFromHot(batch);
+                messageArchive.completePending(segment);
+                archived = batch.size();
+            } finally {
+                lock.unlock();
+            }
+
+            moved += archived;
+            throttle(archived, System.nanoTime() - start);
+            if (archived < limit) {
+                return moved;
+            }
+        }
+    }
+
+    private void removeFromHot(List<MessageDocument> messages) {
+        for (int from = 0; from < messages.size(); from += DELETE_CHUNK_SIZE) {
+            List<String> ids = messages.subList(from, Math.min(from + DELETE_CHUNK_SIZE, messages.size())).stream()
+                    .map(MessageDocument::getId)
+                    .toList();
+            mongoTemplate.remove(new Query(Criteria.where("id").in(ids)), MessageDocument.class);
+        }
+    }
+
+    // 옮긴 수만큼 초당 제한에 맞춰 대기
+    private void throttle(int moved, long elapsedNanos) throws InterruptedException {
+        int maxMessagesPerSecond = properties.getMaxMessagesPerSecond();
+        if (maxMessagesPerSecond <= 0) {
+            return;
+        }
+        long budgetNanos = TimeUnit.SECONDS.toNanos(1) * moved / maxMessagesPerSecond;
+        long waitNanos = budgetNanos - elapsedNanos;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
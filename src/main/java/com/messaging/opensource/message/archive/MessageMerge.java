@@ -0,0 +1,173 @@
+package com.messaging.opensource.message.archive;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * (timestamp, id) 순으로 정렬된 메시지 소스(Mongo 와 아카이브, 아카이브 세그먼트끼리)를 하나의 순서로 합친다.
+ * 시각과 ID 가 같은 메시지는 한 번만 내보내므로, 아카이브로 옮기는 도중이라 양쪽에 있는 메시지도 한 번만 보인다.
+ */
+public final class MessageMerge {
+
+    // 시각이 없는 메시지는 Mongo 정렬과 같이 가장 앞
+    private static final Comparator<MessageDocument> TIME_ORDER = Comparator
+            .comparing(MessageDocument::getTimestamp, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(MessageDocument::getId, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    private MessageMerge() {
+    }
+
+    public static Comparator<MessageDocument> order(Sort.Direction direction) {
+        return direction.isAscending() ? TIME_ORDER : TIME_ORDER.reversed();
+    }
+
+    // 반환한 스트림을 닫으면 두 스트림도 닫힘
+    public static Stream<MessageDocument> merge(Sort.Direction order, Stream<MessageDocument> first, Stream<MessageDocument> second) {
+        MergingIterator merged = new MergingIterator(order, List.of(
+                Source.eager(first::iterator), Source.eager(second::iterator)));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try (first; second) {
+                        merged.close();
+                    }
+                });
+    }
+
+    // 두 목록을 합쳐 offset 부터 최대 limit 개 (limit 이 0 이하이면 전체)
+    public static List<MessageDocument> merge(Sort.Direction order, List<MessageDocument> first, List<MessageDocument> second,
+                                              long offset, int limit) {
+        if (second.isEmpty() && offset == 0 && (limit <= 0 || first.size() <= limit)) {
+            return first;
+        }
+        if (first.isEmpty() && offset == 0 && (limit <= 0 || second.size() <= limit)) {
+            return second;
+        }
+        try (Stream<MessageDocument> merged = merge(order, first.stream(), second.stream())) {
+            Stream<MessageDocument> page = merged.skip(offset);
+            return (limit > 0 ? page.limit(limit) : page).toList();
+        }
+    }
+
+    // 병합 순서상 처음 나올 수 있는 메시지의 시각(ns) 이 bound 인 소스. 병합이 그 시각에 닿을 때 처음 열림
+    record Source(long bound, Supplier<Iterator<MessageDocument>> opener) {
+
+        static Source eager(Supplier<Iterator<MessageDocument>> opener) {
+            return new Source(Long.MIN_VALUE, opener);
+        }
+    }
+
+    static final class MergingIterator implements Iterator<MessageDocument>, AutoCloseable {
+
+        private final Sort.Direction order;
+        private final Comparator<MessageDocument> comparator;
+        // 아직 열지 않은 소스 (order 방향의 bound 순)
+        private final List<Source> pending;
+        private final PriorityQueue<Head> heads;
+        private final List<Iterator<MessageDocument>> opened = new ArrayList<>();
+
+        private int nextPending;
+        private MessageDocument last;
+        private MessageDocument next;
+
+        MergingIterator(Sort.Direction order, List<Source> sources) {
+            this.order = order;
+            this.comparator = order(order);
+            this.heads = new PriorityQueue<>((a, b) -> comparator.compare(a.message, b.message));
+            this.pending = new ArrayList<>(sources);
+            Comparator<Source> byBound = Comparator.comparingLong(source -> effectiveBound(source));
+            this.pending.sort(order.isAscending() ? byBound : byBound.reversed());
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                openReachedSources();
+                Head head = heads.poll();
+                if (head == null) {
+                    return false;
+                }
+                MessageDocument candidate = head.message;
+                if (head.iterator.hasNext()) {
+                    heads.add(new Head(head.iterator.next(), head.iterator));
+                }
+                if (last == null || !sameMessage(last, candidate)) {
+                    next = candidate;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public MessageDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = null;
+            return last;
+        }
+
+        // 현재 가장 앞의 메시지보다 먼저(또는 같은 시각에) 시작하는 소스를 모두 엶
+        private void openReachedSources() {
+            while (nextPending < pending.size()) {
+                Source source = pending.get(nextPending);
+                if (!heads.isEmpty() && !reached(source, heads.peek().message)) {
+                    return;
+                }
+                nextPending++;
+                Iterator<MessageDocument> iterator = source.opener().get();
+                opened.add(iterator);
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        private boolean reached(Source source, MessageDocument head) {
+            long headNanos = head.getTimestamp() == null ? Long.MIN_VALUE : ArchiveSegment.toNanos(head.getTimestamp());
+            return order.isAscending() ? effectiveBound(source) <= headNanos : effectiveBound(source) >= headNanos;
+        }
+
+        // eager 소스는 방향과 무관하게 가장 먼저 열림
+        private long effectiveBound(Source source) {
+            if (source.bound() == Long.MIN_VALUE && !order.isAscending()) {
+                return Long.MAX_VALUE;
+            }
+            return source.bound();
+        }
+
+        private boolean sameMessage(MessageDocument a, MessageDocument b) {
+            return Objects.equals(a.getId(), b.getId()) && Objects.equals(a.getTimestamp(), b.getTimestamp());
+        }
+
+        @Override
+        public void close() {
+            for (Iterator<MessageDocument> iterator : opened) {
+                if (iterator instanceof AutoCloseable closeable) {
+                    try {
+                        closeable.close();
+                    } catch (Exception ignored) {
+                        // 세그먼트 읽기 채널
+                    }
+                }
+            }
+        }
+
+        private record Head(MessageDocument message, Iterator<MessageDocument> iterator) {
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.messaging.opensource.message.bucket;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.entity.MessageBucket;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.entity.StorageMigration;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MIGRATING 모드에서 기존 messages 컬렉션의 메시지를 message_buckets 로 옮긴다.
+ * 새 메시지는 두 컬렉션에 모두 쓰이므로, 이 작업은 모드 전환 전에 저장된 메시지만 _id 순으로 배치 단위로 옮기면 된다.
+ * 배치마다 마지막 ID 를 storage_migrations 에 저장하므로 중간에 재시작되어도 이어서 실행하고,
+ * 버킷 추가는 중복을 무시하므로 이미 옮긴 메시지를 다시 옮겨도 안전하다.
+ */
+@Component
+public class MessageBucketMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageBucketMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageBucketStore messageBucketStore;
+    private final StorageProperties properties;
+    private final ExecutorService executor;
+
+    public MessageBucketMigration(MongoTemplate mongoTemplate,
+                                  MessageBucketStore messageBucketStore,
+                                  StorageProperties properties,
+                                  BlockingExecutors blockingExecutors) {
+        this.mongoTemplate = mongoTemplate;
+        this.messageBucketStore = messageBucketStore;
+        this.properties = properties;
+        this.executor = blockingExecutors.newSerialExecutor("message-bucket-migration");
+    }
+
+    // Mongo 에 연결할 수 없어도 기동을 막지 않음
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (properties.getMode() != StorageMode.MIGRATING) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                // 종료 중. 진행 상황은 배치마다 저장되어 있으므로 다음 기동 때 이어서 실행
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Message bucket migration failed: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    void run() throws InterruptedException {
+        String collectionName = mongoTemplate.getCollectionName(MessageBucket.class);
+        StorageMigration migration = mongoTemplate.findById(collectionName, StorageMigration.class);
+        if (migration == null) {
+            migration = StorageMigration.builder().id(collectionName).build();
+        }
+        if (migration.isCompleted()) {
+            logger.info("Message bucket migration already completed ({} messages)", migration.getMigratedCount());
+            return;
+        }
+        logger.info("Migrating messages into {} after id {}", collectionName, migration.getLastMessageId());
+
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+
+            List<MessageDocument> batch = mongoTemplate.find(nextBatch(migration.getLastMessageId()), MessageDocument.class);
+            if (batch.isEmpty()) {
+                migration.setCompleted(true);
+                save(migration);
+                logger.info("Message bucket migration completed, {} messages copied. "
+                        + "messaging.storage.mode can be switched to BUCKETED", migration.getMigratedCount());
+                return;
+            }
+
+            // 시각이 없는 메시지는 버킷 구간을 정할 수 없으므로 옮기지 않음 (채팅방 삭제 시 messages 에서만 지워짐)
+            messageBucketStore.append(batch.stream().filter(message -> message.getTimestamp() != null).toList());
+
+            migration.setLastMessageId(batch.get(batch.size() - 1).getId());
+            migration.setMigratedCount(migration.getMigratedCount() + batch.size());
+            save(migration);
+            throttle(batch.size(), System.nanoTime() - start);
+        }
+    }
+
+    private Query nextBatch(String lastMessageId) {
+        Query query = lastMessageId == null
+                ? new Query()
+                : new Query(Criteria.where("id").gt(lastMessageId));
+        return query.with(Sort.by(Sort.Direction.ASC, "id")).limit(properties.getMigrationBatchSize());
+    }
+
+    private void save(StorageMigration migration) {
+        migration.setUpdatedAt(LocalDateTime.now());
+        mongoTemplate.save(migration);
+    }
+
+    // 옮긴 수만큼 초당 제한에 맞춰 대기
+    private void throttle(int migrated, long elapsedNanos) throws InterruptedException {
+        int maxMessagesPerSecond = properties.getMigrationMaxMessagesPerSecond();
+        if (maxMessagesPerSecond <= 0) {
+            return;
+        }
+        long budgetNanos = TimeUnit.SECONDS.toNanos(1) * migrated / maxMessagesPerSecond;
+        long waitNanos = budgetNanos - elapsedNanos;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,505 @@
+package com.messaging.opensource.message.bucket;
+
+import com.messaging.opensource.message.entity.BucketedMessage;
+import com.messaging.opensource.message.entity.MessageBucket;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AccumulatorOperators;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 채팅방별 시간 구간 버킷(message_buckets) 저장소.
+ * 메시지는 (채팅방, 구간 시작) 버킷에 $addToSet 으로 추가하고, 버킷이 가득 차면 같은 구간의 버킷을 새로 만든다.
+ * 조회는 구간 시작 기준으로 필요한 버킷만 순서대로 읽고, 같은 구간의 버킷을 모아 (timestamp, id) 순으로 정렬해서 메시지로 풀어낸다.
+ * 추가 전에 같은 구간의 모든 버킷에서 이미 저장된 메시지 ID 를 찾아 빼므로, 쓰기 재시도나 이전(migration) 작업이
+ * 가득 차서 나뉜 다른 버킷에 같은 메시지를 다시 넣지 않는다. 동시에 같은 메시지를 추가해서 생긴 중복은 조회 시 구간 안에서 ID 로 제거한다.
+ */
+@Component
+public class MessageBucketStore {
+
+    // 페이지 조회가 필요 이상으로 버킷을 미리 읽지 않도록 작게 잡음
+    private static final int CURSOR_BATCH_SIZE = 16;
+
+    // 마지막 순번을 찾을 때 읽는 최근 메시지 수
+    private static final int SEQ_SCAN_SIZE = 64;
+
+    // LocalDateTime 은 Spring Data 변환과 같이 시스템 시간대 기준으로 Date 로 저장됨
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final Comparator<MessageDocument> TIME_ORDER =
+            Comparator.comparing(MessageDocument::getTimestamp).thenComparing(MessageDocument::getId);
+
+    private final MongoTemplate mongoTemplate;
+    private final StorageProperties properties;
+
+    public MessageBucketStore(MongoTemplate mongoTemplate, StorageProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+    }
+
+    // 메시지를 버킷에 추가. ID 나 시각이 없으면 채워서 저장하고, 이미 저장된 메시지는 건너뜀
+    public void append(List<MessageDocument> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<BucketKey, List<MessageDocument>> groups = new LinkedHashMap<>();
+        for (MessageDocument message : messages) {
+            if (message.getId() == null) {
+                message.setId(new ObjectId().toHexString());
+            }
+            if (message.getTimestamp() == null) {
+                message.setTimestamp(LocalDateTime.now());
+            }
+            groups.computeIfAbsent(new BucketKey(message.getChatroomId(), windowStart(message.getTimestamp())),
+                    key -> new ArrayList<>()).add(message);
+        }
+
+        int maxMessages = properties.getMaxMessagesPerBucket();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MessageBucket.class);
+        boolean appended = false;
+        for (Map.Entry<BucketKey, List<MessageDocument>> group : groups.entrySet()) {
+            List<MessageDocument> pending = withoutStored(group.getKey(), group.getValue());
+            for (int from = 0; from < pending.size(); from += maxMessages) {
+                List<MessageDocument> chunk = pending.subList(from, Math.min(from + maxMessages, pending.size()));
+                bulk.upsert(bucketWithRoomFor(group.getKey(), chunk.size()), appendUpdate(chunk));
+                appended = true;
+            }
+        }
+        if (appended) {
+            bulk.execute();
+        }
+    }
+
+    // 같은 구간의 버킷 어디에든 이미 있는 메시지를 뺌 (messages._id 로 구간의 모든 버킷을 찾음)
+    private List<MessageDocument> withoutStored(BucketKey key, List<MessageDocument> messages) {
+        List<Object> ids = new ArrayList<>(messages.size());
+        for (MessageDocument message : messages) {
+            ids.add(entryId(message.getId()));
+        }
+        Query query = new Query(Criteria.where("chatroomId").is(key.chatroomId())
+                .and("start").is(key.start())
+                .and("messages._id").in(ids));
+        query.fields().include("messages._id");
+
+        Set<String> stored = new HashSet<>();
+        for (Document bucket : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(MessageBucket.class))) {
+            for (Document message : bucket.getList("messages", Document.class, List.of())) {
+                stored.add(String.valueOf(message.get("_id")));
+            }
+        }
+        if (stored.isEmpty()) {
+            return messages;
+        }
+        return messages.stream().filter(message -> !stored.contains(message.getId())).toList();
+    }
+
+    // 같은 구간에서 chunk 가 다 들어갈 자리가 남은 버킷 (없으면 upsert 로 새 버킷 생성)
+    private Query bucketWithRoomFor(BucketKey key, int size) {
+        return new Query(Criteria.where("chatroomId").is(key.chatroomId())
+                .and("start").is(key.start())
+                .and("count").lte(properties.getMaxMessagesPerBucket() - size));
+    }
+
+    private Update appendUpdate(List<MessageDocument> chunk) {
+        LocalDateTime first = chunk.get(0).getTimestamp();
+        LocalDateTime last = first;
+        Object[] entries = new Object[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            MessageDocument message = chunk.get(i);
+            entries[i] = entry(message);
+            first = message.getTimestamp().isBefore(first) ? message.getTimestamp() : first;
+            last = message.getTimestamp().isAfter(last) ? message.getTimestamp() : last;
+        }
+
+        Update update = new Update()
+                .inc("count", chunk.size())
+                .min("first", toDate(first))
+                .max("last", toDate(last));
+        update.addToSet("messages").each(entries);
+        return update;
+    }
+
+    // $addToSet 이 같은 메시지를 중복으로 보지 않도록 필드 순서와 타입을 항상 같게 만듦
+    private Document entry(MessageDocument message) {
+        return new Document("_id", entryId(message.getId()))
+                .append("senderId", message.getSenderId())
+                .append("content", message.getContent())
+                .append("timestamp", toDate(message.getTimestamp()))
+                .append("seq", message.getSeq())
+                .append("senderName", message.getSenderName());
+    }
+
+    private static Object entryId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    // 특정 채팅방의 모든 메시지를 시간순으로 스트리밍 (반드시 close 필요)
+    public Stream<MessageDocument> streamByChatroom(Long chatroomId) {
+        return scan(Criteria.where("chatroomId").is(chatroomId), Sort.Direction.ASC, message -> true);
+    }
+
+    // 특정 채팅방의 메시지를 order 순서로 offset 부터 최대 limit 개 조회 (limit 이 0 이하이면 전체)
+    public List<MessageDocument> findByChatroom(Long chatroomId, Sort.Direction order, long offset, int limit) {
+        return list(Criteria.where("chatroomId").is(chatroomId), order, message -> true, offset, limit);
+    }
+
+    // 특정 시간 이후의 메시지 (시간순)
+    public List<MessageDocument> findAfter(Long chatroomId, LocalDateTime timestamp) {
+        Criteria buckets = Criteria.where("chatroomId").is(chatroomId).and("start").gte(windowStart(timestamp));
+        return list(buckets, Sort.Direction.ASC, message -> message.getTimestamp().isAfter(timestamp), 0, 0);
+    }
+
+    // 특정 시간 이전의 메시지 (최신순)
+    public List<MessageDocument> findBefore(Long chatroomId, LocalDateTime timestamp) {
+        Criteria buckets = Criteria.where("chatroomId").is(chatroomId).and("start").lt(timestamp);
+        return list(buckets, Sort.Direction.DESC, message -> message.getTimestamp().isBefore(timestamp), 0, 0);
+    }
+
+    // 특정 사용자가 특정 채팅방에 작성한 메시지 (시간순)
+    public List<MessageDocument> findBySenderAndChatroom(Long senderId, Long chatroomId) {
+        Criteria buckets = Criteria.where("chatroomId").is(chatroomId).and("messages.senderId").is(senderId);
+        return list(buckets, Sort.Direction.ASC, message -> senderId.equals(message.getSenderId()), 0, 0);
+    }
+
+    // 특정 사용자가 보낸 모든 메시지 (시간순)
+    public List<MessageDocument> findBySender(Long senderId) {
+        return list(Criteria.where("messages.senderId").is(senderId), Sort.Direction.ASC,
+                message -> senderId.equals(message.getSenderId()), 0, 0);
+    }
+
+    // 특정 내용을 포함하는 메시지를 order 순서로 offset 부터 최대 limit 개 조회 (limit 이 0 이하이면 전체)
+    public List<MessageDocument> findContaining(Long chatroomId, String keyword, Sort.Direction order, long offset, int limit) {
+        Criteria buckets = Criteria.where("chatroomId").is(chatroomId)
+                .and("messages.content").regex(Pattern.quote(keyword));
+        return list(buckets, order, message -> message.getContent() != null && message.getContent().contains(keyword),
+                offset, limit);
+    }
+
+    // 최근 메시지의 가장 큰 순번 (없으면 null). 여러 노드가 쓴 메시지는 시각과 순번 순서가 조금 어긋날 수 있어 최근 몇 개를 봄
+    public Long findMaxSeq(Long chatroomId) {
+        return findByChatroom(chatroomId, Sort.Direction.DESC, 0, SEQ_SCAN_SIZE).stream()
+                .map(MessageDocument::getSeq)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .orElse(null);
+    }
+
+    // 순번이 (afterSeq, beforeSeq) 범위인 메시지 중 순번이 가장 큰 limit 개를 순번순으로 조회
+    // 여러 노드가 쓴 메시지는 시각과 순번 순서가 어긋날 수 있으므로 최신순으로 읽으면서 범위로 거르고,
+    // afterSeq 이하인 메시지가 SEQ_SCAN_SIZE 개 연속으로 나오면 그 뒤에는 범위 안 메시지가 없다고 보고 멈춤 (순번 없는 메시지는 건너뜀)
+    public List<MessageDocument> findBySeqBetween(Long chatroomId, long afterSeq, long beforeSeq, int limit) {
+        // 순번이 가장 큰 limit 개만 유지
+        PriorityQueue<MessageDocument> found = new PriorityQueue<>(Comparator.comparing(MessageDocument::getSeq));
+        try (Stream<MessageDocument> messages = scan(Criteria.where("chatroomId").is(chatroomId), Sort.Direction.DESC,
+                message -> message.getSeq() != null)) {
+            int olderInARow = 0;
+            for (Iterator<MessageDocument> it = messages.iterator(); it.hasNext() && olderInARow < SEQ_SCAN_SIZE; ) {
+                MessageDocument message = it.next();
+                if (message.getSeq() <= afterSeq) {
+                    olderInARow++;
+                    continue;
+                }
+                olderInARow = 0;
+                if (message.getSeq() < beforeSeq) {
+                    found.offer(message);
+                    if (found.size() > limit) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        List<MessageDocument> ordered = new ArrayList<>(found);
+        ordered.sort(Comparator.comparing(MessageDocument::getSeq));
+        return ordered;
+    }
+
+    // (timestamp, id) keyset 페이지 조회. MessageRepositoryCustom#findPage 와 같이 scan order 로 limit + 1 개까지 반환
+    public List<MessageDocument> findPage(MessagePageQuery pageQuery) {
+        MessageCursor cursor = pageQuery.cursor();
+        boolean backward = cursor != null && cursor.direction() == MessageCursor.Direction.PREVIOUS;
+        Sort.Direction scanOrder = backward ? reverse(pageQuery.order()) : pageQuery.order();
+        Long senderId = pageQuery.senderId();
+
+        List<Criteria> conditions = new ArrayList<>();
+        if (pageQuery.chatroomId() != null) {
+            conditions.add(Criteria.where("chatroomId").is(pageQuery.chatroomId()));
+        }
+        if (senderId != null) {
+            conditions.add(Criteria.where("messages.senderId").is(senderId));
+        }
+        if (cursor != null) {
+            conditions.add(scanOrder.isAscending()
+                    ? Criteria.where("start").gte(windowStart(cursor.timestamp()))
+                    : Criteria.where("start").lte(cursor.timestamp()));
+        }
+        Criteria buckets = conditions.isEmpty() ? new Criteria() : new Criteria().andOperator(conditions);
+
+        Predicate<MessageDocument> filter = message -> senderId == null || senderId.equals(message.getSenderId());
+        if (cursor != null) {
+            filter = filter.and(message -> isPastCursor(message, cursor, scanOrder));
+        }
+        return list(buckets, scanOrder, filter, 0, pageQuery.limit() + 1);
+    }
+
+    // 여러 채팅방의 메시지 수. 메시지가 없는 채팅방은 결과에 없음
+    public Map<Long, Long> countByChatroomIds(Collection<Long> chatroomIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (chatroomIds.isEmpty()) {
+            return counts;
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("chatroomId").in(chatroomIds)),
+                Aggregation.project("chatroomId").and("messages").size().as("size"),
+                Aggregation.group("chatroomId").sum("size").as("count"));
+
+        for (Document result : mongoTemplate.aggregate(aggregation, MessageBucket.class, Document.class)) {
+            long count = ((Number) result.get("count")).longValue();
+            if (count > 0) {
+                counts.put(((Number) result.get("_id")).longValue(), count);
+            }
+        }
+        return counts;
+    }
+
+    // 여러 채팅방의 가장 큰 순번. 순번 있는 메시지가 없는 채팅방은 결과에 없음
+    public Map<Long, Long> findMaxSeqs(Collection<Long> chatroomIds) {
+        Map<Long, Long> seqs = new HashMap<>();
+        if (chatroomIds.isEmpty()) {
+            return seqs;
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("chatroomId").in(chatroomIds).and("messages.seq").ne(null)),
+                Aggregation.project("chatroomId").and(AccumulatorOperators.Max.maxOf("messages.seq")).as("seq"),
+                Aggregation.group("chatroomId").max("seq").as("seq"));
+
+        for (Document result : mongoTemplate.aggregate(aggregation, MessageBucket.class, Document.class)) {
+            if (result.get("seq") instanceof Number seq) {
+                seqs.put(((Number) result.get("_id")).longValue(), seq.longValue());
+            }
+        }
+        return seqs;
+    }
+
+    // cutoff 이전 메시지 중 시간순으로 batchSize 번째 메시지의 시각. 남은 메시지가 batchSize 보다 적으면 null
+    public LocalDateTime findPurgeBatchBoundary(Long chatroomId, LocalDateTime cutoff, int batchSize) {
+        Criteria buckets = Criteria.where("chatroomId").is(chatroomId).and("start").lte(cutoff);
+        try (Stream<MessageDocument> messages = scan(buckets, Sort.Direction.ASC,
+                message -> !message.getTimestamp().isAfter(cutoff))) {
+            return messages.skip(batchSize - 1L).findFirst().map(MessageDocument::getTimestamp).orElse(null);
+        }
+    }
+
+    // 특정 사용자의 특정 채팅방 메시지 삭제. 삭제한 메시지 수 반환
+    public long deleteBySender(Long chatroomId, Long senderId) {
+        long deleted;
+        try (Stream<MessageDocument> messages = scan(
+                Criteria.where("chatroomId").is(chatroomId).and("messages.senderId").is(senderId),
+                Sort.Direction.ASC, message -> senderId.equals(message.getSenderId()))) {
+            deleted = messages.count();
+        }
+        if (deleted == 0) {
+            return 0;
+        }
+
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("chatroomId").is(chatroomId).and("messages.senderId").is(senderId)),
+                new Update().pull("messages", new Document("senderId", senderId)),
+                MessageBucket.class);
+        removeEmptyBuckets(chatroomId);
+        return deleted;
+    }
+
+    // 특정 채팅방에서 특정 시각까지의 메시지 삭제. 통째로 지나간 버킷은 문서째 지우고, 걸쳐 있는 버킷에서는 해당 메시지만 뺌
+    public long deleteUpTo(Long chatroomId, LocalDateTime timestamp) {
+        long deleted;
+        try (Stream<MessageDocument> messages = scan(
+                Criteria.where("chatroomId").is(chatroomId).and("start").lte(timestamp),
+                Sort.Direction.ASC, message -> !message.getTimestamp().isAfter(timestamp))) {
+            deleted = messages.count();
+        }
+        if (deleted == 0) {
+            return 0;
+        }
+
+        mongoTemplate.remove(new Query(Criteria.where("chatroomId").is(chatroomId)
+                .and("start").lte(timestamp)
+                .and("last").lte(timestamp)), MessageBucket.class);
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("chatroomId").is(chatroomId)
+                        .and("start").lte(timestamp)
+                        .and("first").lte(timestamp)),
+                new Update().pull("messages", new Document("timestamp", new Document("$lte", toDate(timestamp)))),
+                MessageBucket.class);
+        removeEmptyBuckets(chatroomId);
+        return deleted;
+    }
+
+    private void removeEmptyBuckets(Long chatroomId) {
+        mongoTemplate.remove(new Query(Criteria.where("chatroomId").is(chatroomId).and("messages").size(0)),
+                MessageBucket.class);
+    }
+
+    private List<MessageDocument> list(Criteria buckets, Sort.Direction order, Predicate<MessageDocument> filter,
+                                       long offset, int limit) {
+        try (Stream<MessageDocument> messages = scan(buckets, order, filter)) {
+            Stream<MessageDocument> page = messages.skip(offset);
+            return (limit > 0 ? page.limit(limit) : page).toList();
+        }
+    }
+
+    // 조건에 맞는 버킷을 구간 순서로 읽으면서 filter 를 통과한 메시지를 order 순서로 내보냄 (반드시 close 필요)
+    private Stream<MessageDocument> scan(Criteria buckets, Sort.Direction order, Predicate<MessageDocument> filter) {
+        Query query = new Query(buckets)
+                .with(Sort.by(order, "start"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        Stream<MessageBucket> cursor = mongoTemplate.stream(query, MessageBucket.class);
+        Comparator<MessageDocument> comparator = order.isAscending() ? TIME_ORDER : TIME_ORDER.reversed();
+        Iterator<MessageDocument> messages = new WindowIterator(cursor.iterator(), comparator, filter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(messages, Spliterator.ORDERED), false)
+                .onClose(cursor::close);
+    }
+
+    private boolean isPastCursor(MessageDocument message, MessageCursor cursor, Sort.Direction scanOrder) {
+        int compared = message.getTimestamp().compareTo(cursor.timestamp());
+        if (compared == 0 && cursor.id() != null) {
+            compared = message.getId().compareTo(cursor.id());
+        } else if (compared == 0) {
+            return false;
+        }
+        return scanOrder.isAscending() ? compared > 0 : compared < 0;
+    }
+
+    // 메시지 시각이 속한 구간의 시작
+    LocalDateTime windowStart(LocalDateTime timestamp) {
+        long windowMillis = properties.getBucketWindow().toMillis();
+        long epochMillis = timestamp.atZone(ZONE).toInstant().toEpochMilli();
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Math.floorDiv(epochMillis, windowMillis) * windowMillis), ZONE);
+    }
+
+    private static Date toDate(LocalDateTime timestamp) {
+        return Date.from(timestamp.atZone(ZONE).toInstant());
+    }
+
+    private static Sort.Direction reverse(Sort.Direction direction) {
+        return direction.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    private record BucketKey(Long chatroomId, LocalDateTime start) {
+    }
+
+    // 같은 구간 시작의 버킷을 모두 모은 뒤 정렬해서 메시지를 하나씩 내보냄 (가득 차서 나뉜 버킷, 여러 채팅방의 같은 구간 포함)
+    private static final class WindowIterator implements Iterator<MessageDocument> {
+
+        private final Iterator<MessageBucket> buckets;
+        private final Comparator<MessageDocument> comparator;
+        private final Predicate<MessageDocument> filter;
+
+        private MessageBucket pending;
+        private Iterator<MessageDocument> window = Collections.emptyIterator();
+
+        WindowIterator(Iterator<MessageBucket> buckets, Comparator<MessageDocument> comparator,
+                       Predicate<MessageDocument> filter) {
+            this.buckets = buckets;
+            this.comparator = comparator;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!window.hasNext()) {
+                if (!loadNextWindow()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public MessageDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return window.next();
+        }
+
+        private boolean loadNextWindow() {
+            if (pending == null) {
+                if (!buckets.hasNext()) {
+                    return false;
+                }
+                pending = buckets.next();
+            }
+
+            LocalDateTime start = pending.getStart();
+            List<MessageDocument> messages = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            MessageBucket bucket = pending;
+            pending = null;
+            while (true) {
+                collect(bucket, messages, seen);
+                if (!buckets.hasNext()) {
+                    break;
+                }
+                bucket = buckets.next();
+                if (!bucket.getStart().equals(start)) {
+                    pending = bucket;
+                    break;
+                }
+            }
+
+            messages.sort(comparator);
+            window = messages.iterator();
+            return true;
+        }
+
+        private void collect(MessageBucket bucket, List<MessageDocument> messages, Set<String> seen) {
+            if (bucket.getMessages() == null) {
+                return;
+            }
+            for (BucketedMessage entry : bucket.getMessages()) {
+                MessageDocument message = entry.toMessageDocument(bucket.getChatroomId());
+                if (filter.test(message) && seen.add(message.getId())) {
+                    messages.add(message);
+                }
+            }
+        }
+    }
+}
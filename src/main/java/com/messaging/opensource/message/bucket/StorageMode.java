@@ -0,0 +1,23 @@
+package com.messaging.opensource.message.bucket;
+
+// 메시지 저장 방식
+public enum StorageMode {
+    // 메시지마다 messages 컬렉션의 문서 하나
+    DOCUMENT,
+    // messages 와 message_buckets 에 모두 쓰고 messages 에서 읽음. 기존 메시지는 백그라운드에서 버킷으로 옮김
+    MIGRATING,
+    // 채팅방별 시간 구간 버킷(message_buckets)에 모아서 저장하고 읽음
+    BUCKETED;
+
+    public boolean readsBuckets() {
+        return this == BUCKETED;
+    }
+
+    public boolean writesBuckets() {
+        return this != DOCUMENT;
+    }
+
+    public boolean writesDocuments() {
+        return this != BUCKETED;
+    }
+}
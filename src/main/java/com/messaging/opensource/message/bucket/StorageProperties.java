@@ -0,0 +1,27 @@
+package com.messaging.opensource.message.bucket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.storage")
+public class StorageProperties {
+
+    private StorageMode mode = StorageMode.DOCUMENT;
+
+    // 버킷 하나가 담는 시간 구간. 범위 조회가 이 길이를 기준으로 버킷을 고르므로 버킷을 만든 뒤에는 바꾸지 않음
+    private Duration bucketWindow = Duration.ofHours(1);
+
+    // 버킷 하나의 최대 메시지 수 (문서 크기 제한 16MB 와 갱신 비용을 고려)
+    private int maxMessagesPerBucket = 200;
+
+    // MIGRATING 모드에서 기존 메시지를 한 번에 옮기는 수
+    private int migrationBatchSize = 1000;
+
+    // 초당 최대 이전 메시지 수. 0 이하이면 제한 없음
+    private int migrationMaxMessagesPerSecond = 5000;
+}
@@ -0,0 +1,28 @@
+package com.messaging.opensource.message.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.recent-cache")
+public class RecentCacheProperties {
+
+    // 채팅방마다 메모리에 보관하는 최근 메시지 수
+    private int capacity = 100;
+
+    // 버퍼를 유지할 최대 채팅방 수 (초과 시 가장 오래 사용되지 않은 방부터 제거)
+    private int maxRooms = 10_000;
+
+    // 이 시간 동안 읽기/쓰기가 없는 채팅방의 버퍼는 제거
+    private Duration idleTtl = Duration.ofMinutes(30);
+
+    // 오래 사용되지 않은 버퍼를 정리하는 주기
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    // 최근 메시지 조회에서 limit 파라미터가 없을 때의 결과 수
+    private int defaultLimit = 50;
+}
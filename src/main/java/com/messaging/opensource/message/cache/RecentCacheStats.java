@@ -0,0 +1,19 @@
+package com.messaging.opensource.message.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class RecentCacheStats {
+
+    int rooms;
+
+    long hits;
+
+    long misses;
+
+    long evictions;
+
+    double hitRatio;
+}
@@ -0,0 +1,178 @@
+package com.messaging.opensource.message.cache;
+
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.event.MessagesDeletedEvent;
+import com.messaging.opensource.message.event.MessagesSavedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 활성 채팅방의 최근 메시지를 메모리에 보관하는 캐시.
+ * WebSocket 쓰기 경로에서 바로 채워지고, 버퍼가 Mongo 와 병합되지 않은 채팅방을 처음 조회할 때만 최근 메시지를 한 번 읽어온다.
+ * 버퍼 범위를 벗어나는 조회는 {@link Optional#empty()} 를 반환해서 호출 측이 Mongo 로 조회하게 한다.
+ */
+@Component
+public class RecentMessageCache implements MeterBinder {
+
+    private final MessageRepository messageRepository;
+    private final RecentCacheProperties properties;
+
+    // Key - chatroomId
+    private final Map<Long, RoomMessageBuffer> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RecentMessageCache(MessageRepository messageRepository, RecentCacheProperties properties) {
+        this.messageRepository = messageRepository;
+        this.properties = properties;
+    }
+
+    // WebSocket 으로 받은 메시지를 저장 전에 바로 버퍼에 추가
+    public void append(MessageDocument message) {
+        bufferFor(message.getChatroomId()).append(message.toDto());
+    }
+
+    // 최근 메시지 최대 limit 개 (최신순)
+    public Optional<List<MessageDocumentDto>> getRecentMessages(Long chatroomId, int limit) {
+        if (limit > properties.getCapacity()) {
+            return Optional.empty();
+        }
+        return read(chatroomId, buffer -> buffer.newest(limit));
+    }
+
+    // 가장 최근 메시지
+    public Optional<MessageDocumentDto> getLatestMessage(Long chatroomId) {
+        return read(chatroomId, RoomMessageBuffer::latest);
+    }
+
+    // 재접속 시 놓친 메시지 (시간순)
+    public Optional<List<MessageDocumentDto>> getMessagesAfter(Long chatroomId, LocalDateTime timestamp) {
+        return read(chatroomId, buffer -> buffer.after(timestamp));
+    }
+
+    private <T> Optional<T> read(Long chatroomId, Function<RoomMessageBuffer, Optional<T>> reader) {
+        RoomMessageBuffer buffer = bufferFor(chatroomId);
+        if (!buffer.isWarmed()) {
+            misses.increment();
+            warm(chatroomId, buffer);
+            return reader.apply(buffer);
+        }
+
+        Optional<T> result = reader.apply(buffer);
+        if (result.isPresent()) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+
+    // 최근 메시지를 Mongo 에서 읽어서 병합. 버퍼를 먼저 등록해두므로 조회 중에 들어온 메시지도 빠지지 않고, 중복은 ID 로 제거
+    private void warm(Long chatroomId, RoomMessageBuffer buffer) {
+        int capacity = properties.getCapacity();
+        List<MessageDocument> messages = messageRepository.findByChatroomIdOrderByTimestampDesc(
+                chatroomId, PageRequest.of(0, capacity));
+        buffer.warm(messages.stream().map(MessageDocument::toDto).toList(), messages.size() >= capacity);
+    }
+
+    private RoomMessageBuffer bufferFor(Long chatroomId) {
+        RoomMessageBuffer buffer = rooms.get(chatroomId);
+        if (buffer != null) {
+            return buffer;
+        }
+        RoomMessageBuffer created = new RoomMessageBuffer(properties.getCapacity());
+        buffer = rooms.putIfAbsent(chatroomId, created);
+        if (buffer != null) {
+            return buffer;
+        }
+        evictIfNecessary();
+        return created;
+    }
+
+    // 가장 오래 사용되지 않은 채팅방의 버퍼 제거
+    private void evictIfNecessary() {
+        while (rooms.size() > properties.getMaxRooms()) {
+            rooms.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().getLastAccessedAt(), b.getValue().getLastAccessedAt()))
+                    .ifPresent(eldest -> {
+                        if (rooms.remove(eldest.getKey(), eldest.getValue())) {
+                            evictions.increment();
+                        }
+                    });
+        }
+    }
+
+    // 일정 시간 동안 사용되지 않은 채팅방의 버퍼 제거
+    @Scheduled(fixedDelayString = "${messaging.recent-cache.sweep-interval:PT1M}")
+    public void evictIdleRooms() {
+        long idleBefore = System.currentTimeMillis() - properties.getIdleTtl().toMillis();
+        rooms.entrySet().removeIf(entry -> {
+            boolean idle = entry.getValue().getLastAccessedAt() < idleBefore;
+            if (idle) {
+                evictions.increment();
+            }
+            return idle;
+        });
+    }
+
+    // REST 로 저장된 메시지 등 WebSocket 을 거치지 않은 메시지도 반영 (이미 버퍼가 있는 채팅방만)
+    @EventListener
+    public void onMessagesSaved(MessagesSavedEvent event) {
+        for (MessageDocument message : event.messages()) {
+            RoomMessageBuffer buffer = rooms.get(message.getChatroomId());
+            if (buffer != null) {
+                buffer.append(message.toDto());
+            }
+        }
+    }
+
+    // 삭제된 메시지가 남지 않도록 채팅방 버퍼를 버리고, 다음 조회 때 다시 읽어옴
+    @EventListener
+    public void onMessagesDeleted(MessagesDeletedEvent event) {
+        rooms.remove(event.chatroomId());
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("messaging.recent.cache.rooms", rooms, Map::size).register(registry);
+        FunctionCounter.builder("messaging.recent.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("messaging.recent.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("messaging.recent.cache.evictions", evictions, LongAdder::sum).register(registry);
+    }
+
+    public RecentCacheStats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return RecentCacheStats.builder()
+                .rooms(rooms.size())
+                .hits(hitCount)
+                .misses(missCount)
+                .evictions(evictions.sum())
+                .hitRatio(total == 0 ? 0.0 : (double) hitCount / total)
+                .build();
+    }
+}
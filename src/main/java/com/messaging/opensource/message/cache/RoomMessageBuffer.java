@@ -0,0 +1,181 @@
+package com.messaging.opensource.message.cache;
+
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 한 채팅방의 최근 메시지를 (timestamp, id) 순서로 보관하는 고정 크기 링 버퍼.
+ * 가득 차면 가장 오래된 메시지를 덮어쓴다. Mongo 에서 최근 메시지를 한 번 읽어와 병합(warm)하기 전에는
+ * 버퍼보다 오래된 메시지가 있는지 알 수 없으므로 조회에 사용하지 않는다.
+ */
+class RoomMessageBuffer {
+
+    private static final Comparator<MessageDocumentDto> ORDER = Comparator
+            .comparing(MessageDocumentDto::getTimestamp)
+            .thenComparing(MessageDocumentDto::getId);
+
+    private final MessageDocumentDto[] ring;
+    private final Set<String> ids = new HashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 가장 오래된 메시지의 위치
+    private int head;
+    private int size;
+
+    // Mongo 의 최근 메시지와 병합되었는지
+    private boolean warmed;
+
+    // 버퍼 밖에 더 오래된 메시지가 있을 수 있는지
+    private boolean truncated;
+
+    private volatile long lastAccessedAt = System.currentTimeMillis();
+
+    RoomMessageBuffer(int capacity) {
+        this.ring = new MessageDocumentDto[capacity];
+    }
+
+    // 메시지 추가. 이미 있는 ID 나 버퍼 범위보다 오래된 메시지는 무시
+    void append(MessageDocumentDto message) {
+        lock.lock();
+        try {
+            insert(message);
+        } finally {
+            lock.unlock();
+        }
+        touch();
+    }
+
+    // Mongo 에서 읽은 최근 메시지를 병합. hasOlder 는 읽은 것보다 오래된 메시지가 남아 있을 수 있는지
+    void warm(List<MessageDocumentDto> messages, boolean hasOlder) {
+        lock.lock();
+        try {
+            for (MessageDocumentDto message : messages) {
+                insert(message);
+            }
+            truncated |= hasOlder;
+            warmed = true;
+        } finally {
+            lock.unlock();
+        }
+        touch();
+    }
+
+    boolean isWarmed() {
+        lock.lock();
+        try {
+            return warmed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 최신순으로 최대 limit 개. 버퍼만으로 limit 개를 채울 수 없으면 empty
+    Optional<List<MessageDocumentDto>> newest(int limit) {
+        touch();
+        lock.lock();
+        try {
+            if (!warmed || (truncated && size < limit)) {
+                return Optional.empty();
+            }
+            int count = Math.min(limit, size);
+            List<MessageDocumentDto> result = new ArrayList<>(count);
+            for (int i = size - 1; i >= size - count; i--) {
+                result.add(get(i));
+            }
+            return Optional.of(result);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 가장 최근 메시지. 버퍼가 비어 있으면 empty
+    Optional<MessageDocumentDto> latest() {
+        touch();
+        lock.lock();
+        try {
+            if (!warmed || size == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(get(size - 1));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // timestamp 이후의 메시지 (시간순). 버퍼가 해당 구간 전체를 담고 있지 않으면 empty
+    Optional<List<MessageDocumentDto>> after(LocalDateTime timestamp) {
+        touch();
+        lock.lock();
+        try {
+            if (!warmed) {
+                return Optional.empty();
+            }
+            // 잘려 나간 메시지는 모두 가장 오래된 메시지 이하의 시간이므로, 그 시간이 기준 이전이면 구간 전체가 버퍼에 있음
+            if (truncated && (size == 0 || get(0).getTimestamp().isAfter(timestamp))) {
+                return Optional.empty();
+            }
+            List<MessageDocumentDto> result = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                MessageDocumentDto message = get(i);
+                if (message.getTimestamp().isAfter(timestamp)) {
+                    result.add(message);
+                }
+            }
+            return Optional.of(result);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    private void touch() {
+        lastAccessedAt = System.currentTimeMillis();
+    }
+
+    private void insert(MessageDocumentDto message) {
+        if (message.getId() == null || message.getTimestamp() == null || ids.contains(message.getId())) {
+            return;
+        }
+
+        if (size == ring.length) {
+            if (ORDER.compare(message, get(0)) < 0) {
+                truncated = true;
+                return;
+            }
+            ids.remove(get(0).getId());
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+            truncated = true;
+        }
+
+        // 대부분 가장 최신이므로 뒤에서부터 자리를 찾음
+        int position = size;
+        while (position > 0 && ORDER.compare(get(position - 1), message) > 0) {
+            set(position, get(position - 1));
+            position--;
+        }
+        set(position, message);
+        ids.add(message.getId());
+        size++;
+    }
+
+    private MessageDocumentDto get(int index) {
+        return ring[(head + index) % ring.length];
+    }
+
+    private void set(int index, MessageDocumentDto message) {
+        ring[(head + index) % ring.length] = message;
+    }
+}
@@ -0,0 +1,22 @@
+package com.messaging.opensource.message.count;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.count")
+public class MessageCountProperties {
+
+    // 메모리에 카운터를 유지할 최대 채팅방 수 (초과 시 가장 오래 조회되지 않은 방부터 제거)
+    private int maxRooms = 100_000;
+
+    // Mongo 와 카운터를 다시 맞추는 주기
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+
+    // 한 번의 집계 쿼리로 세는 최대 채팅방 수 (배치 조회 API 의 최대 요청 수이기도 함)
+    private int batchSize = 500;
+}
@@ -0,0 +1,167 @@
+package com.messaging.opensource.message.count;
+
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.event.MessagesDeletedEvent;
+import com.messaging.opensource.message.event.MessagesSavedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅방별 메시지 수를 메모리에 유지한다.
+ * 처음 조회된 채팅방만 Mongo 에서 세고, 이후에는 메시지 저장/삭제 이벤트로 증감한다.
+ * 다른 노드에서 저장된 메시지 등 이벤트로 잡히지 않는 변경은 주기적인 재집계로 맞춘다.
+ */
+@Component
+public class MessageCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageCounters.class);
+
+    private final MessageRepository messageRepository;
+    private final MessageCountProperties properties;
+
+    // Key - chatroomId
+    private final Map<Long, RoomCounter> rooms = new ConcurrentHashMap<>();
+
+    public MessageCounters(MessageRepository messageRepository, MessageCountProperties properties) {
+        this.messageRepository = messageRepository;
+        this.properties = properties;
+    }
+
+    public long getCount(Long chatroomId) {
+        return getCounts(List.of(chatroomId)).get(chatroomId);
+    }
+
+    // 여러 채팅방의 메시지 수. 카운터가 없는 채팅방은 한 번의 집계 쿼리로 세어서 등록
+    public Map<Long, Long> getCounts(Collection<Long> chatroomIds) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long chatroomId : new LinkedHashSet<>(chatroomIds)) {
+            RoomCounter counter = rooms.get(chatroomId);
+            if (counter == null) {
+                missing.add(chatroomId);
+                counts.put(chatroomId, 0L);
+            } else {
+                counts.put(chatroomId, counter.read());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, Long> counted = messageRepository.countByChatroomIds(missing);
+            for (Long chatroomId : missing) {
+                RoomCounter counter = rooms.computeIfAbsent(chatroomId,
+                        id -> new RoomCounter(counted.getOrDefault(id, 0L)));
+                counts.put(chatroomId, counter.read());
+            }
+            evictIfNecessary();
+        }
+        return counts;
+    }
+
+    // 가장 오래 조회되지 않은 채팅방의 카운터 제거
+    private void evictIfNecessary() {
+        while (rooms.size() > properties.getMaxRooms()) {
+            rooms.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().lastReadAt, b.getValue().lastReadAt))
+                    .ifPresent(eldest -> rooms.remove(eldest.getKey(), eldest.getValue()));
+        }
+    }
+
+    @EventListener
+    public void onMessagesSaved(MessagesSavedEvent event) {
+        for (MessageDocument message : event.messages()) {
+            RoomCounter counter = rooms.get(message.getChatroomId());
+            if (counter != null) {
+                counter.add(1);
+            }
+        }
+    }
+
+    @EventListener
+    public void onMessagesDeleted(MessagesDeletedEvent event) {
+        RoomCounter counter = rooms.get(event.chatroomId());
+        if (counter != null) {
+            counter.add(-event.deletedCount());
+        }
+    }
+
+    // 카운터를 Mongo 의 실제 개수로 다시 맞춤.
+    // 집계 직전 값과 실제 개수의 차이만 더하므로 집계 중에 이벤트로 바뀐 증감은 그대로 유지됨
+    @Scheduled(fixedDelayString = "${messaging.count.reconcile-interval:PT5M}")
+    public void reconcile() {
+        List<Long> chatroomIds = new ArrayList<>(rooms.keySet());
+        int corrected = 0;
+
+        try {
+            for (int from = 0; from < chatroomIds.size(); from += properties.getBatchSize()) {
+                List<Long> chunk = chatroomIds.subList(from, Math.min(from + properties.getBatchSize(), chatroomIds.size()));
+
+                Map<Long, Long> snapshots = new HashMap<>();
+                for (Long chatroomId : chunk) {
+                    RoomCounter counter = rooms.get(chatroomId);
+                    if (counter != null) {
+                        snapshots.put(chatroomId, counter.count.get());
+                    }
+                }
+
+                Map<Long, Long> counted = messageRepository.countByChatroomIds(snapshots.keySet());
+                for (Map.Entry<Long, Long> entry : snapshots.entrySet()) {
+                    RoomCounter counter = rooms.get(entry.getKey());
+                    if (counter != null && counter.correct(entry.getValue(), counted.getOrDefault(entry.getKey(), 0L))) {
+                        corrected++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to reconcile message counters: {}", e.getMessage(), e);
+        }
+
+        if (corrected > 0) {
+            logger.info("Reconciled message counters, {} of {} rooms corrected", corrected, chatroomIds.size());
+        }
+    }
+
+    private static class RoomCounter {
+
+        private final AtomicLong count;
+
+        private volatile long lastReadAt = System.currentTimeMillis();
+
+        RoomCounter(long initial) {
+            this.count = new AtomicLong(initial);
+        }
+
+        long read() {
+            lastReadAt = System.currentTimeMillis();
+            return Math.max(0, count.get());
+        }
+
+        void add(long delta) {
+            count.addAndGet(delta);
+        }
+
+        // 집계 직전 값(snapshot)과 실제 개수의 차이를 더함
+        boolean correct(long snapshot, long actual) {
+            long drift = actual - snapshot;
+            if (drift == 0) {
+                return false;
+            }
+            count.addAndGet(drift);
+            return true;
+        }
+    }
+}
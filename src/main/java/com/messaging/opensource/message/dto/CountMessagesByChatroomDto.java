@@ -8,5 +8,7 @@ import lombok.Getter;
 @Getter
 public class CountMessagesByChatroomDto {
 
+    Long chatroomId;
+
     Long count;
 }
@@ -18,4 +18,6 @@ public class MessageDocumentDto {
     String content;
 
     LocalDateTime timestamp;
+
+    Long seq;
 }
@@ -0,0 +1,23 @@
+package com.messaging.opensource.message.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Builder
+@Getter
+public class MessagePageDto {
+
+    List<MessageDocumentDto> messages;
+
+    // 다음 페이지 커서 (없으면 null)
+    String nextCursor;
+
+    // 이전 페이지 커서 (없으면 null)
+    String prevCursor;
+
+    boolean hasNext;
+
+    boolean hasPrevious;
+}
@@ -0,0 +1,31 @@
+package com.messaging.opensource.message.dto;
+
+import com.messaging.opensource.message.entity.PurgeStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Getter
+public class PurgeJobDto {
+
+    String jobId;
+
+    Long chatroomId;
+
+    PurgeStatus status;
+
+    LocalDateTime cutoff;
+
+    LocalDateTime deletedUpTo;
+
+    long deletedCount;
+
+    // 실패 시 원인 (없으면 null)
+    String error;
+
+    LocalDateTime createdAt;
+
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,16 @@
+package com.messaging.opensource.message.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class UnreadCountDto {
+
+    Long chatroomId;
+
+    // 마지막으로 읽은 메시지 순번
+    Long lastReadSeq;
+
+    Long unreadCount;
+}
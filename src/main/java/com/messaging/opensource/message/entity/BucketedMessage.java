@@ -0,0 +1,44 @@
+package com.messaging.opensource.message.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+// 버킷에 들어 있는 메시지 하나. chatroomId 는 버킷에만 저장
+@Data
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BucketedMessage {
+
+    @Id
+    private String id;
+
+    private Long senderId;
+
+    private String content;
+
+    private LocalDateTime timestamp;
+
+    private Long seq;
+
+    private String senderName;
+
+    public MessageDocument toMessageDocument(Long chatroomId) {
+        return MessageDocument.builder()
+                .id(id)
+                .chatroomId(chatroomId)
+                .senderId(senderId)
+                .content(content)
+                .timestamp(timestamp)
+                .seq(seq)
+                .senderName(senderName)
+                .build();
+    }
+}
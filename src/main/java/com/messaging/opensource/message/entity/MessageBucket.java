@@ -0,0 +1,50 @@
+package com.messaging.opensource.message.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 한 채팅방의 한 시간 구간 메시지를 모아둔 버킷 (messaging.storage.mode=BUCKETED)
+// 구간의 메시지가 최대 개수를 넘으면 같은 구간의 버킷이 하나 더 생김
+@Data
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "message_buckets")
+@CompoundIndexes({
+        // 채팅방 기준 시간순/최신순 범위 조회, 개수, 삭제
+        @CompoundIndex(name = "chatroom_start", def = "{'chatroomId': 1, 'start': 1}"),
+        // 특정 사용자의 전체 메시지 조회 (multikey)
+        @CompoundIndex(name = "sender_start", def = "{'messages.senderId': 1, 'start': 1}")
+})
+public class MessageBucket {
+
+    @Id
+    private String id;
+
+    private Long chatroomId;
+
+    // 시간 구간의 시작 (구간 길이는 messaging.storage.bucket-window)
+    private LocalDateTime start;
+
+    // 버킷 안 메시지의 가장 이른/늦은 시각
+    private LocalDateTime first;
+
+    private LocalDateTime last;
+
+    // 추가를 시도한 메시지 수 (재시도로 중복된 것 포함). 버킷을 나누는 기준으로만 사용
+    private int count;
+
+    // 추가된 순서. 시간순 정렬은 읽을 때 함
+    private List<BucketedMessage> messages;
+}
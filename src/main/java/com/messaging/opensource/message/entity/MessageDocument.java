@@ -1,11 +1,15 @@
 package com.messaging.opensource.message.entity;
 
 import com.messaging.opensource.message.dto.MessageDocumentDto;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -13,7 +17,19 @@ import java.time.LocalDateTime;
 @Data
 @Getter
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @Document(collection = "messages")
+@CompoundIndexes({
+        // 채팅방 기준 시간순/최신순 조회, 시간 범위 조회, 개수, 최신 1건, keyset 페이지
+        @CompoundIndex(name = "chatroom_timestamp_id", def = "{'chatroomId': 1, 'timestamp': 1, '_id': 1}"),
+        // 특정 사용자의 특정 채팅방 메시지 조회/삭제, keyset 페이지
+        @CompoundIndex(name = "sender_chatroom_timestamp_id", def = "{'senderId': 1, 'chatroomId': 1, 'timestamp': 1, '_id': 1}"),
+        // 특정 사용자의 전체 메시지 조회, keyset 페이지
+        @CompoundIndex(name = "sender_timestamp_id", def = "{'senderId': 1, 'timestamp': 1, '_id': 1}"),
+        // 재접속 시 순번 이후 메시지 조회, 채팅방의 마지막 순번
+        @CompoundIndex(name = "chatroom_seq", def = "{'chatroomId': 1, 'seq': 1}")
+})
 public class MessageDocument {
 
     @Id
@@ -28,6 +44,12 @@ public class MessageDocument {
     @CreatedDate
     private LocalDateTime timestamp;
 
+    // 채팅방 단위로 1 부터 증가하는 순번 (순번 도입 전 메시지는 null)
+    private Long seq;
+
+    // 보낸 시점의 사용자 이름 (재접속 시 놓친 메시지를 다시 보낼 때 사용, 이름 저장 전 메시지는 null)
+    private String senderName;
+
     public MessageDocumentDto toDto() {
         return MessageDocumentDto.builder()
                 .id(this.getId())
@@ -35,6 +57,7 @@ public class MessageDocument {
                 .chatroomId(this.getChatroomId())
                 .senderId(this.getSenderId())
                 .timestamp(this.getTimestamp())
+                .seq(this.getSeq())
                 .build();
     }
 }
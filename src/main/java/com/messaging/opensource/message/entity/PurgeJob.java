@@ -0,0 +1,62 @@
+package com.messaging.opensource.message.entity;
+
+import com.messaging.opensource.message.dto.PurgeJobDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// 채팅방 메시지 일괄 삭제 작업. 진행 상황을 저장해두고 재시작 시 이어서 실행함
+@Data
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "purge_jobs")
+public class PurgeJob {
+
+    @Id
+    private String id;
+
+    private Long chatroomId;
+
+    // PENDING/RUNNING 동안만 chatroomId 를 가짐. 유일 인덱스로 채팅방마다 진행 중인 작업을 하나로 제한
+    @Indexed(name = "active_chatroom", unique = true, sparse = true)
+    private Long activeChatroomId;
+
+    private PurgeStatus status;
+
+    // 요청 시각. 이 시각 이전에 보낸 메시지만 삭제
+    private LocalDateTime cutoff;
+
+    // 이 시각까지의 메시지는 삭제 완료
+    private LocalDateTime deletedUpTo;
+
+    private long deletedCount;
+
+    private String error;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    public PurgeJobDto toDto() {
+        return PurgeJobDto.builder()
+                .jobId(this.getId())
+                .chatroomId(this.getChatroomId())
+                .status(this.getStatus())
+                .cutoff(this.getCutoff())
+                .deletedUpTo(this.getDeletedUpTo())
+                .deletedCount(this.getDeletedCount())
+                .error(this.getError())
+                .createdAt(this.getCreatedAt())
+                .updatedAt(this.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.messaging.opensource.message.entity;
+
+public enum PurgeStatus {
+    // 실행 대기
+    PENDING,
+    // 삭제 진행 중 (재시작 시 이어서 실행)
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
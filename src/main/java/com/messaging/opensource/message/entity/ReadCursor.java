@@ -0,0 +1,43 @@
+package com.messaging.opensource.message.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// 사용자가 채팅방에서 마지막으로 읽은 메시지 순번. _id 는 "userId:chatroomId"
+@Data
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "read_cursors")
+@CompoundIndexes({
+        // 사용자의 모든 채팅방 커서 조회
+        @CompoundIndex(name = "user_chatroom", def = "{'userId': 1, 'chatroomId': 1}")
+})
+public class ReadCursor {
+
+    @Id
+    private String id;
+
+    private Long userId;
+
+    private Long chatroomId;
+
+    // 이 순번까지 읽음
+    private Long seq;
+
+    private LocalDateTime updatedAt;
+
+    public static String idOf(Long userId, Long chatroomId) {
+        return userId + ":" + chatroomId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.messaging.opensource.message.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// 저장 방식 이전 작업의 진행 상황. 재시작 시 마지막으로 옮긴 메시지 다음부터 이어서 실행함
+@Data
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "storage_migrations")
+public class StorageMigration {
+
+    // 이전 대상 컬렉션 이름
+    @Id
+    private String id;
+
+    // 이 ID 까지의 메시지는 이전 완료 (_id 순)
+    private String lastMessageId;
+
+    private long migratedCount;
+
+    private boolean completed;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,9 @@
+package com.messaging.opensource.message.event;
+
+// 채팅방 메시지가 삭제된 뒤 발행되는 이벤트. senderId 가 null 이면 채팅방 전체 삭제 (일괄 삭제 작업은 배치마다 발행)
+public record MessagesDeletedEvent(Long chatroomId, Long senderId, long deletedCount) {
+
+    public boolean isWholeChatroom() {
+        return senderId == null;
+    }
+}
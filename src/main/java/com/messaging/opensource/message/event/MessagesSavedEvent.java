@@ -0,0 +1,9 @@
+package com.messaging.opensource.message.event;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+
+import java.util.List;
+
+// 메시지가 Mongo 에 저장된 뒤 발행되는 이벤트 (저장한 스레드에서 동기 전달)
+public record MessagesSavedEvent(List<MessageDocument> messages) {
+}
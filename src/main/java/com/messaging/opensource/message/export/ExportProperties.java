@@ -0,0 +1,22 @@
+package com.messaging.opensource.message.export;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.export")
+public class ExportProperties {
+
+    // 내보내기 응답 하나의 최대 시간. 이 엔드포인트에만 적용되고, 다른 비동기 요청은 Spring 기본 타임아웃을 사용
+    private Duration timeout = Duration.ofMinutes(10);
+
+    // 동시에 실행할 수 있는 내보내기 수 (가상 스레드 모드에서는 제한 없음)
+    private int threads = 4;
+
+    // 한 번에 클라이언트로 보내는 최대 바이트 수
+    private int chunkSize = 8192;
+}
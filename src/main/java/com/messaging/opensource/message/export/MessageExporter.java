@@ -0,0 +1,99 @@
+package com.messaging.opensource.message.export;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 채팅방 전체 메시지를 NDJSON 으로 내보내는 스트리밍 응답.
+ * 응답마다 {@link ResponseBodyEmitter} 에 messaging.export.timeout 을 지정하므로, 오래 걸리는 내보내기 때문에
+ * 전역 비동기 요청 타임아웃(spring.mvc.async.request-timeout)을 늘리지 않아도 된다.
+ * 메시지는 전용 실행기에서 읽고 chunk-size 단위로 모아서 보낸다.
+ */
+@Component
+public class MessageExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageExporter.class);
+
+    private final MessageService messageService;
+    private final ExportProperties properties;
+    private final ExecutorService executor;
+
+    public MessageExporter(MessageService messageService, ExportProperties properties, BlockingExecutors blockingExecutors) {
+        this.messageService = messageService;
+        this.properties = properties;
+        this.executor = blockingExecutors.newPool("message-export-", properties.getThreads());
+    }
+
+    // gzip 이면 flush 할 때마다 압축된 데이터를 바로 내보냄 (syncFlush)
+    public ResponseBodyEmitter export(Long chatroomId, boolean gzip) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(properties.getTimeout().toMillis());
+        emitter.onTimeout(() -> logger.warn("Export of chatroom {} timed out after {}", chatroomId, properties.getTimeout()));
+
+        executor.execute(() -> {
+            try (OutputStream out = new BufferedOutputStream(new EmitterOutputStream(emitter), properties.getChunkSize())) {
+                if (gzip) {
+                    GZIPOutputStream gzipStream = new GZIPOutputStream(out, properties.getChunkSize(), true);
+                    messageService.exportMessagesByChatroom(chatroomId, gzipStream);
+                    gzipStream.finish();
+                } else {
+                    messageService.exportMessagesByChatroom(chatroomId, out);
+                }
+            } catch (IOException e) {
+                // 클라이언트가 연결을 끊었거나 타임아웃 - 커서는 이미 닫혔으므로 기록만 남김
+                logger.info("Export of chatroom {} cancelled: {}", chatroomId, e.getMessage());
+                emitter.completeWithError(e);
+                return;
+            } catch (Exception e) {
+                logger.error("Export of chatroom {} failed: {}", chatroomId, e.getMessage(), e);
+                emitter.completeWithError(e);
+                return;
+            }
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 쓴 바이트를 emitter 로 보내는 스트림. 이미 끝난 응답(타임아웃, 연결 끊김)에 쓰면 IOException
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            try {
+                emitter.send(Arrays.copyOfRange(b, off, off + len));
+            } catch (IllegalStateException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.messaging.opensource.message.journal;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+
+import java.util.List;
+
+// 저널에서 연속으로 읽은 메시지와, 이 배치를 저장한 뒤 체크포인트로 쓸 다음 읽기 위치
+// records 는 읽을 수 없어서 건너뛴 레코드까지 포함한 수
+public record JournalBatch(List<MessageDocument> messages, long nextPosition, int records) {
+
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    public int size() {
+        return messages.size();
+    }
+}
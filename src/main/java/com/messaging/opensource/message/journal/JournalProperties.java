@@ -0,0 +1,33 @@
+package com.messaging.opensource.message.journal;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.journal")
+public class JournalProperties {
+
+    // true 이면 write-behind 가 메모리 큐 대신 로컬 저널에 먼저 기록하고, 저널에서 읽어 Mongo 에 저장
+    private boolean enabled = false;
+
+    private String directory = "data/journal";
+
+    // 세그먼트 파일 하나의 크기. 메모리 매핑되므로 주소 공간만 차지하고 실제 디스크는 쓴 만큼 사용
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    // 아직 저장되지 않은 세그먼트 수 제한. 넘으면 새 메시지를 받지 않고 drop 처리 (0 이면 제한 없음)
+    private int maxSegments = 64;
+
+    private JournalSyncMode sync = JournalSyncMode.GROUP_COMMIT;
+
+    // INTERVAL 모드에서 fsync 하는 주기 (전원 장애 시 최대 이 시간만큼 유실 가능)
+    private Duration syncInterval = Duration.ofMillis(10);
+
+    // Mongo 저장 실패 시 같은 배치를 다시 시도하기 전 대기 시간
+    private Duration retryBackoff = Duration.ofSeconds(1);
+}
@@ -0,0 +1,132 @@
+package com.messaging.opensource.message.journal;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 저널 레코드 본문의 바이너리 형식.
+ * [version][flags][chatroomId][senderId][epochSecond][nano][seq][id 길이 + UTF-8][content 길이 + UTF-8][senderName 길이 + UTF-8]
+ * null 인 필드는 flags 비트로 표시하고 값은 쓰지 않는다. 시각은 시간대와 무관하게 LocalDateTime 값 그대로 저장한다.
+ * senderName 은 맨 뒤에 붙이므로 이 필드가 없는 이전 레코드도 같은 버전으로 읽는다.
+ */
+final class JournalRecordCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_CHATROOM = 1 << 1;
+    private static final int HAS_SENDER = 1 << 2;
+    private static final int HAS_TIMESTAMP = 1 << 3;
+    private static final int HAS_CONTENT = 1 << 4;
+    private static final int HAS_SEQ = 1 << 5;
+    private static final int HAS_SENDER_NAME = 1 << 6;
+
+    private JournalRecordCodec() {
+    }
+
+    static byte[] encode(MessageDocument message) {
+        byte[] id = message.getId() != null ? message.getId().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] content = message.getContent() != null ? message.getContent().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] senderName = message.getSenderName() != null ? message.getSenderName().getBytes(StandardCharsets.UTF_8) : null;
+
+        int flags = 0;
+        int size = 2;
+        if (id != null) {
+            flags |= HAS_ID;
+            size += Integer.BYTES + id.length;
+        }
+        if (message.getChatroomId() != null) {
+            flags |= HAS_CHATROOM;
+            size += Long.BYTES;
+        }
+        if (message.getSenderId() != null) {
+            flags |= HAS_SENDER;
+            size += Long.BYTES;
+        }
+        if (message.getTimestamp() != null) {
+            flags |= HAS_TIMESTAMP;
+            size += Long.BYTES + Integer.BYTES;
+        }
+        if (content != null) {
+            flags |= HAS_CONTENT;
+            size += Integer.BYTES + content.length;
+        }
+        if (message.getSeq() != null) {
+            flags |= HAS_SEQ;
+            size += Long.BYTES;
+        }
+        if (senderName != null) {
+            flags |= HAS_SENDER_NAME;
+            size += Integer.BYTES + senderName.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION).put((byte) flags);
+        if (message.getChatroomId() != null) {
+            buffer.putLong(message.getChatroomId());
+        }
+        if (message.getSenderId() != null) {
+            buffer.putLong(message.getSenderId());
+        }
+        if (message.getTimestamp() != null) {
+            buffer.putLong(message.getTimestamp().toEpochSecond(ZoneOffset.UTC)).putInt(message.getTimestamp().getNano());
+        }
+        if (message.getSeq() != null) {
+            buffer.putLong(message.getSeq());
+        }
+        if (id != null) {
+            buffer.putInt(id.length).put(id);
+        }
+        if (content != null) {
+            buffer.putInt(content.length).put(content);
+        }
+        if (senderName != null) {
+            buffer.putInt(senderName.length).put(senderName);
+        }
+        return buffer.array();
+    }
+
+    static MessageDocument decode(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported journal record version " + version);
+        }
+        int flags = buffer.get();
+
+        MessageDocument.MessageDocumentBuilder builder = MessageDocument.builder();
+        if ((flags & HAS_CHATROOM) != 0) {
+            builder.chatroomId(buffer.getLong());
+        }
+        if ((flags & HAS_SENDER) != 0) {
+            builder.senderId(buffer.getLong());
+        }
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            long epochSecond = buffer.getLong();
+            builder.timestamp(LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(), ZoneOffset.UTC));
+        }
+        if ((flags & HAS_SEQ) != 0) {
+            builder.seq(buffer.getLong());
+        }
+        if ((flags & HAS_ID) != 0) {
+            builder.id(readString(buffer));
+        }
+        if ((flags & HAS_CONTENT) != 0) {
+            builder.content(readString(buffer));
+        }
+        if ((flags & HAS_SENDER_NAME) != 0) {
+            builder.senderName(readString(buffer));
+        }
+        return builder.build();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,133 @@
+package com.messaging.opensource.message.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * 메모리 매핑된 저널 세그먼트 파일 하나.
+ * 레코드는 [본문 길이 int][CRC32C int][본문] 형식이고, 길이가 0 이면 아직 쓰지 않은 영역, -1 이면 다음 세그먼트로 넘어간다는 표시다.
+ * 세그먼트의 위치는 전체 저널에서의 시작 위치(base) 기준이며 파일 이름에 그대로 들어간다.
+ * 쓰기는 {@link MessageJournal} 의 append 락 안에서만, 읽기는 이미 쓰인 위치까지만 하므로 버퍼는 절대 위치로만 접근한다.
+ */
+final class JournalSegment {
+
+    static final String PREFIX = "journal-";
+    static final String SUFFIX = ".log";
+
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    static final int ROLL_MARKER = -1;
+
+    // 세그먼트를 넘어가야 한다는 표시로만 쓰는 빈 버퍼
+    static final ByteBuffer ROLLED = ByteBuffer.allocate(0);
+
+    private final long base;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(long base, Path path, MappedByteBuffer buffer) {
+        this.base = base;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long base, int capacity) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, base, SUFFIX));
+        return map(base, path, capacity);
+    }
+
+    static JournalSegment open(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long base = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        return map(base, path, Math.toIntExact(Files.size(path)));
+    }
+
+    static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    // 매핑은 채널을 닫아도 유지됨
+    private static JournalSegment map(long base, Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new JournalSegment(base, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+    }
+
+    long base() {
+        return base;
+    }
+
+    // 다음 세그먼트의 시작 위치
+    long end() {
+        return base + buffer.capacity();
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    // offset 에 레코드를 씀. 길이는 마지막에 써서 중간에 멈춘 기록은 읽기 쪽에서 빈 영역이나 CRC 불일치로 보임
+    void write(int offset, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        buffer.put(offset + HEADER_SIZE, payload);
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(offset, payload.length);
+    }
+
+    // 한 번도 쓰지 않은 세그먼트
+    boolean isEmpty() {
+        return buffer.getInt(0) == 0;
+    }
+
+    void writeRollMarker(int offset) {
+        if (capacity() - offset >= Integer.BYTES) {
+            buffer.putInt(offset, ROLL_MARKER);
+        }
+    }
+
+    // offset 의 레코드 본문. 세그먼트 끝(표시 또는 남은 공간 부족)이면 ROLLED, 유효한 레코드가 없으면 null
+    ByteBuffer read(int offset) {
+        if (capacity() - offset < HEADER_SIZE) {
+            return ROLLED;
+        }
+        int length = buffer.getInt(offset);
+        if (length == ROLL_MARKER) {
+            return ROLLED;
+        }
+        if (length <= 0 || length > capacity() - offset - HEADER_SIZE) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_SIZE, payload);
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+            return null;
+        }
+        return ByteBuffer.wrap(payload);
+    }
+
+    void force(int from, int to) {
+        if (to > from) {
+            buffer.force(from, to - from);
+        }
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public String toString() {
+        return path.getFileName().toString();
+    }
+}
@@ -0,0 +1,11 @@
+package com.messaging.opensource.message.journal;
+
+// 저널 기록을 디스크에 강제로 내리는(fsync) 방식
+public enum JournalSyncMode {
+
+    // 기록한 스레드가 fsync 완료까지 대기. 동시에 기다리는 기록은 fsync 한 번으로 함께 확정 (group commit)
+    GROUP_COMMIT,
+
+    // 백그라운드에서 sync-interval 마다 fsync 하고 기록한 스레드는 기다리지 않음
+    INTERVAL
+}
@@ -0,0 +1,415 @@
+package com.messaging.opensource.message.journal;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.entity.MessageDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 저장 전 메시지를 먼저 기록하는 로컬 append-only 저널 (messaging.journal.enabled=true 일 때만 사용).
+ * 메모리 매핑된 세그먼트 파일에 순서대로 쓰고, 가득 차면 다음 세그먼트로 넘어간다.
+ * GROUP_COMMIT 모드에서는 기록한 스레드가 fsync 를 기다리되, 먼저 기다리던 스레드 하나가 그때까지 쓰인 기록을 모두 한 번에 fsync 한다.
+ * 저장이 끝난 위치는 checkpoint 파일에 남기고, 그 이전의 세그먼트는 지운다. 재시작하면 체크포인트부터 다시 읽는다.
+ */
+@Component
+public class MessageJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageJournal.class);
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final JournalProperties properties;
+    private final BlockingExecutors blockingExecutors;
+    private final Path directory;
+    private final Timer syncTimer;
+
+    // 시작 위치 순. 마지막 세그먼트가 기록 중인 세그먼트
+    private final ConcurrentSkipListMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private JournalSegment active;
+    private int writeOffset;
+    private boolean closed;
+
+    // writtenPosition 까지는 읽을 수 있고, syncedPosition 까지는 디스크에 내려가 있음
+    private volatile long writtenPosition;
+    private volatile long syncedPosition;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncFinished = syncLock.newCondition();
+    private boolean syncing;
+
+    private volatile long checkpoint;
+    private final AtomicLong pending = new AtomicLong();
+
+    // 저장 스레드가 기다리는 최소 대기 레코드 수 (기다리지 않으면 Long.MAX_VALUE)
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition appended = waitLock.newCondition();
+    private volatile long waitingFor = Long.MAX_VALUE;
+
+    private Thread syncThread;
+
+    public MessageJournal(JournalProperties properties, BlockingExecutors blockingExecutors, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.blockingExecutors = blockingExecutors;
+        this.directory = Path.of(properties.getDirectory());
+        this.syncTimer = Timer.builder("messaging.persistence.journal.sync")
+                .description("Time per journal fsync (one fsync can commit many messages)")
+                .register(meterRegistry);
+        Gauge.builder("messaging.persistence.journal.pending", pending, AtomicLong::get)
+                .description("Journaled messages not yet stored in Mongo")
+                .register(meterRegistry);
+        Gauge.builder("messaging.persistence.journal.segments", segments, Map::size)
+                .description("Journal segment files on disk")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        checkpoint = readCheckpoint();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(JournalSegment::isSegmentFile).toList()) {
+                JournalSegment segment = JournalSegment.open(file);
+                segments.put(segment.base(), segment);
+            }
+        }
+
+        // 기록 중이던 세그먼트는 끝(마지막 유효 레코드 다음)을 찾은 뒤 닫고 새 세그먼트에서 이어서 씀
+        // 중간에 끊긴 기록 뒤에 남은 바이트를 새 레코드로 덮어쓰다가 잘못 읽는 일이 없게 함
+        JournalSegment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (last != null && last.isEmpty()) {
+            active = last;
+        } else {
+            long start = checkpoint;
+            if (last != null) {
+                int end = scanEnd(last);
+                last.writeRollMarker(end);
+                last.force(0, last.capacity());
+                start = last.end();
+                checkpoint = Math.max(segments.firstKey(), Math.min(checkpoint, last.base() + end));
+            }
+            active = JournalSegment.create(directory, start, segmentCapacity());
+            segments.put(active.base(), active);
+        }
+        checkpoint = Math.max(checkpoint, segments.firstKey());
+        writeOffset = 0;
+        writtenPosition = active.base();
+        syncedPosition = active.base();
+
+        pending.set(countRecords(checkpoint));
+        deleteConsumedSegments();
+        logger.info("Opened message journal in {} ({} segments, {} messages to replay from position {})",
+                directory.toAbsolutePath(), segments.size(), pending.get(), checkpoint);
+
+        if (properties.getSync() == JournalSyncMode.INTERVAL) {
+            syncThread = blockingExecutors.newThread("message-journal-sync", this::runIntervalSync);
+            syncThread.start();
+        }
+    }
+
+    // 메시지를 저널에 기록. GROUP_COMMIT 모드에서는 fsync 까지 끝난 뒤 반환
+    public void append(MessageDocument message) throws IOException {
+        byte[] payload = JournalRecordCodec.encode(message);
+        int recordSize = JournalSegment.HEADER_SIZE + payload.length;
+        if (recordSize > segmentCapacity()) {
+            throw new IOException("Message of " + payload.length + " bytes does not fit in a journal segment");
+        }
+
+        long end;
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Journal is closed");
+            }
+            if (active.capacity() - writeOffset < recordSize) {
+                roll();
+            }
+            active.write(writeOffset, payload);
+            writeOffset += recordSize;
+            end = active.base() + writeOffset;
+            writtenPosition = end;
+        } finally {
+            appendLock.unlock();
+        }
+
+        pending.incrementAndGet();
+        signalWaiter();
+
+        if (properties.getSync() == JournalSyncMode.GROUP_COMMIT) {
+            try {
+                awaitSynced(end);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // appendLock 안에서 호출
+    private void roll() throws IOException {
+        if (properties.getMaxSegments() > 0 && segments.size() >= properties.getMaxSegments()) {
+            throw new IOException("Journal is full (" + segments.size() + " segments waiting to be stored)");
+        }
+        active.writeRollMarker(writeOffset);
+        JournalSegment next = JournalSegment.create(directory, active.end(), segmentCapacity());
+        segments.put(next.base(), next);
+        active = next;
+        writeOffset = 0;
+        writtenPosition = next.base();
+    }
+
+    // position 까지 디스크에 내려갈 때까지 대기. 진행 중인 fsync 가 없으면 직접 fsync 해서 그동안 쌓인 기록을 함께 확정
+    private void awaitSynced(long position) {
+        syncLock.lock();
+        try {
+            while (syncedPosition < position) {
+                if (syncing) {
+                    syncFinished.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                syncLock.unlock();
+                try {
+                    sync();
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    syncFinished.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // syncing 을 잡은 스레드 하나만 호출
+    private void sync() {
+        long from = syncedPosition;
+        long target = writtenPosition;
+        if (target <= from) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Long firstKey = segments.floorKey(from);
+        for (JournalSegment segment : segments.subMap(firstKey != null ? firstKey : from, true, target, false).values()) {
+            segment.force((int) (Math.max(from, segment.base()) - segment.base()),
+                    (int) (Math.min(target, segment.end()) - segment.base()));
+        }
+        syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        syncedPosition = target;
+    }
+
+    private void runIntervalSync() {
+        long intervalNanos = properties.getSyncInterval().toNanos();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(intervalNanos);
+                awaitSynced(writtenPosition);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Failed to sync message journal: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    // from 부터 최대 maxMessages 개를 읽음. 아직 기록 중인 레코드는 읽지 않음
+    public JournalBatch read(long from, int maxMessages) {
+        List<MessageDocument> messages = new ArrayList<>();
+        int records = 0;
+        long position = Math.max(from, segments.isEmpty() ? from : segments.firstKey());
+        long limit = writtenPosition;
+
+        while (messages.size() < maxMessages && position < limit) {
+            Map.Entry<Long, JournalSegment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                break;
+            }
+            JournalSegment segment = entry.getValue();
+            ByteBuffer payload = segment.read((int) (position - segment.base()));
+            if (payload == JournalSegment.ROLLED) {
+                position = segment.end();
+                continue;
+            }
+            if (payload == null) {
+                logger.error("Corrupt journal record at position {} in {}, skipping the rest of the segment", position, segment);
+                position = segment.end();
+                continue;
+            }
+
+            int recordSize = JournalSegment.HEADER_SIZE + payload.capacity();
+            records++;
+            try {
+                messages.add(JournalRecordCodec.decode(payload));
+            } catch (RuntimeException e) {
+                logger.error("Unreadable journal record at position {} in {}: {}", position, segment, e.getMessage());
+            }
+            position += recordSize;
+        }
+        return new JournalBatch(messages, position, records);
+    }
+
+    // position 이전의 기록은 저장이 끝났음을 기록하고, 다 저장된 세그먼트는 지움
+    // records 는 position 까지 읽은 레코드 수 (JournalBatch#records)
+    public void checkpoint(long position, int records) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, position));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        checkpoint = position;
+        pending.updateAndGet(current -> Math.max(0, current - records));
+        deleteConsumedSegments();
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    // 저장 대기 레코드가 minMessages 개 이상이 될 때까지 최대 timeout 동안 대기
+    public boolean awaitPending(long minMessages, long timeoutNanos) throws InterruptedException {
+        if (pending.get() >= minMessages) {
+            return true;
+        }
+        waitLock.lock();
+        try {
+            waitingFor = minMessages;
+            long remaining = timeoutNanos;
+            while (pending.get() < minMessages && remaining > 0) {
+                remaining = appended.awaitNanos(remaining);
+            }
+            return pending.get() >= minMessages;
+        } finally {
+            waitingFor = Long.MAX_VALUE;
+            waitLock.unlock();
+        }
+    }
+
+    private void signalWaiter() {
+        if (pending.get() < waitingFor) {
+            return;
+        }
+        waitLock.lock();
+        try {
+            appended.signalAll();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    // 기록 중인 마지막 세그먼트는 지우지 않음
+    private void deleteConsumedSegments() throws IOException {
+        Iterator<JournalSegment> iterator = segments.values().iterator();
+        while (iterator.hasNext()) {
+            JournalSegment segment = iterator.next();
+            if (segment.end() > checkpoint || segment.base() == segments.lastKey()) {
+                return;
+            }
+            iterator.remove();
+            segment.delete();
+        }
+    }
+
+    // 세그먼트의 마지막 유효 레코드 다음 위치
+    private int scanEnd(JournalSegment segment) {
+        int offset = 0;
+        while (true) {
+            ByteBuffer payload = segment.read(offset);
+            if (payload == null) {
+                return offset;
+            }
+            if (payload == JournalSegment.ROLLED) {
+                return segment.capacity();
+            }
+            offset += JournalSegment.HEADER_SIZE + payload.capacity();
+        }
+    }
+
+    private long countRecords(long from) {
+        long count = 0;
+        long position = from;
+        JournalBatch batch;
+        do {
+            batch = read(position, 1024);
+            count += batch.records();
+            position = batch.nextPosition();
+        } while (batch.records() > 0);
+        return count;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getLong();
+    }
+
+    private int segmentCapacity() {
+        return Math.toIntExact(properties.getSegmentSize().toBytes());
+    }
+
+    // 남은 기록을 디스크에 내리고 닫음. 아직 저장되지 않은 기록은 다음 기동 때 이어서 저장
+    @PreDestroy
+    public void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        if (syncThread != null) {
+            syncThread.interrupt();
+        }
+        awaitSynced(writtenPosition);
+        logger.info("Closed message journal, {} messages left to replay", pending.get());
+    }
+}
@@ -0,0 +1,218 @@
+package com.messaging.opensource.message.lean;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.bson.ByteBuf;
+import org.bson.RawBsonDocument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Arrays;
+
+/**
+ * 메시지 BSON 바이트를 {@link com.messaging.opensource.message.dto.MessageDocumentDto} 와 같은 JSON 객체로 쓴다.
+ * 한 번의 조회 동안 재사용되며, 같은 날짜의 timestamp 는 날짜 부분을 캐시해서 메시지마다 날짜/시간 객체를 만들지 않는다.
+ */
+class BsonMessageJsonEncoder {
+
+    // BSON 필드 순서와 무관하게 DTO 필드 순서로 출력
+    private static final String[] JSON_FIELDS = {"id", "chatroomId", "senderId", "content", "timestamp", "seq"};
+    private static final byte[][] BSON_FIELDS = {
+            bytes("_id"), bytes("chatroomId"), bytes("senderId"), bytes("content"), bytes("timestamp"), bytes("seq")
+    };
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final byte[] types = new byte[BSON_FIELDS.length];
+    private final int[] offsets = new int[BSON_FIELDS.length];
+    private final char[] hexBuffer = new char[24];
+    private final StringBuilder timestampBuilder = new StringBuilder(32);
+    private final char[] timestampBuffer = new char[40];
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // 마지막으로 쓴 날짜의 [시작, 끝) 구간 (epoch millis). 이 구간 안이면 "yyyy-MM-ddT" 부분을 다시 계산하지 않음
+    private long cachedDayStart = 1;
+    private long cachedDayEnd = 0;
+
+    void write(RawBsonDocument document, JsonGenerator generator) throws IOException {
+        ByteBuf buffer = document.getByteBuffer();
+        byte[] bytes = buffer.array();
+        int start = buffer.position();
+
+        locateFields(bytes, start);
+
+        generator.writeStartObject();
+        for (int field = 0; field < JSON_FIELDS.length; field++) {
+            generator.writeFieldName(JSON_FIELDS[field]);
+            writeValue(bytes, field, generator);
+        }
+        generator.writeEndObject();
+    }
+
+    // 문서를 한 번 훑어서 필요한 필드의 타입과 값 위치만 기록
+    private void locateFields(byte[] bytes, int start) {
+        Arrays.fill(types, (byte) 0);
+
+        int end = start + readInt(bytes, start) - 1;
+        int position = start + 4;
+        while (position < end) {
+            byte type = bytes[position++];
+            int nameStart = position;
+            while (bytes[position] != 0) {
+                position++;
+            }
+            int field = fieldIndex(bytes, nameStart, position - nameStart);
+            position++;
+
+            if (field >= 0) {
+                types[field] = type;
+                offsets[field] = position;
+            }
+            position += valueLength(bytes, position, type);
+        }
+    }
+
+    private int fieldIndex(byte[] bytes, int offset, int length) {
+        for (int field = 0; field < BSON_FIELDS.length; field++) {
+            if (Arrays.equals(BSON_FIELDS[field], 0, BSON_FIELDS[field].length,
+                    bytes, offset, offset + length)) {
+                return field;
+            }
+        }
+        return -1;
+    }
+
+    private void writeValue(byte[] bytes, int field, JsonGenerator generator) throws IOException {
+        int offset = offsets[field];
+        switch (types[field]) {
+            case 0x01 -> generator.writeNumber(Double.longBitsToDouble(readLong(bytes, offset)));
+            // 문자열: int32 길이(끝의 0 포함) + UTF-8 바이트
+            case 0x02 -> generator.writeUTF8String(bytes, offset + 4, readInt(bytes, offset) - 1);
+            case 0x07 -> writeObjectId(bytes, offset, generator);
+            case 0x08 -> generator.writeBoolean(bytes[offset] != 0);
+            case 0x09 -> writeTimestamp(readLong(bytes, offset), generator);
+            case 0x10 -> generator.writeNumber(readInt(bytes, offset));
+            case 0x12 -> generator.writeNumber(readLong(bytes, offset));
+            default -> generator.writeNull();
+        }
+    }
+
+    private void writeObjectId(byte[] bytes, int offset, JsonGenerator generator) throws IOException {
+        for (int i = 0; i < 12; i++) {
+            int value = bytes[offset + i] & 0xff;
+            hexBuffer[i * 2] = HEX[value >>> 4];
+            hexBuffer[i * 2 + 1] = HEX[value & 0x0f];
+        }
+        generator.writeString(hexBuffer, 0, hexBuffer.length);
+    }
+
+    // LocalDateTime 은 시스템 시간대 기준으로 저장되므로 같은 시간대로 되돌려서 DTO 와 같은 ISO 형식(ISO_LOCAL_DATE_TIME)으로 출력
+    private void writeTimestamp(long epochMillis, JsonGenerator generator) throws IOException {
+        if (epochMillis < cachedDayStart || epochMillis >= cachedDayEnd) {
+            if (!cacheDay(epochMillis)) {
+                writeTimestampSlow(epochMillis, generator);
+                return;
+            }
+        }
+
+        // 캐시된 날짜 부분 "yyyy-MM-ddT" 뒤에 시각을 직접 씀
+        int millisOfDay = (int) (epochMillis - cachedDayStart);
+        int position = 11;
+        position = writeTwoDigits(millisOfDay / 3_600_000, position);
+        timestampBuffer[position++] = ':';
+        position = writeTwoDigits(millisOfDay / 60_000 % 60, position);
+        timestampBuffer[position++] = ':';
+        position = writeTwoDigits(millisOfDay / 1000 % 60, position);
+
+        // 소수점 이하는 뒤의 0 을 뺀 최소 자릿수 (0 이면 생략)
+        int millis = millisOfDay % 1000;
+        if (millis != 0) {
+            timestampBuffer[position++] = '.';
+            timestampBuffer[position++] = (char) ('0' + millis / 100);
+            if (millis % 100 != 0) {
+                timestampBuffer[position++] = (char) ('0' + millis / 10 % 10);
+                if (millis % 10 != 0) {
+                    timestampBuffer[position++] = (char) ('0' + millis % 10);
+                }
+            }
+        }
+        generator.writeString(timestampBuffer, 0, position);
+    }
+
+    // epochMillis 가 속한 날짜를 캐시. 그날 시간대 전환(서머타임 등)이 있거나 4자리 연도가 아니면 false
+    private boolean cacheDay(long epochMillis) {
+        LocalDate date = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone).toLocalDate();
+        Instant start = date.atStartOfDay(zone).toInstant();
+        Instant end = date.plusDays(1).atStartOfDay(zone).toInstant();
+
+        ZoneOffsetTransition transition = zone.getRules().nextTransition(start);
+        if (transition != null && transition.getInstant().isBefore(end)) {
+            return false;
+        }
+        if (date.getYear() < 1000 || date.getYear() > 9999
+                || !LocalDateTime.ofInstant(start, zone).toLocalTime().equals(LocalTime.MIDNIGHT)) {
+            return false;
+        }
+
+        String prefix = DateTimeFormatter.ISO_LOCAL_DATE.format(date) + "T";
+        prefix.getChars(0, prefix.length(), timestampBuffer, 0);
+        cachedDayStart = start.toEpochMilli();
+        cachedDayEnd = end.toEpochMilli();
+        return true;
+    }
+
+    private void writeTimestampSlow(long epochMillis, JsonGenerator generator) throws IOException {
+        // 캐시 구간을 비워서 다음 timestamp 가 날짜 부분을 다시 계산하게 함
+        cachedDayStart = 1;
+        cachedDayEnd = 0;
+
+        timestampBuilder.setLength(0);
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone), timestampBuilder);
+        int length = timestampBuilder.length();
+        timestampBuilder.getChars(0, length, timestampBuffer, 0);
+        generator.writeString(timestampBuffer, 0, length);
+    }
+
+    private int writeTwoDigits(int value, int position) {
+        timestampBuffer[position] = (char) ('0' + value / 10);
+        timestampBuffer[position + 1] = (char) ('0' + value % 10);
+        return position + 2;
+    }
+
+    private static int valueLength(byte[] bytes, int offset, byte type) {
+        return switch (type) {
+            case 0x01, 0x09, 0x11, 0x12 -> 8;
+            case 0x02, 0x0D, 0x0E -> 4 + readInt(bytes, offset);
+            case 0x03, 0x04 -> readInt(bytes, offset);
+            case 0x05 -> 5 + readInt(bytes, offset);
+            case 0x07 -> 12;
+            case 0x08 -> 1;
+            case 0x0A, 0x06, (byte) 0xFF, 0x7F -> 0;
+            case 0x10 -> 4;
+            case 0x13 -> 16;
+            default -> throw new IllegalStateException("Unsupported BSON type: " + type);
+        };
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff)
+                | (bytes[offset + 1] & 0xff) << 8
+                | (bytes[offset + 2] & 0xff) << 16
+                | (bytes[offset + 3] & 0xff) << 24;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        return (readInt(bytes, offset) & 0xffffffffL) | ((long) readInt(bytes, offset + 4)) << 32;
+    }
+}
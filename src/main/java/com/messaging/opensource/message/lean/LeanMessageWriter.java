@@ -0,0 +1,117 @@
+package com.messaging.opensource.message.lean;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 메시지를 엔티티/DTO 로 만들지 않고 Mongo 의 BSON 바이트에서 바로 JSON 으로 쓰는 조회 경로.
+ * 필요한 필드만 projection 으로 읽고, 문자열은 UTF-8 바이트 그대로 JSON 출력에 복사한다.
+ * 출력 필드와 형식은 {@link com.messaging.opensource.message.dto.MessageDocumentDto} 의 JSON 과 같다.
+ */
+@Component
+public class LeanMessageWriter {
+
+    public enum Framing {
+        // [{...},{...}]
+        ARRAY,
+        // 한 줄에 메시지 하나
+        NDJSON
+    }
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+    private static final int FLUSH_INTERVAL = 256;
+
+    private static final Document PROJECTION = new Document("chatroomId", 1)
+            .append("senderId", 1)
+            .append("content", 1)
+            .append("timestamp", 1)
+            .append("seq", 1);
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final QueryMapper queryMapper;
+    private final MongoPersistentEntity<?> entity;
+
+    public LeanMessageWriter(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        this.entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(MessageDocument.class);
+    }
+
+    // query 결과를 out 에 JSON 으로 쓰고, 쓴 메시지 수를 반환
+    public long write(Query query, OutputStream out, Framing framing) throws IOException {
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+        BsonMessageJsonEncoder encoder = new BsonMessageJsonEncoder();
+
+        try (MongoCursor<RawBsonDocument> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(MessageDocument.class))
+                .find(filter, RawBsonDocument.class)
+                .projection(PROJECTION)
+                .sort(sort)
+                .limit(query.getLimit())
+                .batchSize(CURSOR_BATCH_SIZE)
+                .iterator()) {
+            return write(cursor, encoder::write, out, framing);
+        }
+    }
+
+    // 이미 엔티티로 읽은 메시지(버킷 저장 방식 등)를 같은 형식으로 씀. DTO 하나씩만 만들고 목록은 만들지 않음
+    public long write(Stream<MessageDocument> messages, OutputStream out, Framing framing) throws IOException {
+        try (messages) {
+            return write(messages.iterator(), (message, generator) -> generator.writeObject(message.toDto()), out, framing);
+        }
+    }
+
+    private <T> long write(Iterator<T> source, MessageEncoder<T> encoder, OutputStream out, Framing framing) throws IOException {
+        long written = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // NDJSON 은 줄바꿈을 직접 쓰므로 최상위 값 사이의 기본 구분자(공백)를 없앰
+            generator.setRootValueSeparator(null);
+            if (framing == Framing.ARRAY) {
+                generator.writeStartArray();
+            }
+
+            while (source.hasNext()) {
+                encoder.write(source.next(), generator);
+                written++;
+
+                if (framing == Framing.NDJSON) {
+                    generator.writeRaw('\n');
+                }
+                // 첫 메시지는 바로 보내고, 이후에는 일정 간격으로 flush
+                if (written == 1 || written % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+
+            if (framing == Framing.ARRAY) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        }
+        return written;
+    }
+
+    @FunctionalInterface
+    private interface MessageEncoder<T> {
+        void write(T message, JsonGenerator generator) throws IOException;
+    }
+}
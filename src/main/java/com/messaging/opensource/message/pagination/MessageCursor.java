@@ -0,0 +1,52 @@
+package com.messaging.opensource.message.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * (timestamp, id) 기반 keyset 커서.
+ * 클라이언트에는 base64url 로 인코딩한 불투명 문자열로만 전달된다.
+ * id 가 null 이면 timestamp 만으로 경계를 정한다 (특정 시각 이전/이후부터 시작하는 경우).
+ *
+ * @param timestamp 경계 메시지의 시간
+ * @param id        경계 메시지의 ID (같은 시간의 메시지 구분용)
+ * @param direction 페이지 정렬 방향으로 이어가는지(NEXT), 반대로 되돌아가는지(PREVIOUS)
+ */
+public record MessageCursor(LocalDateTime timestamp, String id, Direction direction) {
+
+    private static final String SEPARATOR = "|";
+
+    public enum Direction {
+        NEXT,
+        PREVIOUS
+    }
+
+    public static MessageCursor startingAt(LocalDateTime timestamp) {
+        return new MessageCursor(timestamp, null, Direction.NEXT);
+    }
+
+    public String encode() {
+        String raw = direction.name().charAt(0) + SEPARATOR + timestamp + SEPARATOR + (id == null ? "" : id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MessageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            Direction direction = "P".equals(parts[0]) ? Direction.PREVIOUS : Direction.NEXT;
+            String id = parts[2].isEmpty() ? null : parts[2];
+            return new MessageCursor(LocalDateTime.parse(parts[1]), id, direction);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+}
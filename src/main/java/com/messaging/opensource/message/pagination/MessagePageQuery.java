@@ -0,0 +1,15 @@
+package com.messaging.opensource.message.pagination;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * keyset 페이지 조회 조건. chatroomId, senderId 는 null 이면 조건에서 제외된다.
+ *
+ * @param chatroomId 채팅방 ID
+ * @param senderId   보낸 사용자 ID
+ * @param order      페이지 안의 정렬 방향 (timestamp, id)
+ * @param cursor     시작 경계 (null 이면 처음부터)
+ * @param limit      최대 메시지 수
+ */
+public record MessagePageQuery(Long chatroomId, Long senderId, Sort.Direction order, MessageCursor cursor, int limit) {
+}
@@ -0,0 +1,17 @@
+package com.messaging.opensource.message.pagination;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.pagination")
+public class PaginationProperties {
+
+    // size 파라미터가 없을 때의 페이지 크기
+    private int defaultSize = 50;
+
+    // 한 페이지의 최대 크기 (응답 메모리 상한)
+    private int maxSize = 200;
+}
@@ -0,0 +1,213 @@
+package com.messaging.opensource.message.purge;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageIndexInitializer;
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.entity.PurgeJob;
+import com.messaging.opensource.message.entity.PurgeStatus;
+import com.messaging.opensource.message.event.MessagesDeletedEvent;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅방 메시지 일괄 삭제 작업을 백그라운드에서 실행한다.
+ * 메시지를 읽어오지 않고, 시간 범위로 나눈 deleteMany 를 초당 삭제 수 제한에 맞춰 반복한다.
+ * 배치마다 진행 상황을 purge_jobs 에 저장하므로, 중간에 재시작되어도 다음 기동 때 남은 구간부터 이어서 실행한다.
+ */
+@Component
+public class MessagePurgeJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePurgeJobs.class);
+
+    private static final Set<PurgeStatus> ACTIVE = EnumSet.of(PurgeStatus.PENDING, PurgeStatus.RUNNING);
+
+    private final MessageRepository messageRepository;
+    private final PurgeJobRepository purgeJobRepository;
+    private final PurgeProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageIndexInitializer messageIndexInitializer;
+
+    // 작업은 한 번에 하나씩 실행해서 전체 삭제 속도가 제한을 넘지 않게 함
+    private final ExecutorService executor;
+
+    private volatile boolean activeIndexEnsured;
+
+    public MessagePurgeJobs(MessageRepository messageRepository,
+                            PurgeJobRepository purgeJobRepository,
+                            PurgeProperties properties,
+                            ApplicationEventPublisher eventPublisher,
+                            MongoTemplate mongoTemplate,
+                            MessageIndexInitializer messageIndexInitializer,
+                            BlockingExecutors blockingExecutors) {
+        this.messageRepository = messageRepository;
+        this.purgeJobRepository = purgeJobRepository;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.mongoTemplate = mongoTemplate;
+        this.messageIndexInitializer = messageIndexInitializer;
+        this.executor = blockingExecutors.newSerialExecutor("message-purge");
+    }
+
+    // 채팅방 삭제 작업 등록. 같은 채팅방의 작업이 이미 진행 중이면 그 작업을 반환
+    // activeChatroomId 로 upsert 해서 찾기와 만들기를 한 번에 하고, 유일 인덱스로 동시 upsert 가 두 문서를 만들지 않게 함
+    public PurgeJob submit(Long chatroomId) {
+        ensureActiveIndex();
+        Optional<PurgeJob> active = findActive(chatroomId);
+        if (active.isPresent()) {
+            return active.get();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ObjectId jobId = new ObjectId();
+        Update update = new Update()
+                .setOnInsert("_id", jobId)
+                .setOnInsert("chatroomId", chatroomId)
+                .setOnInsert("status", PurgeStatus.PENDING)
+                .setOnInsert("cutoff", now)
+                .setOnInsert("deletedCount", 0L)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("updatedAt", now);
+        PurgeJob job;
+        try {
+            job = mongoTemplate.findAndModify(Query.query(Criteria.where("activeChatroomId").is(chatroomId)), update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), PurgeJob.class);
+        } catch (DuplicateKeyException e) {
+            return findActive(chatroomId).orElseThrow(() -> e);
+        }
+
+        // 다른 요청이 먼저 만든 작업이면 그 요청이 실행하므로 반환만 함
+        if (job != null && jobId.toHexString().equals(job.getId())) {
+            executor.execute(() -> run(job));
+        }
+        return job;
+    }
+
+    // 기동 시 인덱스 생성은 비동기라서, 첫 등록 전에 activeChatroomId 유일 인덱스를 직접 만듦
+    private void ensureActiveIndex() {
+        if (!activeIndexEnsured) {
+            messageIndexInitializer.ensureIndexes(PurgeJob.class);
+            activeIndexEnsured = true;
+        }
+    }
+
+    // activeChatroomId 가 없는 이전 버전의 작업도 찾도록 상태 조건으로 한 번 더 조회
+    private Optional<PurgeJob> findActive(Long chatroomId) {
+        return purgeJobRepository.findByActiveChatroomId(chatroomId)
+                .or(() -> purgeJobRepository.findFirstByChatroomIdAndStatusIn(chatroomId, ACTIVE));
+    }
+
+    public Optional<PurgeJob> findJob(String jobId) {
+        return purgeJobRepository.findById(jobId);
+    }
+
+    // 이전 실행에서 끝나지 않은 작업을 이어서 실행. Mongo 에 연결할 수 없어도 기동을 막지 않음
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        executor.execute(() -> {
+            try {
+                for (PurgeJob job : purgeJobRepository.findByStatusInOrderByCreatedAtAsc(ACTIVE)) {
+                    logger.info("Resuming purge job {} for chatroom {}", job.getId(), job.getChatroomId());
+                    run(job);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to resume purge jobs: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    private void run(PurgeJob job) {
+        try {
+            updateStatus(job, PurgeStatus.RUNNING);
+
+            boolean finished = false;
+            while (!finished) {
+                long start = System.nanoTime();
+
+                // batchSize 번째 메시지 시각까지 지우고, 남은 메시지가 batchSize 보다 적으면 cutoff 까지 지움
+                LocalDateTime boundary = messageRepository.findPurgeBatchBoundary(
+                        job.getChatroomId(), job.getCutoff(), properties.getBatchSize());
+                LocalDateTime upTo = boundary != null ? boundary : job.getCutoff();
+                finished = boundary == null;
+
+                long deleted = messageRepository.deleteByChatroomIdAndTimestampLessThanEqual(job.getChatroomId(), upTo);
+                if (finished) {
+                    deleted += messageRepository.deleteByChatroomIdAndTimestampIsNull(job.getChatroomId());
+                }
+                recordProgress(job, upTo, deleted);
+                throttle(deleted, System.nanoTime() - start);
+            }
+
+            updateStatus(job, PurgeStatus.COMPLETED);
+            logger.info("Purge job {} completed, {} messages deleted from chatroom {}",
+                    job.getId(), job.getDeletedCount(), job.getChatroomId());
+        } catch (InterruptedException e) {
+            // 종료 중. 상태는 RUNNING 으로 남겨서 다음 기동 때 이어서 실행
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Purge job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.setError(e.getMessage());
+            try {
+                updateStatus(job, PurgeStatus.FAILED);
+            } catch (Exception saveError) {
+                logger.error("Failed to save purge job {} status: {}", job.getId(), saveError.getMessage());
+            }
+        }
+    }
+
+    private void recordProgress(PurgeJob job, LocalDateTime deletedUpTo, long deleted) {
+        job.setDeletedUpTo(deletedUpTo);
+        job.setDeletedCount(job.getDeletedCount() + deleted);
+        job.setUpdatedAt(LocalDateTime.now());
+        purgeJobRepository.save(job);
+
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new MessagesDeletedEvent(job.getChatroomId(), null, deleted));
+        }
+    }
+
+    private void updateStatus(PurgeJob job, PurgeStatus status) {
+        job.setStatus(status);
+        job.setActiveChatroomId(ACTIVE.contains(status) ? job.getChatroomId() : null);
+        job.setUpdatedAt(LocalDateTime.now());
+        purgeJobRepository.save(job);
+    }
+
+    // 삭제한 수만큼 초당 제한에 맞춰 대기
+    private void throttle(long deleted, long elapsedNanos) throws InterruptedException {
+        int maxDeletesPerSecond = properties.getMaxDeletesPerSecond();
+        if (maxDeletesPerSecond <= 0 || deleted == 0) {
+            return;
+        }
+        long budgetNanos = TimeUnit.SECONDS.toNanos(1) * deleted / maxDeletesPerSecond;
+        long waitNanos = budgetNanos - elapsedNanos;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.messaging.opensource.message.purge;
+
+import com.messaging.opensource.message.entity.PurgeJob;
+import com.messaging.opensource.message.entity.PurgeStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PurgeJobRepository extends MongoRepository<PurgeJob, String> {
+
+    // 끝나지 않은 작업 조회 (재시작 시 이어서 실행)
+    List<PurgeJob> findByStatusInOrderByCreatedAtAsc(Collection<PurgeStatus> statuses);
+
+    // 특정 채팅방의 진행 중인 작업 조회
+    Optional<PurgeJob> findFirstByChatroomIdAndStatusIn(Long chatroomId, Collection<PurgeStatus> statuses);
+
+    // 특정 채팅방의 진행 중인 작업 조회 (activeChatroomId 유일 인덱스 사용)
+    Optional<PurgeJob> findByActiveChatroomId(Long activeChatroomId);
+}
@@ -0,0 +1,17 @@
+package com.messaging.opensource.message.purge;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.purge")
+public class PurgeProperties {
+
+    // 한 번의 deleteMany 로 지우는 대략적인 메시지 수 (같은 시각의 메시지는 함께 삭제되므로 조금 넘을 수 있음)
+    private int batchSize = 1000;
+
+    // 초당 최대 삭제 메시지 수. 0 이하이면 제한 없음
+    private int maxDeletesPerSecond = 5000;
+}
@@ -0,0 +1,25 @@
+package com.messaging.opensource.message.read;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.read-cursor")
+public class ReadCursorProperties {
+
+    // 바뀐 읽음 위치를 Mongo 에 모아서 저장하는 주기
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // 한 번의 bulk write 로 저장하는 최대 커서 수
+    private int flushBatchSize = 1000;
+
+    // 메모리에 커서를 유지할 최대 사용자 수 (초과 시 가장 오래 사용되지 않은 사용자부터 제거)
+    private int maxUsers = 100_000;
+
+    // 클러스터 모드에서 조회 시 저장된 커서를 다시 읽는 주기 (다른 노드에서 옮긴 읽음 위치 반영)
+    private Duration reloadInterval = Duration.ofSeconds(30);
+}
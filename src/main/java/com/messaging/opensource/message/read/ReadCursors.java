@@ -0,0 +1,216 @@
+package com.messaging.opensource.message.read;
+
+import com.messaging.opensource.message.entity.ReadCursor;
+import com.messaging.opensource.message.sequence.MessageSequencer;
+import com.messaging.opensource.websocket.cluster.ClusterProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 사용자별 채팅방 읽음 위치(마지막으로 읽은 메시지 순번)와 안 읽은 메시지 수.
+ * 읽음 위치는 WebSocket ack 와 메시지 전송 때 메모리에서 앞으로만 옮기고, 바뀐 위치는 flush-interval 마다 모아서 저장한다.
+ * 안 읽은 수는 채팅방 순번(지금까지 발급한 마지막 순번)에서 읽음 위치를 뺀 값이라 메시지마다 수신자별 카운터를 늘리지 않는다.
+ * 사용자의 커서는 처음 조회할 때 Mongo 에서 한 번 읽고, 이후 조회는 채팅방 수만큼 메모리만 본다.
+ * 클러스터 모드에서는 다른 노드가 옮긴 위치를 반영하도록 reload-interval 이 지난 뒤 조회할 때 다시 읽는다.
+ * 삭제된 메시지도 순번은 남으므로 안 읽은 수에 포함된다.
+ * 순번은 저장 큐에 넣기 전에 발급하므로(저장되는 문서에 순번이 들어가야 함), 큐나 저널이 가득 차서 거절된 메시지의 순번도
+ * 안 읽은 수에 포함된다. Redis 순번은 되돌릴 수 없어서, 과부하로 거절된 만큼 안 읽은 수가 실제보다 클 수 있다.
+ */
+@Component
+public class ReadCursors {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadCursors.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageSequencer messageSequencer;
+    private final ReadCursorProperties properties;
+    private final boolean clustered;
+
+    // Key - userId. 접근 순서로 정렬해서 max-users 를 넘으면 가장 오래 사용되지 않은 사용자를 제거 (usersLock 으로 보호)
+    // 제거된 사용자의 저장하지 않은 위치는 dirty 에 남아 있음
+    private final Map<Long, UserCursors> users;
+    private final ReentrantLock usersLock = new ReentrantLock();
+
+    // 아직 저장하지 않은 읽음 위치
+    private final Map<CursorKey, Long> dirty = new ConcurrentHashMap<>();
+
+    public ReadCursors(MongoTemplate mongoTemplate, MessageSequencer messageSequencer, ReadCursorProperties properties,
+                       ClusterProperties clusterProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.messageSequencer = messageSequencer;
+        this.properties = properties;
+        this.clustered = clusterProperties.isEnabled();
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserCursors> eldest) {
+                return size() > properties.getMaxUsers();
+            }
+        };
+    }
+
+    // 읽음 위치를 sequence 로 옮김 (뒤로는 가지 않음)
+    public void markRead(Long userId, Long chatroomId, long sequence) {
+        if (sequence <= 0) {
+            return;
+        }
+        UserCursors cursors = cursorsOf(userId);
+        if (cursors.advance(chatroomId, sequence)) {
+            dirty.merge(new CursorKey(userId, chatroomId), sequence, Math::max);
+        }
+    }
+
+    // 읽음 위치가 있는 채팅방(ack 했거나 메시지를 보낸 채팅방)별 안 읽은 메시지 수 (채팅방 ID 순)
+    // 채팅방 순번은 한 번에 요청하고, 발급기에 카운터가 없는 채팅방의 마지막 순번은 한 번의 집계로 읽음
+    public Map<Long, Unread> getUnreadCounts(Long userId) {
+        UserCursors cursors = load(userId);
+        Map<Long, Long> lastRead = new TreeMap<>(cursors.sequences);
+        Map<Long, Long> latest = messageSequencer.current(lastRead.keySet());
+
+        Map<Long, Unread> unread = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : lastRead.entrySet()) {
+            long latestSequence = latest.getOrDefault(entry.getKey(), entry.getValue());
+            unread.put(entry.getKey(), new Unread(entry.getValue(), Math.max(0, latestSequence - entry.getValue())));
+        }
+        return unread;
+    }
+
+    // 처음 조회할 때(클러스터 모드에서는 reload-interval 이 지난 뒤에도) 저장된 커서를 읽어서
+    // 메모리의(아직 저장하지 않은 것 포함) 위치와 합침. 위치는 앞으로만 옮기므로 다시 읽어도 뒤로 가지 않음
+    private UserCursors load(Long userId) {
+        UserCursors cursors = cursorsOf(userId);
+        if (!needsLoad(cursors)) {
+            return cursors;
+        }
+        cursors.loadLock.lock();
+        try {
+            if (needsLoad(cursors)) {
+                for (ReadCursor stored : mongoTemplate.find(new Query(Criteria.where("userId").is(userId)), ReadCursor.class)) {
+                    if (stored.getSeq() != null) {
+                        cursors.advance(stored.getChatroomId(), stored.getSeq());
+                    }
+                }
+                dirty.forEach((key, sequence) -> {
+                    if (key.userId().equals(userId)) {
+                        cursors.advance(key.chatroomId(), sequence);
+                    }
+                });
+                cursors.loadedAt = System.nanoTime();
+                cursors.loaded = true;
+            }
+        } finally {
+            cursors.loadLock.unlock();
+        }
+        return cursors;
+    }
+
+    private boolean needsLoad(UserCursors cursors) {
+        if (!cursors.loaded) {
+            return true;
+        }
+        return clustered && System.nanoTime() - cursors.loadedAt >= properties.getReloadInterval().toNanos();
+    }
+
+    // 사용자의 커서 (없으면 만듦). 조회와 읽음 처리 모두 최근 사용으로 보고 제거 순서에서 맨 뒤로 옮김
+    private UserCursors cursorsOf(Long userId) {
+        usersLock.lock();
+        try {
+            return users.computeIfAbsent(userId, id -> new UserCursors());
+        } finally {
+            usersLock.unlock();
+        }
+    }
+
+    // 바뀐 읽음 위치를 upsert ($max 라서 다른 노드가 더 앞의 위치를 저장했으면 그대로 둠). 실패하면 다음 주기에 다시 시도
+    @Scheduled(fixedDelayString = "${messaging.read-cursor.flush-interval:PT1S}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<CursorKey, Long> batch = new LinkedHashMap<>();
+        for (CursorKey key : dirty.keySet()) {
+            Long sequence = dirty.remove(key);
+            if (sequence != null) {
+                batch.put(key, sequence);
+            }
+            if (batch.size() >= properties.getFlushBatchSize()) {
+                write(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        write(batch);
+    }
+
+    private void write(Map<CursorKey, Long> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReadCursor.class);
+            batch.forEach((key, sequence) -> operations.upsert(
+                    new Query(Criteria.where("id").is(ReadCursor.idOf(key.userId(), key.chatroomId()))),
+                    new Update()
+                            .max("seq", sequence)
+                            .set("updatedAt", now)
+                            .setOnInsert("userId", key.userId())
+                            .setOnInsert("chatroomId", key.chatroomId())));
+            operations.execute();
+        } catch (Exception e) {
+            logger.error("Failed to save {} read cursors: {}", batch.size(), e.getMessage());
+            batch.forEach((key, sequence) -> dirty.merge(key, sequence, Math::max));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * @param lastReadSeq 마지막으로 읽은 순번
+     * @param count 안 읽은 메시지 수
+     */
+    public record Unread(long lastReadSeq, long count) {
+    }
+
+    private record CursorKey(Long userId, Long chatroomId) {
+    }
+
+    private static class UserCursors {
+
+        // Key - chatroomId
+        private final Map<Long, Long> sequences = new ConcurrentHashMap<>();
+
+        private final ReentrantLock loadLock = new ReentrantLock();
+
+        private volatile boolean loaded;
+
+        // 저장된 커서를 마지막으로 읽은 시각 (System.nanoTime)
+        private volatile long loadedAt;
+
+        // 위치가 앞으로 옮겨졌으면 true
+        boolean advance(Long chatroomId, long sequence) {
+            Long previous = sequences.get(chatroomId);
+            if (previous != null && previous >= sequence) {
+                return false;
+            }
+            sequences.merge(chatroomId, sequence, Math::max);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.messaging.opensource.message.search;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.event.MessagesDeletedEvent;
+import com.messaging.opensource.message.event.MessagesSavedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 채팅방별 n-gram 역색인을 관리한다.
+ * 처음 검색된 채팅방은 최근 maxMessagesPerRoom 개를 Mongo 에서 읽어 색인을 만들고, 그 검색은 구축이 끝날 때까지 기다린다.
+ * 그래서 색인 구축 전후의 검색이 같은 매칭/정렬 규칙을 따르고, offset 으로 이어 받는 페이지가 어긋나지 않는다.
+ * 이후에는 메시지 저장/삭제 이벤트로 색인을 갱신한다.
+ * 구축은 단일 스레드에서 한 방씩 진행해서, 동시에 메모리에 올리는 Mongo 조회 결과를 한 방 분량으로 제한한다.
+ */
+@Component
+public class MessageSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchIndex.class);
+
+    private final MessageRepository messageRepository;
+    private final SearchProperties properties;
+
+    // Key - chatroomId
+    private final Map<Long, RoomSearchIndex> rooms = new ConcurrentHashMap<>();
+
+    private final ExecutorService indexBuilder;
+
+    public MessageSearchIndex(MessageRepository messageRepository, SearchProperties properties,
+                              BlockingExecutors blockingExecutors) {
+        this.messageRepository = messageRepository;
+        this.properties = properties;
+        this.indexBuilder = blockingExecutors.newSerialExecutor("search-index-builder");
+    }
+
+    // 색인으로 검색. 색인이 없으면 만들고 구축이 끝날 때까지 대기
+    public SearchResult search(Long chatroomId, String keyword, int offset, int limit) {
+        RoomSearchIndex index = rooms.get(chatroomId);
+        if (index == null) {
+            index = startBuilding(chatroomId);
+        }
+        index.awaitLoaded();
+        return new SearchResult(index.search(keyword, offset, limit), index.isTruncated());
+    }
+
+    private RoomSearchIndex startBuilding(Long chatroomId) {
+        RoomSearchIndex index = new RoomSearchIndex(properties);
+        RoomSearchIndex existing = rooms.putIfAbsent(chatroomId, index);
+        if (existing != null) {
+            return existing;
+        }
+        evictIfNecessary();
+
+        // 먼저 맵에 등록해서 구축 중에 저장되는 메시지도 이벤트로 색인되게 하고, Mongo 결과와의 중복은 ID 로 제거
+        try {
+            indexBuilder.execute(() -> build(chatroomId, index));
+        } catch (RejectedExecutionException e) {
+            rooms.remove(chatroomId, index);
+            index.fail(e);
+        }
+        return index;
+    }
+
+    // 최근 maxMessagesPerRoom + 1 개를 읽어서, 하나가 더 있으면 색인이 채팅방 전체를 담지 못한 것으로 표시
+    private void build(Long chatroomId, RoomSearchIndex index) {
+        try {
+            int maxMessages = Math.max(1, properties.getMaxMessagesPerRoom());
+            List<MessageDocument> recent = messageRepository.findByChatroomIdOrderByTimestampDesc(
+                    chatroomId, PageRequest.of(0, maxMessages + 1));
+            int kept = Math.min(recent.size(), maxMessages);
+            List<MessageDocumentDto> ascending = new ArrayList<>(kept);
+            for (int i = kept - 1; i >= 0; i--) {
+                ascending.add(recent.get(i).toDto());
+            }
+            index.load(ascending, recent.size() > maxMessages);
+        } catch (Exception e) {
+            logger.error("Failed to build search index for chatroom {}: {}", chatroomId, e.getMessage(), e);
+            rooms.remove(chatroomId, index);
+            index.fail(e);
+        }
+    }
+
+    // 가장 오래 검색되지 않은 채팅방의 색인 제거
+    private void evictIfNecessary() {
+        while (rooms.size() > properties.getMaxIndexedRooms()) {
+            rooms.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().getLastSearchedAt(), b.getValue().getLastSearchedAt()))
+                    .ifPresent(eldest -> rooms.remove(eldest.getKey(), eldest.getValue()));
+        }
+    }
+
+    @EventListener
+    public void onMessagesSaved(MessagesSavedEvent event) {
+        for (MessageDocument message : event.messages()) {
+            RoomSearchIndex index = rooms.get(message.getChatroomId());
+            if (index != null) {
+                index.add(message.toDto());
+            }
+        }
+    }
+
+    @EventListener
+    public void onMessagesDeleted(MessagesDeletedEvent event) {
+        if (event.isWholeChatroom()) {
+            rooms.remove(event.chatroomId());
+            return;
+        }
+        RoomSearchIndex index = rooms.get(event.chatroomId());
+        if (index != null) {
+            index.deleteBySender(event.senderId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexBuilder.shutdownNow();
+    }
+}
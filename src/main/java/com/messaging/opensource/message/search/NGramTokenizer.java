@@ -0,0 +1,46 @@
+package com.messaging.opensource.message.search;
+
+import java.util.Locale;
+
+/**
+ * 한국어처럼 공백 단위 형태소 분리가 어려운 텍스트를 위한 n-gram 분해기.
+ * 공백으로 나눈 단어마다 한 글자(unigram)와 두 글자(bigram) 조각을 만들고, 각 조각을 long 키로 표현한다.
+ * 한 글자 검색어는 unigram, 두 글자 이상 검색어는 bigram 목록의 교집합으로 후보를 찾는다.
+ */
+final class NGramTokenizer {
+
+    // bigram 키가 unigram 키와 겹치지 않도록 표시하는 비트
+    private static final long BIGRAM_FLAG = 1L << 32;
+
+    private NGramTokenizer() {
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    static String[] terms(String normalizedText) {
+        String trimmed = normalizedText.strip();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+
+    static long unigram(char c) {
+        return c;
+    }
+
+    static long bigram(char first, char second) {
+        return BIGRAM_FLAG | ((long) first << 16) | second;
+    }
+
+    // 검색어 하나를 찾기 위해 교집합을 구할 키 목록
+    static long[] queryKeys(String term) {
+        if (term.length() == 1) {
+            return new long[]{unigram(term.charAt(0))};
+        }
+        long[] keys = new long[term.length() - 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = bigram(term.charAt(i), term.charAt(i + 1));
+        }
+        return keys;
+    }
+}
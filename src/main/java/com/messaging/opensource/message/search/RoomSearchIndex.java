@@ -0,0 +1,365 @@
+package com.messaging.opensource.message.search;
+
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 채팅방 하나의 n-gram 역색인.
+ * 메시지는 추가된 순서대로 번호(ordinal)를 받고, 조각(gram)마다 그 조각을 가진 메시지 번호를 오름차순으로 저장한다.
+ * n-gram 교집합으로 후보를 좁힌 뒤 원문에 단어가 실제로 있는지 확인한다.
+ * 매칭은 대소문자를 구분하지 않고 검색어의 단어 중 하나라도 포함하면 결과에 들어간다.
+ * 최근 maxMessagesPerRoom 개만 유지하고, 삭제 표시된 메시지 비율이 compactDeletedRatio 를 넘으면 색인을 다시 만든다.
+ * 그보다 오래된 메시지가 있으면 {@link #isTruncated()} 가 true 가 되고, 그 메시지들은 검색 결과에 나오지 않는다.
+ */
+final class RoomSearchIndex {
+
+    private static final Comparator<LocalDateTime> TIMESTAMP_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final int maxMessages;
+    private final double compactDeletedRatio;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<MessageDocumentDto> messages = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private final Set<String> indexedIds = new HashSet<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    // 삭제 표시된 메시지 수와 아직 밀어내지 않은 가장 오래된 메시지 번호
+    private int deletedCount;
+    private int oldestLive;
+
+    // 최대 개수 때문에 색인에서 빠진 메시지가 있는지
+    private boolean truncated;
+
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+    private volatile long lastSearchedAt = System.nanoTime();
+
+    RoomSearchIndex(SearchProperties properties) {
+        this.maxMessages = Math.max(1, properties.getMaxMessagesPerRoom());
+        this.compactDeletedRatio = properties.getCompactDeletedRatio();
+    }
+
+    void add(MessageDocumentDto message) {
+        lock.writeLock().lock();
+        try {
+            // 색인 구축 중 저장 이벤트와 Mongo 조회 결과가 겹칠 수 있으므로 ID 로 중복 제거
+            if (message.getId() != null && !indexedIds.add(message.getId())) {
+                return;
+            }
+            index(message);
+
+            // 최대 개수를 넘으면 가장 먼저 추가된 메시지부터 삭제 표시
+            while (messages.size() - deletedCount > maxMessages) {
+                markDeleted(oldestLive++);
+                truncated = true;
+            }
+            compactIfNecessary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(MessageDocumentDto message) {
+        int ordinal = messages.size();
+        messages.add(message);
+
+        String content = NGramTokenizer.normalize(message.getContent());
+        for (String term : NGramTokenizer.terms(content)) {
+            for (int i = 0; i < term.length(); i++) {
+                addPosting(NGramTokenizer.unigram(term.charAt(i)), ordinal);
+                if (i + 1 < term.length()) {
+                    addPosting(NGramTokenizer.bigram(term.charAt(i), term.charAt(i + 1)), ordinal);
+                }
+            }
+        }
+    }
+
+    private void addPosting(long key, int ordinal) {
+        postings.computeIfAbsent(key, k -> new IntList()).addIfAbsentAtEnd(ordinal);
+    }
+
+    void deleteBySender(Long senderId) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                if (senderId.equals(messages.get(i).getSenderId())) {
+                    markDeleted(i);
+                }
+            }
+            compactIfNecessary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markDeleted(int ordinal) {
+        if (!deleted.get(ordinal)) {
+            deleted.set(ordinal);
+            deletedCount++;
+        }
+    }
+
+    // 삭제 표시 비율이 기준을 넘으면 남은 메시지만으로 번호와 조각 목록을 다시 만듦
+    private void compactIfNecessary() {
+        if (deletedCount == 0 || deletedCount <= messages.size() * compactDeletedRatio) {
+            return;
+        }
+        List<MessageDocumentDto> live = new ArrayList<>(messages.size() - deletedCount);
+        for (int i = deleted.nextClearBit(0); i < messages.size(); i = deleted.nextClearBit(i + 1)) {
+            live.add(messages.get(i));
+        }
+        messages.clear();
+        postings.clear();
+        indexedIds.clear();
+        deleted.clear();
+        deletedCount = 0;
+        oldestLive = 0;
+        for (MessageDocumentDto message : live) {
+            if (message.getId() != null) {
+                indexedIds.add(message.getId());
+            }
+            index(message);
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return messages.size() - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int indexedSize() {
+        lock.readLock().lock();
+        try {
+            return messages.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 검색어를 공백으로 나눈 단어 중 하나라도 포함하는 메시지를 점수 순으로 반환한다 (대소문자 구분 없음).
+     * 점수: 검색어 전체 일치 > 일치한 단어 수 > 단어 출현 횟수, 같으면 최신 메시지 우선.
+     */
+    List<MessageDocumentDto> search(String keyword, int offset, int limit) {
+        lastSearchedAt = System.nanoTime();
+        String phrase = NGramTokenizer.normalize(keyword).strip();
+        String[] terms = NGramTokenizer.terms(phrase);
+        if (terms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = new HashMap<>();
+            for (String term : terms) {
+                for (int ordinal : candidates(term)) {
+                    if (deleted.get(ordinal)) {
+                        continue;
+                    }
+                    int occurrences = countOccurrences(messages.get(ordinal).getContent(), term);
+                    if (occurrences > 0) {
+                        scores.merge(ordinal, 100 + Math.min(occurrences, 99), Integer::sum);
+                    }
+                }
+            }
+            if (terms.length > 1) {
+                scores.replaceAll((ordinal, score) ->
+                        countOccurrences(messages.get(ordinal).getContent(), phrase) > 0 ? score + 100_000 : score);
+            }
+
+            return topHits(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 점수 상위 offset + limit 개만 힙으로 유지해서 후보가 많아도 전체 정렬을 피함
+    private List<MessageDocumentDto> topHits(Map<Integer, Integer> scores, int offset, int limit) {
+        Comparator<Map.Entry<Integer, Integer>> ranking = Map.Entry.<Integer, Integer>comparingByValue()
+                .thenComparing(entry -> messages.get(entry.getKey()).getTimestamp(), TIMESTAMP_ORDER);
+
+        int keep = offset + limit;
+        PriorityQueue<Map.Entry<Integer, Integer>> heap = new PriorityQueue<>(ranking);
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > keep) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(heap);
+        ranked.sort(ranking.reversed());
+
+        List<MessageDocumentDto> page = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            page.add(messages.get(ranked.get(i).getKey()));
+        }
+        return page;
+    }
+
+    // 검색어의 n-gram 목록이 모두 들어 있는 메시지 번호 (짧은 목록부터 교집합)
+    private int[] candidates(String term) {
+        long[] keys = NGramTokenizer.queryKeys(term);
+        IntList[] lists = new IntList[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            IntList list = postings.get(keys[i]);
+            if (list == null) {
+                return new int[0];
+            }
+            lists[i] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+
+        int[] result = lists[0].toArray();
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            result = lists[i].intersect(result);
+        }
+        return result;
+    }
+
+    private static int countOccurrences(String content, String normalizedTerm) {
+        if (content == null || normalizedTerm.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        int limit = content.length() - normalizedTerm.length();
+        for (int i = 0; i <= limit; i++) {
+            if (content.regionMatches(true, i, normalizedTerm, 0, normalizedTerm.length())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Mongo 에서 읽은 최근 메시지(오래된 순)로 색인을 채운다.
+     * 조회하는 동안 저장 이벤트로 먼저 들어온 메시지는 조회 결과 뒤에 다시 색인해서, 번호 순서가 시간 순서와 같게 유지한다.
+     */
+    void load(List<MessageDocumentDto> recent, boolean truncatedInStore) {
+        lock.writeLock().lock();
+        try {
+            List<MessageDocumentDto> arrived = new ArrayList<>(messages.size() - deletedCount);
+            for (int i = deleted.nextClearBit(0); i < messages.size(); i = deleted.nextClearBit(i + 1)) {
+                arrived.add(messages.get(i));
+            }
+            messages.clear();
+            postings.clear();
+            indexedIds.clear();
+            deleted.clear();
+            deletedCount = 0;
+            oldestLive = 0;
+            truncated = truncatedInStore;
+
+            for (MessageDocumentDto message : recent) {
+                if (message.getId() == null || indexedIds.add(message.getId())) {
+                    index(message);
+                }
+            }
+            for (MessageDocumentDto message : arrived) {
+                if (message.getId() == null || indexedIds.add(message.getId())) {
+                    index(message);
+                }
+            }
+            while (messages.size() - deletedCount > maxMessages) {
+                markDeleted(oldestLive++);
+                truncated = true;
+            }
+            compactIfNecessary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded.complete(null);
+    }
+
+    void fail(Throwable cause) {
+        loaded.completeExceptionally(cause);
+    }
+
+    // 색인 구축이 끝날 때까지 대기. 구축이 실패했으면 그 예외를 던짐
+    void awaitLoaded() {
+        try {
+            loaded.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    boolean isTruncated() {
+        lock.readLock().lock();
+        try {
+            return truncated;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getLastSearchedAt() {
+        return lastSearchedAt;
+    }
+
+    // 오름차순 int 목록
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfAbsentAtEnd(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        // 정렬된 두 목록의 교집합
+        int[] intersect(int[] sorted) {
+            int[] result = new int[Math.min(size, sorted.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < sorted.length) {
+                if (values[i] == sorted[j]) {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                } else if (values[i] < sorted[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
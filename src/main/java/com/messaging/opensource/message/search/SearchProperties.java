@@ -0,0 +1,30 @@
+package com.messaging.opensource.message.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.search")
+public class SearchProperties {
+
+    // 색인 메모리는 대략 maxIndexedRooms * maxMessagesPerRoom * (본문 글자 수 * 14 + 400) 바이트
+    // (메시지 DTO, ID 집합, 글자당 unigram/bigram 번호 목록 포함) 기본값에 본문 평균 50자면 25만 개 * 1.1KB = 약 280MB
+
+    // 메모리에 색인을 유지할 최대 채팅방 수 (초과 시 가장 오래 검색되지 않은 방부터 제거)
+    private int maxIndexedRooms = 50;
+
+    // 채팅방마다 색인에 유지할 최근 메시지 수 (초과 시 가장 먼저 색인된 메시지부터 제거)
+    // 이보다 오래된 메시지는 검색되지 않고, 검색 응답의 X-Search-Truncated 헤더가 true 가 됨
+    private int maxMessagesPerRoom = 5000;
+
+    // 삭제 표시된 메시지 비율이 이 값을 넘으면 채팅방 색인을 다시 만듦
+    private double compactDeletedRatio = 0.25;
+
+    // limit 파라미터가 없을 때의 결과 수
+    private int defaultLimit = 20;
+
+    // 한 번에 반환하는 최대 결과 수
+    private int maxLimit = 100;
+}
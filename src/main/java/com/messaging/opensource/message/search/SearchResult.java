@@ -0,0 +1,12 @@
+package com.messaging.opensource.message.search;
+
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+
+import java.util.List;
+
+/**
+ * 채팅방 검색 결과.
+ * truncated 가 true 면 채팅방 메시지가 색인 최대 개수보다 많아서, 색인에 남은 최근 메시지만 검색했다는 뜻이다.
+ */
+public record SearchResult(List<MessageDocumentDto> messages, boolean truncated) {
+}
@@ -0,0 +1,98 @@
+package com.messaging.opensource.message.sequence;
+
+import com.messaging.opensource.message.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 단일 노드용 순번 발급기.
+ * 채팅방마다 처음 발급할 때 저장된 마지막 순번을 읽어 카운터를 만들고, 이후에는 메모리에서만 증가시킨다.
+ * 기동 시 저장되지 않고 남은 메시지의 순번은 {@link #advanceTo} 로 받아서, 카운터를 만들 때 저장된 순번과 함께 고려한다.
+ * 마지막 순번을 읽지 못하면 카운터를 만들지 않고 다음 메시지에서 다시 시도한다.
+ */
+public class LocalMessageSequencer implements MessageSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalMessageSequencer.class);
+
+    // Key - chatroomId
+    private final Map<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    // Key - chatroomId, Value - 저장되지 않은 메시지의 가장 큰 순번
+    private final Map<Long, Long> unsaved = new ConcurrentHashMap<>();
+
+    private final MessageRepository messageRepository;
+
+    public LocalMessageSequencer(MessageRepository messageRepository) {
+        this.messageRepository = messageRepository;
+    }
+
+    @Override
+    public long next(Long chatroomId) {
+        AtomicLong counter = counter(chatroomId);
+        return counter != null ? counter.incrementAndGet() : 0;
+    }
+
+    // 카운터가 이미 있는 채팅방은 메모리에서만 읽고, 나머지는 마지막 순번을 한 번의 집계로 읽어서 카운터를 만듦
+    @Override
+    public Map<Long, Long> current(Collection<Long> chatroomIds) {
+        Map<Long, Long> sequences = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long chatroomId : chatroomIds) {
+            AtomicLong counter = counters.get(chatroomId);
+            if (counter != null) {
+                sequences.put(chatroomId, counter.get());
+            } else {
+                missing.add(chatroomId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return sequences;
+        }
+
+        Map<Long, Long> stored;
+        try {
+            stored = messageRepository.findMaxSeqs(missing);
+        } catch (Exception e) {
+            logger.warn("Failed to load last sequences of {} chatrooms: {}", missing.size(), e.getMessage());
+            return sequences;
+        }
+        for (Long chatroomId : missing) {
+            long seed = Math.max(stored.getOrDefault(chatroomId, 0L), unsaved.getOrDefault(chatroomId, 0L));
+            sequences.put(chatroomId, counters.computeIfAbsent(chatroomId, id -> new AtomicLong(seed)).get());
+        }
+        return sequences;
+    }
+
+    // 카운터를 만들기 전이면 만들 때 반영되고, 이미 있으면 바로 올림
+    @Override
+    public void advanceTo(Long chatroomId, long sequence) {
+        unsaved.merge(chatroomId, sequence, Math::max);
+        AtomicLong counter = counters.get(chatroomId);
+        if (counter != null) {
+            counter.accumulateAndGet(sequence, Math::max);
+        }
+    }
+
+    // 채팅방 카운터 (마지막 순번을 읽지 못하면 null)
+    private AtomicLong counter(Long chatroomId) {
+        AtomicLong counter = counters.get(chatroomId);
+        if (counter != null) {
+            return counter;
+        }
+        try {
+            return counters.computeIfAbsent(chatroomId, id ->
+                    new AtomicLong(Math.max(messageRepository.findMaxSeq(id), unsaved.getOrDefault(id, 0L))));
+        } catch (Exception e) {
+            logger.warn("Failed to load last sequence of chatroom {}: {}", chatroomId, e.getMessage());
+            return null;
+        }
+    }
+}
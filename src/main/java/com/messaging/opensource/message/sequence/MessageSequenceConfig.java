@@ -0,0 +1,28 @@
+package com.messaging.opensource.message.sequence;
+
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.websocket.cluster.ClusterProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class MessageSequenceConfig {
+
+    // 단일 노드 모드 (기본값)
+    @Bean
+    @ConditionalOnProperty(prefix = "messaging.cluster", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public MessageSequencer localMessageSequencer(MessageRepository messageRepository) {
+        return new LocalMessageSequencer(messageRepository);
+    }
+
+    // 클러스터 모드에서는 노드 간 채팅방 이벤트와 같은 Redis 에 카운터를 둠
+    @Bean
+    @ConditionalOnProperty(prefix = "messaging.cluster", name = "enabled", havingValue = "true")
+    public MessageSequencer redisMessageSequencer(StringRedisTemplate stringRedisTemplate,
+                                                  MessageRepository messageRepository,
+                                                  ClusterProperties clusterProperties) {
+        return new RedisMessageSequencer(stringRedisTemplate, messageRepository, clusterProperties.getChannelPrefix());
+    }
+}
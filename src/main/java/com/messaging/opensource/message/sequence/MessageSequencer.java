@@ -0,0 +1,21 @@
+package com.messaging.opensource.message.sequence;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 채팅방 단위로 1 부터 증가하는 메시지 순번 발급기.
+ * 메시지를 저장하고 브로드캐스트하기 전에 보내는 스레드에서 호출하므로, 같은 채팅방이라도 순번 순서와 도착 순서는 다를 수 있다.
+ * 순서대로 전달하는 것은 채팅방 루프에서 한다.
+ */
+public interface MessageSequencer {
+
+    // 다음 순번. 발급할 수 없으면(저장소 장애 등) 0 을 반환하고, 메시지는 순번 없이 전달/저장됨
+    long next(Long chatroomId);
+
+    // 채팅방별 마지막으로 발급한 순번 (= 채팅방 메시지 수의 상한). 확인할 수 없는 채팅방은 결과에 없음
+    Map<Long, Long> current(Collection<Long> chatroomIds);
+
+    // 이미 발급했지만 아직 저장되지 않은 순번(저널, spill 파일)까지 발급한 것으로 표시. 다음 순번은 sequence 보다 큼
+    void advanceTo(Long chatroomId, long sequence);
+}
@@ -0,0 +1,120 @@
+package com.messaging.opensource.message.sequence;
+
+import com.messaging.opensource.message.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 여러 노드가 같은 채팅방에 순번을 발급하는 클러스터용 발급기. 채팅방마다 Redis 카운터를 INCR 한다.
+ * 카운터가 있을 때만 INCR 하고, 없으면(새 채팅방, Redis 재시작이나 eviction 으로 사라진 키) 저장된 마지막 순번으로
+ * 다시 만든 뒤 (SET NX) INCR 한다. 사라진 키를 1 부터 다시 세어 이미 저장된 순번을 재발급하지 않도록 한다.
+ */
+public class RedisMessageSequencer implements MessageSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisMessageSequencer.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final MessageRepository messageRepository;
+
+    // 카운터가 있으면 INCR 한 값, 없으면 nil
+    private static final RedisScript<Long> INCREMENT_EXISTING = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCR', KEYS[1]) end return false",
+            Long.class);
+
+    // 카운터를 ARGV[1] 이상으로 올림
+    private static final RedisScript<Long> ADVANCE = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1])) "
+                    + "if current == nil or current < tonumber(ARGV[1]) then redis.call('SET', KEYS[1], ARGV[1]) end "
+                    + "return 1",
+            Long.class);
+
+    private final String keyPrefix;
+
+    public RedisMessageSequencer(StringRedisTemplate redisTemplate, MessageRepository messageRepository, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.messageRepository = messageRepository;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public long next(Long chatroomId) {
+        String key = key(chatroomId);
+        try {
+            Long sequence = redisTemplate.execute(INCREMENT_EXISTING, List.of(key));
+            if (sequence == null) {
+                seed(chatroomId);
+                sequence = redisTemplate.opsForValue().increment(key);
+            }
+            return sequence == null ? 0 : sequence;
+        } catch (Exception e) {
+            logger.warn("Failed to allocate sequence for chatroom {}: {}", chatroomId, e.getMessage());
+            return 0;
+        }
+    }
+
+    // 다른 노드가 발급한 순번도 반영되도록 Redis 카운터를 한 번의 MGET 으로 읽음.
+    // 카운터가 없는 채팅방은 마지막 순번을 한 번의 집계로 읽어서 만든 다음 다시 MGET 으로 읽음
+    @Override
+    public Map<Long, Long> current(Collection<Long> chatroomIds) {
+        Map<Long, Long> sequences = new HashMap<>();
+        try {
+            List<Long> missing = read(new ArrayList<>(chatroomIds), sequences);
+            if (missing.isEmpty()) {
+                return sequences;
+            }
+            Map<Long, Long> stored = messageRepository.findMaxSeqs(missing);
+            for (Long chatroomId : missing) {
+                redisTemplate.opsForValue().setIfAbsent(key(chatroomId), String.valueOf(stored.getOrDefault(chatroomId, 0L)));
+            }
+            read(missing, sequences);
+        } catch (Exception e) {
+            logger.warn("Failed to read chatroom sequences: {}", e.getMessage());
+        }
+        return sequences;
+    }
+
+    // ids 의 카운터를 MGET 으로 읽어서 sequences 에 넣고, 카운터가 없는 채팅방을 반환
+    private List<Long> read(List<Long> ids, Map<Long, Long> sequences) {
+        List<String> values = redisTemplate.opsForValue().multiGet(ids.stream().map(this::key).toList());
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value != null) {
+                sequences.put(ids.get(i), Long.parseLong(value));
+            } else {
+                missing.add(ids.get(i));
+            }
+        }
+        return missing;
+    }
+
+    // 저장된 마지막 순번으로 카운터를 만든 다음 sequence 까지 올림
+    @Override
+    public void advanceTo(Long chatroomId, long sequence) {
+        try {
+            seed(chatroomId);
+            redisTemplate.execute(ADVANCE, List.of(key(chatroomId)), String.valueOf(sequence));
+        } catch (Exception e) {
+            logger.warn("Failed to advance sequence of chatroom {}: {}", chatroomId, e.getMessage());
+        }
+    }
+
+    // 카운터가 없으면 저장된 마지막 순번으로 만듦
+    private void seed(Long chatroomId) {
+        redisTemplate.opsForValue().setIfAbsent(key(chatroomId), String.valueOf(messageRepository.findMaxSeq(chatroomId)));
+    }
+
+    private String key(Long chatroomId) {
+        return keyPrefix + chatroomId + ":seq";
+    }
+}
@@ -0,0 +1,14 @@
+package com.messaging.opensource.message.writebehind;
+
+// 쓰기 큐가 가득 찼을 때의 처리 방식
+public enum BackpressurePolicy {
+
+    // 큐에 자리가 날 때까지 offer-timeout 만큼 호출 스레드를 대기시킴
+    BLOCK,
+
+    // 메시지를 버리고 drop 카운트만 증가
+    DROP,
+
+    // 로컬 디스크의 spill 파일에 기록한 뒤, 큐가 비면 다시 읽어 저장
+    SPILL
+}
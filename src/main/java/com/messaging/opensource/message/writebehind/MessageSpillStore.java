@@ -0,0 +1,222 @@
+package com.messaging.opensource.message.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messaging.opensource.message.entity.MessageDocument;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 큐가 가득 찼을 때 넘치는 메시지를 NDJSON 파일로 보관하는 저장소.
+ * 기록 중인 active 파일과, writer 가 비우는 중인 drain 파일을 분리해서 append 와 drain 이 서로를 막지 않게 한다.
+ * drain 파일마다 저장이 끝난 줄 수를 offset 파일에 남겨서, 중간에 실패하거나 재시작해도 저장하지 않은 줄부터 이어서 저장한다.
+ * 기록할 때 ID 를 미리 정해 두므로 offset 을 남기기 전에 멈춰서 같은 줄을 다시 저장해도 중복되지 않는다.
+ * append 호출마다 fsync 하므로 전원 장애에도 기록한 메시지가 남는다. 실패한 배치는 한 번의 append 로 모아서 fsync 를 한 번만 한다.
+ * 기동 시 남은 파일의 줄 수에서 offset 을 빼서 저장 대기 수를 다시 계산한다.
+ */
+class MessageSpillStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSpillStore.class);
+
+    private static final String ACTIVE_FILE = "spill.ndjson";
+    private static final String DRAIN_SUFFIX = ".draining";
+    private static final String OFFSET_SUFFIX = ".offset";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final AtomicLong pending = new AtomicLong();
+
+    // 디스크에 남아 있는 active/drain 파일 수. 빈 큐를 polling 할 때마다 디렉토리를 읽지 않도록 메모리에 둠
+    private final AtomicInteger files = new AtomicInteger();
+
+    private FileChannel channel;
+    private BufferedWriter writer;
+    private long drainSequence;
+
+    MessageSpillStore(Path directory, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        loadFilesOnDisk();
+    }
+
+    // spill 파일에 메시지 한 건 추가
+    void append(MessageDocument message) throws IOException {
+        append(List.of(message));
+    }
+
+    // spill 파일에 메시지를 추가하고 fsync 한 번으로 디스크에 반영
+    void append(List<MessageDocument> messages) throws IOException {
+        List<String> lines = new ArrayList<>(messages.size());
+        for (MessageDocument message : messages) {
+            if (message.getId() == null) {
+                message.setId(new ObjectId().toHexString());
+            }
+            lines.add(objectMapper.writeValueAsString(message));
+        }
+        appendLock.lock();
+        try {
+            if (writer == null) {
+                Files.createDirectories(directory);
+                Path active = directory.resolve(ACTIVE_FILE);
+                if (!Files.exists(active)) {
+                    files.incrementAndGet();
+                }
+                channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            }
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            channel.force(false);
+            pending.addAndGet(lines.size());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // 저장하지 않은 파일이 있는지 확인 (이전 실행에서 남은 파일 포함)
+    boolean hasPending() {
+        return files.get() > 0;
+    }
+
+    long pendingCount() {
+        return pending.get();
+    }
+
+    // active 파일을 drain 파일로 넘기고, 아직 저장되지 않은 drain 파일 목록을 반환
+    List<Path> rotateForDrain() throws IOException {
+        appendLock.lock();
+        try {
+            closeWriter();
+            Path active = directory.resolve(ACTIVE_FILE);
+            if (Files.exists(active)) {
+                Path target = directory.resolve(ACTIVE_FILE + "." + System.currentTimeMillis() + "-" + (drainSequence++) + DRAIN_SUFFIX);
+                Files.move(active, target);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        return listDrainFiles();
+    }
+
+    List<MessageDocument> read(Path drainFile) throws IOException {
+        List<MessageDocument> messages = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(drainFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    messages.add(objectMapper.readValue(line, MessageDocument.class));
+                }
+            }
+        }
+        return messages;
+    }
+
+    // drain 파일에서 이미 저장한 줄 수
+    int committed(Path drainFile) throws IOException {
+        Path offsetFile = offsetFile(drainFile);
+        if (!Files.exists(offsetFile)) {
+            return 0;
+        }
+        return Integer.parseInt(Files.readString(offsetFile, StandardCharsets.UTF_8).trim());
+    }
+
+    // drain 파일의 앞에서부터 count 줄까지 저장했음을 기록 (임시 파일을 옮겨서 offset 파일이 깨지지 않게 함)
+    void commit(Path drainFile, int count) throws IOException {
+        Path offsetFile = offsetFile(drainFile);
+        Path temp = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+        Files.writeString(temp, Integer.toString(count), StandardCharsets.UTF_8);
+        Files.move(temp, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 저장이 끝난 drain 파일 삭제. savedCount 는 이번에 저장한 줄 수 (이전에 commit 된 줄 제외)
+    void complete(Path drainFile, int savedCount) throws IOException {
+        Files.deleteIfExists(drainFile);
+        Files.deleteIfExists(offsetFile(drainFile));
+        files.decrementAndGet();
+        pending.updateAndGet(current -> Math.max(0, current - savedCount));
+    }
+
+    void close() {
+        appendLock.lock();
+        try {
+            closeWriter();
+        } catch (IOException e) {
+            logger.warn("Failed to close spill file: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            // BufferedWriter 를 닫으면 channel 도 닫힘
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+    }
+
+    private Path offsetFile(Path drainFile) {
+        return drainFile.resolveSibling(drainFile.getFileName() + OFFSET_SUFFIX);
+    }
+
+    // 기동 시 한 번만 디렉토리를 읽어서 이전 실행에서 남은 파일 수와, 그 파일들에서 아직 저장하지 않은 줄 수를 셈
+    private void loadFilesOnDisk() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.toList()) {
+                String name = path.getFileName().toString();
+                if (name.equals(ACTIVE_FILE)) {
+                    files.incrementAndGet();
+                    pending.addAndGet(countLines(path));
+                } else if (name.endsWith(DRAIN_SUFFIX)) {
+                    files.incrementAndGet();
+                    pending.addAndGet(Math.max(0, countLines(path) - committed(path)));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Failed to read spill directory: {}", e.getMessage());
+        }
+    }
+
+    private long countLines(Path file) throws IOException {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> !line.isBlank()).count();
+        }
+    }
+
+    private List<Path> listDrainFiles() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(DRAIN_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package com.messaging.opensource.message.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageService;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.journal.JournalBatch;
+import com.messaging.opensource.message.journal.JournalProperties;
+import com.messaging.opensource.message.journal.MessageJournal;
+import com.messaging.opensource.message.sequence.MessageSequencer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅 메시지 write-behind 저장 단계.
+ * WebSocket 스레드는 bounded 큐에 메시지를 넣기만 하고, 전용 writer 스레드가 크기 또는 시간 단위로 묶어
+ * {@link MessageService#saveAllMessages(List)} 로 bulk insert 한다.
+ * 저장 지연(messaging.persistence.lag)은 메시지 생성 시각부터 Mongo 저장이 끝날 때까지의 시간이다.
+ * 저널을 사용하면({@link MessageJournal}) 메모리 큐 대신 저널에 먼저 기록하고, writer 스레드는 저널의 체크포인트부터 읽어 저장한다.
+ * 저장에 실패하면 체크포인트를 옮기지 않고 같은 배치를 다시 시도하므로, Mongo 가 느리거나 장애 중이어도 메시지가 메모리에 쌓이거나 유실되지 않는다.
+ * 기동 시 메시지를 받기 전에 저장되지 않고 남은 저널/spill 메시지의 순번을 {@link MessageSequencer} 에 알려서 같은 순번을 다시 발급하지 않게 한다.
+ */
+@Component
+public class MessageWriteBehindQueue implements SmartLifecycle, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBehindQueue.class);
+
+    // 웹 서버보다 늦게 멈춰서, 종료 직전에 들어온 메시지까지 flush 되도록 함
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final MessageService messageService;
+    private final WriteBehindProperties properties;
+    private final BlockingQueue<MessageDocument> queue;
+    private final MessageSpillStore spillStore;
+    private final BlockingExecutors blockingExecutors;
+    private final MessageJournal journal;
+    private final JournalProperties journalProperties;
+    private final MessageSequencer messageSequencer;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong lastFlushLatencyNanos = new AtomicLong();
+    private final AtomicLong maxFlushLatencyNanos = new AtomicLong();
+
+    private final Timer flushTimer;
+    private final Timer persistenceLag;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public MessageWriteBehindQueue(MessageService messageService,
+                                   WriteBehindProperties properties,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   BlockingExecutors blockingExecutors,
+                                   MessageJournal journal,
+                                   JournalProperties journalProperties,
+                                   MessageSequencer messageSequencer) {
+        this.messageService = messageService;
+        this.messageSequencer = messageSequencer;
+        this.blockingExecutors = blockingExecutors;
+        this.journal = journal;
+        this.journalProperties = journalProperties;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.spillStore = new MessageSpillStore(Path.of(properties.getSpillDirectory()), objectMapper);
+        this.flushTimer = Timer.builder("messaging.persistence.flush")
+                .description("Bulk insert time per write-behind batch")
+                .register(meterRegistry);
+        this.persistenceLag = Timer.builder("messaging.persistence.lag")
+                .description("Time from message creation until it is stored in Mongo")
+                .register(meterRegistry);
+    }
+
+    // 메시지를 저장 큐에 넣음. 큐에 들어가지 못하고 버려진 경우 false
+    public boolean submit(MessageDocument message) {
+        submitted.incrementAndGet();
+
+        if (!running) {
+            logger.warn("Write-behind queue is not running, message dropped");
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        if (journal.isEnabled()) {
+            return appendToJournal(message);
+        }
+
+        if (queue.offer(message)) {
+            return true;
+        }
+
+        return switch (properties.getBackpressure()) {
+            case BLOCK -> offerBlocking(message);
+            case DROP -> drop();
+            case SPILL -> spill(message);
+        };
+    }
+
+    private boolean appendToJournal(MessageDocument message) {
+        try {
+            journal.append(message);
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to journal message: {}", e.getMessage());
+            return drop();
+        }
+    }
+
+    private boolean offerBlocking(MessageDocument message) {
+        try {
+            if (queue.offer(message, properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return drop();
+    }
+
+    private boolean drop() {
+        long count = dropped.incrementAndGet();
+        if (count == 1 || count % 1000 == 0) {
+            logger.warn("Write-behind queue is full, {} messages dropped so far", count);
+        }
+        return false;
+    }
+
+    private boolean spill(MessageDocument message) {
+        try {
+            spillStore.append(message);
+            spilled.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to spill message: {}", e.getMessage(), e);
+            return drop();
+        }
+    }
+
+    @Override
+    public void start() {
+        advanceSequencesPastBacklog();
+        running = true;
+        writerThread = blockingExecutors.newThread("message-write-behind", this::runWriter);
+        writerThread.start();
+    }
+
+    // 이전 실행에서 저장하지 못한 메시지의 채팅방별 가장 큰 순번까지 발급한 것으로 표시
+    // (순번 카운터는 Mongo 의 마지막 순번으로 만들어지므로, 표시하지 않으면 저장 전인 순번을 다시 발급함)
+    private void advanceSequencesPastBacklog() {
+        Map<Long, Long> maxSequences = new HashMap<>();
+        try {
+            if (journal.isEnabled()) {
+                long position = journal.getCheckpoint();
+                while (true) {
+                    JournalBatch batch = journal.read(position, properties.getBatchSize());
+                    if (batch.records() == 0 || batch.nextPosition() == position) {
+                        break;
+                    }
+                    collectMaxSequences(batch.messages(), maxSequences);
+                    position = batch.nextPosition();
+                }
+            }
+            if (spillStore.hasPending()) {
+                for (Path drainFile : spillStore.rotateForDrain()) {
+                    collectMaxSequences(spillStore.read(drainFile), maxSequences);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to read sequences of unsaved messages: {}", e.getMessage(), e);
+        }
+        if (!maxSequences.isEmpty()) {
+            logger.info("Advancing sequences of {} chatrooms past unsaved messages", maxSequences.size());
+            maxSequences.forEach(messageSequencer::advanceTo);
+        }
+    }
+
+    private void collectMaxSequences(List<MessageDocument> messages, Map<Long, Long> maxSequences) {
+        for (MessageDocument message : messages) {
+            if (message.getChatroomId() != null && message.getSeq() != null) {
+                maxSequences.merge(message.getChatroomId(), message.getSeq(), Math::max);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread == null) {
+            return;
+        }
+        // 인터럽트 대신 running 플래그로 종료시켜서, 진행 중인 bulk insert 가 끊기지 않게 함
+        try {
+            writerThread.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            logger.warn("Write-behind writer did not finish in time, {} messages left in queue", queue.size());
+        }
+        spillStore.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void runWriter() {
+        if (journal.isEnabled()) {
+            replayJournal();
+            return;
+        }
+
+        List<MessageDocument> batch = new ArrayList<>(properties.getBatchSize());
+
+        while (running) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (batch.isEmpty()) {
+                drainSpill();
+            } else {
+                flush(batch);
+            }
+        }
+
+        // 종료: 큐에 남은 메시지를 모두 flush
+        while (!queue.isEmpty()) {
+            queue.drainTo(batch, properties.getBatchSize());
+            flush(batch);
+        }
+        drainSpill();
+    }
+
+    // 체크포인트부터 저널을 읽어 저장. 기동 시에는 이전 실행에서 저장하지 못한 기록부터 이어서 저장함
+    // 종료 시에는 남은 기록을 모두 저장하거나 저장이 실패할 때까지 계속하고, 남은 기록은 다음 기동 때 저장
+    private void replayJournal() {
+        long position = journal.getCheckpoint();
+
+        while (true) {
+            try {
+                if (running && !awaitJournalBatch()) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            JournalBatch batch = journal.read(position, properties.getBatchSize());
+            if (batch.isEmpty()) {
+                // 읽을 수 없는 레코드만 있었으면 건너뛴 위치까지 체크포인트
+                if (batch.records() > 0) {
+                    checkpoint(batch);
+                    position = batch.nextPosition();
+                    continue;
+                }
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+
+            if (!saveJournalBatch(batch)) {
+                if (!running || !sleepBeforeRetry()) {
+                    return;
+                }
+                continue;
+            }
+            position = batch.nextPosition();
+        }
+    }
+
+    // 첫 기록을 기다린 뒤 batchSize 개가 쌓이거나 flushInterval 이 지날 때까지 대기. 기록이 없으면 false
+    private boolean awaitJournalBatch() throws InterruptedException {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        if (!journal.awaitPending(1, intervalNanos)) {
+            return false;
+        }
+        journal.awaitPending(properties.getBatchSize(), intervalNanos);
+        return true;
+    }
+
+    // 저장에 성공한 배치만 체크포인트를 옮김 (같은 ID 는 다시 저장해도 건너뛰므로 재시도해도 중복되지 않음)
+    private boolean saveJournalBatch(JournalBatch batch) {
+        long start = System.nanoTime();
+        try {
+            messageService.saveAllMessages(batch.messages());
+            persisted.addAndGet(batch.size());
+            recordPersistenceLag(batch.messages());
+        } catch (Exception e) {
+            logger.error("Failed to save {} journaled messages, retrying in {}: {}",
+                    batch.size(), journalProperties.getRetryBackoff(), e.getMessage());
+            return false;
+        } finally {
+            recordFlushLatency(System.nanoTime() - start);
+        }
+
+        checkpoint(batch);
+        return true;
+    }
+
+    private void checkpoint(JournalBatch batch) {
+        try {
+            journal.checkpoint(batch.nextPosition(), batch.records());
+        } catch (IOException e) {
+            // 저장은 끝났으므로 진행. 체크포인트는 다음 배치에서 다시 기록되고, 재시작 시 다시 저장해도 중복되지 않음
+            logger.warn("Failed to write journal checkpoint: {}", e.getMessage());
+        }
+    }
+
+    private boolean sleepBeforeRetry() {
+        try {
+            TimeUnit.NANOSECONDS.sleep(journalProperties.getRetryBackoff().toNanos());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // 첫 메시지를 기다린 뒤 batchSize 또는 flushInterval 중 먼저 도달하는 조건까지 배치를 채움
+    private void collectBatch(List<MessageDocument> batch) throws InterruptedException {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+
+        MessageDocument first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + intervalNanos;
+        while (batch.size() < properties.getBatchSize()) {
+            if (queue.drainTo(batch, properties.getBatchSize() - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            MessageDocument next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<MessageDocument> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            messageService.saveAllMessages(batch);
+            persisted.addAndGet(batch.size());
+            recordPersistenceLag(batch);
+        } catch (Exception e) {
+            logger.error("Failed to save {} messages: {}", batch.size(), e.getMessage(), e);
+            handleFailedBatch(batch);
+        } finally {
+            recordFlushLatency(System.nanoTime() - start);
+            batch.clear();
+        }
+    }
+
+    // SPILL 정책이면 실패한 배치를 디스크에 보관해서 다음 drain 때 다시 시도
+    private void handleFailedBatch(List<MessageDocument> batch) {
+        if (properties.getBackpressure() != BackpressurePolicy.SPILL) {
+            failed.addAndGet(batch.size());
+            return;
+        }
+        try {
+            spillStore.append(batch);
+            spilled.addAndGet(batch.size());
+        } catch (IOException e) {
+            logger.error("Failed to spill {} messages: {}", batch.size(), e.getMessage(), e);
+            failed.addAndGet(batch.size());
+        }
+    }
+
+    // 큐가 비어 있을 때 spill 파일을 읽어서 저장
+    private void drainSpill() {
+        if (!spillStore.hasPending()) {
+            return;
+        }
+
+        try {
+            for (Path drainFile : spillStore.rotateForDrain()) {
+                List<MessageDocument> messages = spillStore.read(drainFile);
+                int committed = spillStore.committed(drainFile);
+                for (int from = committed; from < messages.size(); from += properties.getBatchSize()) {
+                    int to = Math.min(from + properties.getBatchSize(), messages.size());
+                    long start = System.nanoTime();
+                    messageService.saveAllMessages(messages.subList(from, to));
+                    recordFlushLatency(System.nanoTime() - start);
+                    persisted.addAndGet(to - from);
+                    recordPersistenceLag(messages.subList(from, to));
+                    spillStore.commit(drainFile, to);
+                }
+                spillStore.complete(drainFile, messages.size() - committed);
+            }
+        } catch (Exception e) {
+            // drain 파일은 남아 있으므로 다음 주기에 저장하지 않은 줄부터 다시 시도
+            logger.error("Failed to drain spilled messages: {}", e.getMessage(), e);
+        }
+    }
+
+    private void recordPersistenceLag(List<MessageDocument> messages) {
+        LocalDateTime now = LocalDateTime.now();
+        for (MessageDocument message : messages) {
+            if (message.getTimestamp() != null) {
+                persistenceLag.record(Duration.between(message.getTimestamp(), now));
+            }
+        }
+    }
+
+    private void recordFlushLatency(long nanos) {
+        flushTimer.record(nanos, TimeUnit.NANOSECONDS);
+        flushes.incrementAndGet();
+        lastFlushLatencyNanos.set(nanos);
+        maxFlushLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("messaging.persistence.queue.depth", queue, BlockingQueue::size)
+                .description("Messages waiting in the write-behind queue")
+                .register(registry);
+        Gauge.builder("messaging.persistence.spill.pending", spillStore, MessageSpillStore::pendingCount)
+                .description("Spilled messages waiting to be stored")
+                .register(registry);
+        bindCounter(registry, "submitted", submitted);
+        bindCounter(registry, "persisted", persisted);
+        bindCounter(registry, "dropped", dropped);
+        bindCounter(registry, "spilled", spilled);
+        bindCounter(registry, "failed", failed);
+    }
+
+    private void bindCounter(MeterRegistry registry, String result, AtomicLong counter) {
+        FunctionCounter.builder("messaging.persistence.messages", counter, AtomicLong::get)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public WriteBehindStats getStats() {
+        return WriteBehindStats.builder()
+                .queueDepth(queue.size())
+                .spilledPending(spillStore.pendingCount())
+                .journalPending(journal.pendingCount())
+                .submitted(submitted.get())
+                .persisted(persisted.get())
+                .dropped(dropped.get())
+                .spilled(spilled.get())
+                .failed(failed.get())
+                .flushes(flushes.get())
+                .lastFlushLatencyMillis(TimeUnit.NANOSECONDS.toMillis(lastFlushLatencyNanos.get()))
+                .maxFlushLatencyMillis(TimeUnit.NANOSECONDS.toMillis(maxFlushLatencyNanos.get()))
+                .build();
+    }
+}
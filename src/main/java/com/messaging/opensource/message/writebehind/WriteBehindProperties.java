@@ -0,0 +1,33 @@
+package com.messaging.opensource.message.writebehind;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.write-behind")
+public class WriteBehindProperties {
+
+    // 메모리 큐 최대 크기
+    private int capacity = 10_000;
+
+    // 한 번의 bulk insert 에 담을 최대 메시지 수
+    private int batchSize = 500;
+
+    // 배치가 다 차지 않아도 flush 하는 최대 대기 시간
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    private BackpressurePolicy backpressure = BackpressurePolicy.BLOCK;
+
+    // BLOCK 정책에서 큐 자리를 기다리는 최대 시간 (초과 시 drop 처리)
+    private Duration offerTimeout = Duration.ofMillis(200);
+
+    // SPILL 정책에서 사용하는 디렉토리
+    private String spillDirectory = "data/spill";
+
+    // 종료 시 남은 메시지를 flush 하기 위해 기다리는 최대 시간
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,31 @@
+package com.messaging.opensource.message.writebehind;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class WriteBehindStats {
+
+    int queueDepth;
+
+    long spilledPending;
+
+    long journalPending;
+
+    long submitted;
+
+    long persisted;
+
+    long dropped;
+
+    long spilled;
+
+    long failed;
+
+    long flushes;
+
+    long lastFlushLatencyMillis;
+
+    long maxFlushLatencyMillis;
+}
@@ -0,0 +1,78 @@
+package com.messaging.opensource.websocket;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 브로드캐스트 fan-out 통계.
+ * 브로드캐스트 한 번에 생성된 프레임 수(framesPerBroadcast)로 수신자별 payload 생성 여부를 확인할 수 있다.
+ * fan-out 시간과 수신자 수(채팅방 크기) 분포는 Micrometer 로 기록한다. 채팅방별 태그는 붙이지 않는다.
+ */
+@Component
+public class BroadcastStats {
+
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder framesAllocated = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+
+    private final Timer fanOutTimer;
+    private final DistributionSummary roomSize;
+
+    // 벤치마크(src/jmh)용. 아무 곳에도 내보내지 않는 레지스트리를 사용
+    public BroadcastStats() {
+        this(new CompositeMeterRegistry());
+    }
+
+    @Autowired
+    public BroadcastStats(MeterRegistry meterRegistry) {
+        this.fanOutTimer = Timer.builder("messaging.websocket.fanout")
+                .description("Time to hand one broadcast frame to every recipient in a room")
+                .register(meterRegistry);
+        this.roomSize = DistributionSummary.builder("messaging.websocket.room.size")
+                .description("Recipients per broadcast")
+                .baseUnit("sessions")
+                .register(meterRegistry);
+    }
+
+    void recordBroadcast(int frames, int recipients, long fanOutNanos) {
+        broadcasts.increment();
+        framesAllocated.add(frames);
+        deliveries.add(recipients);
+        fanOutTimer.record(fanOutNanos, TimeUnit.NANOSECONDS);
+        roomSize.record(recipients);
+    }
+
+    void recordSendFailure() {
+        sendFailures.increment();
+    }
+
+    public long getBroadcasts() {
+        return broadcasts.sum();
+    }
+
+    public long getFramesAllocated() {
+        return framesAllocated.sum();
+    }
+
+    public long getDeliveries() {
+        return deliveries.sum();
+    }
+
+    // 세션에 직접 보내다 실패한 횟수 (전송 큐를 거친 실패는 OutboundDispatcher 에서 집계)
+    public long getSendFailures() {
+        return sendFailures.sum();
+    }
+
+    public double getFramesPerBroadcast() {
+        long count = broadcasts.sum();
+        return count == 0 ? 0 : (double) framesAllocated.sum() / count;
+    }
+}
@@ -0,0 +1,226 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.websocket.wire.OutboundFrame;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 채팅방 하나의 접속자 목록.
+ * 변경은 채팅방 이벤트 루프에서만 일어나고, 다른 스레드의 조회(통계 등)를 위해 concurrent map 을 사용한다.
+ * 메시지가 몰리는 동안에는 브로드캐스트를 세션별로 잠깐 모아서 보내도록 배치 대기 시간을 알려준다.
+ * 채팅 메시지는 채팅방 순번 순서로 내보내고, 재접속한 세션에 다시 보낼 수 있도록 최근 메시지를 남겨둔다.
+ */
+public class ChatRoom {
+
+    @Getter
+    private final Long chatRoomId;
+
+    // Key - WebSocketSession id
+    private final Map<String, UserInfo> members = new ConcurrentHashMap<>();
+
+    private final int batchThreshold;
+    private final long batchWindowNanos;
+    private final int replayWindowSize;
+    private final int reorderMaxPending;
+
+    // 아래 필드는 채팅방 루프에서만 사용
+    private final MessageRateMeter messageRate = new MessageRateMeter();
+    private boolean batching;
+
+    // 마지막으로 순서대로 내보낸 순번 (0 이면 아직 없음)
+    private long lastSequence;
+
+    // 앞 순번을 기다리는 프레임. Key - 순번
+    private final TreeMap<Long, SequencedFrame> pending = new TreeMap<>();
+    private boolean gapTimerScheduled;
+
+    // 최근에 내보낸 채팅 프레임 (오래된 것부터)
+    private final ArrayDeque<SequencedFrame> replayWindow = new ArrayDeque<>();
+
+    // DB 에서 놓친 메시지를 읽는 동안 세션으로 가는 프레임. Key - WebSocketSession id
+    private final Map<String, List<OutboundFrame>> catchingUp = new HashMap<>();
+
+    ChatRoom(Long chatRoomId, ChatRoomProperties properties) {
+        this.chatRoomId = chatRoomId;
+        this.batchThreshold = properties.getBatchThreshold();
+        this.batchWindowNanos = properties.getBatchWindow().toNanos();
+        this.replayWindowSize = properties.getReplayWindowSize();
+        this.reorderMaxPending = properties.getReorderMaxPending();
+    }
+
+    void add(UserInfo userInfo) {
+        members.put(userInfo.getSession().getId(), userInfo);
+    }
+
+    UserInfo remove(String sessionId) {
+        catchingUp.remove(sessionId);
+        return members.remove(sessionId);
+    }
+
+    UserInfo getMember(String sessionId) {
+        return members.get(sessionId);
+    }
+
+    public Collection<UserInfo> getMembers() {
+        return members.values();
+    }
+
+    // 마지막으로 내보낸 채팅 메시지 순번 (시스템 메시지는 순번을 쓰지 않고 이 값을 담음)
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    // 채팅 프레임을 순번 순서대로 deliver 에 넘김. 순번 없는 프레임과 이미 지난 순번(늦게 온 메시지)은 바로 넘기고,
+    // 앞 순번이 아직 안 왔으면 잡아둠. 처음 받은 프레임은 기다리지 않고 기준으로 삼음
+    void offer(SequencedFrame frame, Consumer<SequencedFrame> deliver) {
+        long sequence = frame.sequence();
+        if (sequence <= 0) {
+            deliver.accept(frame);
+        } else if (lastSequence == 0 || sequence == lastSequence + 1) {
+            deliverInOrder(frame, deliver);
+            while (!pending.isEmpty() && pending.firstKey() == lastSequence + 1) {
+                deliverInOrder(pending.pollFirstEntry().getValue(), deliver);
+            }
+        } else if (sequence <= lastSequence) {
+            remember(frame);
+            deliver.accept(frame);
+        } else {
+            pending.put(sequence, frame);
+            if (pending.size() > reorderMaxPending) {
+                flushPending(deliver);
+            }
+        }
+    }
+
+    // 저장하지 못해 전달되지 않을 순번. 뒤 순번이 이 순번을 reorderTimeout 동안 기다리지 않도록 빈 자리로 채움
+    void skip(long sequence, Consumer<SequencedFrame> deliver) {
+        if (sequence <= 0 || sequence <= lastSequence) {
+            return;
+        }
+        offer(new SequencedFrame(sequence, null, null), deliver);
+    }
+
+    // 잡아둔 프레임이 있고 대기 타이머가 없으면 true (호출 측이 reorderTimeout 뒤 flushPending 을 예약)
+    boolean needsGapTimer() {
+        if (pending.isEmpty() || gapTimerScheduled) {
+            return false;
+        }
+        gapTimerScheduled = true;
+        return true;
+    }
+
+    // 빠진 순번을 더 기다리지 않고 잡아둔 프레임을 순번순으로 모두 넘김
+    void flushPending(Consumer<SequencedFrame> deliver) {
+        gapTimerScheduled = false;
+        while (!pending.isEmpty()) {
+            deliverInOrder(pending.pollFirstEntry().getValue(), deliver);
+        }
+    }
+
+    private void deliverInOrder(SequencedFrame frame, Consumer<SequencedFrame> deliver) {
+        lastSequence = frame.sequence();
+        if (frame.frame() == null) {
+            // skip 으로 채운 빈 자리는 순번만 넘김
+            return;
+        }
+        remember(frame);
+        deliver.accept(frame);
+    }
+
+    private void remember(SequencedFrame frame) {
+        if (replayWindowSize <= 0) {
+            return;
+        }
+        if (replayWindow.size() >= replayWindowSize) {
+            replayWindow.pollFirst();
+        }
+        replayWindow.addLast(frame);
+    }
+
+    // sinceSequence 이후 메시지를 모두 메모리에서 찾을 수 있으면 순번순 목록, 아니면 null
+    List<SequencedFrame> replayFrom(long sinceSequence) {
+        if (lastSequence == 0) {
+            return null;
+        }
+        if (sinceSequence >= lastSequence) {
+            return List.of();
+        }
+        if (replayWindow.isEmpty() || replayWindow.peekFirst().sequence() > sinceSequence + 1) {
+            return null;
+        }
+        return framesAfter(sinceSequence);
+    }
+
+    // 남겨둔 프레임 중 sinceSequence 이후의 것 (순번순)
+    List<SequencedFrame> framesAfter(long sinceSequence) {
+        List<SequencedFrame> frames = new ArrayList<>();
+        for (SequencedFrame frame : replayWindow) {
+            if (frame.sequence() > sinceSequence) {
+                frames.add(frame);
+            }
+        }
+        frames.sort(Comparator.comparingLong(SequencedFrame::sequence));
+        return frames;
+    }
+
+    // finishCatchUp 전까지 세션으로 가는 프레임을 hold 로 잡아둠
+    void startCatchUp(String sessionId) {
+        catchingUp.put(sessionId, new ArrayList<>());
+    }
+
+    boolean isCatchingUp() {
+        return !catchingUp.isEmpty();
+    }
+
+    // 세션이 따라잡는 중이면 프레임을 잡아두고 true
+    boolean hold(String sessionId, OutboundFrame frame) {
+        List<OutboundFrame> held = catchingUp.get(sessionId);
+        if (held == null) {
+            return false;
+        }
+        held.add(frame);
+        return true;
+    }
+
+    // 잡아둔 프레임 (세션이 이미 나갔으면 null)
+    List<OutboundFrame> finishCatchUp(String sessionId) {
+        return catchingUp.remove(sessionId);
+    }
+
+    // 브로드캐스트마다 호출. 배치 모드이면 전송을 미룰 시간(ns), 아니면 0
+    long batchWindowNanos(long nowNanos) {
+        double rate = messageRate.record(nowNanos);
+        if (batchThreshold <= 0 || batchWindowNanos <= 0) {
+            return 0;
+        }
+        if (batching) {
+            batching = rate >= batchThreshold / 2.0;
+        } else {
+            batching = rate >= batchThreshold;
+        }
+        return batching ? batchWindowNanos : 0;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    // 순번과 함께 보낼 채팅 프레임. excludedSessionId 는 보낸 세션 (받지 않음)
+    // frame 이 null 이면 skip 으로 채운 빈 자리
+    record SequencedFrame(long sequence, OutboundFrame frame, String excludedSessionId) {
+    }
+}
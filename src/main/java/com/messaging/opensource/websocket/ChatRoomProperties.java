@@ -0,0 +1,36 @@
+package com.messaging.opensource.websocket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.room")
+public class ChatRoomProperties {
+
+    // 채팅방 이벤트 루프 스레드 수 (0 이하이면 CPU 코어 수)
+    private int eventLoopThreads = 0;
+
+    // 채팅방의 초당 메시지 수가 이 값 이상이면 세션별로 batchWindow 동안 모아서 한 프레임으로 전송 (0 이하이면 사용 안 함)
+    // 바이너리 서브프로토콜을 협상한 세션에만 적용되고, 텍스트 세션은 항상 메시지마다 전송
+    // 절반 아래로 떨어지면 다시 메시지마다 바로 전송
+    private int batchThreshold = 50;
+
+    // 배치 모드에서 첫 프레임 이후 전송을 미루는 시간
+    private Duration batchWindow = Duration.ofMillis(10);
+
+    // 재접속(sinceSeq) 시 메모리에서 다시 보내기 위해 채팅방마다 남겨두는 최근 채팅 메시지 수 (0 이면 항상 DB 에서 조회)
+    private int replayWindowSize = 1000;
+
+    // 메모리에 없는 메시지를 DB 에서 다시 보낼 때 최대 메시지 수 (더 많이 놓쳤으면 최신 메시지만)
+    private int replayMaxMessages = 500;
+
+    // 앞 순번 메시지가 도착하지 않았을 때 뒤 메시지를 잡아두는 최대 시간
+    private Duration reorderTimeout = Duration.ofMillis(200);
+
+    // 순번을 기다리며 잡아두는 최대 메시지 수 (넘으면 기다리지 않고 순번순으로 모두 전달)
+    private int reorderMaxPending = 256;
+}
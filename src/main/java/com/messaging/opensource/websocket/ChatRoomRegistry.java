@@ -0,0 +1,106 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.websocket.cluster.RoomBackplane;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 채팅방 ID 별 접속자 레지스트리.
+ * 입장, 퇴장, 브로드캐스트는 모두 {@link RoomEventLoopGroup} 의 방 전용 루프에서 실행되어 방 단위로 직렬화된다.
+ * 로컬 접속자가 생기거나 모두 나가면 {@link RoomBackplane} 의 채팅방 구독도 함께 갱신한다.
+ * 세션 ID 로 접속자를 바로 찾을 수 있도록 세션 인덱스를 함께 유지한다.
+ */
+@Component
+public class ChatRoomRegistry {
+
+    // Key - chatRoomId
+    private final Map<Long, ChatRoom> rooms = new ConcurrentHashMap<>();
+
+    // Key - WebSocketSession id. 루프를 거치지 않고 바로 갱신되므로 메시지 수신 시 조회에 사용
+    private final Map<String, UserInfo> sessions = new ConcurrentHashMap<>();
+
+    private final RoomEventLoopGroup eventLoops;
+
+    private final RoomBackplane roomBackplane;
+
+    private final ChatRoomProperties properties;
+
+    @Autowired
+    public ChatRoomRegistry(RoomEventLoopGroup eventLoops, RoomBackplane roomBackplane, ChatRoomProperties properties) {
+        this.eventLoops = eventLoops;
+        this.roomBackplane = roomBackplane;
+        this.properties = properties;
+    }
+
+    // 채팅방에 사용자 추가 후, 같은 루프에서 afterJoin 실행
+    public void join(UserInfo userInfo, Consumer<ChatRoom> afterJoin) {
+        Long chatRoomId = userInfo.getChatRoomId();
+        sessions.put(userInfo.getSession().getId(), userInfo);
+        eventLoops.execute(chatRoomId, () -> {
+            ChatRoom room = rooms.get(chatRoomId);
+            if (room == null) {
+                room = new ChatRoom(chatRoomId, properties);
+                rooms.put(chatRoomId, room);
+                roomBackplane.roomActivated(chatRoomId);
+            }
+            room.add(userInfo);
+            afterJoin.accept(room);
+        });
+    }
+
+    // 채팅방에서 세션 제거 후, 같은 루프에서 afterLeave 실행. 방이 비면 레지스트리에서 제거
+    public void leave(UserInfo userInfo, Consumer<ChatRoom> afterLeave) {
+        Long chatRoomId = userInfo.getChatRoomId();
+        sessions.remove(userInfo.getSession().getId(), userInfo);
+        eventLoops.execute(chatRoomId, () -> {
+            ChatRoom room = rooms.get(chatRoomId);
+            if (room == null || room.remove(userInfo.getSession().getId()) == null) {
+                return;
+            }
+
+            // 채팅방이 비었다면 맵에서 제거
+            if (room.isEmpty()) {
+                rooms.remove(chatRoomId, room);
+                roomBackplane.roomDeactivated(chatRoomId);
+            }
+            afterLeave.accept(room);
+        });
+    }
+
+    // 채팅방 루프에서 작업 실행 (방이 없으면 무시)
+    public void dispatch(Long chatRoomId, Consumer<ChatRoom> task) {
+        eventLoops.execute(chatRoomId, () -> {
+            ChatRoom room = rooms.get(chatRoomId);
+            if (room != null) {
+                task.accept(room);
+            }
+        });
+    }
+
+    // delayNanos 뒤에 채팅방 루프에서 작업 실행 (그때 방이 없으면 무시)
+    public void schedule(Long chatRoomId, long delayNanos, Consumer<ChatRoom> task) {
+        eventLoops.schedule(chatRoomId, delayNanos, () -> {
+            ChatRoom room = rooms.get(chatRoomId);
+            if (room != null) {
+                task.accept(room);
+            }
+        });
+    }
+
+    // 세션 ID 로 접속자 조회 (없으면 null)
+    public UserInfo getMember(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+}
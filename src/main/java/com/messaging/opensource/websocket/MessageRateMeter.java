@@ -0,0 +1,39 @@
+package com.messaging.opensource.websocket;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅방 하나의 초당 메시지 수 측정기. 채팅방 루프에서만 사용한다.
+ * 100ms 구간마다 구간 비율을 지수 가중 평균에 반영하고, 구간이 여러 개 지나갔으면 그만큼 이전 값을 더 감쇠시킨다.
+ */
+class MessageRateMeter {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double ALPHA = 0.3;
+
+    private boolean started;
+    private long windowStart;
+    private int windowCount;
+    private double rate;
+
+    // 메시지 하나를 기록하고 현재 초당 메시지 수 반환
+    double record(long nowNanos) {
+        if (!started) {
+            started = true;
+            windowStart = nowNanos;
+        }
+
+        long elapsed = nowNanos - windowStart;
+        if (elapsed >= WINDOW_NANOS) {
+            double windowRate = windowCount * 1e9 / elapsed;
+            double decay = Math.pow(1 - ALPHA, (double) elapsed / WINDOW_NANOS);
+            rate = rate * decay + windowRate * (1 - decay);
+            windowStart = nowNanos;
+            windowCount = 0;
+        }
+        windowCount++;
+
+        // 급증은 구간이 끝나기 전에 바로 반영
+        return Math.max(rate, windowCount * 1e9 / WINDOW_NANOS);
+    }
+}
@@ -0,0 +1,144 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 세션별 전송 큐({@link OutboundSessionDecorator})를 만들고, 큐를 비우는 공유 전송 스레드와 통계를 관리한다.
+ * 배치 모드 세션의 지연 전송은 타이머 스레드 하나가 시간이 되면 전송 스레드에 넘긴다.
+ */
+@Component
+public class OutboundDispatcher {
+
+    // Tomcat 블로킹 전송 타임아웃 설정 키
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final OutboundProperties properties;
+    private final ExecutorService senderExecutor;
+    private final ScheduledExecutorService batchTimer;
+    private final WireCodec wireCodec;
+
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedFrames = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+
+    @Autowired
+    public OutboundDispatcher(OutboundProperties properties, BlockingExecutors blockingExecutors, WireCodec wireCodec) {
+        this.properties = properties;
+        this.wireCodec = wireCodec;
+
+        // 세션별 큐는 한 번에 하나의 drain 만 실행되므로, 가상 스레드 모드에서는 스레드 수를 제한하지 않음
+        int threads = properties.getSenderThreads() > 0
+                ? properties.getSenderThreads()
+                : Runtime.getRuntime().availableProcessors() * 2;
+        this.senderExecutor = blockingExecutors.newPool("ws-sender-", threads);
+        this.batchTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 세션을 전송 큐 데코레이터로 감쌈
+    public OutboundSessionDecorator decorate(WebSocketSession session) {
+        applySendTimeout(session);
+        return new OutboundSessionDecorator(session, this, senderExecutor, properties);
+    }
+
+    // delayNanos 후에 전송 스레드에서 task 실행
+    void schedule(Runnable task, long delayNanos) {
+        batchTimer.schedule(() -> senderExecutor.execute(task), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // 같은 종류의 프레임을 하나로 합침 (섞여 있으면 null)
+    WebSocketMessage<?> merge(List<WebSocketMessage<?>> messages) {
+        return wireCodec.merge(messages);
+    }
+
+    private void applySendTimeout(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session standardSession = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (standardSession != null) {
+                standardSession.getUserProperties()
+                        .put(TOMCAT_BLOCKING_SEND_TIMEOUT, properties.getSendTimeout().toMillis());
+            }
+        }
+    }
+
+    void recordHighWaterMark(int queueSize) {
+        highWaterMark.accumulateAndGet(queueSize, Math::max);
+    }
+
+    void recordDropped(int frames) {
+        dropped.add(frames);
+    }
+
+    void recordCoalesced(int frames) {
+        coalesced.add(frames);
+    }
+
+    void recordBatch(int frames) {
+        batches.increment();
+        batchedFrames.add(frames);
+    }
+
+    void recordDisconnect() {
+        disconnects.increment();
+    }
+
+    void recordSendFailure() {
+        sendFailures.increment();
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getBatchedFrames() {
+        return batchedFrames.sum();
+    }
+
+    public long getDisconnects() {
+        return disconnects.sum();
+    }
+
+    public long getSendFailures() {
+        return sendFailures.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchTimer.shutdownNow();
+        senderExecutor.shutdownNow();
+    }
+}
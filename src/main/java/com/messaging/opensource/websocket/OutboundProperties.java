@@ -0,0 +1,27 @@
+package com.messaging.opensource.websocket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.outbound")
+public class OutboundProperties {
+
+    // 세션별 전송 대기 큐 최대 크기
+    private int queueCapacity = 256;
+
+    private SlowConsumerPolicy overflowPolicy = SlowConsumerPolicy.DROP_OLDEST;
+
+    // 세션 큐를 비우는 전송 스레드 수 (0 이하이면 CPU 코어 수 * 2)
+    private int senderThreads = 0;
+
+    // 한 번 스케줄될 때 연속으로 보내는 최대 프레임 수 (한 세션이 전송 스레드를 독점하지 않도록)
+    private int drainBatchSize = 64;
+
+    // 블로킹 전송 한 건의 최대 시간. 초과하면 전송 실패로 처리되어 전송 스레드가 풀려남
+    private Duration sendTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,253 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.websocket.wire.WireProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 세션별 bounded 전송 큐를 가진 세션 데코레이터.
+ * {@link #sendMessage(WebSocketMessage)} 는 큐에 넣고 바로 반환하며, 실제 전송은 공유 전송 스레드가 세션 단위로 하나씩 처리한다.
+ * 따라서 느린 클라이언트가 있어도 채팅방 루프나 다른 세션의 전송은 막히지 않는다.
+ * {@link #sendBatched(WebSocketMessage, long)} 로 넣은 프레임은 잠깐 기다렸다가, 그동안 쌓인 프레임과 합쳐 한 프레임으로 보낸다.
+ * 배치 프레임을 해석할 수 있는 프로토콜을 협상한 세션만 합쳐서 보내고, 나머지 세션은 {@link #sendMessage(WebSocketMessage)} 와 같다.
+ */
+public class OutboundSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundSessionDecorator.class);
+
+    private final OutboundDispatcher dispatcher;
+    private final Executor senderExecutor;
+    private final int capacity;
+    private final int drainBatchSize;
+    private final SlowConsumerPolicy overflowPolicy;
+    private final boolean batchingSupported;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+
+    // lock 으로 보호됨
+    private boolean draining;
+    private boolean batchDrain;
+    private boolean terminated;
+    private int highWaterMark;
+
+    OutboundSessionDecorator(WebSocketSession delegate, OutboundDispatcher dispatcher, Executor senderExecutor,
+                             OutboundProperties properties) {
+        super(delegate);
+        this.dispatcher = dispatcher;
+        this.senderExecutor = senderExecutor;
+        this.capacity = properties.getQueueCapacity();
+        this.drainBatchSize = properties.getDrainBatchSize();
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.batchingSupported = WireProtocol.of(delegate).supportsBatching();
+    }
+
+    @Override
+    public void sendMessage(@NonNull WebSocketMessage<?> message) {
+        enqueue(message, 0);
+    }
+
+    // 배치 전송. 대기 중인 전송이 없으면 windowNanos 후에 그동안 쌓인 프레임을 합쳐서 보냄
+    // 배치 프레임을 지원하지 않는 세션이면 바로 전송
+    public void sendBatched(WebSocketMessage<?> message, long windowNanos) {
+        enqueue(message, batchingSupported ? windowNanos : 0);
+    }
+
+    public boolean isBatchingSupported() {
+        return batchingSupported;
+    }
+
+    // 이미 전송이 예약되어 있으면 그 전송에 합류 (배치 대기 중에 온 일반 프레임도 같이 기다림)
+    private void enqueue(WebSocketMessage<?> message, long windowNanos) {
+        boolean scheduleDrain;
+        boolean disconnect = false;
+
+        lock.lock();
+        try {
+            if (terminated) {
+                return;
+            }
+
+            if (queue.size() >= capacity) {
+                disconnect = !applyOverflowPolicy();
+            }
+
+            if (disconnect) {
+                terminated = true;
+                queue.clear();
+                scheduleDrain = false;
+            } else {
+                queue.addLast(message);
+                updateHighWaterMark();
+                scheduleDrain = !draining;
+                if (scheduleDrain) {
+                    batchDrain = windowNanos > 0;
+                }
+                draining = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (disconnect) {
+            disconnectSlowConsumer();
+        } else if (scheduleDrain && windowNanos > 0) {
+            dispatcher.schedule(this::drain, windowNanos);
+        } else if (scheduleDrain) {
+            senderExecutor.execute(this::drain);
+        }
+    }
+
+    // 큐가 가득 찼을 때 정책 적용. 연결을 끊어야 하면 false
+    private boolean applyOverflowPolicy() {
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                queue.pollFirst();
+                dispatcher.recordDropped(1);
+                return true;
+            }
+            case COALESCE -> {
+                int merged = queue.size();
+                WebSocketMessage<?> coalesced = coalesce();
+                if (coalesced == null) {
+                    // 텍스트와 바이너리 프레임이 섞여 있으면 합칠 수 없으므로 가장 오래된 프레임을 버림
+                    queue.pollFirst();
+                    dispatcher.recordDropped(1);
+                } else {
+                    queue.clear();
+                    queue.addLast(coalesced);
+                    dispatcher.recordCoalesced(merged);
+                }
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private WebSocketMessage<?> coalesce() {
+        return dispatcher.merge(new ArrayList<>(queue));
+    }
+
+    private void updateHighWaterMark() {
+        int size = queue.size();
+        if (size > highWaterMark) {
+            highWaterMark = size;
+            dispatcher.recordHighWaterMark(size);
+        }
+    }
+
+    private void disconnectSlowConsumer() {
+        dispatcher.recordDisconnect();
+        logger.warn("Disconnecting slow consumer session {}: outbound queue exceeded {} frames", getId(), capacity);
+        senderExecutor.execute(() -> {
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                logger.debug("Failed to close slow consumer session {}: {}", getId(), e.getMessage());
+            }
+        });
+    }
+
+    // 최대 drainBatchSize 개를 보낸 뒤, 남은 프레임이 있으면 다시 스케줄해서 다른 세션에게 차례를 넘김
+    // 배치 전송이면 큐 앞쪽의 같은 종류 프레임을 최대 drainBatchSize 개씩 합쳐서 한 프레임으로 보냄
+    private void drain() {
+        for (int sent = 0; sent < drainBatchSize; sent++) {
+            WebSocketMessage<?> next;
+            List<WebSocketMessage<?>> batch = null;
+            lock.lock();
+            try {
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    batchDrain = false;
+                    return;
+                }
+                if (batchDrain) {
+                    batch = pollBatch(next);
+                }
+            } finally {
+                lock.unlock();
+            }
+            send(batch == null ? next : mergeBatch(batch));
+        }
+        senderExecutor.execute(this::drain);
+    }
+
+    // lock 안에서 호출. first 뒤에 이어지는 같은 종류의 프레임을 꺼냄 (합칠 것이 없으면 null)
+    private List<WebSocketMessage<?>> pollBatch(WebSocketMessage<?> first) {
+        WebSocketMessage<?> following = queue.peekFirst();
+        if (following == null || following.getClass() != first.getClass()) {
+            return null;
+        }
+        List<WebSocketMessage<?>> batch = new ArrayList<>(Math.min(queue.size() + 1, drainBatchSize));
+        batch.add(first);
+        while (batch.size() < drainBatchSize && queue.peekFirst() != null
+                && queue.peekFirst().getClass() == first.getClass()) {
+            batch.add(queue.pollFirst());
+        }
+        return batch;
+    }
+
+    private WebSocketMessage<?> mergeBatch(List<WebSocketMessage<?>> batch) {
+        dispatcher.recordBatch(batch.size());
+        return dispatcher.merge(batch);
+    }
+
+    private void send(WebSocketMessage<?> message) {
+        WebSocketSession delegate = getDelegate();
+        if (!delegate.isOpen()) {
+            discard();
+            return;
+        }
+        try {
+            delegate.sendMessage(message);
+        } catch (IOException | IllegalStateException e) {
+            dispatcher.recordSendFailure();
+            logger.warn("Failed to send message to session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    // 닫힌 세션의 대기 프레임 정리
+    private void discard() {
+        lock.lock();
+        try {
+            terminated = true;
+            queue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getHighWaterMark() {
+        lock.lock();
+        try {
+            return highWaterMark;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.messaging.opensource.websocket;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 고정된 수의 단일 스레드 루프에 채팅방을 분산시키는 실행기.
+ * 같은 채팅방의 작업은 항상 같은 루프에서 제출 순서대로 실행되므로, 전역 락 없이 방 단위 순서가 보장된다.
+ */
+@Component
+public class RoomEventLoopGroup {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomEventLoopGroup.class);
+
+    private final ScheduledThreadPoolExecutor[] loops;
+
+    public RoomEventLoopGroup(ChatRoomProperties properties) {
+        int threads = properties.getEventLoopThreads() > 0
+                ? properties.getEventLoopThreads()
+                : Runtime.getRuntime().availableProcessors();
+
+        this.loops = new ScheduledThreadPoolExecutor[threads];
+        AtomicInteger index = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            // 지연 없는 작업은 제출 순서대로 실행됨. 종료 시 예약된 작업은 버림
+            loops[i] = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "room-loop-" + index.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            loops[i].setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+    }
+
+    // 채팅방이 배정된 루프에서 작업 실행
+    public void execute(Long chatRoomId, Runnable task) {
+        loopFor(chatRoomId).execute(guarded(chatRoomId, task));
+    }
+
+    // 채팅방이 배정된 루프에서 delayNanos 뒤에 작업 실행
+    public void schedule(Long chatRoomId, long delayNanos, Runnable task) {
+        loopFor(chatRoomId).schedule(guarded(chatRoomId, task), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Runnable guarded(Long chatRoomId, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Chat room {} task failed: {}", chatRoomId, e.getMessage(), e);
+            }
+        };
+    }
+
+    public int size() {
+        return loops.length;
+    }
+
+    private ScheduledThreadPoolExecutor loopFor(Long chatRoomId) {
+        int hash = Long.hashCode(chatRoomId);
+        return loops[Math.floorMod(hash ^ (hash >>> 16), loops.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ScheduledThreadPoolExecutor loop : loops) {
+            loop.shutdown();
+        }
+        for (ScheduledThreadPoolExecutor loop : loops) {
+            try {
+                if (!loop.awaitTermination(5, TimeUnit.SECONDS)) {
+                    loop.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                loop.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.messaging.opensource.websocket;
+
+// 세션별 전송 큐가 가득 찼을 때의 처리 방식
+public enum SlowConsumerPolicy {
+
+    // 가장 오래된 프레임을 버리고 새 프레임을 넣음
+    DROP_OLDEST,
+
+    // 대기 중인 텍스트 프레임을 줄바꿈으로 이어 붙여 하나의 프레임으로 합침
+    COALESCE,
+
+    // 느린 클라이언트의 연결을 끊음
+    DISCONNECT
+}
@@ -2,13 +2,19 @@ package com.messaging.opensource.websocket;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.With;
 import org.springframework.web.socket.WebSocketSession;
 
+/**
+ * 접속한 사용자 정보 (불변).
+ * 핸드셰이크 때 세션 없이 만들어 세션 속성에 저장하고, 연결이 성립되면 전송 큐로 감싼 세션을 붙인 사본을 채팅방에 등록한다.
+ */
 @Getter
 @AllArgsConstructor
 public class UserInfo {
-    private String name;
-    private Long userId;
-    private Long chatRoomId;
-    private WebSocketSession session;
-}
\ No newline at end of file
+    private final String name;
+    private final Long userId;
+    private final Long chatRoomId;
+    @With
+    private final WebSocketSession session;
+}
@@ -0,0 +1,102 @@
+package com.messaging.opensource.websocket;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.util.UriUtils;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 핸드셰이크 때 name, userId, chatRoomId 헤더를 한 번만 검증하고 파싱해서 세션 속성에 {@link UserInfo} 로 저장한다.
+ * 헤더 값에는 ASCII 만 안전하게 실을 수 있으므로 name 은 UTF-8 퍼센트 인코딩된 값으로 받아 디코딩한다.
+ * 재접속하는 클라이언트가 sinceSeq 헤더로 마지막으로 받은 순번을 보내면 함께 저장해서, 그 이후 메시지를 다시 받게 한다.
+ * 헤더가 잘못되어도 기존 클라이언트 동작과 같게 연결은 받아들이고, 오류 메시지를 속성에 남겨서
+ * 핸들러가 연결 직후 "Error: ..." 를 보내고 닫게 한다.
+ */
+@Component
+public class UserInfoHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String USER_INFO_ATTRIBUTE = UserInfo.class.getName();
+    static final String ERROR_ATTRIBUTE = UserInfoHandshakeInterceptor.class.getName() + ".error";
+    static final String SINCE_SEQUENCE_ATTRIBUTE = UserInfoHandshakeInterceptor.class.getName() + ".sinceSeq";
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request,
+                                   @NonNull ServerHttpResponse response,
+                                   @NonNull WebSocketHandler wsHandler,
+                                   @NonNull Map<String, Object> attributes) {
+        resolve(request.getHeaders(), attributes);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request,
+                               @NonNull ServerHttpResponse response,
+                               @NonNull WebSocketHandler wsHandler,
+                               Exception exception) {
+    }
+
+    // 헤더를 파싱해서 UserInfo 또는 오류 메시지를 attributes 에 저장 (JMH 벤치마크에서도 호출)
+    void resolve(HttpHeaders headers, Map<String, Object> attributes) {
+        String name = headers.getFirst("name");
+        String userIdString = headers.getFirst("userId");
+        String chatroomIdString = headers.getFirst("chatRoomId");
+
+        if (name == null || userIdString == null || chatroomIdString == null) {
+            attributes.put(ERROR_ATTRIBUTE, "Missing required headers.");
+            return;
+        }
+
+        String decodedName = decodeName(name);
+        if (decodedName == null) {
+            attributes.put(ERROR_ATTRIBUTE, "Invalid name encoding: " + name);
+            return;
+        }
+
+        Long userId = parseNumericId(userIdString);
+        if (userId == null) {
+            attributes.put(ERROR_ATTRIBUTE, "Invalid userId format: " + userIdString);
+            return;
+        }
+        Long chatroomId = parseNumericId(chatroomIdString);
+        if (chatroomId == null) {
+            attributes.put(ERROR_ATTRIBUTE, "Invalid chatroomId format: " + chatroomIdString);
+            return;
+        }
+
+        String sinceSeqString = headers.getFirst("sinceSeq");
+        if (sinceSeqString != null) {
+            Long sinceSeq = parseNumericId(sinceSeqString);
+            if (sinceSeq == null || sinceSeq < 0) {
+                attributes.put(ERROR_ATTRIBUTE, "Invalid sinceSeq format: " + sinceSeqString);
+                return;
+            }
+            attributes.put(SINCE_SEQUENCE_ATTRIBUTE, sinceSeq);
+        }
+
+        attributes.put(USER_INFO_ATTRIBUTE, new UserInfo(decodedName, userId, chatroomId, null));
+    }
+
+    // 퍼센트 인코딩 디코딩. 헤더에서는 '+' 를 공백으로 바꾸지 않음
+    private String decodeName(String name) {
+        try {
+            return UriUtils.decode(name, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Long parseNumericId(String idString) {
+        try {
+            return Long.parseLong(idString);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,40 +1,102 @@
 package com.messaging.opensource.websocket;
 
-import com.messaging.opensource.message.MessageService;
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.cache.RecentMessageCache;
 import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.read.ReadCursors;
+import com.messaging.opensource.message.sequence.MessageSequencer;
+import com.messaging.opensource.message.writebehind.MessageWriteBehindQueue;
+import com.messaging.opensource.websocket.cluster.RoomBackplane;
+import com.messaging.opensource.websocket.cluster.RoomEvent;
+import com.messaging.opensource.websocket.cluster.RoomEventListener;
+import com.messaging.opensource.websocket.wire.ChatFrame;
+import com.messaging.opensource.websocket.wire.OutboundFrame;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProtocol;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 import java.io.IOException;
-
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 @Component
-public class WebSocketChatHandler extends TextWebSocketHandler {
+public class WebSocketChatHandler extends AbstractWebSocketHandler implements RoomEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketChatHandler.class);
 
-    private final MessageService messageService;
+    static final String SAVE_FAILED_MESSAGE = "Error: 메시지를 저장하지 못해 전송하지 않았습니다. 잠시 후 다시 보내주세요.";
+
+    private final MessageWriteBehindQueue messageWriteBehindQueue;
+
+    private final ChatRoomRegistry chatRoomRegistry;
+
+    private final BroadcastStats broadcastStats;
+
+    private final OutboundDispatcher outboundDispatcher;
+
+    private final RoomBackplane roomBackplane;
+
+    private final RecentMessageCache recentMessageCache;
+
+    private final WireCodec wireCodec;
+
+    private final MessageSequencer messageSequencer;
 
-    // sessionMap Key - UserInfo chatRoomId
-    private final Map<Long, Set<UserInfo>> sessionMap = new ConcurrentHashMap<>();
+    private final MessageRepository messageRepository;
+
+    private final ChatRoomProperties chatRoomProperties;
+
+    private final ReadCursors readCursors;
+
+    // 재접속 시 메모리에 없는 메시지를 DB 에서 읽는 실행기
+    private final ExecutorService replayExecutor;
 
     @Autowired
-    public WebSocketChatHandler(MessageService messageService) {
-        this.messageService = messageService;
+    public WebSocketChatHandler(MessageWriteBehindQueue messageWriteBehindQueue,
+                                ChatRoomRegistry chatRoomRegistry,
+                                BroadcastStats broadcastStats,
+                                OutboundDispatcher outboundDispatcher,
+                                RoomBackplane roomBackplane,
+                                RecentMessageCache recentMessageCache,
+                                WireCodec wireCodec,
+                                MessageSequencer messageSequencer,
+                                MessageRepository messageRepository,
+                                ChatRoomProperties chatRoomProperties,
+                                ReadCursors readCursors,
+                                BlockingExecutors blockingExecutors) {
+        this.messageWriteBehindQueue = messageWriteBehindQueue;
+        this.chatRoomRegistry = chatRoomRegistry;
+        this.broadcastStats = broadcastStats;
+        this.outboundDispatcher = outboundDispatcher;
+        this.roomBackplane = roomBackplane;
+        this.recentMessageCache = recentMessageCache;
+        this.wireCodec = wireCodec;
+        this.messageSequencer = messageSequencer;
+        this.messageRepository = messageRepository;
+        this.chatRoomProperties = chatRoomProperties;
+        this.readCursors = readCursors;
+        this.replayExecutor = blockingExecutors.newPool("message-replay-", 2);
+    }
+
+    @PostConstruct
+    void registerBackplaneListener() {
+        roomBackplane.setListener(this);
     }
 
     @Override
@@ -42,19 +104,95 @@ public class WebSocketChatHandler extends TextWebSocketHandler {
         super.afterConnectionEstablished(session);
         UserInfo userInfo = extractUserInfo(session);
 
-        if (userInfo != null) {
-            addUserToChatRoom(userInfo);
-            notifyUserJoined(userInfo);
+        if (userInfo == null) {
+            String error = (String) session.getAttributes().get(UserInfoHandshakeInterceptor.ERROR_ATTRIBUTE);
+            sendErrorAndClose(session, error != null ? error : "Missing required headers.");
+            return;
+        }
+
+        // 채팅방에는 세션별 전송 큐로 감싼 세션을 등록해서, 느린 클라이언트가 브로드캐스트를 막지 않게 함
+        UserInfo member = userInfo.withSession(outboundDispatcher.decorate(session));
+        Long sinceSequence = (Long) session.getAttributes().get(UserInfoHandshakeInterceptor.SINCE_SEQUENCE_ATTRIBUTE);
+        chatRoomRegistry.join(member, room -> {
+            if (sinceSequence != null) {
+                replayMissedMessages(room, member, sinceSequence);
+            }
+            notifyUserJoined(room, member);
+        });
+    }
+
+    // 재접속한 세션에 sinceSequence 이후 메시지를 다시 보냄. 최근 메시지에 모두 있으면 바로 보내고,
+    // 아니면 DB 에서 읽는 동안 세션으로 가는 프레임을 잡아뒀다가 DB 메시지, 최근 메시지, 잡아둔 프레임 순으로 보냄
+    private void replayMissedMessages(ChatRoom room, UserInfo member, long sinceSequence) {
+        List<ChatRoom.SequencedFrame> replay = room.replayFrom(sinceSequence);
+        if (replay != null) {
+            for (ChatRoom.SequencedFrame frame : replay) {
+                sendFrameToSession(member, frame.frame());
+            }
+            return;
+        }
+
+        Long chatRoomId = room.getChatRoomId();
+        String sessionId = member.getSession().getId();
+        List<ChatRoom.SequencedFrame> recent = room.framesAfter(sinceSequence);
+        long beforeSequence = recent.isEmpty() ? Long.MAX_VALUE : recent.get(0).sequence();
+        room.startCatchUp(sessionId);
+        replayExecutor.execute(() -> {
+            List<MessageDocument> missed;
+            try {
+                missed = messageRepository.findByChatroomIdAndSeqBetween(chatRoomId, sinceSequence, beforeSequence,
+                        chatRoomProperties.getReplayMaxMessages());
+            } catch (Exception e) {
+                logger.warn("Failed to load missed messages of chatroom {}: {}", chatRoomId, e.getMessage());
+                missed = List.of();
+            }
+            List<MessageDocument> stored = missed;
+            chatRoomRegistry.dispatch(chatRoomId, current -> finishCatchUp(current, sessionId, sinceSequence, stored, recent));
+        });
+    }
+
+    private void finishCatchUp(ChatRoom room, String sessionId, long sinceSequence,
+                               List<MessageDocument> stored, List<ChatRoom.SequencedFrame> recent) {
+        List<OutboundFrame> held = room.finishCatchUp(sessionId);
+        UserInfo member = room.getMember(sessionId);
+        if (held == null || member == null) {
+            return;
+        }
+
+        long lastSent = sinceSequence;
+        for (MessageDocument message : stored) {
+            sendFrameToSession(member, encodeFrame(chatFrame(room, storedSenderName(message), message)));
+            lastSent = Math.max(lastSent, message.getSeq());
+        }
+        for (ChatRoom.SequencedFrame frame : recent) {
+            if (frame.sequence() > lastSent) {
+                sendFrameToSession(member, frame.frame());
+                lastSent = frame.sequence();
+            }
+        }
+        // 따라잡는 동안 도착해서 DB 결과에도 있는 메시지는 건너뜀
+        for (OutboundFrame frame : held) {
+            ChatFrame chatFrame = frame.getFrame();
+            if (chatFrame.type() != ChatFrame.Type.CHAT || chatFrame.sequence() == 0 || chatFrame.sequence() > lastSent) {
+                sendFrameToSession(member, frame);
+            }
         }
     }
 
-    private void addUserToChatRoom(UserInfo userInfo) {
-        sessionMap.computeIfAbsent(userInfo.getChatRoomId(), k -> new HashSet<>()).add(userInfo);
+    private void sendFrameToSession(UserInfo member, OutboundFrame frame) {
+        try {
+            WebSocketSession session = member.getSession();
+            session.sendMessage(frame.forSession(session));
+        } catch (IOException e) {
+            logger.warn("Failed to replay message to user {}: {}", member.getUserId(), e.getMessage());
+            broadcastStats.recordSendFailure();
+        }
     }
 
-    private void notifyUserJoined(UserInfo userInfo) {
+    private void notifyUserJoined(ChatRoom room, UserInfo userInfo) {
         String joinMessage = userInfo.getName() + "님이 대화방에 들어오셨습니다.";
-        sendSystemMessageToChatRoom(userInfo.getChatRoomId(), joinMessage);
+        sendSystemMessageToChatRoom(room, joinMessage);
+        roomBackplane.publish(RoomEvent.system(room.getChatRoomId(), joinMessage));
     }
 
     @Override
@@ -62,50 +200,180 @@ public class WebSocketChatHandler extends TextWebSocketHandler {
             @NonNull WebSocketSession session,
             @NonNull TextMessage textMessage) throws Exception {
         super.handleTextMessage(session, textMessage);
-        UserInfo userInfo = extractUserInfo(session);
+        // 핸드셰이크 때 만든 접속자 정보를 세션 인덱스에서 바로 조회 (헤더를 다시 파싱하지 않음)
+        UserInfo userInfo = chatRoomRegistry.getMember(session.getId());
 
-        if (userInfo != null) {
-            String textMessagePayload = textMessage.getPayload();
-            processUserMessage(userInfo, textMessagePayload);
+        if (userInfo == null) {
+            return;
+        }
+
+        long ack;
+        try {
+            ack = wireCodec.decodeAck(textMessage);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid ack from session {}: {}", session.getId(), e.getMessage());
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+        if (ack >= 0) {
+            processAck(userInfo, ack);
+            return;
+        }
+
+        String textMessagePayload = textMessage.getPayload();
+        processUserMessage(userInfo, textMessagePayload);
+    }
+
+    // chat.binary.v1 세션의 바이너리 프레임. 텍스트 프로토콜 세션은 예전처럼 바이너리 프레임을 받지 않음
+    @Override
+    protected void handleBinaryMessage(
+            @NonNull WebSocketSession session,
+            @NonNull BinaryMessage message) throws Exception {
+        if (WireProtocol.of(session) != WireProtocol.BINARY) {
+            session.close(CloseStatus.NOT_ACCEPTABLE.withReason("Binary messages not supported"));
+            return;
+        }
+        UserInfo userInfo = chatRoomRegistry.getMember(session.getId());
+        if (userInfo == null) {
+            return;
+        }
+
+        String content;
+        try {
+            long ack = wireCodec.decodeAck(message);
+            if (ack >= 0) {
+                processAck(userInfo, ack);
+                return;
+            }
+            content = wireCodec.decodeInbound(message);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid binary frame from session {}: {}", session.getId(), e.getMessage());
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
         }
+        processUserMessage(userInfo, content);
+    }
+
+    // 읽음 확인. 채팅방 루프에서 이 노드가 전달한 마지막 순번보다 앞서지 않게 맞춰서 읽음 위치를 옮김
+    private void processAck(UserInfo userInfo, long sequence) {
+        chatRoomRegistry.dispatch(userInfo.getChatRoomId(), room -> readCursors.markRead(userInfo.getUserId(),
+                userInfo.getChatRoomId(), Math.min(sequence, room.lastSequence())));
     }
 
     private void processUserMessage(UserInfo userInfo, String messageContent) {
+        String senderSessionId = userInfo.getSession().getId();
+        long sequence = messageSequencer.next(userInfo.getChatRoomId());
+        MessageDocument messageDocument = createMessageDocument(userInfo, messageContent, sequence);
+
+        // 저널을 사용하면 저널 기록(GROUP_COMMIT 모드에서는 fsync)이 끝난 메시지만 전달됨
+        // 큐나 저널이 가득 차서 받지 못한 메시지는 저장되지 않으므로 전달, 캐시, 읽음 처리 없이 보낸 사람에게만 알림
+        // 이미 받은 순번은 비므로 이 노드의 채팅방 루프가 그 순번을 기다리지 않게 건너뜀
+        // (다른 노드는 reorderTimeout 뒤에 다음 순번부터 전달하고, 안 읽은 수에는 이 순번도 포함됨)
+        if (!saveMessageAsync(messageDocument)) {
+            sendSaveFailure(userInfo);
+            if (sequence > 0) {
+                chatRoomRegistry.dispatch(userInfo.getChatRoomId(),
+                        room -> room.skip(sequence, sequenced -> sendSequencedFrame(room, sequenced)));
+            }
+            return;
+        }
+
+        // 보낸 사람은 자기 메시지까지 읽은 것으로 봄. 안 읽은 수는 채팅방 순번과의 차이라 수신자별로 늘리지 않음
+        readCursors.markRead(userInfo.getUserId(), userInfo.getChatRoomId(), sequence);
+
+        // 순번은 보내는 스레드에서 받으므로 채팅방 루프에 순서가 바뀌어 도착할 수 있음. 루프에서 순번 순서로 맞춰 전달
+        chatRoomRegistry.dispatch(userInfo.getChatRoomId(),
+                room -> broadcastMessageToChatRoom(room,
+                        chatFrame(room, userInfo.getName(), messageDocument), senderSessionId));
+        roomBackplane.publish(RoomEvent.chat(userInfo.getChatRoomId(), senderSessionId, userInfo.getName(),
+                formatMessage(userInfo.getName(), messageContent), messageDocument));
+
+        // 저장을 기다리지 않고 최근 메시지 캐시에 바로 반영해서, 최근 메시지 조회가 Mongo 까지 가지 않게 함
+        recentMessageCache.append(messageDocument);
+    }
+
+    // 다른 노드에서 온 이벤트를 이 노드의 접속자에게만 전달
+    @Override
+    public void onRemoteEvent(RoomEvent event) {
+        if (event.message() != null) {
+            recentMessageCache.append(event.message());
+        }
+        chatRoomRegistry.dispatch(event.chatRoomId(), room -> {
+            switch (event.type()) {
+                case CHAT -> broadcastMessageToChatRoom(room, remoteChatFrame(room, event), event.senderSessionId());
+                case SYSTEM -> sendSystemMessageToChatRoom(room, event.payload());
+            }
+        });
+    }
+
+    // 원본 메시지가 없는 이벤트는 텍스트 형식 payload 를 그대로 전달
+    private ChatFrame remoteChatFrame(ChatRoom room, RoomEvent event) {
+        if (event.message() == null || event.senderName() == null) {
+            return ChatFrame.system(room.getChatRoomId(), room.lastSequence(), System.currentTimeMillis(), event.payload());
+        }
+        return chatFrame(room, event.senderName(), event.message());
+    }
+
+    // 이름을 저장하기 전 메시지는 사용자 ID 를 이름으로 씀
+    private String storedSenderName(MessageDocument message) {
+        return message.getSenderName() != null ? message.getSenderName() : String.valueOf(message.getSenderId());
+    }
+
+    // 순번이 없는 메시지(발급 실패, 순번 도입 전 노드)는 순번 0
+    private ChatFrame chatFrame(ChatRoom room, String senderName, MessageDocument message) {
+        return ChatFrame.chat(message.getSenderId(), senderName, room.getChatRoomId(),
+                message.getSeq() != null ? message.getSeq() : 0,
+                toEpochMillis(message.getTimestamp()), message.getContent());
+    }
+
+    private long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // 채팅방 루프에서 호출. 앞 순번이 빠져 있으면 reorderTimeout 동안 기다린 뒤 순번순으로 전달
+    private void broadcastMessageToChatRoom(ChatRoom room, ChatFrame frame, String senderSessionId) {
+        room.offer(new ChatRoom.SequencedFrame(frame.sequence(), encodeFrame(frame), senderSessionId),
+                sequenced -> sendSequencedFrame(room, sequenced));
+        if (room.needsGapTimer()) {
+            chatRoomRegistry.schedule(room.getChatRoomId(), chatRoomProperties.getReorderTimeout().toNanos(),
+                    current -> current.flushPending(sequenced -> sendSequencedFrame(current, sequenced)));
+        }
+    }
+
+    private void sendSequencedFrame(ChatRoom room, ChatRoom.SequencedFrame frame) {
         try {
-            broadcastMessageToChatRoom(userInfo, messageContent);
-            saveMessageAsync(userInfo, messageContent);
+            sendFrameToChatRoom(room, frame.frame(), frame.excludedSessionId());
         } catch (IOException e) {
             logger.error("Error processing message: {}", e.getMessage(), e);
         }
     }
 
-    private void broadcastMessageToChatRoom(UserInfo userInfo, String messageContent) throws IOException {
-        String formattedMessage = formatMessage(userInfo.getName(), messageContent);
-        sendMessageToChatRoomExceptSelf(userInfo.getChatRoomId(), formattedMessage, userInfo);
-    }
-
-    private String formatMessage(String userName, String content) {
+    // formatMessage, encodeFrame, sendFrameToChatRoom, extractUserInfo 는 JMH 벤치마크(src/jmh)에서 호출하므로 package-private
+    String formatMessage(String userName, String content) {
         return userName + " : " + content;
     }
 
-    private void saveMessageAsync(UserInfo userInfo, String messageContent) {
-        MessageDocument messageDocument = createMessageDocument(userInfo, messageContent);
+    // 전용 writer 가 모아서 bulk insert 하므로 여기서는 큐(또는 저널)에 넣기만 함. 받지 못했으면 false
+    private boolean saveMessageAsync(MessageDocument messageDocument) {
+        return messageWriteBehindQueue.submit(messageDocument);
+    }
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                messageService.saveMessage(messageDocument);
-            } catch (Exception e) {
-                logger.error("Failed to save message: {}", e.getMessage(), e);
-            }
-        });
+    // 저장하지 못한 메시지를 보낸 세션에만 알림 (연결은 유지해서 다시 보낼 수 있게 함)
+    private void sendSaveFailure(UserInfo userInfo) {
+        sendFrameToSession(userInfo, encodeFrame(
+                ChatFrame.system(userInfo.getChatRoomId(), 0, System.currentTimeMillis(), SAVE_FAILED_MESSAGE)));
     }
 
-    private MessageDocument createMessageDocument(UserInfo userInfo, String content) {
+    // ID 를 미리 정해서 캐시와 저장소의 메시지가 같은 ID 를 갖게 하고, 저장 재시도 시 중복 저장을 막음
+    private MessageDocument createMessageDocument(UserInfo userInfo, String content, long sequence) {
         return MessageDocument.builder()
+                .id(new ObjectId().toHexString())
                 .senderId(userInfo.getUserId())
+                .senderName(userInfo.getName())
                 .chatroomId(userInfo.getChatRoomId())
                 .content(content)
                 .timestamp(LocalDateTime.now())
+                .seq(sequence > 0 ? sequence : null)
                 .build();
     }
 
@@ -121,145 +389,88 @@ public class WebSocketChatHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(
             @NonNull WebSocketSession session,
             @NonNull CloseStatus status) throws Exception {
-        UserInfo userInfo = extractUserInfo(session);
+        UserInfo userInfo = chatRoomRegistry.getMember(session.getId());
 
         if (userInfo != null) {
-            removeUserFromChatRoom(userInfo);
-            notifyUserLeft(userInfo);
+            chatRoomRegistry.leave(userInfo, room -> notifyUserLeft(room, userInfo));
         }
 
         super.afterConnectionClosed(session, status);
     }
 
-    private void removeUserFromChatRoom(UserInfo userInfo) {
-        Set<UserInfo> usersInChatRoom = sessionMap.get(userInfo.getChatRoomId());
-        if (usersInChatRoom != null) {
-            usersInChatRoom.removeIf(user -> user.getUserId().equals(userInfo.getUserId()));
-
-            // 채팅방이 비었다면 맵에서 제거
-            if (usersInChatRoom.isEmpty()) {
-                sessionMap.remove(userInfo.getChatRoomId());
-            }
-        }
-    }
-
-    private void notifyUserLeft(UserInfo userInfo) {
+    private void notifyUserLeft(ChatRoom room, UserInfo userInfo) {
         String leaveMessage = userInfo.getName() + "님이 대화방을 나가셨습니다.";
-        sendSystemMessageToChatRoom(userInfo.getChatRoomId(), leaveMessage);
+        sendSystemMessageToChatRoom(room, leaveMessage);
+        roomBackplane.publish(RoomEvent.system(room.getChatRoomId(), leaveMessage));
     }
 
-    private void sendSystemMessageToChatRoom(Long chatRoomId, String message) {
+    private void sendSystemMessageToChatRoom(ChatRoom room, String message) {
+        ChatFrame frame = ChatFrame.system(room.getChatRoomId(), room.lastSequence(), System.currentTimeMillis(), message);
         try {
-            sendMessageToChatRoom(chatRoomId, message);
+            sendFrameToChatRoom(room, encodeFrame(frame), null);
         } catch (IOException e) {
             logger.error("Failed to send system message: {}", e.getMessage(), e);
         }
     }
 
-    private void sendMessageToChatRoom(Long chatRoomId, String message) throws IOException {
-        Set<UserInfo> users = sessionMap.get(chatRoomId);
-
-        if (users == null || users.isEmpty()) {
-            return;
-        }
-
-        IOException lastException = null;
-
-        for (UserInfo user : users) {
-            try {
-                user.getSession().sendMessage(new TextMessage(message));
-            } catch (IOException e) {
-                logger.warn("Failed to send message to user {}: {}", user.getUserId(), e.getMessage());
-                lastException = e;
-            }
-        }
-
-        // 모든 사용자에게 메시지 전송을 시도한 후, 마지막 예외가 있으면 throw
-        if (lastException != null) {
-            throw lastException;
-        }
+    // 프로토콜별 인코딩을 한 번씩만 하고 같은 프로토콜의 수신자끼리 공유하는 프레임
+    OutboundFrame encodeFrame(ChatFrame frame) {
+        return wireCodec.outbound(frame);
     }
 
-    private void sendMessageToChatRoomExceptSelf(Long chatRoomId, String message, UserInfo sender) throws IOException {
-        Set<UserInfo> users = sessionMap.get(chatRoomId);
-
-        if (users == null || users.isEmpty()) {
+    void sendFrameToChatRoom(ChatRoom room, OutboundFrame frame, String excludedSessionId) throws IOException {
+        if (room.isEmpty()) {
             return;
         }
 
-        String senderId = sender.getSession().getId();
+        long start = System.nanoTime();
         IOException lastException = null;
+        int recipients = 0;
+        // 재전송하는 프레임은 이미 인코딩돼 있으므로, 이번 전송에서 새로 만든 인코딩만 셈
+        int encodedBefore = frame.getEncodings();
 
-        for (UserInfo user : users) {
+        // 메시지가 몰리는 채팅방은 세션별로 잠깐 모아서 한 프레임으로 전송
+        long batchWindowNanos = room.batchWindowNanos(start);
+        boolean catchingUp = room.isCatchingUp();
+
+        for (UserInfo user : room.getMembers()) {
             try {
-                if (!senderId.equals(user.getSession().getId())) {
-                    user.getSession().sendMessage(new TextMessage(message));
+                WebSocketSession session = user.getSession();
+                if (catchingUp && !session.getId().equals(excludedSessionId) && room.hold(session.getId(), frame)) {
+                    continue;
+                }
+                if (!session.getId().equals(excludedSessionId)) {
+                    WebSocketMessage<?> message = frame.forSession(session);
+                    if (batchWindowNanos > 0 && session instanceof OutboundSessionDecorator outbound) {
+                        outbound.sendBatched(message, batchWindowNanos);
+                    } else {
+                        session.sendMessage(message);
+                    }
+                    recipients++;
                 }
             } catch (IOException e) {
                 logger.warn("Failed to send message to user {}: {}", user.getUserId(), e.getMessage());
+                broadcastStats.recordSendFailure();
                 lastException = e;
             }
         }
 
+        broadcastStats.recordBroadcast(frame.getEncodings() - encodedBefore, recipients, System.nanoTime() - start);
+
         // 모든 사용자에게 메시지 전송을 시도한 후, 마지막 예외가 있으면 throw
         if (lastException != null) {
             throw lastException;
         }
     }
 
-    private UserInfo extractUserInfo(WebSocketSession session) {
-        try {
-            // 모든 필수 헤더 한 번에 추출
-            Map<String, String> headers = extractRequiredHeaders(session);
-            if (headers == null) {
-                return null; // extractRequiredHeaders에서 이미 오류 메시지를 보냈음
-            }
-
-            // 숫자 값 파싱
-            Long userId = parseNumericId(session, headers.get("userId"), "userId");
-            Long chatroomId = parseNumericId(session, headers.get("chatroomId"), "chatroomId");
-
-            if (userId == null || chatroomId == null) {
-                return null; // parseNumericId에서 이미 오류 메시지를 보냈음
-            }
-
-            return new UserInfo(headers.get("name"), userId, chatroomId, session);
-
-        } catch (Exception e) {
-            logger.error("WebSocket header processing failed", e);
-            try {
-                sendErrorAndClose(session, "Unexpected server error.");
-            } catch (IOException ioe) {
-                logger.error("Failed to send error message", ioe);
-            }
-            return null;
-        }
-    }
-
-    private Map<String, String> extractRequiredHeaders(WebSocketSession session) throws IOException {
-        String name = session.getHandshakeHeaders().getFirst("name");
-        String userIdString = session.getHandshakeHeaders().getFirst("userId");
-        String chatroomIdString = session.getHandshakeHeaders().getFirst("chatRoomId");
-
-        if (name == null || userIdString == null || chatroomIdString == null) {
-            sendErrorAndClose(session, "Missing required headers.");
-            return null;
-        }
-
-        Map<String, String> headers = new HashMap<>();
-        headers.put("name", name);
-        headers.put("userId", userIdString);
-        headers.put("chatroomId", chatroomIdString);
-        return headers;
+    // 핸드셰이크 인터셉터가 저장한 접속자 정보 (헤더가 잘못됐으면 null)
+    UserInfo extractUserInfo(WebSocketSession session) {
+        return (UserInfo) session.getAttributes().get(UserInfoHandshakeInterceptor.USER_INFO_ATTRIBUTE);
     }
 
-    private Long parseNumericId(WebSocketSession session, String idString, String fieldName) throws IOException {
-        try {
-            return Long.parseLong(idString);
-        } catch (NumberFormatException e) {
-            sendErrorAndClose(session, "Invalid " + fieldName + " format: " + idString);
-            return null;
-        }
+    @PreDestroy
+    public void shutdown() {
+        replayExecutor.shutdownNow();
     }
 
     private void sendErrorAndClose(WebSocketSession session, String errorMessage) throws IOException {
@@ -1,5 +1,6 @@
 package com.messaging.opensource.websocket;
 
+import com.messaging.opensource.websocket.wire.WireHandshakeHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
@@ -12,15 +13,25 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     private final WebSocketChatHandler webSocketChatHandler;
 
+    private final UserInfoHandshakeInterceptor userInfoHandshakeInterceptor;
+
+    private final WireHandshakeHandler wireHandshakeHandler;
+
     @Autowired
-    public WebSocketConfig(WebSocketChatHandler webSocketChatHandler) {
+    public WebSocketConfig(WebSocketChatHandler webSocketChatHandler,
+                           UserInfoHandshakeInterceptor userInfoHandshakeInterceptor,
+                           WireHandshakeHandler wireHandshakeHandler) {
         this.webSocketChatHandler = webSocketChatHandler;
+        this.userInfoHandshakeInterceptor = userInfoHandshakeInterceptor;
+        this.wireHandshakeHandler = wireHandshakeHandler;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry
                 .addHandler(webSocketChatHandler, "/ws-booking-messaging")
+                .setHandshakeHandler(wireHandshakeHandler)
+                .addInterceptors(userInfoHandshakeInterceptor)
                 .setAllowedOrigins("*");
     }
 }
@@ -0,0 +1,71 @@
+package com.messaging.opensource.websocket;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket 경로의 Micrometer 지표.
+ * 이미 집계 중인 통계({@link ChatRoomRegistry}, {@link BroadcastStats}, {@link OutboundDispatcher})를 조회 시점에 읽어서 내보낸다.
+ * fan-out 시간과 채팅방 크기 분포는 {@link BroadcastStats} 가 직접 기록한다.
+ */
+@Component
+public class WebSocketMetrics implements MeterBinder {
+
+    private final ChatRoomRegistry chatRoomRegistry;
+
+    private final BroadcastStats broadcastStats;
+
+    private final OutboundDispatcher outboundDispatcher;
+
+    @Autowired
+    public WebSocketMetrics(ChatRoomRegistry chatRoomRegistry,
+                            BroadcastStats broadcastStats,
+                            OutboundDispatcher outboundDispatcher) {
+        this.chatRoomRegistry = chatRoomRegistry;
+        this.broadcastStats = broadcastStats;
+        this.outboundDispatcher = outboundDispatcher;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("messaging.websocket.sessions", chatRoomRegistry, ChatRoomRegistry::getSessionCount)
+                .description("WebSocket sessions joined to a chat room on this node")
+                .register(registry);
+        Gauge.builder("messaging.websocket.rooms", chatRoomRegistry, ChatRoomRegistry::getRoomCount)
+                .description("Chat rooms with at least one session on this node")
+                .register(registry);
+
+        FunctionCounter.builder("messaging.websocket.broadcasts", broadcastStats, BroadcastStats::getBroadcasts)
+                .register(registry);
+        FunctionCounter.builder("messaging.websocket.deliveries", broadcastStats, BroadcastStats::getDeliveries)
+                .description("Frames handed to recipient sessions")
+                .register(registry);
+        FunctionCounter.builder("messaging.websocket.send.failures", this,
+                        metrics -> broadcastStats.getSendFailures() + outboundDispatcher.getSendFailures())
+                .description("Frames that failed to send to a session")
+                .register(registry);
+
+        FunctionCounter.builder("messaging.websocket.outbound.dropped", outboundDispatcher, OutboundDispatcher::getDropped)
+                .description("Frames dropped from full per-session outbound queues")
+                .register(registry);
+        FunctionCounter.builder("messaging.websocket.outbound.coalesced", outboundDispatcher, OutboundDispatcher::getCoalesced)
+                .register(registry);
+        FunctionCounter.builder("messaging.websocket.outbound.batches", outboundDispatcher, OutboundDispatcher::getBatches)
+                .description("Frames sent as a batch of several messages in busy rooms")
+                .register(registry);
+        FunctionCounter.builder("messaging.websocket.outbound.batched", outboundDispatcher, OutboundDispatcher::getBatchedFrames)
+                .description("Messages delivered inside batched frames")
+                .register(registry);
+        FunctionCounter.builder("messaging.websocket.outbound.disconnects", outboundDispatcher, OutboundDispatcher::getDisconnects)
+                .description("Sessions disconnected as slow consumers")
+                .register(registry);
+        Gauge.builder("messaging.websocket.outbound.high.water.mark", outboundDispatcher, OutboundDispatcher::getHighWaterMark)
+                .description("Largest per-session outbound queue seen since startup")
+                .register(registry);
+    }
+}
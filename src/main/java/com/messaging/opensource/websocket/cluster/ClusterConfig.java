@@ -0,0 +1,55 @@
+package com.messaging.opensource.websocket.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+@Configuration
+public class ClusterConfig {
+
+    // 단일 노드 모드 (기본값)
+    @Bean
+    @ConditionalOnProperty(prefix = "messaging.cluster", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public RoomBackplane noopRoomBackplane() {
+        return new NoopRoomBackplane();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "messaging.cluster", name = "enabled", havingValue = "true")
+    static class RedisBackplaneConfig {
+
+        @Bean
+        public RedisTemplate<String, byte[]> roomEventRedisTemplate(RedisConnectionFactory connectionFactory) {
+            RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.setKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(RedisSerializer.byteArray());
+            return template;
+        }
+
+        @Bean
+        public RedisMessageListenerContainer roomEventListenerContainer(RedisConnectionFactory connectionFactory) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            return container;
+        }
+
+        @Bean
+        public ClusterTransport redisClusterTransport(RedisTemplate<String, byte[]> roomEventRedisTemplate,
+                                                      RedisMessageListenerContainer roomEventListenerContainer) {
+            return new RedisClusterTransport(roomEventRedisTemplate, roomEventListenerContainer);
+        }
+
+        @Bean
+        public ClusterRoomBackplane clusterRoomBackplane(ClusterTransport clusterTransport,
+                                                         ObjectMapper objectMapper,
+                                                         ClusterProperties clusterProperties) {
+            return new ClusterRoomBackplane(clusterTransport, objectMapper, clusterProperties);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.messaging.opensource.websocket.cluster;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.cluster")
+public class ClusterProperties {
+
+    // true 이면 Redis pub/sub 으로 다른 노드의 같은 채팅방에 메시지를 전달
+    private boolean enabled = false;
+
+    // 노드 식별자 (자기 자신이 publish 한 이벤트를 무시하는 데 사용)
+    private String nodeId = UUID.randomUUID().toString();
+
+    // 채팅방별 채널 이름 접두사 (채널 = prefix + chatRoomId)
+    private String channelPrefix = "chat:room:";
+
+    // 한 번에 publish 할 최대 이벤트 수
+    private int publishBatchSize = 100;
+
+    // 배치가 다 차지 않아도 publish 하는 최대 대기 시간
+    private Duration publishInterval = Duration.ofMillis(5);
+
+    // publish 대기 큐 최대 크기. 가득 차면 새 이벤트는 버리고 dropped 카운트만 증가
+    private int pendingCapacity = 10_000;
+}
@@ -0,0 +1,202 @@
+package com.messaging.opensource.websocket.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ClusterTransport} 위에서 동작하는 채팅방 백플레인.
+ * 이벤트는 전용 publisher 스레드가 크기/시간 단위로 모아 채팅방 채널별로 한 번에 publish 하고,
+ * 구독은 로컬 접속자가 있는 채팅방에 대해서만 유지한다.
+ * 대기 큐는 pending-capacity 로 제한되어, 전송 계층이 느려져도 메모리가 계속 늘지 않고 넘치는 이벤트는 버린다.
+ */
+public class ClusterRoomBackplane implements RoomBackplane, SmartLifecycle, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRoomBackplane.class);
+
+    private final ClusterTransport transport;
+    private final ObjectMapper objectMapper;
+    private final ClusterProperties properties;
+    private final BlockingQueue<RoomEvent> pending;
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile RoomEventListener listener;
+    private volatile boolean running;
+    private Thread publisherThread;
+
+    public ClusterRoomBackplane(ClusterTransport transport, ObjectMapper objectMapper, ClusterProperties properties) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.pending = new ArrayBlockingQueue<>(properties.getPendingCapacity());
+    }
+
+    // 대기 큐가 가득 차면 버림 (호출하는 채팅방 루프를 막지 않음)
+    @Override
+    public void publish(RoomEvent event) {
+        if (!pending.offer(event)) {
+            dropped.increment();
+            long count = dropped.sum();
+            if (count == 1 || count % 1000 == 0) {
+                logger.warn("Room backplane queue is full, {} events dropped so far", count);
+            }
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("messaging.cluster.backplane.pending", pending, BlockingQueue::size)
+                .description("Room events waiting to be published to other nodes")
+                .register(registry);
+        FunctionCounter.builder("messaging.cluster.backplane.dropped", dropped, LongAdder::sum)
+                .description("Room events dropped because the publish queue was full")
+                .register(registry);
+    }
+
+    @Override
+    public void roomActivated(Long chatRoomId) {
+        transport.subscribe(channelOf(chatRoomId), this::onMessage);
+    }
+
+    @Override
+    public void roomDeactivated(Long chatRoomId) {
+        transport.unsubscribe(channelOf(chatRoomId));
+    }
+
+    @Override
+    public void setListener(RoomEventListener listener) {
+        this.listener = listener;
+    }
+
+    private String channelOf(Long chatRoomId) {
+        return properties.getChannelPrefix() + chatRoomId;
+    }
+
+    private void onMessage(byte[] body) {
+        RoomEventBatch batch;
+        try {
+            batch = objectMapper.readValue(body, RoomEventBatch.class);
+        } catch (IOException e) {
+            logger.warn("Failed to decode room event batch: {}", e.getMessage());
+            return;
+        }
+
+        // 자기 자신이 publish 한 이벤트는 이미 로컬에 전달했으므로 무시
+        RoomEventListener currentListener = listener;
+        if (properties.getNodeId().equals(batch.originNodeId()) || currentListener == null) {
+            return;
+        }
+
+        for (RoomEvent event : batch.events()) {
+            currentListener.onRemoteEvent(event);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        publisherThread = new Thread(this::runPublisher, "room-backplane-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (publisherThread != null) {
+            try {
+                publisherThread.join(properties.getPublishInterval().toMillis() * 10 + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runPublisher() {
+        List<RoomEvent> batch = new ArrayList<>(properties.getPublishBatchSize());
+
+        while (running || !pending.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            publishBatch(batch);
+        }
+    }
+
+    private void collectBatch(List<RoomEvent> batch) throws InterruptedException {
+        long intervalNanos = properties.getPublishInterval().toNanos();
+
+        RoomEvent first = pending.poll(intervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + intervalNanos;
+        while (batch.size() < properties.getPublishBatchSize()) {
+            if (pending.drainTo(batch, properties.getPublishBatchSize() - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            RoomEvent next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    // 채팅방별로 묶어서 채널마다 한 번씩 publish (방 안의 순서는 유지)
+    private void publishBatch(List<RoomEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<RoomEvent>> eventsByRoom = new LinkedHashMap<>();
+        for (RoomEvent event : batch) {
+            eventsByRoom.computeIfAbsent(event.chatRoomId(), key -> new ArrayList<>()).add(event);
+        }
+        batch.clear();
+
+        for (Map.Entry<Long, List<RoomEvent>> entry : eventsByRoom.entrySet()) {
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(new RoomEventBatch(properties.getNodeId(), entry.getValue()));
+                transport.publish(channelOf(entry.getKey()), body);
+            } catch (Exception e) {
+                logger.error("Failed to publish {} events for chat room {}: {}",
+                        entry.getValue().size(), entry.getKey(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.messaging.opensource.websocket.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * 채널 단위 pub/sub 전송 계층. 운영에서는 Redis, 테스트에서는 같은 JVM 안의 메모리 전송 계층을 사용한다.
+ */
+public interface ClusterTransport {
+
+    void publish(String channel, byte[] payload);
+
+    void subscribe(String channel, Consumer<byte[]> consumer);
+
+    void unsubscribe(String channel);
+}
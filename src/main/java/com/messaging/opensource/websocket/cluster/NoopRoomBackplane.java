@@ -0,0 +1,21 @@
+package com.messaging.opensource.websocket.cluster;
+
+// 단일 노드 모드 - 다른 노드가 없으므로 아무 것도 하지 않음
+public class NoopRoomBackplane implements RoomBackplane {
+
+    @Override
+    public void publish(RoomEvent event) {
+    }
+
+    @Override
+    public void roomActivated(Long chatRoomId) {
+    }
+
+    @Override
+    public void roomDeactivated(Long chatRoomId) {
+    }
+
+    @Override
+    public void setListener(RoomEventListener listener) {
+    }
+}
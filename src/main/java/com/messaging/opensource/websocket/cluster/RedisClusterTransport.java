@@ -0,0 +1,49 @@
+package com.messaging.opensource.websocket.cluster;
+
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Redis pub/sub 기반 전송 계층
+public class RedisClusterTransport implements ClusterTransport {
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // Key - channel
+    private final Map<String, MessageListener> listeners = new ConcurrentHashMap<>();
+
+    public RedisClusterTransport(RedisTemplate<String, byte[]> redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @Override
+    public void publish(String channel, byte[] payload) {
+        redisTemplate.convertAndSend(channel, payload);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> consumer) {
+        MessageListener listener = (message, pattern) -> consumer.accept(message.getBody());
+        MessageListener previous = listeners.put(channel, listener);
+        if (previous != null) {
+            listenerContainer.removeMessageListener(previous, new ChannelTopic(channel));
+        }
+        listenerContainer.addMessageListener(listener, new ChannelTopic(channel));
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        MessageListener listener = listeners.remove(channel);
+        if (listener != null) {
+            listenerContainer.removeMessageListener(listener, new ChannelTopic(channel));
+        }
+    }
+}
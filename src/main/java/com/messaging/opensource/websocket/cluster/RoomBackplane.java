@@ -0,0 +1,32 @@
+package com.messaging.opensource.websocket.cluster;
+
+/**
+ * 여러 노드에 흩어진 같은 채팅방의 접속자에게 이벤트를 전달하는 백플레인.
+ * 각 노드는 로컬 세션에는 직접 전송하고, 다른 노드로는 이 인터페이스를 통해 publish 한다.
+ */
+public interface RoomBackplane {
+
+    /**
+     * 다른 노드로 이벤트 전달
+     * @param event 채팅방 이벤트
+     */
+    void publish(RoomEvent event);
+
+    /**
+     * 이 노드에 채팅방의 첫 접속자가 생겼을 때 호출 - 채팅방 채널 구독
+     * @param chatRoomId 채팅방 ID
+     */
+    void roomActivated(Long chatRoomId);
+
+    /**
+     * 이 노드에서 채팅방의 마지막 접속자가 나갔을 때 호출 - 채팅방 채널 구독 해제
+     * @param chatRoomId 채팅방 ID
+     */
+    void roomDeactivated(Long chatRoomId);
+
+    /**
+     * 다른 노드에서 온 이벤트를 받을 리스너 등록
+     * @param listener 리스너
+     */
+    void setListener(RoomEventListener listener);
+}
@@ -0,0 +1,25 @@
+package com.messaging.opensource.websocket.cluster;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+
+// 노드 간에 전달되는 채팅방 이벤트. payload 는 텍스트 프로토콜 형식의 문자열,
+// message 와 senderName 은 CHAT 의 원본 메시지와 보낸 사람 이름 (다른 노드의 최근 메시지 캐시와 바이너리 프레임용)
+public record RoomEvent(Type type, Long chatRoomId, String senderSessionId, String senderName, String payload,
+                        MessageDocument message) {
+
+    public enum Type {
+        // 사용자 메시지 (보낸 세션 제외)
+        CHAT,
+        // 입장/퇴장 등 시스템 메시지 (전체 전송)
+        SYSTEM
+    }
+
+    public static RoomEvent chat(Long chatRoomId, String senderSessionId, String senderName, String payload,
+                                 MessageDocument message) {
+        return new RoomEvent(Type.CHAT, chatRoomId, senderSessionId, senderName, payload, message);
+    }
+
+    public static RoomEvent system(Long chatRoomId, String payload) {
+        return new RoomEvent(Type.SYSTEM, chatRoomId, null, null, payload, null);
+    }
+}
@@ -0,0 +1,7 @@
+package com.messaging.opensource.websocket.cluster;
+
+import java.util.List;
+
+// 한 채널로 한 번에 publish 되는 이벤트 묶음
+public record RoomEventBatch(String originNodeId, List<RoomEvent> events) {
+}
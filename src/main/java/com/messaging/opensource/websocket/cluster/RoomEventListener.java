@@ -0,0 +1,7 @@
+package com.messaging.opensource.websocket.cluster;
+
+// 다른 노드에서 온 채팅방 이벤트를 로컬 세션에 전달하는 리스너
+public interface RoomEventListener {
+
+    void onRemoteEvent(RoomEvent event);
+}
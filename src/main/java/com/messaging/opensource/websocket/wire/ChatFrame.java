@@ -0,0 +1,41 @@
+package com.messaging.opensource.websocket.wire;
+
+/**
+ * 채팅방에 전달되는 메시지 한 건. 수신 세션의 프로토콜에 따라 텍스트 또는 바이너리 프레임으로 인코딩된다.
+ *
+ * @param sequence 채팅 메시지는 채팅방 메시지 순번 (순번이 없으면 0), 시스템 메시지는 직전 채팅 메시지 순번
+ * @param timestamp epoch millis
+ */
+public record ChatFrame(Type type,
+                        long senderId,
+                        String senderName,
+                        long chatRoomId,
+                        long sequence,
+                        long timestamp,
+                        String content) {
+
+    public enum Type {
+        CHAT(1),
+        SYSTEM(2);
+
+        final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+    }
+
+    public static ChatFrame chat(long senderId, String senderName, long chatRoomId, long sequence, long timestamp,
+                                 String content) {
+        return new ChatFrame(Type.CHAT, senderId, senderName, chatRoomId, sequence, timestamp, content);
+    }
+
+    public static ChatFrame system(long chatRoomId, long sequence, long timestamp, String content) {
+        return new ChatFrame(Type.SYSTEM, 0, null, chatRoomId, sequence, timestamp, content);
+    }
+
+    // 기존 텍스트 프로토콜 형식 ("이름 : 내용", 시스템 메시지는 내용만)
+    public String toText() {
+        return type == Type.CHAT ? senderName + " : " + content : content;
+    }
+}
@@ -0,0 +1,70 @@
+package com.messaging.opensource.websocket.wire;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 브로드캐스트 한 번에 쓰는 프레임. 텍스트/바이너리 형식은 처음 필요할 때 한 번만 인코딩하고 같은 프로토콜의 수신자끼리 공유한다.
+ * 채팅방 루프 스레드에서만 사용한다.
+ */
+public class OutboundFrame {
+
+    private final WireCodec codec;
+    private final ChatFrame frame;
+
+    private TextMessage text;
+    private byte[] binary;
+    private byte[] uncompressedBinary;
+
+    // 지금까지 만든 인코딩 수 (형식별로 최대 한 번)
+    private int encodings;
+
+    OutboundFrame(WireCodec codec, ChatFrame frame) {
+        this.codec = codec;
+        this.frame = frame;
+    }
+
+    public ChatFrame getFrame() {
+        return frame;
+    }
+
+    public int getEncodings() {
+        return encodings;
+    }
+
+    // 세션이 협상한 프로토콜에 맞는 프레임
+    public WebSocketMessage<?> forSession(WebSocketSession session) {
+        WebSocketMessage<?> message = switch (WireProtocol.of(session)) {
+            case TEXT -> text();
+            case BINARY -> binary(!codec.isTransportCompressed(session));
+        };
+        codec.recordSent(message);
+        return message;
+    }
+
+    public TextMessage text() {
+        if (text == null) {
+            text = codec.encodeText(frame);
+            encodings++;
+        }
+        return text;
+    }
+
+    // 전송 시 ByteBuffer 의 position 이 움직이므로, 인코딩 결과는 공유하되 메시지는 수신자마다 새로 감쌈
+    public BinaryMessage binary(boolean allowCompression) {
+        if (allowCompression) {
+            if (binary == null) {
+                binary = codec.encodeBinary(frame, true);
+                encodings++;
+            }
+            return new BinaryMessage(binary);
+        }
+        if (uncompressedBinary == null) {
+            uncompressedBinary = codec.encodeBinary(frame, false);
+            encodings++;
+        }
+        return new BinaryMessage(uncompressedBinary);
+    }
+}
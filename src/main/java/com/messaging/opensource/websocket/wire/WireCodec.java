@@ -0,0 +1,362 @@
+package com.messaging.opensource.websocket.wire;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 텍스트/바이너리 프레임 인코딩과 프로토콜별 전송량 통계.
+ *
+ * <p>chat.binary.v1 서버 → 클라이언트 프레임 (varint 는 unsigned LEB128):
+ * <pre>
+ * u8     type       1 = CHAT, 2 = SYSTEM
+ * u8     flags      0x01 = content 가 raw deflate 로 압축됨
+ * varint senderId   SYSTEM 이면 0
+ * varint chatRoomId
+ * varint sequence
+ * varint timestamp  epoch millis
+ * varint nameLength + UTF-8 name (SYSTEM 이면 0)
+ * bytes  content    UTF-8, 프레임 끝까지
+ * </pre>
+ * 여러 프레임을 한 번에 보낼 때는 type 3 (BATCH), flags 0 뒤에 (varint 길이 + 위 형식의 프레임) 을 반복한다.
+ * 배치 전송은 이 서브프로토콜을 협상한 세션에만 하고, 텍스트 세션에는 프레임을 하나씩 보낸다.
+ * 텍스트 프레임을 줄바꿈으로 이어 붙이는 것은 COALESCE 넘침 정책을 설정한 경우뿐이다.
+ * 클라이언트 → 서버 프레임은 type(1 = CHAT), flags, content 만 보낸다.
+ * 읽음 확인은 type 4 (ACK), flags 0, varint 읽은 순번이다. 텍스트 프로토콜에서는 ASCII ACK 문자(0x06) 뒤에 10진수 순번을 쓴다.
+ */
+@Component
+public class WireCodec implements MeterBinder {
+
+    static final int FLAG_DEFLATED = 0x01;
+    static final int TYPE_BATCH = 3;
+    static final int TYPE_ACK = 4;
+    static final char TEXT_ACK = '\u0006';
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    private static final byte[] EMPTY = new byte[0];
+
+    // 압축은 채팅방 루프(플랫폼 스레드)에서 하므로 스레드별로 재사용
+    private static final ThreadLocal<Deflater> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+
+    private final WireProperties properties;
+
+    private final LongAdder[] frames = newAdders();
+    private final LongAdder[] bytes = newAdders();
+    private final LongAdder[] encodes = newAdders();
+    private final LongAdder[] encodeNanos = newAdders();
+    private final LongAdder compressed = new LongAdder();
+
+    @Autowired
+    public WireCodec(WireProperties properties) {
+        this.properties = properties;
+    }
+
+    public OutboundFrame outbound(ChatFrame frame) {
+        return new OutboundFrame(this, frame);
+    }
+
+    TextMessage encodeText(ChatFrame frame) {
+        long start = System.nanoTime();
+        TextMessage message = new TextMessage(frame.toText().getBytes(StandardCharsets.UTF_8));
+        recordEncode(WireProtocol.TEXT, start);
+        return message;
+    }
+
+    byte[] encodeBinary(ChatFrame frame, boolean allowCompression) {
+        long start = System.nanoTime();
+        byte[] name = frame.senderName() == null ? EMPTY : frame.senderName().getBytes(StandardCharsets.UTF_8);
+        byte[] content = frame.content().getBytes(StandardCharsets.UTF_8);
+        int flags = 0;
+
+        int threshold = properties.getCompressionThreshold();
+        if (allowCompression && threshold > 0 && content.length >= threshold) {
+            byte[] deflated = deflate(content);
+            if (deflated.length < content.length) {
+                content = deflated;
+                flags |= FLAG_DEFLATED;
+                compressed.increment();
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 4 * 10 + 5 + name.length + content.length);
+        buffer.put((byte) frame.type().code).put((byte) flags);
+        putVarint(buffer, frame.senderId());
+        putVarint(buffer, frame.chatRoomId());
+        putVarint(buffer, frame.sequence());
+        putVarint(buffer, frame.timestamp());
+        putVarint(buffer, name.length);
+        buffer.put(name).put(content);
+
+        byte[] encoded = Arrays.copyOf(buffer.array(), buffer.position());
+        recordEncode(WireProtocol.BINARY, start);
+        return encoded;
+    }
+
+    // 여러 프레임을 하나로 합침. 텍스트와 바이너리가 섞여 있으면 null
+    public WebSocketMessage<?> merge(List<? extends WebSocketMessage<?>> messages) {
+        if (messages.isEmpty()) {
+            return null;
+        }
+        if (messages.size() == 1) {
+            return messages.get(0);
+        }
+        if (messages.stream().allMatch(TextMessage.class::isInstance)) {
+            StringBuilder builder = new StringBuilder();
+            for (WebSocketMessage<?> message : messages) {
+                if (!builder.isEmpty()) {
+                    builder.append('\n');
+                }
+                builder.append(((TextMessage) message).getPayload());
+            }
+            return new TextMessage(builder);
+        }
+        if (messages.stream().allMatch(BinaryMessage.class::isInstance)) {
+            int capacity = 2;
+            for (WebSocketMessage<?> message : messages) {
+                capacity += 5 + message.getPayloadLength();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(capacity);
+            buffer.put((byte) TYPE_BATCH).put((byte) 0);
+            for (WebSocketMessage<?> message : messages) {
+                ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+                putVarint(buffer, payload.remaining());
+                buffer.put(payload);
+            }
+            return new BinaryMessage(Arrays.copyOf(buffer.array(), buffer.position()));
+        }
+        return null;
+    }
+
+    // 서버 → 클라이언트 프레임 해석. BATCH 프레임이면 안에 든 프레임을 순서대로 모두 반환 (테스트와 부하 테스트 클라이언트용)
+    public List<ChatFrame> decodeAll(ByteBuffer payload) {
+        List<ChatFrame> frames = new ArrayList<>();
+        collectFrames(payload.duplicate(), frames);
+        return frames;
+    }
+
+    private void collectFrames(ByteBuffer buffer, List<ChatFrame> frames) {
+        if ((buffer.get(buffer.position()) & 0xFF) != TYPE_BATCH) {
+            frames.add(decode(buffer));
+            return;
+        }
+        buffer.position(buffer.position() + 2);
+        while (buffer.hasRemaining()) {
+            int length = (int) getVarint(buffer);
+            ByteBuffer frame = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            collectFrames(frame, frames);
+        }
+    }
+
+    // 서버 → 클라이언트 프레임 하나 해석 (테스트와 부하 테스트 클라이언트용)
+    public ChatFrame decode(ByteBuffer payload) {
+        ByteBuffer buffer = payload.duplicate();
+        int typeCode = buffer.get() & 0xFF;
+        int flags = buffer.get() & 0xFF;
+        long senderId = getVarint(buffer);
+        long chatRoomId = getVarint(buffer);
+        long sequence = getVarint(buffer);
+        long timestamp = getVarint(buffer);
+        byte[] name = new byte[(int) getVarint(buffer)];
+        buffer.get(name);
+        String content = readContent(buffer, flags);
+
+        if (typeCode == ChatFrame.Type.SYSTEM.code) {
+            return ChatFrame.system(chatRoomId, sequence, timestamp, content);
+        }
+        return ChatFrame.chat(senderId, new String(name, StandardCharsets.UTF_8), chatRoomId, sequence, timestamp, content);
+    }
+
+    // 클라이언트 → 서버 프레임에서 메시지 본문을 꺼냄. 형식이 잘못됐으면 IllegalArgumentException
+    public String decodeInbound(BinaryMessage message) {
+        ByteBuffer buffer = message.getPayload().duplicate();
+        if (buffer.remaining() < 2) {
+            throw new IllegalArgumentException("Binary frame is too short");
+        }
+        int typeCode = buffer.get() & 0xFF;
+        int flags = buffer.get() & 0xFF;
+        if (typeCode != ChatFrame.Type.CHAT.code) {
+            throw new IllegalArgumentException("Unsupported frame type: " + typeCode);
+        }
+        return readContent(buffer, flags);
+    }
+
+    // 읽음 확인 프레임이면 읽은 순번, 아니면 -1. 순번이 잘못됐으면 IllegalArgumentException
+    public long decodeAck(BinaryMessage message) {
+        ByteBuffer buffer = message.getPayload().duplicate();
+        if (buffer.remaining() < 2 || (buffer.get() & 0xFF) != TYPE_ACK) {
+            return -1;
+        }
+        buffer.get();
+        try {
+            return getVarint(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Ack frame is too short");
+        }
+    }
+
+    // 텍스트 프로토콜의 읽음 확인이면 읽은 순번, 아니면 -1 (일반 채팅 메시지는 ACK 문자로 시작하지 않음)
+    public long decodeAck(TextMessage message) {
+        String payload = message.getPayload();
+        if (payload.isEmpty() || payload.charAt(0) != TEXT_ACK) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(payload.substring(1).trim());
+            if (sequence < 0) {
+                throw new NumberFormatException();
+            }
+            return sequence;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ack sequence: " + payload.substring(1));
+        }
+    }
+
+    private String readContent(ByteBuffer buffer, int flags) {
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        if ((flags & FLAG_DEFLATED) != 0) {
+            content = inflate(content, properties.getMaxInboundContentBytes());
+        } else if (content.length > properties.getMaxInboundContentBytes()) {
+            throw new IllegalArgumentException("Message content is too large: " + content.length + " bytes");
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    // permessage-deflate 가 협상된 세션은 전송 계층에서 압축되므로 프레임 안에서 다시 압축하지 않음
+    boolean isTransportCompressed(WebSocketSession session) {
+        for (WebSocketExtension extension : session.getExtensions()) {
+            if (PERMESSAGE_DEFLATE.equals(extension.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void recordSent(WebSocketMessage<?> message) {
+        WireProtocol protocol = message instanceof BinaryMessage ? WireProtocol.BINARY : WireProtocol.TEXT;
+        frames[protocol.ordinal()].increment();
+        bytes[protocol.ordinal()].add(message.getPayloadLength());
+    }
+
+    private void recordEncode(WireProtocol protocol, long startNanos) {
+        encodes[protocol.ordinal()].increment();
+        encodeNanos[protocol.ordinal()].add(System.nanoTime() - startNanos);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 16);
+        byte[] chunk = new byte[Math.max(64, Math.min(input.length, 8192))];
+        while (!deflater.finished()) {
+            output.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] input, int maxBytes) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.min(maxBytes, input.length * 4));
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(chunk);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated deflate content");
+                }
+                if (output.size() + count > maxBytes) {
+                    throw new IllegalArgumentException("Message content is too large");
+                }
+                output.write(chunk, 0, count);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid deflate content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[WireProtocol.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    // 프로토콜별 메시지당 바이트(bytes / frames)와 인코딩 CPU 시간을 비교할 수 있게 내보냄
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (WireProtocol protocol : WireProtocol.values()) {
+            String tag = protocol.name().toLowerCase();
+            int index = protocol.ordinal();
+            FunctionCounter.builder("messaging.websocket.wire.frames", frames[index], LongAdder::sum)
+                    .tag("protocol", tag)
+                    .description("Frames handed to sessions")
+                    .register(registry);
+            FunctionCounter.builder("messaging.websocket.wire.bytes", bytes[index], LongAdder::sum)
+                    .tag("protocol", tag)
+                    .baseUnit("bytes")
+                    .description("Frame payload bytes handed to sessions, before permessage-deflate")
+                    .register(registry);
+            FunctionTimer.builder("messaging.websocket.wire.encode", this,
+                            codec -> codec.encodes[index].sum(),
+                            codec -> codec.encodeNanos[index].sum(),
+                            TimeUnit.NANOSECONDS)
+                    .tag("protocol", tag)
+                    .description("Frame encoding time, once per broadcast and protocol")
+                    .register(registry);
+        }
+        FunctionCounter.builder("messaging.websocket.wire.compressed", compressed, LongAdder::sum)
+                .description("Binary frames whose content was deflated in-frame")
+                .register(registry);
+    }
+}
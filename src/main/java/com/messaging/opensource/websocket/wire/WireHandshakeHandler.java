@@ -0,0 +1,44 @@
+package com.messaging.opensource.websocket.wire;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
+
+/**
+ * 바이너리 서브프로토콜과 permessage-deflate 협상 설정을 적용하는 핸드셰이크 핸들러.
+ * 서브프로토콜을 요청하지 않은 클라이언트는 기존 텍스트 프로토콜을 그대로 사용한다.
+ */
+@Component
+public class WireHandshakeHandler extends DefaultHandshakeHandler {
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final WireProperties properties;
+
+    @Autowired
+    public WireHandshakeHandler(WireProperties properties) {
+        this.properties = properties;
+        if (properties.isBinaryEnabled()) {
+            setSupportedProtocols(WireProtocol.BINARY_SUBPROTOCOL);
+        }
+    }
+
+    @Override
+    @NonNull
+    protected List<WebSocketExtension> filterRequestedExtensions(@NonNull ServerHttpRequest request,
+                                                                 @NonNull List<WebSocketExtension> requestedExtensions,
+                                                                 @NonNull List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (properties.isPermessageDeflate()) {
+            return extensions;
+        }
+        return extensions.stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equals(extension.getName()))
+                .toList();
+    }
+}
@@ -0,0 +1,24 @@
+package com.messaging.opensource.websocket.wire;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "messaging.wire")
+public class WireProperties {
+
+    // 바이너리 서브프로토콜(chat.binary.v1) 협상 허용 여부. 요청하지 않은 클라이언트는 항상 텍스트 프로토콜
+    private boolean binaryEnabled = true;
+
+    // 바이너리 프레임에서 본문이 이 크기(bytes) 이상이면 프레임 안에서 deflate 압축. 0 이하이면 압축하지 않음
+    // permessage-deflate 가 협상된 세션은 전송 계층에서 압축되므로 프레임 안에서는 압축하지 않음
+    private int compressionThreshold = 512;
+
+    // 표준 permessage-deflate 확장 협상 허용 여부 (텍스트/바이너리 모든 프레임에 적용)
+    private boolean permessageDeflate = true;
+
+    // 클라이언트가 보낸 바이너리 프레임 본문의 최대 크기 (압축 해제 후, bytes)
+    private int maxInboundContentBytes = 64 * 1024;
+}
@@ -0,0 +1,22 @@
+package com.messaging.opensource.websocket.wire;
+
+import org.springframework.web.socket.WebSocketSession;
+
+public enum WireProtocol {
+
+    // 기존 "이름 : 내용" 텍스트 프레임
+    TEXT,
+    // chat.binary.v1 서브프로토콜의 바이너리 프레임 ({@link WireCodec} 참고)
+    BINARY;
+
+    public static final String BINARY_SUBPROTOCOL = "chat.binary.v1";
+
+    public static WireProtocol of(WebSocketSession session) {
+        return BINARY_SUBPROTOCOL.equals(session.getAcceptedProtocol()) ? BINARY : TEXT;
+    }
+
+    // 여러 프레임을 합친 BATCH 프레임을 해석할 수 있는지. 서브프로토콜을 협상하지 않은 텍스트 클라이언트는 프레임마다 메시지 하나로 읽음
+    public boolean supportsBatching() {
+        return this == BINARY;
+    }
+}
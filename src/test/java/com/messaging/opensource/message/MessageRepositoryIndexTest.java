@@ -0,0 +1,286 @@
+package com.messaging.opensource.message;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MessageRepository 의 모든 쿼리가 인덱스를 타는지 검증한다.
+ * 각 메서드가 실제로 보낸 명령을 가로채서, 필터가 제한하는 필드로 시작하는 선언된 인덱스가 없으면(COLLSCAN 이 되는 형태) 실패한다.
+ * 기본으로 내장 Mongo(mongo-java-server) 에서 실행하므로 항상 빌드에 포함된다.
+ * MESSAGING_TEST_MONGODB_URI 로 실제 Mongo 를 지정하면 각 명령의 explain 도 실행해서 winning plan 에 COLLSCAN 이 없는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class MessageRepositoryIndexTest {
+
+    private static final Set<String> EXPLAINABLE_COMMANDS = Set.of("find", "count", "aggregate", "delete");
+
+    private static final String EXTERNAL_MONGODB_URI = System.getenv("MESSAGING_TEST_MONGODB_URI");
+
+    private static MongoServer mongoServer;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageIndexInitializer messageIndexInitializer;
+
+    @Autowired
+    private CapturingCommandListener commandListener;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> {
+            if (EXTERNAL_MONGODB_URI != null) {
+                return EXTERNAL_MONGODB_URI;
+            }
+            mongoServer = new MongoServer(new MemoryBackend());
+            return mongoServer.bindAndGetConnectionString() + "/message_index_test";
+        });
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        if (mongoServer != null) {
+            mongoServer.shutdownNow();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 컬렉션을 지우면 기동 시 비동기로 도는 인덱스 생성과 겹칠 수 있으므로 문서만 지움
+        mongoTemplate.remove(new Query(), MessageDocument.class);
+        messageIndexInitializer.ensureIndexes();
+
+        List<MessageDocument> messages = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 200; i++) {
+            messages.add(MessageDocument.builder()
+                    .chatroomId((long) (i % 5))
+                    .senderId((long) (i % 7))
+                    .content("message " + i)
+                    .timestamp(base.plusSeconds(i))
+                    .seq((long) (i / 5 + 1))
+                    .build());
+        }
+        messageRepository.insert(messages);
+        commandListener.clear();
+    }
+
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 0, 1);
+
+        messageRepository.findByChatroomIdOrderByTimestampAsc(1L);
+        messageRepository.findByChatroomIdOrderByTimestampDesc(1L);
+        messageRepository.findByChatroomIdOrderByTimestampDesc(1L, PageRequest.of(0, 100));
+        messageRepository.findByChatroomIdAndTimestampAfter(1L, timestamp);
+        messageRepository.findByChatroomIdAndTimestampBeforeOrderByTimestampDesc(1L, timestamp);
+        messageRepository.findBySenderIdAndChatroomId(2L, 1L);
+        messageRepository.countByChatroomId(1L);
+        messageRepository.findBySenderId(2L);
+        messageRepository.findByChatroomIdAndContentContaining(1L, "message");
+        messageRepository.findByChatroomIdAndContentContaining(1L, "message",
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "timestamp")));
+        messageRepository.findTopByChatroomIdOrderByTimestampDesc(1L);
+        messageRepository.deleteByChatroomIdAndSenderId(1L, 2L);
+        try (Stream<MessageDocument> stream = messageRepository.streamByChatroomIdOrderByTimestampAsc(1L)) {
+            stream.forEach(message -> { });
+        }
+
+        MessageCursor cursor = new MessageCursor(timestamp, "000000000000000000000000", MessageCursor.Direction.NEXT);
+        MessageCursor previous = new MessageCursor(timestamp, "000000000000000000000000", MessageCursor.Direction.PREVIOUS);
+        messageRepository.findPage(new MessagePageQuery(1L, null, Sort.Direction.ASC, null, 20));
+        messageRepository.findPage(new MessagePageQuery(1L, null, Sort.Direction.DESC, cursor, 20));
+        messageRepository.findPage(new MessagePageQuery(1L, null, Sort.Direction.ASC, previous, 20));
+        messageRepository.findPage(new MessagePageQuery(null, 2L, Sort.Direction.ASC, cursor, 20));
+        messageRepository.findPage(new MessagePageQuery(1L, 2L, Sort.Direction.ASC, cursor, 20));
+        messageRepository.findPurgeBatchBoundary(1L, timestamp, 10);
+        messageRepository.findMaxSeq(1L);
+        messageRepository.findByChatroomIdAndSeqBetween(1L, 10, 50, 20);
+        messageRepository.deleteByChatroomIdAndTimestampLessThanEqual(1L, timestamp);
+        messageRepository.deleteByChatroomIdAndTimestampIsNull(1L);
+
+        List<BsonDocument> commands = commandListener.getCommands();
+        assertThat(commands).isNotEmpty();
+
+        List<List<String>> indexes = mongoTemplate.indexOps(MessageDocument.class).getIndexInfo().stream()
+                .map(IndexInfo::getIndexFields)
+                .map(fields -> fields.stream().map(IndexField::getKey).toList())
+                .toList();
+
+        for (BsonDocument command : commands) {
+            assertThat(usesDeclaredIndex(command, indexes))
+                    .as("no index leads with a field constrained by %s (indexes: %s)", command.toJson(), indexes)
+                    .isTrue();
+
+            if (EXTERNAL_MONGODB_URI != null) {
+                Document explain = mongoTemplate.getDb().runCommand(new Document()
+                        .append("explain", command)
+                        .append("verbosity", "queryPlanner"));
+                Object winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan");
+
+                assertThat(containsStage(winningPlan, "COLLSCAN"))
+                        .as("COLLSCAN in winning plan for %s", command.toJson())
+                        .isFalse();
+            }
+        }
+    }
+
+    // Mongo 는 인덱스의 첫 필드가 필터로 제한되거나, 필터 없이 첫 필드로 정렬할 때만 인덱스를 쓸 수 있음
+    private boolean usesDeclaredIndex(BsonDocument command, List<List<String>> indexes) {
+        List<BsonDocument> filters = new ArrayList<>();
+        BsonDocument sort = new BsonDocument();
+        switch (command.getFirstKey()) {
+            case "find" -> {
+                filters.add(command.getDocument("filter", new BsonDocument()));
+                sort = command.getDocument("sort", sort);
+            }
+            case "count" -> filters.add(command.getDocument("query", new BsonDocument()));
+            case "delete" -> command.getArray("deletes").forEach(delete -> filters.add(delete.asDocument().getDocument("q")));
+            case "aggregate" -> {
+                BsonDocument first = command.getArray("pipeline").get(0).asDocument();
+                filters.add(first.getDocument("$match", new BsonDocument()));
+            }
+            default -> throw new IllegalArgumentException(command.getFirstKey());
+        }
+
+        for (BsonDocument filter : filters) {
+            Set<String> constrained = constrainedFields(filter);
+            String sortField = sort.isEmpty() ? null : sort.getFirstKey();
+            boolean indexed = indexes.stream().anyMatch(index -> constrained.contains(index.get(0))
+                    || (filter.isEmpty() && index.get(0).equals(sortField)));
+            if (!indexed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 모든 결과가 만족해야 하는 필드 조건 ($and 는 합집합, $or 는 모든 분기에 공통인 필드만)
+    private Set<String> constrainedFields(BsonDocument filter) {
+        Set<String> fields = new HashSet<>();
+        for (var entry : filter.entrySet()) {
+            String key = entry.getKey();
+            if (key.equals("$and")) {
+                for (BsonValue condition : entry.getValue().asArray()) {
+                    fields.addAll(constrainedFields(condition.asDocument()));
+                }
+            } else if (key.equals("$or")) {
+                BsonArray branches = entry.getValue().asArray();
+                Set<String> common = null;
+                for (BsonValue branch : branches) {
+                    Set<String> branchFields = constrainedFields(branch.asDocument());
+                    if (common == null) {
+                        common = branchFields;
+                    } else {
+                        common.retainAll(branchFields);
+                    }
+                }
+                if (common != null) {
+                    fields.addAll(common);
+                }
+            } else if (!key.startsWith("$")) {
+                fields.add(key);
+            }
+        }
+        return fields;
+    }
+
+    private boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+
+    @TestConfiguration
+    static class CommandCaptureConfig {
+
+        @Bean
+        CapturingCommandListener capturingCommandListener() {
+            return new CapturingCommandListener();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCaptureCustomizer(CapturingCommandListener listener) {
+            return builder -> builder.addCommandListener(listener);
+        }
+    }
+
+    // messages 컬렉션 대상 명령을 explain 가능한 형태로 저장
+    static class CapturingCommandListener implements CommandListener {
+
+        private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (!EXPLAINABLE_COMMANDS.contains(event.getCommandName())) {
+                return;
+            }
+            // 드라이버 버퍼는 명령이 끝나면 해제되므로 복사해서 보관
+            BsonDocument command = new BsonDocument();
+            for (var entry : event.getCommand().clone().entrySet()) {
+                String key = entry.getKey();
+                if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                    command.put(key, entry.getValue());
+                }
+            }
+            BsonValue collection = command.get(event.getCommandName());
+            if (collection != null && collection.isString() && collection.asString().getValue().equals("messages")) {
+                commands.add(command);
+            }
+        }
+
+        List<BsonDocument> getCommands() {
+            return commands;
+        }
+
+        void clear() {
+            commands.clear();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.messaging.opensource.message.archive;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.MessageService;
+import com.messaging.opensource.message.bucket.StorageProperties;
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.websocket.cluster.ClusterProperties;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 오래된 메시지를 아카이브로 옮긴 뒤의 조회 범위를 내장 Mongo(mongo-java-server) 에 대해 검증한다.
+ * 채팅방을 지정한 조회는 아카이브를 합쳐 보여주고, 사용자 전체 조회는 messages 만 대상으로 한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "messaging.archive.enabled=true",
+        // 기동 시 예약 실행에서는 아무것도 옮기지 않도록 보존 기간을 길게 둠
+        "messaging.archive.hot-retention=P36500D",
+        "messaging.archive.max-messages-per-second=0"
+})
+class MessageArchiveJobTest {
+
+    private static final Long SENDER_ID = 1L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final MongoServer mongoServer = new MongoServer(new MemoryBackend());
+    private static final Path archiveDirectory = createArchiveDirectory();
+
+    @Autowired
+    private MessageArchiveJob archiveJob;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongoServer.bindAndGetConnectionString() + "/archive_test");
+        registry.add("messaging.archive.directory", archiveDirectory::toString);
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongoServer.shutdownNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 컬렉션을 지우면 기동 시 비동기로 도는 인덱스 생성과 겹칠 수 있으므로 문서만 지움
+        mongoTemplate.remove(new Query(), MessageDocument.class);
+    }
+
+    @Test
+    void senderWideQueriesOnlyReadHotMessages() throws Exception {
+        List<MessageDocument> messages = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            messages.add(MessageDocument.builder()
+                    .chatroomId(11L)
+                    .senderId(SENDER_ID)
+                    .content("message " + i)
+                    .timestamp(BASE.plusDays(i))
+                    .build());
+        }
+        messageRepository.insert(messages);
+
+        // 앞 2 개를 아카이브로 옮김
+        archiveJob.run(BASE.plusDays(2));
+        assertThat(messageRepository.countByChatroomId(11L)).isEqualTo(4);
+
+        assertThat(messageService.getMessagesBySenderIdAndChatroomId(SENDER_ID, 11L))
+                .extracting(MessageDocumentDto::getContent)
+                .containsExactly("message 0", "message 1", "message 2", "message 3");
+        assertThat(messageService.getMessagesBySender(SENDER_ID))
+                .extracting(MessageDocumentDto::getContent)
+                .containsExactly("message 2", "message 3");
+
+        ByteArrayOutputStream lean = new ByteArrayOutputStream();
+        messageService.writeMessagesBySenderLean(SENDER_ID, lean);
+        assertThat(lean.toString()).contains("message 2", "message 3").doesNotContain("message 0", "message 1");
+    }
+
+    @Test
+    void refusesToStartWithClusterEnabled() {
+        ArchiveProperties archiveProperties = new ArchiveProperties();
+        archiveProperties.setEnabled(true);
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setEnabled(true);
+
+        assertThatThrownBy(() -> new MessageArchiveJob(mock(MongoTemplate.class), mock(MessageArchive.class),
+                archiveProperties, new StorageProperties(), clusterProperties, mock(BlockingExecutors.class)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("messaging.cluster.enabled");
+    }
+
+    private static Path createArchiveDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("archive-test");
+            directory.toFile().deleteOnExit();
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
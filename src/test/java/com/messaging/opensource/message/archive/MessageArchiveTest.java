@@ -0,0 +1,135 @@
+package com.messaging.opensource.message.archive;
+
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Sort;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageArchiveTest {
+
+    private static final Long CHATROOM_ID = 7L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsRangesAcrossBlocksAndSegments() throws Exception {
+        MessageArchive archive = open(10, 100);
+        List<MessageDocument> messages = messages(0, 250);
+        archive.completePending(archive.append(CHATROOM_ID, messages.subList(0, 40)));
+        // 마지막 세그먼트가 절반 이하이므로 합쳐서 다시 씀
+        archive.completePending(archive.append(CHATROOM_ID, messages.subList(40, 50)));
+        assertThat(segmentFiles()).hasSize(1);
+        archive.completePending(archive.append(CHATROOM_ID, messages.subList(50, 150)));
+        archive.completePending(archive.append(CHATROOM_ID, messages.subList(150, 250)));
+        assertThat(segmentFiles()).hasSize(3);
+
+        assertThat(archive.count(CHATROOM_ID)).isEqualTo(250);
+        assertThat(archive.find(CHATROOM_ID, Sort.Direction.ASC, 0)).containsExactlyElementsOf(messages);
+        assertThat(archive.find(CHATROOM_ID, Sort.Direction.DESC, 3))
+                .extracting(MessageDocument::getContent)
+                .containsExactly("message 249", "message 248", "message 247");
+        assertThat(archive.findBefore(CHATROOM_ID, messages.get(152).getTimestamp()))
+                .extracting(MessageDocument::getContent)
+                .startsWith("message 151", "message 150", "message 149")
+                .hasSize(152);
+        assertThat(archive.findAfter(CHATROOM_ID, messages.get(247).getTimestamp()))
+                .extracting(MessageDocument::getContent)
+                .containsExactly("message 248", "message 249");
+
+        MessageCursor cursor = new MessageCursor(messages.get(100).getTimestamp(), messages.get(100).getId(),
+                MessageCursor.Direction.NEXT);
+        assertThat(archive.findPage(new MessagePageQuery(CHATROOM_ID, null, Sort.Direction.DESC, cursor, 2)))
+                .extracting(MessageDocument::getContent)
+                .containsExactly("message 99", "message 98", "message 97");
+    }
+
+    @Test
+    void rewritesSegmentsOnDeleteAndReloadsFromDisk() throws Exception {
+        MessageArchive archive = open(16, 100);
+        List<MessageDocument> messages = messages(0, 200);
+        archive.completePending(archive.append(CHATROOM_ID, messages.subList(0, 100)));
+        archive.completePending(archive.append(CHATROOM_ID, messages.subList(100, 200)));
+
+        assertThat(archive.deleteUpTo(CHATROOM_ID, messages.get(119).getTimestamp())).isEqualTo(120);
+        assertThat(archive.deleteBySender(CHATROOM_ID, 1L)).isEqualTo(40);
+
+        MessageArchive reloaded = open(16, 100);
+        assertThat(reloaded.count(CHATROOM_ID)).isEqualTo(40);
+        assertThat(reloaded.find(CHATROOM_ID, Sort.Direction.ASC, 0))
+                .extracting(MessageDocument::getContent)
+                .first()
+                .isEqualTo("message 120");
+        assertThat(reloaded.takeRecovered()).isEmpty();
+    }
+
+    @Test
+    void recoversSegmentsNotYetRemovedFromMongo() throws Exception {
+        MessageArchive archive = open(16, 100);
+        archive.append(CHATROOM_ID, messages(0, 10));
+
+        MessageArchive reloaded = open(16, 100);
+        List<ArchiveSegment> pending = reloaded.takeRecovered();
+        assertThat(pending).hasSize(1);
+        assertThat(pending.get(0).readAll()).hasSize(10);
+
+        reloaded.completePending(pending.get(0));
+        assertThat(open(16, 100).takeRecovered()).isEmpty();
+    }
+
+    @Test
+    void mergesHotAndColdWithoutDuplicates() {
+        List<MessageDocument> messages = messages(0, 6);
+        List<MessageDocument> cold = List.of(messages.get(0), messages.get(1), messages.get(2), messages.get(3));
+        List<MessageDocument> hot = List.of(messages.get(3), messages.get(4), messages.get(5));
+
+        assertThat(MessageMerge.merge(Sort.Direction.ASC, hot, cold, 0, 0)).containsExactlyElementsOf(messages);
+        assertThat(MessageMerge.merge(Sort.Direction.DESC, hot.reversed(), cold.reversed(), 1, 3))
+                .containsExactly(messages.get(4), messages.get(3), messages.get(2));
+    }
+
+    private MessageArchive open(int blockSize, int maxMessagesPerSegment) throws Exception {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDirectory(directory.toString());
+        properties.setBlockSize(blockSize);
+        properties.setMaxMessagesPerSegment(maxMessagesPerSegment);
+        MessageArchive archive = new MessageArchive(properties);
+        archive.load();
+        return archive;
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory.resolve(String.valueOf(CHATROOM_ID)))) {
+            return files.filter(file -> file.toString().endsWith(ArchiveSegment.SUFFIX)).toList();
+        }
+    }
+
+    // 사용자 1, 2 가 번갈아 보낸 메시지 (사용자 1 은 이름 저장 전 메시지)
+    private static List<MessageDocument> messages(int from, int to) {
+        List<MessageDocument> messages = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            messages.add(MessageDocument.builder()
+                    .id(String.format("%024x", i))
+                    .chatroomId(CHATROOM_ID)
+                    .senderId(i % 2 == 0 ? 2L : 1L)
+                    .content("message " + i)
+                    .timestamp(START.plusSeconds(i))
+                    .seq((long) i + 1)
+                    .senderName(i % 2 == 0 ? "user 2" : null)
+                    .build());
+        }
+        return messages;
+    }
+}
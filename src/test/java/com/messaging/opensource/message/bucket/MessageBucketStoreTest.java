@@ -0,0 +1,170 @@
+package com.messaging.opensource.message.bucket;
+
+import com.messaging.opensource.message.entity.MessageBucket;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.pagination.MessageCursor;
+import com.messaging.opensource.message.pagination.MessagePageQuery;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageBucketStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private MessageBucketStore store;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "test");
+
+        StorageProperties properties = new StorageProperties();
+        properties.setBucketWindow(Duration.ofHours(1));
+        properties.setMaxMessagesPerBucket(4);
+        store = new MessageBucketStore(mongoTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void readsMessagesAcrossBucketsInTimeOrder() {
+        // 10분 간격 12개 -> 2개 구간, 구간마다 최대 4개씩 여러 버킷
+        List<MessageDocument> messages = messages(1L, 12, Duration.ofMinutes(10));
+        store.append(messages);
+
+        assertThat(mongoTemplate.count(new Query(), MessageBucket.class))
+                .isGreaterThan(2);
+        assertThat(ids(store.findByChatroom(1L, Sort.Direction.ASC, 0, 0))).isEqualTo(ids(messages));
+        assertThat(ids(store.findByChatroom(1L, Sort.Direction.DESC, 0, 3)))
+                .containsExactly(messages.get(11).getId(), messages.get(10).getId(), messages.get(9).getId());
+        assertThat(ids(store.findAfter(1L, BASE.plusMinutes(95))))
+                .containsExactly(messages.get(10).getId(), messages.get(11).getId());
+        assertThat(ids(store.findBefore(1L, BASE.plusMinutes(15))))
+                .containsExactly(messages.get(1).getId(), messages.get(0).getId());
+        assertThat(store.countByChatroomIds(List.of(1L, 2L))).containsExactly(Map.entry(1L, 12L));
+    }
+
+    @Test
+    void ignoresRetriedAppends() {
+        List<MessageDocument> messages = messages(1L, 3, Duration.ofMinutes(1));
+        store.append(messages);
+        store.append(messages);
+
+        assertThat(ids(store.findByChatroom(1L, Sort.Direction.ASC, 0, 0))).isEqualTo(ids(messages));
+        assertThat(store.countByChatroomIds(List.of(1L))).containsExactly(Map.entry(1L, 3L));
+    }
+
+    @Test
+    void ignoresRetriesThatWouldLandInAnotherBucketOfTheWindow() {
+        // 첫 버킷이 가득 찬 뒤 재시도하면 같은 구간의 새 버킷으로 가지만, 이미 저장된 메시지는 빠짐
+        List<MessageDocument> messages = messages(1L, 6, Duration.ofMinutes(1));
+        store.append(messages.subList(0, 4));
+        store.append(List.of(messages.get(0), messages.get(4)));
+        store.append(messages);
+
+        assertThat(ids(store.findByChatroom(1L, Sort.Direction.ASC, 0, 0))).isEqualTo(ids(messages));
+        assertThat(store.countByChatroomIds(List.of(1L))).containsExactly(Map.entry(1L, 6L));
+        assertThat(mongoTemplate.count(new Query(), MessageBucket.class)).isEqualTo(2);
+    }
+
+    @Test
+    void findsSeqRangeDespiteMissingAndInterleavedSeqs() {
+        // 시간순 순번: 노드 사이 순서가 조금 어긋나고, 순번 없는 이전 메시지가 섞여 있음
+        Long[] seqs = {1L, 2L, 3L, 5L, 4L, 6L, null, 8L, 7L, 9L};
+        List<MessageDocument> messages = messages(1L, seqs.length, Duration.ofMinutes(1));
+        for (int i = 0; i < seqs.length; i++) {
+            messages.get(i).setSeq(seqs[i]);
+        }
+        store.append(messages);
+
+        assertThat(store.findBySeqBetween(1L, 3, 9, 10)).extracting(MessageDocument::getSeq)
+                .containsExactly(4L, 5L, 6L, 7L, 8L);
+        assertThat(store.findBySeqBetween(1L, 3, 9, 2)).extracting(MessageDocument::getSeq)
+                .containsExactly(7L, 8L);
+    }
+
+    @Test
+    void findsMaxSeqOfSeveralRoomsAtOnce() {
+        List<MessageDocument> first = messages(1L, 6, Duration.ofMinutes(20));
+        for (int i = 0; i < first.size(); i++) {
+            first.get(i).setSeq((long) (i == 2 ? 9 : i + 1));
+        }
+        store.append(first);
+        // 순번 도입 전 메시지만 있는 채팅방은 결과에 없음
+        store.append(messages(2L, 2, Duration.ofMinutes(1)));
+
+        assertThat(store.findMaxSeqs(List.of(1L, 2L, 3L))).containsExactly(Map.entry(1L, 9L));
+    }
+
+    @Test
+    void pagesWithCursor() {
+        List<MessageDocument> messages = messages(1L, 10, Duration.ofMinutes(15));
+        store.append(messages);
+
+        List<MessageDocument> first = store.findPage(new MessagePageQuery(1L, null, Sort.Direction.DESC, null, 4));
+        assertThat(first).hasSize(5);
+        MessageDocument last = first.get(3);
+
+        List<MessageDocument> next = store.findPage(new MessagePageQuery(1L, null, Sort.Direction.DESC,
+                new MessageCursor(last.getTimestamp(), last.getId(), MessageCursor.Direction.NEXT), 4));
+        assertThat(ids(next)).containsExactly(messages.get(5).getId(), messages.get(4).getId(),
+                messages.get(3).getId(), messages.get(2).getId(), messages.get(1).getId());
+    }
+
+    @Test
+    void deletesBySenderAndUpToTimestamp() {
+        List<MessageDocument> messages = messages(1L, 8, Duration.ofMinutes(20));
+        store.append(messages);
+
+        assertThat(store.deleteBySender(1L, 1L)).isEqualTo(4);
+        assertThat(store.findBySender(1L)).isEmpty();
+
+        assertThat(store.deleteUpTo(1L, BASE.plusMinutes(60))).isEqualTo(2);
+        assertThat(ids(store.findByChatroom(1L, Sort.Direction.ASC, 0, 0)))
+                .containsExactly(messages.get(4).getId(), messages.get(6).getId());
+    }
+
+    // 보낸 사람은 0, 1 번갈아 가며
+    private List<MessageDocument> messages(Long chatroomId, int count, Duration interval) {
+        List<MessageDocument> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(MessageDocument.builder()
+                    .id(new ObjectId().toHexString())
+                    .chatroomId(chatroomId)
+                    .senderId((long) (i % 2))
+                    .content("message " + i)
+                    .timestamp(BASE.plus(interval.multipliedBy(i)))
+                    .build());
+        }
+        return messages;
+    }
+
+    private List<String> ids(List<MessageDocument> messages) {
+        return messages.stream().map(MessageDocument::getId).toList();
+    }
+}
@@ -0,0 +1,65 @@
+package com.messaging.opensource.message.cache;
+
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomMessageBufferTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final RoomMessageBuffer buffer = new RoomMessageBuffer(3);
+
+    @Test
+    void servesNothingUntilWarmed() {
+        buffer.append(message("1", 0));
+
+        assertThat(buffer.newest(1)).isEmpty();
+        assertThat(buffer.latest()).isEmpty();
+
+        buffer.warm(List.of(message("1", 0), message("0", -1)), false);
+
+        assertThat(ids(buffer.newest(10).orElseThrow())).containsExactly("1", "0");
+        assertThat(buffer.latest().orElseThrow().getId()).isEqualTo("1");
+    }
+
+    @Test
+    void keepsNewestMessagesInTimestampOrder() {
+        buffer.warm(List.of(), false);
+        buffer.append(message("a", 1));
+        buffer.append(message("c", 3));
+        buffer.append(message("b", 2));
+        buffer.append(message("d", 4));
+        buffer.append(message("d", 4));
+
+        assertThat(ids(buffer.newest(3).orElseThrow())).containsExactly("d", "c", "b");
+        // 잘려 나간 메시지가 있으므로 버퍼보다 많은 개수는 Mongo 로 넘김
+        assertThat(buffer.newest(4)).isEmpty();
+    }
+
+    @Test
+    void servesBackfillOnlyWhenRangeIsCovered() {
+        buffer.warm(List.of(message("d", 4), message("c", 3), message("b", 2)), true);
+
+        assertThat(ids(buffer.after(BASE.plusSeconds(2)).orElseThrow())).containsExactly("c", "d");
+        assertThat(buffer.after(BASE.plusSeconds(1))).isEmpty();
+    }
+
+    private MessageDocumentDto message(String id, int secondsOffset) {
+        return MessageDocumentDto.builder()
+                .id(id)
+                .chatroomId(1L)
+                .senderId(1L)
+                .content(id)
+                .timestamp(BASE.plusSeconds(secondsOffset))
+                .build();
+    }
+
+    private List<String> ids(List<MessageDocumentDto> messages) {
+        return messages.stream().map(MessageDocumentDto::getId).toList();
+    }
+}
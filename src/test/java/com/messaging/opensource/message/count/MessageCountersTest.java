@@ -0,0 +1,82 @@
+package com.messaging.opensource.message.count;
+
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.event.MessagesDeletedEvent;
+import com.messaging.opensource.message.event.MessagesSavedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MessageCountersTest {
+
+    private static final Long CHATROOM_ID = 1L;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final MessageCounters counters = new MessageCounters(messageRepository, new MessageCountProperties());
+
+    @Test
+    void correctsDriftOfQuietRoom() {
+        when(messageRepository.countByChatroomIds(anyCollection())).thenReturn(Map.of(CHATROOM_ID, 10L));
+        assertThat(counters.getCount(CHATROOM_ID)).isEqualTo(10);
+
+        // 다른 노드에서 저장된 메시지 5 개는 이벤트로 잡히지 않음
+        when(messageRepository.countByChatroomIds(anyCollection())).thenReturn(Map.of(CHATROOM_ID, 15L));
+        counters.reconcile();
+
+        assertThat(counters.getCount(CHATROOM_ID)).isEqualTo(15);
+    }
+
+    @Test
+    void keepsIncrementsMadeWhileCounting() {
+        when(messageRepository.countByChatroomIds(anyCollection())).thenReturn(Map.of(CHATROOM_ID, 0L));
+        counters.getCount(CHATROOM_ID);
+
+        // 집계 쿼리가 도는 동안 여러 스레드가 저장/삭제 이벤트를 보냄. 집계 결과에는 이 변경이 들어 있지 않음
+        when(messageRepository.countByChatroomIds(anyCollection())).thenAnswer(invocation -> {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread thread = new Thread(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        counters.onMessagesSaved(saved());
+                    }
+                    counters.onMessagesDeleted(new MessagesDeletedEvent(CHATROOM_ID, 7L, 10));
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            return Map.of(CHATROOM_ID, 100L);
+        });
+        counters.reconcile();
+
+        // 다른 노드의 100 개 + 집계 중 이벤트 (4 * 250 - 4 * 10)
+        assertThat(counters.getCount(CHATROOM_ID)).isEqualTo(100 + 1000 - 40);
+    }
+
+    @Test
+    void reconcileIsIdempotentOnceCorrected() {
+        when(messageRepository.countByChatroomIds(anyCollection())).thenReturn(Map.of(CHATROOM_ID, 3L));
+        counters.getCount(CHATROOM_ID);
+        counters.onMessagesSaved(saved());
+
+        when(messageRepository.countByChatroomIds(anyCollection())).thenReturn(Map.of(CHATROOM_ID, 8L));
+        counters.reconcile();
+        counters.reconcile();
+
+        assertThat(counters.getCount(CHATROOM_ID)).isEqualTo(8);
+    }
+
+    private MessagesSavedEvent saved() {
+        return new MessagesSavedEvent(List.of(MessageDocument.builder().chatroomId(CHATROOM_ID).senderId(1L).content("m").build()));
+    }
+}
@@ -0,0 +1,206 @@
+package com.messaging.opensource.message.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageController;
+import com.messaging.opensource.message.MessageService;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.lean.LeanMessageWriter;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 내장 Mongo 에 저장한 메시지를 /chatroom/{id}/export 로 내보내서 NDJSON 형식과 gzip 응답을 확인하고,
+ * 응답이 중간에 끝나면 내보내기가 멈추고 커서가 닫히는지 확인한다.
+ */
+class MessageExporterTest {
+
+    private static final Long CHATROOM_ID = 3L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final MessageService messageService = mock(MessageService.class);
+    private final ExportProperties properties = new ExportProperties();
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private MessageExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (exporter != null) {
+            exporter.shutdown();
+        }
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void exportsOneJsonObjectPerLine() throws Exception {
+        List<String> expected = storeMessages(300);
+
+        MvcResult result = export("/v1/api/messages/chatroom/3/export");
+
+        assertThat(result.getResponse().getContentType()).isEqualTo("application/x-ndjson");
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertNdjson(result.getResponse().getContentAsByteArray(), expected);
+    }
+
+    @Test
+    void exportsGzippedNdjsonThatDecompressesCompletely() throws Exception {
+        List<String> expected = storeMessages(300);
+
+        MvcResult result = export("/v1/api/messages/chatroom/3/export?gzip=true");
+
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        // finish() 로 gzip 트레일러까지 써야 끝까지 읽힘 (아니면 EOFException)
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertNdjson(in.readAllBytes(), expected);
+        }
+    }
+
+    @Test
+    void stopsExportAndClosesCursorWhenResponseEndsMidStream() throws Exception {
+        properties.setChunkSize(64);
+        exporter = new MessageExporter(messageService, properties, new BlockingExecutors(new MockEnvironment()));
+        LeanMessageWriter writer = new LeanMessageWriter(mongoTemplate, objectMapper);
+
+        CountDownLatch firstSent = new CountDownLatch(1);
+        CountDownLatch responseEnded = new CountDownLatch(1);
+        CountDownLatch cursorClosed = new CountDownLatch(1);
+        AtomicInteger produced = new AtomicInteger();
+
+        // 끝나지 않는 커서. 두 번째 메시지를 만들기 전에 응답이 끝나기를 기다림
+        when(messageService.exportMessagesByChatroom(eq(CHATROOM_ID), any())).thenAnswer(invocation -> {
+            Stream<MessageDocument> cursor = Stream.generate(() -> {
+                if (produced.incrementAndGet() == 2) {
+                    firstSent.countDown();
+                    await(responseEnded);
+                }
+                return message(produced.get());
+            }).onClose(cursorClosed::countDown);
+            return writer.write(cursor, invocation.<OutputStream>getArgument(1), LeanMessageWriter.Framing.NDJSON);
+        });
+
+        ResponseBodyEmitter emitter = exporter.export(CHATROOM_ID, false);
+        assertThat(firstSent.await(5, TimeUnit.SECONDS)).isTrue();
+        // 타임아웃이나 연결 끊김으로 응답이 끝난 상황
+        emitter.complete();
+        responseEnded.countDown();
+
+        // 다음 전송에서 EmitterOutputStream.write 가 IOException 을 던져 커서가 닫힘
+        assertThat(cursorClosed.await(5, TimeUnit.SECONDS)).isTrue();
+        int producedWhenClosed = produced.get();
+        Thread.sleep(100);
+        assertThat(produced.get()).isEqualTo(producedWhenClosed);
+        // chunk-size 64 바이트를 넘기는 데 필요한 정도만 더 읽고 멈춤
+        assertThat(producedWhenClosed).isLessThan(10);
+    }
+
+    private MvcResult export(String url) throws Exception {
+        exporter = new MessageExporter(messageService, properties, new BlockingExecutors(new MockEnvironment()));
+        LeanMessageWriter writer = new LeanMessageWriter(mongoTemplate, objectMapper);
+        when(messageService.exportMessagesByChatroom(eq(CHATROOM_ID), any())).thenAnswer(invocation -> writer.write(
+                new Query(Criteria.where("chatroomId").is(CHATROOM_ID)).with(Sort.by(Sort.Direction.ASC, "timestamp")),
+                invocation.<OutputStream>getArgument(1), LeanMessageWriter.Framing.NDJSON));
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new MessageController(messageService, exporter)).build();
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_LENGTH))
+                .andReturn();
+    }
+
+    private List<String> storeMessages(int count) throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            MessageDocument stored = mongoTemplate.insert(message(i));
+            expected.add(objectMapper.writeValueAsString(stored.toDto()));
+        }
+        return expected;
+    }
+
+    // 한 줄에 JSON 객체 하나, 배열 괄호나 쉼표 구분자 없이 줄바꿈으로 끝남
+    private void assertNdjson(byte[] body, List<String> expected) {
+        String text = new String(body, StandardCharsets.UTF_8);
+        assertThat(text).endsWith("\n").doesNotStartWith("[");
+        List<String> lines = List.of(text.split("\n"));
+        assertThat(lines).containsExactlyElementsOf(expected);
+        assertThat(lines).allSatisfy(line -> assertThat(line).startsWith("{").endsWith("}"));
+    }
+
+    private MessageDocument message(int i) {
+        return MessageDocument.builder()
+                .id(new ObjectId().toHexString())
+                .chatroomId(CHATROOM_ID)
+                .senderId(7L)
+                .senderName("김철수")
+                .content("메시지 " + i)
+                .timestamp(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(i))
+                .seq((long) i)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.messaging.opensource.message.journal;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.entity.MessageDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<MessageJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(MessageJournal::close);
+    }
+
+    @Test
+    void replaysFromCheckpointAfterRestart() throws Exception {
+        MessageJournal journal = open();
+        for (int i = 0; i < 10; i++) {
+            journal.append(message(i));
+        }
+
+        JournalBatch first = journal.read(journal.getCheckpoint(), 4);
+        assertThat(contents(first)).containsExactly("message 0", "message 1", "message 2", "message 3");
+        journal.checkpoint(first.nextPosition(), first.records());
+        journal.close();
+
+        MessageJournal reopened = open();
+        assertThat(reopened.pendingCount()).isEqualTo(6);
+        JournalBatch rest = reopened.read(reopened.getCheckpoint(), 100);
+        assertThat(contents(rest)).containsExactly(
+                "message 4", "message 5", "message 6", "message 7", "message 8", "message 9");
+        assertThat(rest.messages().get(0)).isEqualTo(message(4));
+    }
+
+    @Test
+    void rollsSegmentsAndDeletesStoredOnes() throws Exception {
+        MessageJournal journal = open();
+        for (int i = 0; i < 200; i++) {
+            journal.append(message(i));
+        }
+        assertThat(segmentFiles()).hasSizeGreaterThan(2);
+
+        JournalBatch batch = journal.read(journal.getCheckpoint(), 1000);
+        assertThat(batch.size()).isEqualTo(200);
+        assertThat(batch.messages().get(199).getContent()).isEqualTo("message 199");
+
+        journal.checkpoint(batch.nextPosition(), batch.records());
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(journal.pendingCount()).isZero();
+    }
+
+    @Test
+    void ignoresTornRecordAtTheEnd() throws Exception {
+        MessageJournal journal = open();
+        journal.append(message(0));
+        journal.append(message(1));
+        journal.close();
+
+        // 두 번째 레코드 본문 일부가 디스크에 내려가지 않은 상황
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int second = JournalSegment.HEADER_SIZE + buffer.getInt(0);
+            buffer.put(second + JournalSegment.HEADER_SIZE + 3, (byte) 0x7f);
+            buffer.force();
+        }
+
+        MessageJournal reopened = open();
+        assertThat(contents(reopened.read(reopened.getCheckpoint(), 100))).containsExactly("message 0");
+
+        reopened.append(message(2));
+        assertThat(contents(reopened.read(reopened.getCheckpoint(), 100))).containsExactly("message 0", "message 2");
+    }
+
+    private MessageJournal open() throws Exception {
+        JournalProperties properties = new JournalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(DataSize.ofKilobytes(4));
+        MessageJournal journal = new MessageJournal(properties,
+                new BlockingExecutors(new MockEnvironment()), new SimpleMeterRegistry());
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegmentFile).sorted().toList();
+        }
+    }
+
+    private MessageDocument message(int i) {
+        return MessageDocument.builder()
+                .id(String.format("%024x", i))
+                .chatroomId(7L)
+                .senderId((long) i % 3)
+                .content("message " + i)
+                .timestamp(LocalDateTime.of(2025, 3, 1, 9, 0).plusSeconds(i).withNano(123_456_789))
+                .seq((long) i + 1)
+                .senderName("user " + i % 3)
+                .build();
+    }
+
+    private List<String> contents(JournalBatch batch) {
+        return batch.messages().stream().map(MessageDocument::getContent).toList();
+    }
+}
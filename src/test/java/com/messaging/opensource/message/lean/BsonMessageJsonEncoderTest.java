@@ -0,0 +1,94 @@
+package com.messaging.opensource.message.lean;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BsonMessageJsonEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void writesSameJsonAsDto() throws Exception {
+        ObjectId id = new ObjectId();
+        LocalDateTime timestamp = LocalDateTime.of(2025, 3, 1, 9, 30, 15, 120_000_000);
+
+        // Mongo 에 저장된 순서와 다르게 두어도 DTO 필드 순서로 출력되는지 확인
+        Document stored = new Document("timestamp", Date.from(timestamp.atZone(ZoneId.systemDefault()).toInstant()))
+                .append("_id", id)
+                .append("content", "안녕하세요 \"따옴표\"\n줄바꿈 😀")
+                .append("senderId", 7L)
+                .append("chatroomId", 42L)
+                .append("_class", "ignored");
+
+        MessageDocumentDto dto = MessageDocumentDto.builder()
+                .id(id.toHexString())
+                .chatroomId(42L)
+                .senderId(7L)
+                .content("안녕하세요 \"따옴표\"\n줄바꿈 😀")
+                .timestamp(timestamp)
+                .build();
+
+        assertThat(encode(stored)).isEqualTo(objectMapper.writeValueAsString(dto));
+    }
+
+    @Test
+    void formatsTimestampsLikeJacksonAcrossDays() throws Exception {
+        BsonMessageJsonEncoder encoder = new BsonMessageJsonEncoder();
+        LocalDateTime[] timestamps = {
+                LocalDateTime.of(2025, 3, 1, 0, 0, 0),
+                LocalDateTime.of(2025, 3, 1, 23, 59, 59, 999_000_000),
+                LocalDateTime.of(2025, 3, 1, 12, 5, 9, 100_000_000),
+                LocalDateTime.of(2025, 3, 2, 7, 0, 1, 10_000_000),
+                LocalDateTime.of(1999, 12, 31, 18, 30, 0, 1_000_000)
+        };
+
+        for (LocalDateTime timestamp : timestamps) {
+            ObjectId id = new ObjectId();
+            Document stored = new Document("_id", id)
+                    .append("timestamp", Date.from(timestamp.atZone(ZoneId.systemDefault()).toInstant()));
+            MessageDocumentDto dto = MessageDocumentDto.builder().id(id.toHexString()).timestamp(timestamp).build();
+
+            assertThat(encode(encoder, stored)).isEqualTo(objectMapper.writeValueAsString(dto));
+        }
+    }
+
+    @Test
+    void writesNullForMissingFields() throws Exception {
+        ObjectId id = new ObjectId();
+        Document stored = new Document("_id", id).append("chatroomId", 1L);
+
+        assertThat(encode(stored)).isEqualTo(
+                "{\"id\":\"" + id.toHexString() + "\",\"chatroomId\":1,\"senderId\":null,\"content\":null,\"timestamp\":null,\"seq\":null}");
+    }
+
+    private String encode(Document document) throws Exception {
+        return encode(new BsonMessageJsonEncoder(), document);
+    }
+
+    private String encode(BsonMessageJsonEncoder encoder, Document document) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            encoder.write(new RawBsonDocument(document, new DocumentCodec()), generator);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
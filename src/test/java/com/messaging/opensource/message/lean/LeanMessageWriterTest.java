@@ -0,0 +1,83 @@
+package com.messaging.opensource.message.lean;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 내장 Mongo(mongo-java-server) 에 저장한 메시지를 lean 경로로 읽어, projection 까지 포함해 DTO JSON 과 같은지 확인한다.
+ */
+class LeanMessageWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void writesStoredMessagesLikeDto() throws Exception {
+        List<MessageDocument> messages = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            messages.add(MessageDocument.builder()
+                    .id(new ObjectId().toHexString())
+                    .chatroomId(3L)
+                    .senderId((long) i % 2)
+                    .senderName("user " + i % 2)
+                    .content("message \"" + i + "\"")
+                    .timestamp(LocalDateTime.of(2025, 3, 1, 9, 0).plusSeconds(i).withNano(120_000_000))
+                    // 순번 도입 전 메시지는 seq 가 null
+                    .seq(i == 0 ? null : (long) i + 10)
+                    .build());
+        }
+        mongoTemplate.insertAll(messages);
+
+        Query query = new Query(Criteria.where("chatroomId").is(3L)).with(Sort.by(Sort.Direction.ASC, "timestamp"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new LeanMessageWriter(mongoTemplate, objectMapper).write(query, out, LeanMessageWriter.Framing.NDJSON);
+
+        assertThat(written).isEqualTo(4);
+        List<String> expected = new ArrayList<>();
+        for (MessageDocument stored : mongoTemplate.find(query, MessageDocument.class)) {
+            expected.add(objectMapper.writeValueAsString(stored.toDto()));
+        }
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactlyElementsOf(expected);
+        assertThat(expected.get(1)).contains("\"seq\":11");
+    }
+}
@@ -0,0 +1,163 @@
+package com.messaging.opensource.message.pagination;
+
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.MessageService;
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.dto.MessagePageDto;
+import com.messaging.opensource.message.entity.MessageDocument;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 채팅방 keyset 페이지 조회를 내장 Mongo(mongo-java-server) 에 대해 검증한다.
+ * 같은 시간의 메시지가 여러 개여도 (timestamp, id) 순서로 빠짐없이, 중복 없이 이어지는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class MessagePaginationTest {
+
+    private static final Long CHATROOM_ID = 3L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final MongoServer mongoServer = new MongoServer(new MemoryBackend());
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // (timestamp, id) 순서로 정렬된 저장 메시지 ID
+    private final List<String> ascendingIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongoServer.bindAndGetConnectionString() + "/pagination_test");
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongoServer.shutdownNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 컬렉션을 지우면 기동 시 비동기로 도는 인덱스 생성과 겹칠 수 있으므로 문서만 지움
+        mongoTemplate.remove(new Query(), MessageDocument.class);
+
+        // 10 개 메시지를 3 개씩 같은 시간으로 묶음 (id 는 시간 순서와 반대로 섞어서 저장)
+        List<MessageDocument> messages = new ArrayList<>();
+        for (int i = 9; i >= 0; i--) {
+            messages.add(MessageDocument.builder()
+                    .id(String.format("%024x", i + 1))
+                    .chatroomId(CHATROOM_ID)
+                    .senderId(1L)
+                    .content("message " + i)
+                    .timestamp(BASE.plusSeconds(i / 3))
+                    .build());
+        }
+        messageRepository.insert(messages);
+        for (int i = 0; i < 10; i++) {
+            ascendingIds.add(String.format("%024x", i + 1));
+        }
+    }
+
+    @Test
+    void walksForwardAcrossDuplicateTimestampsWithoutGapsOrDuplicates() {
+        List<String> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        MessagePageDto page;
+        do {
+            page = messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.ASC, cursor, 3);
+            page.getMessages().forEach(message -> seen.add(message.getId()));
+            pageSizes.add(page.getMessages().size());
+            cursor = page.getNextCursor();
+        } while (page.isHasNext());
+
+        assertThat(seen).containsExactlyElementsOf(ascendingIds);
+        assertThat(pageSizes).containsExactly(3, 3, 3, 1);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.isHasPrevious()).isTrue();
+    }
+
+    @Test
+    void walksDescendingAndBackWithPreviousCursor() {
+        MessagePageDto first = messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.DESC, null, 4);
+        assertThat(ids(first)).containsExactlyElementsOf(reversed().subList(0, 4));
+        assertThat(first.isHasPrevious()).isFalse();
+        assertThat(first.getPrevCursor()).isNull();
+
+        MessagePageDto second = messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.DESC, first.getNextCursor(), 4);
+        assertThat(ids(second)).containsExactlyElementsOf(reversed().subList(4, 8));
+
+        // 이전 페이지 커서는 같은 페이지를 같은 순서로 다시 돌려줌
+        MessagePageDto back = messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.DESC, second.getPrevCursor(), 4);
+        assertThat(ids(back)).containsExactlyElementsOf(ids(first));
+        assertThat(back.isHasNext()).isTrue();
+        assertThat(back.isHasPrevious()).isFalse();
+    }
+
+    @Test
+    void exactPageBoundaryHasNoNextPage() {
+        MessagePageDto all = messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.ASC, null, 10);
+        assertThat(ids(all)).containsExactlyElementsOf(ascendingIds);
+        assertThat(all.isHasNext()).isFalse();
+        assertThat(all.getNextCursor()).isNull();
+
+        // 마지막 메시지 뒤의 커서는 빈 페이지
+        MessagePageDto firstNine = messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.ASC, null, 9);
+        MessagePageDto last = messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.ASC, firstNine.getNextCursor(), 1);
+        assertThat(ids(last)).containsExactly(ascendingIds.get(9));
+        assertThat(last.isHasNext()).isFalse();
+
+        MessagePageDto empty = messageService.getMessagePageByChatroom(99L, Sort.Direction.ASC, null, 10);
+        assertThat(empty.getMessages()).isEmpty();
+        assertThat(empty.getNextCursor()).isNull();
+        assertThat(empty.getPrevCursor()).isNull();
+    }
+
+    @Test
+    void beforeTimestampExcludesMessagesAtThatTime() {
+        MessagePageDto page = messageService.getMessagePageBeforeTimestamp(CHATROOM_ID, BASE.plusSeconds(1), null, 10);
+
+        assertThat(page.getMessages()).extracting(MessageDocumentDto::getTimestamp).containsOnly(BASE);
+        assertThat(ids(page)).containsExactlyElementsOf(reversed().subList(7, 10));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> messageService.getMessagePageByChatroom(CHATROOM_ID, Sort.Direction.ASC, "not-a-cursor", 10))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private List<String> ids(MessagePageDto page) {
+        return page.getMessages().stream().map(MessageDocumentDto::getId).toList();
+    }
+
+    private List<String> reversed() {
+        return ascendingIds.reversed();
+    }
+}
@@ -0,0 +1,228 @@
+package com.messaging.opensource.message.purge;
+
+import com.messaging.opensource.message.MessageIndexInitializer;
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.entity.PurgeJob;
+import com.messaging.opensource.message.entity.PurgeStatus;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 채팅방 일괄 삭제 작업의 등록, 실행, 재개를 내장 Mongo(mongo-java-server) 에 대해 검증한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "messaging.purge.batch-size=3",
+        "messaging.purge.max-deletes-per-second=0"
+})
+class MessagePurgeJobsTest {
+
+    private static final MongoServer mongoServer = new MongoServer(new MemoryBackend());
+
+    @Autowired
+    private MessagePurgeJobs purgeJobs;
+
+    @Autowired
+    private PurgeJobRepository purgeJobRepository;
+
+    @Autowired
+    private PurgeProperties purgeProperties;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MessageIndexInitializer messageIndexInitializer;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongoServer.bindAndGetConnectionString() + "/purge_test");
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongoServer.shutdownNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 컬렉션을 지우면 기동 시 비동기로 도는 인덱스 생성과 겹칠 수 있으므로 문서만 지움
+        mongoTemplate.remove(new Query(), MessageDocument.class);
+        mongoTemplate.remove(new Query(), PurgeJob.class);
+        messageIndexInitializer.ensureIndexes();
+    }
+
+    @Test
+    void deletesRoomInBatchesAndCompletes() throws Exception {
+        insertMessages(5L, 10);
+        insertMessages(6L, 2);
+
+        PurgeJob job = purgeJobs.submit(5L);
+        assertThat(job.getActiveChatroomId()).isEqualTo(5L);
+
+        PurgeJob finished = awaitStatus(job.getId(), PurgeStatus.COMPLETED);
+        assertThat(finished.getDeletedCount()).isEqualTo(10);
+        assertThat(finished.getDeletedUpTo()).isEqualTo(finished.getCutoff());
+        assertThat(finished.getActiveChatroomId()).isNull();
+        assertThat(messageRepository.countByChatroomId(5L)).isZero();
+        assertThat(messageRepository.countByChatroomId(6L)).isEqualTo(2);
+
+        // 끝난 채팅방은 새 작업으로 다시 삭제할 수 있음
+        PurgeJob next = purgeJobs.submit(5L);
+        assertThat(next.getId()).isNotEqualTo(job.getId());
+        awaitStatus(next.getId(), PurgeStatus.COMPLETED);
+    }
+
+    @Test
+    void concurrentSubmitsShareOneActiveJob() throws Exception {
+        // 앞 작업이 초당 삭제 제한으로 대기하는 동안 뒤 작업은 PENDING 으로 남음
+        purgeProperties.setMaxDeletesPerSecond(5);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            insertMessages(7L, 2);
+            insertMessages(5L, 4);
+            PurgeJob blocker = purgeJobs.submit(7L);
+
+            List<Callable<PurgeJob>> submits = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                submits.add(() -> purgeJobs.submit(5L));
+            }
+            List<String> jobIds = new ArrayList<>();
+            for (Future<PurgeJob> result : callers.invokeAll(submits)) {
+                jobIds.add(result.get().getId());
+            }
+
+            assertThat(jobIds).containsOnly(jobIds.get(0));
+            assertThat(purgeJobRepository.findAll()).extracting(PurgeJob::getChatroomId).containsExactlyInAnyOrder(7L, 5L);
+
+            purgeProperties.setMaxDeletesPerSecond(0);
+            awaitStatus(blocker.getId(), PurgeStatus.COMPLETED);
+            awaitStatus(jobIds.get(0), PurgeStatus.COMPLETED);
+        } finally {
+            purgeProperties.setMaxDeletesPerSecond(0);
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void submitCreatesJobAtomicallyWithoutStartupIndex() throws Exception {
+        // 기동 시 비동기 인덱스 생성이 아직 끝나지 않은 상태
+        mongoTemplate.indexOps(PurgeJob.class).dropIndex("active_chatroom");
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            insertMessages(10L, 2);
+            List<Callable<PurgeJob>> submits = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                submits.add(() -> purgeJobs.submit(10L));
+            }
+            List<String> jobIds = new ArrayList<>();
+            for (Future<PurgeJob> result : callers.invokeAll(submits)) {
+                jobIds.add(result.get().getId());
+            }
+
+            assertThat(jobIds).containsOnly(jobIds.get(0));
+            PurgeJob job = awaitStatus(jobIds.get(0), PurgeStatus.COMPLETED);
+            assertThat(job.getChatroomId()).isEqualTo(10L);
+            assertThat(job.getCutoff()).isNotNull();
+            assertThat(purgeJobRepository.count()).isEqualTo(1);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void uniqueIndexRejectsSecondActiveJobForRoom() {
+        purgeJobRepository.insert(PurgeJob.builder().chatroomId(8L).activeChatroomId(8L).status(PurgeStatus.PENDING).build());
+
+        assertThatThrownBy(() -> purgeJobRepository.insert(
+                PurgeJob.builder().chatroomId(8L).activeChatroomId(8L).status(PurgeStatus.PENDING).build()))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        // 끝난 작업은 activeChatroomId 가 없으므로 몇 개든 남을 수 있음
+        purgeJobRepository.insert(PurgeJob.builder().chatroomId(8L).status(PurgeStatus.COMPLETED).build());
+        purgeJobRepository.insert(PurgeJob.builder().chatroomId(8L).status(PurgeStatus.FAILED).build());
+        assertThat(purgeJobRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void resumesUnfinishedJobFromRecordedProgress() throws Exception {
+        insertMessages(9L, 6);
+        LocalDateTime cutoff = LocalDateTime.now();
+
+        // 이전 실행에서 앞 2 개를 지운 뒤 중단된 작업 (activeChatroomId 가 없는 이전 버전 문서)
+        messageRepository.deleteByChatroomIdAndTimestampLessThanEqual(9L, base().plusSeconds(1));
+        PurgeJob interrupted = purgeJobRepository.insert(PurgeJob.builder()
+                .chatroomId(9L)
+                .status(PurgeStatus.RUNNING)
+                .cutoff(cutoff)
+                .deletedUpTo(base().plusSeconds(1))
+                .deletedCount(2)
+                .createdAt(cutoff)
+                .updatedAt(cutoff)
+                .build());
+
+        // 진행 중인 작업이 있으면 새로 등록하지 않음
+        assertThat(purgeJobs.submit(9L).getId()).isEqualTo(interrupted.getId());
+
+        purgeJobs.resumeOnStartup();
+        PurgeJob finished = awaitStatus(interrupted.getId(), PurgeStatus.COMPLETED);
+        assertThat(finished.getDeletedCount()).isEqualTo(6);
+        assertThat(messageRepository.countByChatroomId(9L)).isZero();
+    }
+
+    private void insertMessages(Long chatroomId, int count) {
+        List<MessageDocument> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(MessageDocument.builder()
+                    .chatroomId(chatroomId)
+                    .senderId(1L)
+                    .content("message " + i)
+                    .timestamp(base().plusSeconds(i))
+                    .build());
+        }
+        messageRepository.insert(messages);
+    }
+
+    private LocalDateTime base() {
+        return LocalDateTime.of(2025, 1, 1, 0, 0);
+    }
+
+    private PurgeJob awaitStatus(String jobId, PurgeStatus status) throws InterruptedException {
+        await(() -> purgeJobs.findJob(jobId).map(job -> job.getStatus() == status).orElse(false));
+        return purgeJobs.findJob(jobId).orElseThrow();
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.messaging.opensource.message.read;
+
+import com.messaging.opensource.message.entity.ReadCursor;
+import com.messaging.opensource.message.sequence.MessageSequencer;
+import com.messaging.opensource.websocket.cluster.ClusterProperties;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadCursorsTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private final StubSequencer sequencer = new StubSequencer();
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void countsUnreadFromRoomSequenceAndReadCursor() {
+        ReadCursors cursors = cursors(new ReadCursorProperties(), false);
+        sequencer.sequences.put(1L, 10L);
+        sequencer.sequences.put(2L, 3L);
+
+        cursors.markRead(7L, 1L, 4);
+        cursors.markRead(7L, 2L, 3);
+        // 뒤로는 가지 않음
+        cursors.markRead(7L, 1L, 2);
+
+        Map<Long, ReadCursors.Unread> unread = cursors.getUnreadCounts(7L);
+        assertThat(unread).containsOnlyKeys(1L, 2L);
+        assertThat(unread.get(1L)).isEqualTo(new ReadCursors.Unread(4, 6));
+        assertThat(unread.get(2L)).isEqualTo(new ReadCursors.Unread(3, 0));
+
+        sequencer.sequences.put(2L, 5L);
+        assertThat(cursors.getUnreadCounts(7L).get(2L).count()).isEqualTo(2);
+        assertThat(cursors.getUnreadCounts(8L)).isEmpty();
+    }
+
+    @Test
+    void persistsCursorsInBatchesAndReloadsThem() {
+        ReadCursors cursors = cursors(new ReadCursorProperties(), false);
+        sequencer.sequences.put(1L, 20L);
+        cursors.markRead(7L, 1L, 5);
+        cursors.markRead(7L, 1L, 9);
+        assertThat(mongoTemplate.findAll(ReadCursor.class)).isEmpty();
+
+        cursors.flush();
+        assertThat(mongoTemplate.findAll(ReadCursor.class))
+                .singleElement()
+                .satisfies(cursor -> {
+                    assertThat(cursor.getId()).isEqualTo("7:1");
+                    assertThat(cursor.getSeq()).isEqualTo(9L);
+                });
+
+        // 다른 노드가 더 앞의 위치를 저장했으면 덮어쓰지 않음
+        ReadCursors other = cursors(new ReadCursorProperties(), false);
+        other.markRead(7L, 1L, 6);
+        other.flush();
+
+        ReadCursors restarted = cursors(new ReadCursorProperties(), false);
+        assertThat(restarted.getUnreadCounts(7L).get(1L)).isEqualTo(new ReadCursors.Unread(9, 11));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUser() {
+        ReadCursorProperties properties = new ReadCursorProperties();
+        properties.setMaxUsers(2);
+        ReadCursors cursors = cursors(properties, false);
+        sequencer.sequences.put(1L, 10L);
+
+        cursors.markRead(7L, 1L, 3);
+        cursors.markRead(8L, 1L, 4);
+        // 7 을 다시 사용했으므로 새 사용자가 오면 8 이 제거됨
+        cursors.getUnreadCounts(7L);
+        cursors.markRead(9L, 1L, 5);
+        cursors.flush();
+        mongoTemplate.remove(new Query(), ReadCursor.class);
+
+        assertThat(cursors.getUnreadCounts(7L)).containsKey(1L);
+        assertThat(cursors.getUnreadCounts(9L)).containsKey(1L);
+        // 제거된 사용자는 저장된 위치를 다시 읽음 (여기서는 지웠으므로 없음)
+        assertThat(cursors.getUnreadCounts(8L)).isEmpty();
+    }
+
+    @Test
+    void reloadsPositionsMovedOnOtherNodesInClusterMode() {
+        ReadCursorProperties properties = new ReadCursorProperties();
+        properties.setReloadInterval(Duration.ZERO);
+        ReadCursors cursors = cursors(properties, true);
+        ReadCursors single = cursors(properties, false);
+        ReadCursors other = cursors(properties, true);
+        sequencer.sequences.put(1L, 10L);
+
+        cursors.markRead(7L, 1L, 2);
+        assertThat(cursors.getUnreadCounts(7L).get(1L)).isEqualTo(new ReadCursors.Unread(2, 8));
+        assertThat(single.getUnreadCounts(7L)).isEmpty();
+
+        other.markRead(7L, 1L, 6);
+        other.flush();
+
+        assertThat(cursors.getUnreadCounts(7L).get(1L)).isEqualTo(new ReadCursors.Unread(6, 4));
+        // 단일 노드 모드는 처음 읽은 뒤 다시 읽지 않음
+        assertThat(single.getUnreadCounts(7L)).isEmpty();
+    }
+
+    private ReadCursors cursors(ReadCursorProperties properties, boolean clustered) {
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setEnabled(clustered);
+        return new ReadCursors(mongoTemplate, sequencer, properties, clusterProperties);
+    }
+
+    private static class StubSequencer implements MessageSequencer {
+
+        private final Map<Long, Long> sequences = new HashMap<>();
+
+        @Override
+        public long next(Long chatroomId) {
+            return sequences.merge(chatroomId, 1L, Long::sum);
+        }
+
+        @Override
+        public Map<Long, Long> current(Collection<Long> chatroomIds) {
+            Map<Long, Long> current = new HashMap<>();
+            chatroomIds.forEach(id -> current.put(id, sequences.getOrDefault(id, 0L)));
+            return current;
+        }
+
+        @Override
+        public void advanceTo(Long chatroomId, long sequence) {
+            sequences.merge(chatroomId, sequence, Math::max);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.messaging.opensource.message.search;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageRepository;
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import com.messaging.opensource.message.entity.MessageDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageSearchIndexTest {
+
+    private static final Long CHATROOM_ID = 1L;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final SearchProperties properties = new SearchProperties();
+    private final BlockingExecutors blockingExecutors = new BlockingExecutors(new MockEnvironment());
+    private MessageSearchIndex searchIndex = new MessageSearchIndex(messageRepository, properties, blockingExecutors);
+
+    @AfterEach
+    void tearDown() {
+        searchIndex.shutdown();
+    }
+
+    @Test
+    void firstSearchWaitsForIndexAndMatchesLaterSearches() {
+        when(messageRepository.findByChatroomIdOrderByTimestampDesc(eq(CHATROOM_ID), any()))
+                .thenReturn(List.of(message("3", "Release PLAN", 3), message("2", "release notes", 2),
+                        message("1", "점심 메뉴", 1)));
+
+        // 색인이 없는 첫 검색도 색인 규칙(대소문자 무시, 단어 중 하나라도 일치, 관련도순)으로 결과를 반환
+        SearchResult cold = searchIndex.search(CHATROOM_ID, "release 메뉴", 0, 10);
+        SearchResult warm = searchIndex.search(CHATROOM_ID, "release 메뉴", 0, 10);
+
+        assertThat(ids(cold)).containsExactly("3", "2", "1");
+        assertThat(ids(warm)).isEqualTo(ids(cold));
+        assertThat(cold.truncated()).isFalse();
+        // offset 으로 이어 받는 다음 페이지도 같은 결과 목록에서 나옴
+        assertThat(ids(searchIndex.search(CHATROOM_ID, "release 메뉴", 1, 10))).containsExactly("2", "1");
+        verify(messageRepository, times(1)).findByChatroomIdOrderByTimestampDesc(eq(CHATROOM_ID), any());
+    }
+
+    @Test
+    void reportsTruncationWhenRoomHasMoreMessagesThanIndexKeeps() {
+        properties.setMaxMessagesPerRoom(2);
+        searchIndex = new MessageSearchIndex(messageRepository, properties, blockingExecutors);
+        when(messageRepository.findByChatroomIdOrderByTimestampDesc(CHATROOM_ID, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message("3", "hello 3", 3), message("2", "hello 2", 2),
+                        message("1", "hello 1", 1)));
+
+        SearchResult result = searchIndex.search(CHATROOM_ID, "hello", 0, 10);
+
+        assertThat(ids(result)).containsExactly("3", "2");
+        assertThat(result.truncated()).isTrue();
+    }
+
+    private MessageDocument message(String id, String content, int minute) {
+        return MessageDocument.builder()
+                .id(id)
+                .chatroomId(CHATROOM_ID)
+                .senderId(1L)
+                .content(content)
+                .timestamp(LocalDateTime.of(2025, 1, 1, 0, minute))
+                .build();
+    }
+
+    private List<String> ids(SearchResult result) {
+        return result.messages().stream().map(MessageDocumentDto::getId).toList();
+    }
+}
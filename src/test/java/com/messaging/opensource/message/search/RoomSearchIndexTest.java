@@ -0,0 +1,134 @@
+package com.messaging.opensource.message.search;
+
+import com.messaging.opensource.message.dto.MessageDocumentDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomSearchIndexTest {
+
+    private final SearchProperties properties = new SearchProperties();
+    private RoomSearchIndex index = new RoomSearchIndex(properties);
+
+    @Test
+    void findsKoreanSubstringsAndRanksByRelevanceThenRecency() {
+        add("1", 1L, "오늘 회의는 세시에 합니다", 0);
+        add("2", 2L, "회의실 예약했어요", 1);
+        add("3", 1L, "점심 뭐 먹을까요", 2);
+        add("4", 3L, "회의 회의 또 회의", 3);
+
+        assertThat(ids(index.search("회의", 0, 10))).containsExactly("4", "2", "1");
+        assertThat(ids(index.search("점심", 0, 10))).containsExactly("3");
+        assertThat(ids(index.search("의실", 0, 10))).containsExactly("2");
+        assertThat(ids(index.search("없는말", 0, 10))).isEmpty();
+    }
+
+    @Test
+    void phraseMatchesRankAboveSingleTermMatches() {
+        add("1", 1L, "회의 자료 공유", 0);
+        add("2", 1L, "자료 정리 후 회의", 1);
+
+        assertThat(ids(index.search("회의 자료", 0, 10))).containsExactly("1", "2");
+    }
+
+    @Test
+    void paginatesAndSkipsDeletedSenders() {
+        for (int i = 0; i < 5; i++) {
+            add(String.valueOf(i), (long) (i % 2), "hello " + i, i);
+        }
+
+        assertThat(ids(index.search("HELLO", 0, 2))).containsExactly("4", "3");
+        assertThat(ids(index.search("hello", 2, 2))).containsExactly("2", "1");
+
+        index.deleteBySender(0L);
+        assertThat(ids(index.search("hello", 0, 10))).containsExactly("3", "1");
+    }
+
+    @Test
+    void ignoresDuplicateIds() {
+        add("1", 1L, "중복 메시지", 0);
+        add("1", 1L, "중복 메시지", 0);
+
+        assertThat(ids(index.search("중복", 0, 10))).containsExactly("1");
+    }
+
+    @Test
+    void matchesAnyQueryWordIgnoringCase() {
+        add("1", 1L, "Release notes", 0);
+        add("2", 1L, "release PLAN", 1);
+        add("3", 1L, "회의 일정", 2);
+        add("4", 1L, "unrelated", 3);
+
+        // 대소문자 구분 없음
+        assertThat(ids(index.search("RELEASE", 0, 10))).containsExactly("2", "1");
+        // 단어 중 하나만 있어도 결과에 포함 (전체 검색어가 부분 문자열일 필요 없음)
+        assertThat(ids(index.search("plan 일정", 0, 10))).containsExactly("3", "2");
+        assertThat(ids(index.search("notes plan", 0, 10))).containsExactly("2", "1");
+    }
+
+    @Test
+    void keepsOnlyMostRecentMessagesPerRoom() {
+        properties.setMaxMessagesPerRoom(3);
+        index = new RoomSearchIndex(properties);
+        for (int i = 0; i < 10; i++) {
+            add(String.valueOf(i), 1L, "hello " + i, i);
+        }
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.isTruncated()).isTrue();
+        assertThat(ids(index.search("hello", 0, 10))).containsExactly("9", "8", "7");
+        // 밀려난 메시지가 쌓이면 색인을 다시 만들어서 메모리가 최대 개수 근처로 유지됨
+        assertThat(index.indexedSize()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void compactsWhenDeletedRatioExceedsThreshold() {
+        for (int i = 0; i < 8; i++) {
+            add(String.valueOf(i), i < 3 ? 1L : 2L, "hello " + i, i);
+        }
+
+        index.deleteBySender(1L);
+        assertThat(index.indexedSize()).isEqualTo(5);
+        assertThat(ids(index.search("hello", 0, 10))).containsExactly("7", "6", "5", "4", "3");
+
+        // 다시 만든 뒤에도 중복 제거와 추가가 동작함
+        add("7", 2L, "hello 7", 7);
+        add("8", 2L, "hello 8", 8);
+        assertThat(ids(index.search("hello", 0, 2))).containsExactly("8", "7");
+    }
+
+    @Test
+    void keepsMessagesSavedDuringBuildNewerThanLoadedOnes() {
+        properties.setMaxMessagesPerRoom(2);
+        index = new RoomSearchIndex(properties);
+        // 색인 구축 중 저장 이벤트로 먼저 들어온 메시지
+        add("9", 1L, "hello 9", 9);
+
+        index.load(List.of(dto("1", 1L, "hello 1", 1), dto("2", 1L, "hello 2", 2)), false);
+
+        // 최대 개수를 넘으면 Mongo 에서 읽은 오래된 메시지부터 밀려남
+        assertThat(ids(index.search("hello", 0, 10))).containsExactly("9", "2");
+        assertThat(index.isTruncated()).isTrue();
+    }
+
+    private void add(String id, Long senderId, String content, int minute) {
+        index.add(dto(id, senderId, content, minute));
+    }
+
+    private MessageDocumentDto dto(String id, Long senderId, String content, int minute) {
+        return MessageDocumentDto.builder()
+                .id(id)
+                .chatroomId(1L)
+                .senderId(senderId)
+                .content(content)
+                .timestamp(LocalDateTime.of(2025, 1, 1, 0, minute))
+                .build();
+    }
+
+    private List<String> ids(List<MessageDocumentDto> messages) {
+        return messages.stream().map(MessageDocumentDto::getId).toList();
+    }
+}
@@ -0,0 +1,65 @@
+package com.messaging.opensource.message.sequence;
+
+import com.messaging.opensource.message.MessageRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocalMessageSequencerTest {
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final LocalMessageSequencer sequencer = new LocalMessageSequencer(messageRepository);
+
+    @Test
+    void continuesAfterUnsavedMessagesOfPreviousRun() {
+        // 저널에 남은 순번 12 까지는 아직 Mongo 에 없음
+        when(messageRepository.findMaxSeq(1L)).thenReturn(10L);
+        sequencer.advanceTo(1L, 12);
+
+        assertThat(sequencer.next(1L)).isEqualTo(13);
+    }
+
+    @Test
+    void keepsStoredSequenceWhenItIsAhead() {
+        when(messageRepository.findMaxSeq(2L)).thenReturn(20L);
+        sequencer.advanceTo(2L, 5);
+
+        assertThat(sequencer.next(2L)).isEqualTo(21);
+    }
+
+    @Test
+    void loadsMissingCountersWithOneQuery() {
+        when(messageRepository.findMaxSeq(4L)).thenReturn(4L);
+        sequencer.next(4L);
+        when(messageRepository.findMaxSeqs(anyCollection())).thenReturn(Map.of(5L, 7L));
+        sequencer.advanceTo(6L, 2);
+
+        assertThat(sequencer.current(List.of(4L, 5L, 6L))).containsOnly(
+                Map.entry(4L, 5L), Map.entry(5L, 7L), Map.entry(6L, 2L));
+        verify(messageRepository).findMaxSeqs(List.of(5L, 6L));
+        verify(messageRepository, never()).findMaxSeq(5L);
+
+        // 만든 카운터는 이후 메모리에서만 읽음
+        sequencer.current(List.of(5L, 6L));
+        verify(messageRepository, times(1)).findMaxSeqs(anyCollection());
+    }
+
+    @Test
+    void advancesCounterThatIsAlreadyLoaded() {
+        when(messageRepository.findMaxSeqs(anyCollection())).thenReturn(Map.of(3L, 1L));
+        assertThat(sequencer.current(List.of(3L))).containsEntry(3L, 1L);
+
+        sequencer.advanceTo(3L, 7);
+
+        assertThat(sequencer.next(3L)).isEqualTo(8);
+    }
+}
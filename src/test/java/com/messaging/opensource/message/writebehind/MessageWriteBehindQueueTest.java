@@ -0,0 +1,226 @@
+package com.messaging.opensource.message.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageService;
+import com.messaging.opensource.message.entity.MessageDocument;
+import com.messaging.opensource.message.journal.JournalProperties;
+import com.messaging.opensource.message.journal.MessageJournal;
+import com.messaging.opensource.message.sequence.MessageSequencer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class MessageWriteBehindQueueTest {
+
+    @TempDir
+    Path directory;
+
+    private final MessageService messageService = mock(MessageService.class);
+    private final WriteBehindProperties properties = new WriteBehindProperties();
+    private final MessageSequencer messageSequencer = mock(MessageSequencer.class);
+
+    // saveAllMessages 호출마다 저장된 메시지 (내용, ID)
+    private final List<List<String>> saved = new ArrayList<>();
+    private final List<String> savedIds = new ArrayList<>();
+
+    private MessageWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void drainsSpilledMessagesAfterQueuedOnesInOrder() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        recordSaves(batch -> {
+            saving.countDown();
+            release.await();
+        });
+        queue = start(BackpressurePolicy.SPILL);
+
+        assertThat(queue.submit(message(0))).isTrue();
+        assertThat(queue.submit(message(1))).isTrue();
+        assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // writer 가 첫 배치를 저장하는 동안 큐(크기 2)가 차면 나머지는 spill
+        for (int i = 2; i < 6; i++) {
+            assertThat(queue.submit(message(i))).isTrue();
+        }
+        assertThat(queue.getStats().getSpilled()).isEqualTo(2);
+
+        release.countDown();
+        await(() -> queue.getStats().getSpilledPending() == 0);
+
+        assertThat(saved).containsExactly(
+                List.of("message 0", "message 1"),
+                List.of("message 2", "message 3"),
+                List.of("message 4", "message 5"));
+    }
+
+    @Test
+    void resumesDrainFromCommittedOffsetAfterPartialFailure() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean failed = new AtomicBoolean();
+        recordSaves(batch -> {
+            if (batch.get(0).getContent().equals("message 0")) {
+                saving.countDown();
+                release.await();
+            }
+            // spill 파일의 두 번째 배치는 처음 한 번 실패
+            if (batch.get(0).getContent().equals("message 6") && failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("mongo unavailable");
+            }
+        });
+        queue = start(BackpressurePolicy.SPILL);
+
+        queue.submit(message(0));
+        queue.submit(message(1));
+        assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 2; i < 8; i++) {
+            queue.submit(message(i));
+        }
+
+        release.countDown();
+        await(() -> failed.get() && savedCount() == 8);
+
+        // 실패 전에 저장한 배치는 다시 저장하지 않음
+        assertThat(saved).containsExactly(
+                List.of("message 0", "message 1"),
+                List.of("message 2", "message 3"),
+                List.of("message 4", "message 5"),
+                List.of("message 6", "message 7"));
+        // spill 한 메시지는 기록할 때 ID 가 정해져서, 다시 읽어도 같은 ID 로 저장됨
+        assertThat(savedIds.stream().filter(Objects::nonNull).toList()).hasSize(4).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void advancesSequencesPastSpilledMessagesOfPreviousRun() throws Exception {
+        // 이전 실행에서 저장하지 못하고 spill 파일에 남은 메시지
+        MessageSpillStore leftover = new MessageSpillStore(directory, new ObjectMapper().findAndRegisterModules());
+        for (int i = 0; i < 3; i++) {
+            MessageDocument message = message(i);
+            message.setSeq((long) i + 11);
+            leftover.append(message);
+        }
+        leftover.close();
+        recordSaves(batch -> {
+        });
+
+        queue = start(BackpressurePolicy.SPILL);
+
+        verify(messageSequencer).advanceTo(7L, 13L);
+        await(() -> savedCount() == 3);
+    }
+
+    @Test
+    void countsUnsavedLinesOfPreviousRunAsPending() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        MessageSpillStore leftover = new MessageSpillStore(directory, objectMapper);
+        leftover.append(List.of(message(0), message(1), message(2)));
+        // 세 줄 중 두 줄은 저장하고 멈춤
+        Path drainFile = leftover.rotateForDrain().get(0);
+        leftover.commit(drainFile, 2);
+        // drain 중에 새로 spill 된 active 파일
+        leftover.append(message(3));
+        leftover.append(message(4));
+        leftover.close();
+
+        MessageSpillStore restarted = new MessageSpillStore(directory, objectMapper);
+
+        assertThat(restarted.hasPending()).isTrue();
+        assertThat(restarted.pendingCount()).isEqualTo(3);
+
+        // 남은 줄을 저장하고 파일을 지우면 0 으로 돌아옴 (이미 commit 된 두 줄은 빼지 않음)
+        for (Path file : restarted.rotateForDrain()) {
+            restarted.complete(file, restarted.read(file).size() - restarted.committed(file));
+        }
+        assertThat(restarted.pendingCount()).isZero();
+        assertThat(restarted.hasPending()).isFalse();
+    }
+
+    private MessageWriteBehindQueue start(BackpressurePolicy policy) {
+        properties.setCapacity(2);
+        properties.setBatchSize(2);
+        // 첫 두 메시지가 한 배치로 묶이도록 넉넉하게 기다림
+        properties.setFlushInterval(Duration.ofMillis(200));
+        properties.setBackpressure(policy);
+        properties.setOfferTimeout(Duration.ofMillis(10));
+        properties.setSpillDirectory(directory.toString());
+        properties.setShutdownTimeout(Duration.ofSeconds(5));
+
+        BlockingExecutors blockingExecutors = new BlockingExecutors(new MockEnvironment());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JournalProperties journalProperties = new JournalProperties();
+        MessageWriteBehindQueue started = new MessageWriteBehindQueue(messageService, properties,
+                new ObjectMapper().findAndRegisterModules(), meterRegistry, blockingExecutors,
+                new MessageJournal(journalProperties, blockingExecutors, meterRegistry), journalProperties,
+                messageSequencer);
+        started.start();
+        return started;
+    }
+
+    // 저장에 성공한 배치만 기록
+    private void recordSaves(SaveHook hook) {
+        doAnswer(invocation -> {
+            List<MessageDocument> batch = invocation.getArgument(0);
+            hook.beforeSave(batch);
+            synchronized (saved) {
+                saved.add(batch.stream().map(MessageDocument::getContent).toList());
+                batch.forEach(message -> savedIds.add(message.getId()));
+            }
+            return List.of();
+        }).when(messageService).saveAllMessages(anyList());
+    }
+
+    private int savedCount() {
+        synchronized (saved) {
+            return saved.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private MessageDocument message(int i) {
+        return MessageDocument.builder()
+                .chatroomId(7L)
+                .senderId(1L)
+                .content("message " + i)
+                .timestamp(LocalDateTime.of(2025, 3, 1, 9, 0).plusSeconds(i))
+                .build();
+    }
+
+    private interface SaveHook {
+        void beforeSave(List<MessageDocument> batch) throws Exception;
+    }
+}
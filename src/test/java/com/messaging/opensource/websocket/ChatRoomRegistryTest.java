@@ -0,0 +1,130 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.websocket.cluster.RoomBackplane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatRoomRegistryTest {
+
+    private final ChatRoomProperties properties = new ChatRoomProperties();
+    private final RoomBackplane roomBackplane = mock(RoomBackplane.class);
+    private final RoomEventLoopGroup eventLoops;
+    private final ChatRoomRegistry registry;
+
+    ChatRoomRegistryTest() {
+        properties.setEventLoopThreads(4);
+        eventLoops = new RoomEventLoopGroup(properties);
+        registry = new ChatRoomRegistry(eventLoops, roomBackplane, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoops.shutdown();
+    }
+
+    @Test
+    void concurrentJoinsAndLeavesKeepMembershipConsistent() throws Exception {
+        List<UserInfo> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            users.add(user("s" + i, 1L + i % 2));
+        }
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch joined = new CountDownLatch(users.size());
+            users.forEach(user -> callers.execute(() -> registry.join(user, room -> joined.countDown())));
+            assertThat(joined.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(registry.getRoomCount()).isEqualTo(2);
+            assertThat(registry.getSessionCount()).isEqualTo(200);
+            assertThat(registry.getMember("s7")).isSameAs(users.get(7));
+            assertThat(roomSize(1L)).isEqualTo(100);
+            verify(roomBackplane, times(1)).roomActivated(1L);
+            verify(roomBackplane, times(1)).roomActivated(2L);
+
+            CountDownLatch left = new CountDownLatch(users.size());
+            users.forEach(user -> callers.execute(() -> registry.leave(user, room -> left.countDown())));
+            assertThat(left.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // 마지막 접속자가 나가면 방과 구독을 정리
+        assertThat(registry.getRoomCount()).isZero();
+        assertThat(registry.getSessionCount()).isZero();
+        verify(roomBackplane).roomDeactivated(1L);
+        verify(roomBackplane).roomDeactivated(2L);
+    }
+
+    @Test
+    void runsTasksOfOneRoomInSubmissionOrderOnOneThread() throws Exception {
+        join(user("s1", 3L));
+
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 1000; i++) {
+            int index = i;
+            registry.dispatch(3L, room -> {
+                order.add(index);
+                threads.add(Thread.currentThread().getName());
+                // 실패한 작업이 루프를 멈추지 않음
+                if (index == 10) {
+                    throw new IllegalStateException("task failed");
+                }
+            });
+        }
+        registry.dispatch(3L, room -> done.countDown());
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(order).hasSize(1000).isSorted();
+        assertThat(threads).containsOnly(threads.get(0));
+    }
+
+    @Test
+    void ignoresTasksForRoomsWithoutMembers() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        registry.dispatch(9L, room -> ran.countDown());
+        registry.schedule(9L, TimeUnit.MILLISECONDS.toNanos(1), room -> ran.countDown());
+
+        assertThat(ran.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    private void join(UserInfo user) throws InterruptedException {
+        CountDownLatch joined = new CountDownLatch(1);
+        registry.join(user, room -> joined.countDown());
+        assertThat(joined.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private int roomSize(Long chatRoomId) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        int[] size = new int[1];
+        registry.dispatch(chatRoomId, room -> {
+            size[0] = room.size();
+            done.countDown();
+        });
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        return size[0];
+    }
+
+    private UserInfo user(String sessionId, Long chatRoomId) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        return new UserInfo("user " + sessionId, (long) sessionId.hashCode(), chatRoomId, session);
+    }
+}
@@ -0,0 +1,100 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.websocket.wire.ChatFrame;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatRoomTest {
+
+    private final WireCodec codec = new WireCodec(new WireProperties());
+    private final List<Long> delivered = new ArrayList<>();
+
+    @Test
+    void deliversInSequenceOrderAndWaitsForGaps() {
+        ChatRoom room = room(3, 100);
+
+        offer(room, 5);
+        offer(room, 7);
+        offer(room, 8);
+        assertThat(delivered).containsExactly(5L);
+        assertThat(room.needsGapTimer()).isTrue();
+        assertThat(room.needsGapTimer()).isFalse();
+
+        offer(room, 6);
+        assertThat(delivered).containsExactly(5L, 6L, 7L, 8L);
+
+        // 늦게 온 메시지와 순번 없는 메시지는 바로 전달
+        offer(room, 4);
+        offer(room, 0);
+        assertThat(delivered).containsExactly(5L, 6L, 7L, 8L, 4L, 0L);
+
+        // 빠진 순번은 타이머가 끝나면 건너뜀
+        offer(room, 11);
+        offer(room, 10);
+        room.flushPending(frame -> delivered.add(frame.sequence()));
+        offer(room, 12);
+        assertThat(delivered).endsWith(10L, 11L, 12L);
+        assertThat(room.lastSequence()).isEqualTo(12);
+
+        // 잡아둔 프레임이 너무 많으면 기다리지 않음
+        for (long sequence = 20; sequence < 24; sequence++) {
+            offer(room, sequence);
+        }
+        assertThat(delivered).endsWith(20L, 21L, 22L, 23L);
+    }
+
+    @Test
+    void skippedSequencesDoNotHoldBackLaterFrames() {
+        ChatRoom room = room(100, 10);
+        offer(room, 1);
+
+        // 2 는 저장 큐가 거절해서 전달되지 않음. 3 이 먼저 와도 skip 되면 바로 전달
+        offer(room, 3);
+        assertThat(delivered).containsExactly(1L);
+        room.skip(2, frame -> delivered.add(frame.sequence()));
+        assertThat(delivered).containsExactly(1L, 3L);
+
+        // 뒤 순번보다 먼저 skip 된 순번도 기다리지 않음
+        room.skip(4, frame -> delivered.add(frame.sequence()));
+        offer(room, 5);
+        assertThat(delivered).containsExactly(1L, 3L, 5L);
+        assertThat(room.lastSequence()).isEqualTo(5);
+        assertThat(room.needsGapTimer()).isFalse();
+        assertThat(room.replayFrom(0)).extracting(ChatRoom.SequencedFrame::sequence).containsExactly(1L, 3L, 5L);
+    }
+
+    @Test
+    void replaysFromWindowOnlyWhenItCoversTheGap() {
+        ChatRoom room = room(100, 5);
+        assertThat(room.replayFrom(0)).isNull();
+
+        for (long sequence = 1; sequence <= 8; sequence++) {
+            offer(room, sequence);
+        }
+
+        assertThat(room.replayFrom(8)).isEmpty();
+        assertThat(room.replayFrom(5)).extracting(ChatRoom.SequencedFrame::sequence).containsExactly(6L, 7L, 8L);
+        assertThat(room.replayFrom(3)).extracting(ChatRoom.SequencedFrame::sequence).containsExactly(4L, 5L, 6L, 7L, 8L);
+        assertThat(room.replayFrom(2)).isNull();
+        assertThat(room.framesAfter(2)).extracting(ChatRoom.SequencedFrame::sequence).containsExactly(4L, 5L, 6L, 7L, 8L);
+    }
+
+    private ChatRoom room(int reorderMaxPending, int replayWindowSize) {
+        ChatRoomProperties properties = new ChatRoomProperties();
+        properties.setReorderMaxPending(reorderMaxPending);
+        properties.setReplayWindowSize(replayWindowSize);
+        return new ChatRoom(1L, properties);
+    }
+
+    private void offer(ChatRoom room, long sequence) {
+        ChatFrame frame = ChatFrame.chat(1L, "a", 1L, sequence, 0L, "message " + sequence);
+        room.offer(new ChatRoom.SequencedFrame(sequence, codec.outbound(frame), null),
+                sequenced -> delivered.add(sequenced.sequence()));
+    }
+}
@@ -0,0 +1,166 @@
+package com.messaging.opensource.websocket;
+
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.websocket.wire.ChatFrame;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProperties;
+import com.messaging.opensource.websocket.wire.WireProtocol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboundSessionDecoratorTest {
+
+    private final OutboundProperties properties = new OutboundProperties();
+    private final WireCodec wireCodec = new WireCodec(new WireProperties());
+    private final OutboundDispatcher dispatcher =
+            new OutboundDispatcher(properties, new BlockingExecutors(new MockEnvironment()), wireCodec);
+    private final WebSocketSession delegate = mock(WebSocketSession.class);
+
+    // 테스트가 직접 실행하는 전송 스레드 (실행 전까지 큐가 비워지지 않음)
+    private final Deque<Runnable> senderTasks = new ArrayDeque<>();
+    private final Executor senderExecutor = senderTasks::addLast;
+
+    OutboundSessionDecoratorTest() {
+        when(delegate.getId()).thenReturn("session-1");
+        when(delegate.isOpen()).thenReturn(true);
+        properties.setQueueCapacity(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void dropOldestKeepsNewestFrames() throws Exception {
+        OutboundSessionDecorator session = decorate(SlowConsumerPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 5; i++) {
+            session.sendMessage(new TextMessage("m" + i));
+        }
+
+        assertThat(session.getQueueSize()).isEqualTo(3);
+        assertThat(session.getHighWaterMark()).isEqualTo(3);
+        assertThat(dispatcher.getDropped()).isEqualTo(2);
+
+        runSender();
+        assertThat(sentPayloads()).containsExactly("m3", "m4", "m5");
+    }
+
+    @Test
+    void coalesceMergesQueuedTextFrames() throws Exception {
+        OutboundSessionDecorator session = decorate(SlowConsumerPolicy.COALESCE);
+        for (int i = 1; i <= 4; i++) {
+            session.sendMessage(new TextMessage("m" + i));
+        }
+
+        assertThat(session.getQueueSize()).isEqualTo(2);
+        assertThat(dispatcher.getCoalesced()).isEqualTo(3);
+        assertThat(dispatcher.getDropped()).isZero();
+
+        runSender();
+        assertThat(sentPayloads()).containsExactly("m1\nm2\nm3", "m4");
+    }
+
+    @Test
+    void coalesceDropsOldestWhenFrameTypesAreMixed() throws Exception {
+        OutboundSessionDecorator session = decorate(SlowConsumerPolicy.COALESCE);
+        session.sendMessage(new TextMessage("m1"));
+        session.sendMessage(new BinaryMessage(new byte[]{1}));
+        session.sendMessage(new TextMessage("m3"));
+        session.sendMessage(new TextMessage("m4"));
+
+        assertThat(session.getQueueSize()).isEqualTo(3);
+        assertThat(dispatcher.getDropped()).isEqualTo(1);
+        assertThat(dispatcher.getCoalesced()).isZero();
+    }
+
+    @Test
+    void disconnectClosesSlowConsumerAndIgnoresLaterFrames() throws Exception {
+        OutboundSessionDecorator session = decorate(SlowConsumerPolicy.DISCONNECT);
+        for (int i = 1; i <= 4; i++) {
+            session.sendMessage(new TextMessage("m" + i));
+        }
+        session.sendMessage(new TextMessage("m5"));
+
+        assertThat(session.getQueueSize()).isZero();
+        assertThat(dispatcher.getDisconnects()).isEqualTo(1);
+
+        runSender();
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(delegate, never()).sendMessage(any());
+    }
+
+    @Test
+    void textSessionsAreNeverBatched() throws Exception {
+        OutboundSessionDecorator session = decorate(SlowConsumerPolicy.DROP_OLDEST);
+        assertThat(session.isBatchingSupported()).isFalse();
+        for (int i = 1; i <= 3; i++) {
+            session.sendBatched(new TextMessage("m" + i), TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        // 배치 대기 없이 바로 전송을 예약하고, 줄바꿈으로 합치지 않음
+        assertThat(senderTasks).hasSize(1);
+        runSender();
+        assertThat(sentPayloads()).containsExactly("m1", "m2", "m3");
+        assertThat(dispatcher.getBatches()).isZero();
+    }
+
+    @Test
+    void binarySessionsMergeBatchedFramesIntoOneBatchFrame() throws Exception {
+        when(delegate.getAcceptedProtocol()).thenReturn(WireProtocol.BINARY_SUBPROTOCOL);
+        OutboundSessionDecorator session = decorate(SlowConsumerPolicy.DROP_OLDEST);
+        assertThat(session.isBatchingSupported()).isTrue();
+        for (int i = 1; i <= 3; i++) {
+            session.sendBatched(wireCodec.outbound(ChatFrame.chat(1L, "user1", 1L, i, 0L, "m" + i)).forSession(delegate),
+                    TimeUnit.MILLISECONDS.toNanos(200));
+        }
+
+        // 배치 창(세 프레임을 넣는 동안 끝나지 않도록 넉넉하게)이 지나면 전송 스레드가 쌓인 프레임을 BATCH 프레임 하나로 보냄
+        ArgumentCaptor<BinaryMessage> captor = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(delegate, timeout(5000)).sendMessage(captor.capture());
+        assertThat(wireCodec.decodeAll(captor.getValue().getPayload()))
+                .extracting(ChatFrame::content)
+                .containsExactly("m1", "m2", "m3");
+        assertThat(dispatcher.getBatches()).isEqualTo(1);
+    }
+
+    private OutboundSessionDecorator decorate(SlowConsumerPolicy policy) {
+        properties.setOverflowPolicy(policy);
+        return new OutboundSessionDecorator(delegate, dispatcher, senderExecutor, properties);
+    }
+
+    private void runSender() {
+        while (!senderTasks.isEmpty()) {
+            senderTasks.pollFirst().run();
+        }
+    }
+
+    private List<String> sentPayloads() throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(delegate, atLeastOnce()).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(message -> ((TextMessage) message).getPayload()).toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.messaging.opensource.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class UserInfoHandshakeInterceptorTest {
+
+    private final UserInfoHandshakeInterceptor interceptor = new UserInfoHandshakeInterceptor();
+
+    @Test
+    void storesUserInfoWithDecodedName() {
+        Map<String, Object> attributes = handshake(headers("%ED%99%8D%EA%B8%B8%EB%8F%99+a%20b", "7", "3"));
+
+        UserInfo userInfo = (UserInfo) attributes.get(UserInfoHandshakeInterceptor.USER_INFO_ATTRIBUTE);
+        assertThat(userInfo.getName()).isEqualTo("홍길동+a b");
+        assertThat(userInfo.getUserId()).isEqualTo(7L);
+        assertThat(userInfo.getChatRoomId()).isEqualTo(3L);
+        assertThat(userInfo.getSession()).isNull();
+        assertThat(attributes).doesNotContainKeys(
+                UserInfoHandshakeInterceptor.ERROR_ATTRIBUTE, UserInfoHandshakeInterceptor.SINCE_SEQUENCE_ATTRIBUTE);
+    }
+
+    @Test
+    void rejectsMissingHeaders() {
+        assertError(headers(null, "7", "3"), "Missing required headers.");
+        assertError(headers("kim", null, "3"), "Missing required headers.");
+        assertError(headers("kim", "7", null), "Missing required headers.");
+    }
+
+    @Test
+    void rejectsNonNumericIds() {
+        assertError(headers("kim", "seven", "3"), "Invalid userId format: seven");
+        assertError(headers("kim", "7", "3a"), "Invalid chatroomId format: 3a");
+    }
+
+    @Test
+    void rejectsMalformedNameEncoding() {
+        assertError(headers("kim%zz", "7", "3"), "Invalid name encoding: kim%zz");
+    }
+
+    @Test
+    void parsesSinceSeq() {
+        MockHttpServletRequest request = headers("kim", "7", "3");
+        request.addHeader("sinceSeq", "42");
+
+        Map<String, Object> attributes = handshake(request);
+
+        assertThat(attributes.get(UserInfoHandshakeInterceptor.SINCE_SEQUENCE_ATTRIBUTE)).isEqualTo(42L);
+        assertThat(attributes).containsKey(UserInfoHandshakeInterceptor.USER_INFO_ATTRIBUTE);
+    }
+
+    @Test
+    void rejectsNegativeOrGarbageSinceSeq() {
+        for (String sinceSeq : new String[]{"-1", "abc", ""}) {
+            MockHttpServletRequest request = headers("kim", "7", "3");
+            request.addHeader("sinceSeq", sinceSeq);
+
+            assertError(request, "Invalid sinceSeq format: " + sinceSeq);
+        }
+    }
+
+    private void assertError(MockHttpServletRequest request, String expected) {
+        Map<String, Object> attributes = handshake(request);
+
+        // 연결은 받아들이고 오류만 남겨서 핸들러가 "Error: ..." 를 보내고 닫게 함
+        assertThat(attributes.get(UserInfoHandshakeInterceptor.ERROR_ATTRIBUTE)).isEqualTo(expected);
+        assertThat(attributes).doesNotContainKeys(
+                UserInfoHandshakeInterceptor.USER_INFO_ATTRIBUTE, UserInfoHandshakeInterceptor.SINCE_SEQUENCE_ATTRIBUTE);
+    }
+
+    private Map<String, Object> handshake(MockHttpServletRequest request) {
+        Map<String, Object> attributes = new HashMap<>();
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(new MockHttpServletResponse()), mock(WebSocketHandler.class), attributes);
+        assertThat(accepted).isTrue();
+        return attributes;
+    }
+
+    private MockHttpServletRequest headers(String name, String userId, String chatRoomId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/chat");
+        if (name != null) {
+            request.addHeader("name", name);
+        }
+        if (userId != null) {
+            request.addHeader("userId", userId);
+        }
+        if (chatRoomId != null) {
+            request.addHeader("chatRoomId", chatRoomId);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,166 @@
+package com.messaging.opensource.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messaging.opensource.concurrent.BlockingExecutors;
+import com.messaging.opensource.message.MessageService;
+import com.messaging.opensource.message.cache.RecentMessageCache;
+import com.messaging.opensource.message.journal.JournalProperties;
+import com.messaging.opensource.message.journal.JournalSyncMode;
+import com.messaging.opensource.message.journal.MessageJournal;
+import com.messaging.opensource.message.read.ReadCursors;
+import com.messaging.opensource.message.sequence.MessageSequencer;
+import com.messaging.opensource.message.writebehind.MessageWriteBehindQueue;
+import com.messaging.opensource.message.writebehind.WriteBehindProperties;
+import com.messaging.opensource.websocket.cluster.RoomBackplane;
+import com.messaging.opensource.websocket.wire.ChatFrame;
+import com.messaging.opensource.websocket.wire.OutboundFrame;
+import com.messaging.opensource.websocket.wire.WireCodec;
+import com.messaging.opensource.websocket.wire.WireProperties;
+import com.messaging.opensource.websocket.wire.WireProtocol;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketChatHandlerTest {
+
+    private final BroadcastStats broadcastStats = new BroadcastStats();
+    private final WireCodec wireCodec = new WireCodec(new WireProperties());
+    private final WebSocketChatHandler handler = new WebSocketChatHandler(null, null, broadcastStats, null, null, null,
+            wireCodec, null, null, new ChatRoomProperties(), null, new BlockingExecutors(new MockEnvironment()));
+
+    @AfterEach
+    void tearDown() {
+        handler.shutdown();
+    }
+
+    @Test
+    void encodesEachBroadcastOncePerProtocol() throws Exception {
+        ChatRoom room = new ChatRoom(1L, new ChatRoomProperties());
+        WebSocketSession sender = session("session-0", null);
+        room.add(new UserInfo("user0", 0L, 1L, sender));
+        WebSocketSession[] recipients = new WebSocketSession[100];
+        for (int i = 0; i < recipients.length; i++) {
+            recipients[i] = session("session-" + (i + 1), null);
+            room.add(new UserInfo("user" + (i + 1), (long) i + 1, 1L, recipients[i]));
+        }
+
+        OutboundFrame frame = handler.encodeFrame(ChatFrame.chat(0L, "user0", 1L, 1L, 0L, "hello"));
+        handler.sendFrameToChatRoom(room, frame, "session-0");
+
+        assertThat(broadcastStats.getFramesAllocated()).isEqualTo(1);
+        assertThat(broadcastStats.getDeliveries()).isEqualTo(100);
+        for (WebSocketSession recipient : recipients) {
+            verify(recipient).sendMessage(any());
+        }
+        verify(sender, never()).sendMessage(any());
+
+        // 같은 프레임을 다시 보내면 인코딩하지 않음
+        handler.sendFrameToChatRoom(room, frame, "session-0");
+        assertThat(broadcastStats.getFramesAllocated()).isEqualTo(1);
+        verify(recipients[0], times(2)).sendMessage(any(WebSocketMessage.class));
+    }
+
+    @Test
+    void countsOneEncodingPerProtocolInMixedRoom() throws Exception {
+        ChatRoom room = new ChatRoom(1L, new ChatRoomProperties());
+        for (int i = 0; i < 10; i++) {
+            String protocol = i % 2 == 0 ? null : WireProtocol.BINARY_SUBPROTOCOL;
+            room.add(new UserInfo("user" + i, (long) i, 1L, session("session-" + i, protocol)));
+        }
+
+        handler.sendFrameToChatRoom(room, handler.encodeFrame(ChatFrame.chat(0L, "user0", 1L, 1L, 0L, "hello")), null);
+
+        assertThat(broadcastStats.getFramesAllocated()).isEqualTo(2);
+        assertThat(broadcastStats.getDeliveries()).isEqualTo(10);
+    }
+
+    @Test
+    void doesNotDeliverMessagesTheFullJournalRejects(@TempDir Path directory) throws Exception {
+        // Mongo 저장이 계속 실패해서 저널 세그먼트가 비워지지 않음
+        MessageService messageService = mock(MessageService.class);
+        when(messageService.saveAllMessages(anyList())).thenThrow(new IllegalStateException("mongo down"));
+
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setEnabled(true);
+        journalProperties.setDirectory(directory.toString());
+        journalProperties.setSegmentSize(DataSize.ofBytes(1024));
+        journalProperties.setMaxSegments(1);
+        journalProperties.setSync(JournalSyncMode.INTERVAL);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BlockingExecutors blockingExecutors = new BlockingExecutors(new MockEnvironment());
+        MessageJournal journal = new MessageJournal(journalProperties, blockingExecutors, meterRegistry);
+        MessageWriteBehindQueue queue = new MessageWriteBehindQueue(messageService, new WriteBehindProperties(),
+                new ObjectMapper().findAndRegisterModules(), meterRegistry, blockingExecutors, journal, journalProperties,
+                mock(MessageSequencer.class));
+
+        ChatRoomRegistry chatRoomRegistry = mock(ChatRoomRegistry.class);
+        RoomBackplane roomBackplane = mock(RoomBackplane.class);
+        RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+        ReadCursors readCursors = mock(ReadCursors.class);
+        WebSocketChatHandler chatHandler = new WebSocketChatHandler(queue, chatRoomRegistry, broadcastStats, null,
+                roomBackplane, recentMessageCache, wireCodec, mock(MessageSequencer.class), null,
+                new ChatRoomProperties(), readCursors, blockingExecutors);
+
+        WebSocketSession sender = session("session-0", null);
+        when(chatRoomRegistry.getMember("session-0")).thenReturn(new UserInfo("user0", 0L, 1L, sender));
+
+        journal.open();
+        queue.start();
+        try {
+            int total = 100;
+            for (int i = 0; i < total; i++) {
+                chatHandler.handleTextMessage(sender, new TextMessage("message " + i));
+            }
+
+            ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.forClass(WebSocketMessage.class);
+            verify(sender, atLeastOnce()).sendMessage(sent.capture());
+            int rejected = sent.getAllValues().size();
+            int accepted = total - rejected;
+            assertThat(sent.getAllValues()).extracting(message -> ((TextMessage) message).getPayload())
+                    .containsOnly(WebSocketChatHandler.SAVE_FAILED_MESSAGE);
+            assertThat(accepted).isPositive();
+            assertThat(queue.getStats().getDropped()).isEqualTo(rejected);
+
+            // 저널에 기록된 메시지만 채팅방 루프, 다른 노드, 최근 메시지 캐시, 읽음 위치로 전달됨
+            verify(chatRoomRegistry, times(accepted)).dispatch(eq(1L), any());
+            verify(roomBackplane, times(accepted)).publish(any());
+            verify(recentMessageCache, times(accepted)).append(any());
+            verify(readCursors, times(accepted)).markRead(eq(0L), eq(1L), anyLong());
+        } finally {
+            queue.stop();
+            journal.close();
+            chatHandler.shutdown();
+        }
+    }
+
+    private WebSocketSession session(String id, String protocol) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.getAcceptedProtocol()).thenReturn(protocol);
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
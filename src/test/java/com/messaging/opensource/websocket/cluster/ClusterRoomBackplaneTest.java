@@ -0,0 +1,102 @@
+package com.messaging.opensource.websocket.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterRoomBackplaneTest {
+
+    private final InMemoryClusterTransport transport = new InMemoryClusterTransport();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ClusterRoomBackplane nodeA = createNode("node-a");
+    private final ClusterRoomBackplane nodeB = createNode("node-b");
+    private final ClusterRoomBackplane nodeC = createNode("node-c");
+
+    @AfterEach
+    void tearDown() {
+        nodeA.stop();
+        nodeB.stop();
+        nodeC.stop();
+    }
+
+    @Test
+    void deliversBatchedEventsInOrderOnlyToOtherSubscribedNodes() throws InterruptedException {
+        List<RoomEvent> receivedByA = new CopyOnWriteArrayList<>();
+        List<RoomEvent> receivedByB = new CopyOnWriteArrayList<>();
+        List<RoomEvent> receivedByC = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        nodeA.setListener(receivedByA::add);
+        nodeB.setListener(event -> {
+            receivedByB.add(event);
+            latch.countDown();
+        });
+        nodeC.setListener(receivedByC::add);
+
+        nodeA.roomActivated(1L);
+        nodeB.roomActivated(1L);
+        nodeC.roomActivated(2L);
+
+        nodeA.publish(RoomEvent.system(1L, "a님이 대화방에 들어오셨습니다."));
+        nodeA.publish(RoomEvent.chat(1L, "session-a", "a", "a : first", null));
+        nodeA.publish(RoomEvent.chat(1L, "session-a", "a", "a : second", null));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(receivedByB).extracting(RoomEvent::payload)
+                .containsExactly("a님이 대화방에 들어오셨습니다.", "a : first", "a : second");
+        assertThat(receivedByA).isEmpty();
+        assertThat(receivedByC).isEmpty();
+    }
+
+    @Test
+    void stopsDeliveringAfterRoomDeactivated() throws InterruptedException {
+        List<RoomEvent> receivedByB = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        nodeB.setListener(event -> {
+            receivedByB.add(event);
+            latch.countDown();
+        });
+
+        nodeB.roomActivated(1L);
+        nodeB.roomDeactivated(1L);
+        nodeA.publish(RoomEvent.chat(1L, "session-a", "a", "a : hello", null));
+
+        assertThat(latch.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(receivedByB).isEmpty();
+    }
+
+    @Test
+    void dropsEventsWhenPendingQueueIsFull() {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setNodeId("node-d");
+        properties.setPendingCapacity(2);
+        // publisher 스레드를 시작하지 않아서 큐가 비워지지 않음
+        ClusterRoomBackplane stalled = new ClusterRoomBackplane(transport.connect(), objectMapper, properties);
+
+        for (int i = 0; i < 5; i++) {
+            stalled.publish(RoomEvent.chat(1L, "session-d", "d", "d : " + i, null));
+        }
+
+        assertThat(stalled.getDropped()).isEqualTo(3);
+    }
+
+    private ClusterRoomBackplane createNode(String nodeId) {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setEnabled(true);
+        properties.setNodeId(nodeId);
+        properties.setPublishInterval(Duration.ofMillis(5));
+
+        ClusterRoomBackplane backplane = new ClusterRoomBackplane(transport.connect(), objectMapper, properties);
+        backplane.start();
+        return backplane;
+    }
+}
@@ -0,0 +1,50 @@
+package com.messaging.opensource.websocket.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 같은 JVM 안의 여러 노드를 흉내 내는 Redis 대체 전송 계층.
+ * 노드마다 {@link #connect()} 로 연결을 하나씩 만들고, 같은 인스턴스에서 나온 연결끼리 메시지를 주고받는다.
+ */
+public class InMemoryClusterTransport {
+
+    // Key - channel
+    private final Map<String, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+
+    public ClusterTransport connect() {
+        return new Connection();
+    }
+
+    private final class Connection implements ClusterTransport {
+
+        private final Map<String, Consumer<byte[]>> consumers = new ConcurrentHashMap<>();
+
+        @Override
+        public void publish(String channel, byte[] payload) {
+            for (Connection connection : subscribers.getOrDefault(channel, Set.of())) {
+                Consumer<byte[]> consumer = connection.consumers.get(channel);
+                if (consumer != null) {
+                    consumer.accept(payload);
+                }
+            }
+        }
+
+        @Override
+        public void subscribe(String channel, Consumer<byte[]> consumer) {
+            consumers.put(channel, consumer);
+            subscribers.computeIfAbsent(channel, key -> ConcurrentHashMap.newKeySet()).add(this);
+        }
+
+        @Override
+        public void unsubscribe(String channel) {
+            consumers.remove(channel);
+            subscribers.computeIfPresent(channel, (key, connections) -> {
+                connections.remove(this);
+                return connections.isEmpty() ? null : connections;
+            });
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.messaging.opensource.websocket.wire;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WireCodecTest {
+
+    private final WireCodec codec = new WireCodec(new WireProperties());
+
+    @Test
+    void binaryFrameRoundTripsAndIsSmallerThanText() {
+        ChatFrame frame = ChatFrame.chat(12345L, "홍길동", 678L, 42L, 1_700_000_000_000L, "안녕하세요");
+        OutboundFrame outbound = codec.outbound(frame);
+
+        BinaryMessage binary = outbound.binary(true);
+
+        assertThat(codec.decode(binary.getPayload())).isEqualTo(frame);
+        assertThat(outbound.text().getPayload()).isEqualTo("홍길동 : 안녕하세요");
+        assertThat(binary.getPayloadLength()).isLessThan(outbound.text().getPayloadLength() + 16);
+    }
+
+    @Test
+    void deflatesContentAboveThresholdOnly() {
+        ChatFrame large = ChatFrame.system(1L, 1L, 0L, "공지 ".repeat(400));
+        ChatFrame small = ChatFrame.system(1L, 2L, 0L, "공지");
+
+        byte[] compressed = codec.outbound(large).binary(true).getPayload().array();
+        byte[] uncompressed = codec.outbound(large).binary(false).getPayload().array();
+
+        assertThat(compressed[1] & WireCodec.FLAG_DEFLATED).isNotZero();
+        assertThat(uncompressed[1] & WireCodec.FLAG_DEFLATED).isZero();
+        assertThat(compressed.length).isLessThan(uncompressed.length / 4);
+        assertThat(codec.decode(ByteBuffer.wrap(compressed))).isEqualTo(large);
+        assertThat(codec.outbound(small).binary(true).getPayload().array()[1] & WireCodec.FLAG_DEFLATED).isZero();
+    }
+
+    @Test
+    void mergesFramesOfTheSameProtocol() {
+        ChatFrame first = ChatFrame.chat(1L, "a", 7L, 1L, 0L, "first");
+        ChatFrame second = ChatFrame.chat(2L, "b", 7L, 2L, 0L, "second");
+
+        BinaryMessage batch = (BinaryMessage) codec.merge(List.of(
+                codec.outbound(first).binary(true), codec.outbound(second).binary(true)));
+        TextMessage lines = (TextMessage) codec.merge(List.of(
+                codec.outbound(first).text(), codec.outbound(second).text()));
+
+        assertThat(codec.decodeAll(batch.getPayload())).containsExactly(first, second);
+        assertThat(lines.getPayload()).isEqualTo("a : first\nb : second");
+        assertThat(codec.merge(List.of(codec.outbound(first).text(), codec.outbound(second).binary(true)))).isNull();
+    }
+
+    @Test
+    void decodesInboundChatFrame() {
+        BinaryMessage message = inbound(0, "hello".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(codec.decodeInbound(message)).isEqualTo("hello");
+    }
+
+    @Test
+    void rejectsMalformedAndOversizedInboundFrames() {
+        byte[] tooLarge = new byte[new WireProperties().getMaxInboundContentBytes() + 1];
+
+        assertThatThrownBy(() -> codec.decodeInbound(new BinaryMessage(new byte[]{1})))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decodeInbound(inbound(0, tooLarge)))
+                .isInstanceOf(IllegalArgumentException.class);
+        // 압축 해제 후 크기도 제한. SYSTEM 프레임 헤더는 type, flags + 1 byte varint 5개
+        byte[] encoded = codec.outbound(ChatFrame.system(1L, 1L, 0L, "a".repeat(tooLarge.length)))
+                .binary(true).getPayload().array();
+        byte[] deflated = Arrays.copyOfRange(encoded, 7, encoded.length);
+        assertThatThrownBy(() -> codec.decodeInbound(inbound(WireCodec.FLAG_DEFLATED, deflated)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decodesReadAcks() {
+        // 300 = varint 0xAC 0x02
+        BinaryMessage binaryAck = new BinaryMessage(new byte[]{WireCodec.TYPE_ACK, 0, (byte) 0xAC, 0x02});
+
+        assertThat(codec.decodeAck(binaryAck)).isEqualTo(300);
+        assertThat(codec.decodeAck(inbound(0, "hello".getBytes(StandardCharsets.UTF_8)))).isEqualTo(-1);
+        assertThat(codec.decodeAck(new TextMessage(WireCodec.TEXT_ACK + "42"))).isEqualTo(42);
+        assertThat(codec.decodeAck(new TextMessage("42"))).isEqualTo(-1);
+        assertThatThrownBy(() -> codec.decodeAck(new TextMessage(WireCodec.TEXT_ACK + "x")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decodeAck(new BinaryMessage(new byte[]{WireCodec.TYPE_ACK, 0})))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BinaryMessage inbound(int flags, byte[] content) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(ChatFrame.Type.CHAT.code);
+        output.write(flags);
+        output.writeBytes(content);
+        return new BinaryMessage(output.toByteArray());
+    }
+}